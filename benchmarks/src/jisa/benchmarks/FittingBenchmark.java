@@ -0,0 +1,53 @@
+package jisa.benchmarks;
+
+import jisa.maths.fits.Fitting;
+import jisa.maths.fits.PolyFit;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of a polynomial fit against the number of data points being fitted.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(2)
+public class FittingBenchmark {
+
+    @Param({"100", "1000"})
+    public int points;
+
+    @Param({"1", "3"})
+    public int degree;
+
+    private List<Double> x;
+    private List<Double> y;
+
+    @Setup
+    public void setUp() {
+
+        Random random = new Random(1);
+
+        x = new ArrayList<>(points);
+        y = new ArrayList<>(points);
+
+        for (int i = 0; i < points; i++) {
+            double xv = (double) i / points;
+            x.add(xv);
+            y.add(1.0 + 2.0 * xv - 3.0 * xv * xv + random.nextGaussian() * 1e-3);
+        }
+
+    }
+
+    @Benchmark
+    public PolyFit polyFit() {
+        return Fitting.polyFit(x, y, degree);
+    }
+
+}
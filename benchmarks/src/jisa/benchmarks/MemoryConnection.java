@@ -0,0 +1,53 @@
+package jisa.benchmarks;
+
+import jisa.visa.Connection;
+import jisa.visa.VISAException;
+
+/**
+ * In-memory stand-in for an instrument connection. Everything written is counted and discarded, every read returns
+ * the same canned response.
+ */
+public class MemoryConnection implements Connection {
+
+    private final byte[] response;
+    private       long   written = 0;
+
+    public MemoryConnection(String response) {
+        this.response = response.getBytes();
+    }
+
+    public long getBytesWritten() {
+        return written;
+    }
+
+    @Override
+    public void writeBytes(byte[] bytes) {
+        written += bytes.length;
+    }
+
+    @Override
+    public void clear() {
+
+    }
+
+    @Override
+    public byte[] readBytes(int bufferSize) {
+        return response.clone();
+    }
+
+    @Override
+    public void setReadTerminator(long terminator) {
+
+    }
+
+    @Override
+    public void setTimeout(int duration) {
+
+    }
+
+    @Override
+    public void close() {
+
+    }
+
+}
@@ -0,0 +1,51 @@
+package jisa.benchmarks;
+
+import jisa.gui.GUI;
+import jisa.gui.JISAChart;
+import jisa.gui.Series;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of adding a point to a live plot series from a measurement (ie non-GUI) thread. Requires a display, since the
+ * JavaFX toolkit must be running.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class PlotSeriesBenchmark {
+
+    @Param({"true", "false"})
+    public boolean markers;
+
+    private JISAChart chart;
+    private Series    series;
+    private double    x = 0.0;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+
+        GUI.touch();
+
+        chart  = new JISAChart();
+        series = chart.createSeries().setMarkerVisible(markers);
+        x      = 0.0;
+
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        series.remove();
+    }
+
+    @Benchmark
+    public Series addPoint() {
+        x += 1.0;
+        return series.addPoint(x, Math.sin(x / 100.0));
+    }
+
+}
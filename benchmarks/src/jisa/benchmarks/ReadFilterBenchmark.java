@@ -0,0 +1,71 @@
+package jisa.benchmarks;
+
+import jisa.control.*;
+import jisa.devices.DeviceException;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of taking a filtered reading from each ReadFilter implementation, given an instantaneous source value.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class ReadFilterBenchmark {
+
+    @Param({"Bypass", "MeanRepeat", "MeanMoving", "MedianRepeat", "MedianMoving"})
+    public String type;
+
+    @Param({"10", "100"})
+    public int count;
+
+    private ReadFilter filter;
+    private double     value = 0.0;
+
+    @Setup
+    public void setUp() throws IOException, DeviceException {
+
+        Returnable<Double>     source = () -> value += 1e-3;
+        ReadFilter.Setupable setUp  = c -> { };
+
+        switch (type) {
+
+            case "MeanRepeat":
+                filter = new MeanRepeatFilter(source, setUp);
+                break;
+
+            case "MeanMoving":
+                filter = new MeanMovingFilter(source, setUp);
+                break;
+
+            case "MedianRepeat":
+                filter = new MedianRepeatFilter(source, setUp);
+                break;
+
+            case "MedianMoving":
+                filter = new MedianMovingFilter(source, setUp);
+                break;
+
+            default:
+                filter = new BypassFilter(source, setUp);
+                break;
+
+        }
+
+        filter.setCount(count);
+        filter.setUp();
+        filter.clear();
+
+    }
+
+    @Benchmark
+    public double getValue() throws IOException, DeviceException {
+        return filter.getValue();
+    }
+
+}
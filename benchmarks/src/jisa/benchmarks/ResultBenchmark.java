@@ -0,0 +1,47 @@
+package jisa.benchmarks;
+
+import jisa.experiment.Result;
+import jisa.experiment.ResultList;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of formatting a single row for output (as done for every row written by a ResultStream).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class ResultBenchmark {
+
+    @Param({"3", "10"})
+    public int columns;
+
+    private Result row;
+
+    @Setup
+    public void setUp() {
+
+        String[] names = new String[columns];
+        double[] data  = new double[columns];
+
+        for (int i = 0; i < columns; i++) {
+            names[i] = String.format("Column %d", i);
+            data[i]  = Math.PI * Math.pow(10, i - 5);
+        }
+
+        ResultList list = new ResultList(names);
+        list.addData(data);
+        row = list.getRow(0);
+
+    }
+
+    @Benchmark
+    public String getOutput() {
+        return row.getOutput(",");
+    }
+
+}
@@ -0,0 +1,78 @@
+package jisa.benchmarks;
+
+import jisa.experiment.Col;
+import jisa.experiment.ResultList;
+import jisa.experiment.ResultStream;
+import jisa.experiment.ResultTable;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of adding a single row to each ResultTable implementation, with and without a calculated column.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class ResultTableBenchmark {
+
+    @Param({"ResultList", "ResultStream"})
+    public String type;
+
+    @Param({"false", "true"})
+    public boolean calculated;
+
+    private ResultTable table;
+    private double      value = 0.0;
+
+    @Setup(Level.Iteration)
+    public void setUp() throws IOException {
+
+        Col[] columns;
+
+        if (calculated) {
+            columns = new Col[]{
+                new Col("Voltage", "V"),
+                new Col("Current", "A"),
+                new Col("Temperature", "K"),
+                new Col("Resistance", "Ohm", r -> r.get(0) / r.get(1))
+            };
+        } else {
+            columns = new Col[]{
+                new Col("Voltage", "V"),
+                new Col("Current", "A"),
+                new Col("Temperature", "K")
+            };
+        }
+
+        switch (type) {
+
+            case "ResultStream":
+                table = new ResultStream(columns);
+                break;
+
+            default:
+                table = new ResultList(columns);
+                break;
+
+        }
+
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        table.finalise();
+    }
+
+    @Benchmark
+    public ResultTable addData() {
+        value += 1.0;
+        table.addData(value, 1e-6 * value, 300.0);
+        return table;
+    }
+
+}
@@ -0,0 +1,45 @@
+package jisa.benchmarks;
+
+import jisa.visa.VISADevice;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Overhead added by VISADevice on top of the connection itself, measured against an in-memory connection.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class VISADeviceBenchmark {
+
+    private VISADevice device;
+
+    @Setup
+    public void setUp() throws IOException {
+        device = new VISADevice(new MemoryConnection("+1.234567E-03\r\n"), null);
+        device.setWriteTerminator("\n");
+        device.addAutoRemove("\u0000");
+    }
+
+    @Benchmark
+    public VISADevice write() throws IOException {
+        device.write(":SOUR:VOLT %e", 1.5);
+        return device;
+    }
+
+    @Benchmark
+    public double readDouble() throws IOException {
+        return device.readDouble();
+    }
+
+    @Benchmark
+    public double queryDouble() throws IOException {
+        return device.queryDouble(":MEAS:CURR?");
+    }
+
+}
@@ -0,0 +1,357 @@
+package jisa.control;
+
+import jisa.Util;
+import jisa.devices.DeviceException;
+import jisa.devices.interfaces.TC;
+import jisa.devices.interfaces.TMeter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+
+/**
+ * Polls registered quantities (eg temperatures) in the background on a shared scheduler, caching the most recent
+ * reading of each so that any number of consumers can use it without each making their own round-trip to the
+ * instrument. Consumers state how old a reading they are willing to accept; if the cached reading is older than that,
+ * a fresh one is taken there and then (and shared with everyone else).
+ */
+public class Monitor {
+
+    private static Monitor defaultMonitor = null;
+
+    private final ScheduledExecutorService    scheduler;
+    private final Map<List<Object>, Quantity> quantities = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a monitor whose polling is shared between the given number of threads. Quantities on the same
+     * instrument are still read one at a time, since instrument communication is synchronised.
+     *
+     * @param threads Number of polling threads
+     */
+    public Monitor(int threads) {
+
+        scheduler = Executors.newScheduledThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "JISA Monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+    }
+
+    public Monitor() {
+        this(2);
+    }
+
+    /**
+     * Returns the monitor shared by the whole program.
+     *
+     * @return Shared monitor
+     */
+    public static synchronized Monitor getDefault() {
+
+        if (defaultMonitor == null) {
+            defaultMonitor = new Monitor();
+        }
+
+        return defaultMonitor;
+
+    }
+
+    /**
+     * Registers a quantity to be polled at the given interval. If a quantity with the same source and name is already
+     * registered, that one is returned instead (with its interval shortened if the new interval is shorter).
+     *
+     * @param source   Object the quantity belongs to (eg instrument)
+     * @param name     Name of the quantity
+     * @param value    Code to read the quantity
+     * @param interval Polling interval, in milliseconds
+     *
+     * @return Registered quantity
+     */
+    public Quantity watch(Object source, String name, Returnable<Double> value, long interval) {
+
+        Quantity quantity = quantities.computeIfAbsent(List.of(source, name), k -> new Quantity(name, value, interval));
+
+        if (interval < quantity.getInterval()) {
+            quantity.setInterval(interval);
+        }
+
+        return quantity;
+
+    }
+
+    /**
+     * Registers a quantity, with no particular source object, to be polled at the given interval.
+     *
+     * @param name     Name of the quantity
+     * @param value    Code to read the quantity
+     * @param interval Polling interval, in milliseconds
+     *
+     * @return Registered quantity
+     */
+    public Quantity watch(String name, Returnable<Double> value, long interval) {
+        return watch(value, name, value, interval);
+    }
+
+    public Quantity watchTemperature(TMeter thermometer, long interval) {
+        return watch(thermometer, "Temperature", thermometer::getTemperature, interval);
+    }
+
+    public Quantity watchTargetTemperature(TC controller, long interval) {
+        return watch(controller, "Target Temperature", controller::getTargetTemperature, interval);
+    }
+
+    public Quantity watchHeaterPower(TC controller, long interval) {
+        return watch(controller, "Heater Power", controller::getHeaterPower, interval);
+    }
+
+    public Quantity watchFlow(TC controller, long interval) {
+        return watch(controller, "Flow", controller::getFlow, interval);
+    }
+
+    /**
+     * Stops polling the given quantity and removes it from this monitor.
+     *
+     * @param quantity Quantity to remove
+     */
+    public void remove(Quantity quantity) {
+        quantities.values().remove(quantity);
+        quantity.stop();
+    }
+
+    /**
+     * Stops polling all quantities and shuts down the polling threads.
+     */
+    public void shutdown() {
+        quantities.values().forEach(Quantity::stop);
+        quantities.clear();
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * A single timestamped reading.
+     */
+    public static class Reading {
+
+        private final double value;
+        private final long   time;
+        private final long   nanoTime;
+
+        private Reading(double value) {
+            this.value    = value;
+            this.time     = System.currentTimeMillis();
+            this.nanoTime = System.nanoTime();
+        }
+
+        public double getValue() {
+            return value;
+        }
+
+        /**
+         * Returns when this reading was taken.
+         *
+         * @return UNIX timestamp, in milliseconds
+         */
+        public long getTime() {
+            return time;
+        }
+
+        /**
+         * Returns how long ago this reading was taken.
+         *
+         * @return Age, in milliseconds
+         */
+        public long getAge() {
+            return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - nanoTime);
+        }
+
+    }
+
+    public interface Listener {
+
+        void newReading(Reading reading);
+
+    }
+
+    /**
+     * A quantity being polled by a Monitor. Can be used anywhere a Returnable&lt;Double&gt; is expected, in which case
+     * readings up to one polling interval old are accepted.
+     */
+    public class Quantity implements Returnable<Double> {
+
+        private final    String             name;
+        private final    Returnable<Double> value;
+        private final    List<Listener>     listeners = new CopyOnWriteArrayList<>();
+        private          long               interval;
+        private          ScheduledFuture<?> future;
+        private volatile Reading            latest    = null;
+        private volatile Exception          error     = null;
+
+        private Quantity(String name, Returnable<Double> value, long interval) {
+            this.name     = name;
+            this.value    = value;
+            this.interval = interval;
+            schedule();
+        }
+
+        private synchronized void schedule() {
+
+            if (future != null) {
+                future.cancel(false);
+            }
+
+            future = scheduler.scheduleWithFixedDelay(this::poll, 0, interval, TimeUnit.MILLISECONDS);
+
+        }
+
+        private void poll() {
+
+            try {
+                refresh();
+            } catch (Exception e) {
+
+                // Only report an error once, rather than every time it is polled
+                if (error == null || !error.getClass().equals(e.getClass())) {
+                    Util.errLog.printf("Error polling \"%s\": %s\n", name, e.getMessage());
+                }
+
+                error = e;
+
+            }
+
+        }
+
+        private synchronized Reading refresh() throws IOException, DeviceException {
+
+            Reading reading = new Reading(value.get());
+
+            latest = reading;
+            error  = null;
+
+            for (Listener listener : listeners) {
+                listener.newReading(reading);
+            }
+
+            return reading;
+
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getInterval() {
+            return interval;
+        }
+
+        /**
+         * Changes how often this quantity is polled.
+         *
+         * @param interval Polling interval, in milliseconds
+         */
+        public synchronized void setInterval(long interval) {
+            this.interval = interval;
+            schedule();
+        }
+
+        /**
+         * Returns the most recent reading, no matter how old, or null if no reading has been taken yet.
+         *
+         * @return Most recent reading
+         */
+        public Reading getLatest() {
+            return latest;
+        }
+
+        /**
+         * Returns the exception thrown by the most recent poll, or null if it succeeded.
+         *
+         * @return Last polling error
+         */
+        public Exception getError() {
+            return error;
+        }
+
+        /**
+         * Returns a reading no older than the given age, reading the quantity there and then if the cached reading
+         * is too old.
+         *
+         * @param maxAge Maximum acceptable age, in milliseconds
+         *
+         * @return Reading
+         *
+         * @throws IOException     Upon communication error
+         * @throws DeviceException Upon compatibility error
+         */
+        public Reading getReading(long maxAge) throws IOException, DeviceException {
+
+            Reading reading = latest;
+
+            if (reading != null && reading.getAge() <= maxAge) {
+                return reading;
+            }
+
+            synchronized (this) {
+
+                // Someone else may have refreshed it while we were waiting
+                reading = latest;
+
+                if (reading != null && reading.getAge() <= maxAge) {
+                    return reading;
+                }
+
+                return refresh();
+
+            }
+
+        }
+
+        /**
+         * Returns a value no older than the given age, reading the quantity there and then if the cached value is too
+         * old.
+         *
+         * @param maxAge Maximum acceptable age, in milliseconds
+         *
+         * @return Value
+         *
+         * @throws IOException     Upon communication error
+         * @throws DeviceException Upon compatibility error
+         */
+        public double get(long maxAge) throws IOException, DeviceException {
+            return getReading(maxAge).getValue();
+        }
+
+        @Override
+        public Double get() throws IOException, DeviceException {
+            return get(interval);
+        }
+
+        /**
+         * Adds a listener to be called with every new reading of this quantity, on whichever thread took it.
+         *
+         * @param listener Listener to add
+         *
+         * @return The added listener
+         */
+        public Listener addListener(Listener listener) {
+            listeners.add(listener);
+            return listener;
+        }
+
+        public void removeListener(Listener listener) {
+            listeners.remove(listener);
+        }
+
+        private synchronized void stop() {
+
+            if (future != null) {
+                future.cancel(false);
+                future = null;
+            }
+
+        }
+
+    }
+
+}
@@ -2,18 +2,68 @@ package jisa.control;
 
 import jisa.Util;
 
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.concurrent.*;
 
 public class RTask {
 
-    private long      interval;
-    private Task      toRun;
-    private boolean   running = false;
-    private long      started;
-    private int       iteration;
-    private Timer     timer   = new Timer();
-    private TimerTask task;
+    /*
+     * All tasks share one timing thread, which only hands each due task over to a pool of worker threads. This way
+     * a slow task cannot hold up any others, and we don't need a thread per task sitting idle between runs. These
+     * threads are daemons so that they never stop the program from exiting on their own, but a (non-daemon)
+     * keep-alive thread exists while any task is running, so a program still won't end while it has a task running.
+     */
+    private static final ScheduledExecutorService TIMER   = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "RTask Timer");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MAX_PRIORITY);
+        return thread;
+    });
+
+    private static final ExecutorService          WORKERS = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "RTask Worker");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final Object                   ALIVE   = new Object();
+    private static       int                      active  = 0;
+
+    private final long               interval;
+    private final Task               toRun;
+    private       Overrun            overrun    = Overrun.SKIP;
+    private       boolean            running    = false;
+    private       long               started;
+    private       long               deadline;
+    private       int                iteration;
+    private       int                generation = 0;
+    private       ScheduledFuture<?> future;
+    private       long               lateCount;
+    private       double             lateMean;
+    private       double             lateM2;
+    private       long               lateMax;
+    private       long               missed;
+
+    /**
+     * Creates a repeating task to run at the given interval.
+     *
+     * @param interval Interval, in the given units
+     * @param unit     Units of the interval
+     * @param toRun    Code to run at each interval
+     */
+    public RTask(long interval, TimeUnit unit, Task toRun) {
+
+        if (interval <= 0) {
+            throw new IllegalArgumentException("Interval must be positive.");
+        }
+
+        this.interval = unit.toNanos(interval);
+        this.toRun    = toRun;
+
+    }
+
+    public RTask(long interval, TimeUnit unit, SRunnable toRun) {
+        this(interval, unit, (task) -> toRun.run());
+    }
 
     /**
      * Creates a repeating task to run at the given interval.
@@ -22,14 +72,30 @@ public class RTask {
      * @param toRun    Code to run at each interval
      */
     public RTask(long interval, Task toRun) {
-        this.interval = interval;
-        this.toRun = toRun;
+        this(interval, TimeUnit.MILLISECONDS, toRun);
     }
 
     public RTask(long interval, SRunnable toRun) {
         this(interval, (task) -> toRun.run());
     }
 
+    /**
+     * Sets what should happen when a run of the task takes longer than the interval, causing one or more subsequent
+     * runs to be missed. Defaults to SKIP.
+     *
+     * @param overrun Overrun policy
+     *
+     * @return Self, for chaining
+     */
+    public synchronized RTask setOverrunPolicy(Overrun overrun) {
+        this.overrun = overrun;
+        return this;
+    }
+
+    public synchronized Overrun getOverrunPolicy() {
+        return overrun;
+    }
+
     /**
      * Start the timer to periodically run the task.
      */
@@ -39,25 +105,105 @@ public class RTask {
             return;
         }
 
-        started = System.currentTimeMillis();
+        started   = System.nanoTime();
+        deadline  = started;
         iteration = 0;
+        lateCount = 0;
+        lateMean  = 0;
+        lateM2    = 0;
+        lateMax   = 0;
+        missed    = 0;
+        running   = true;
+
+        retain();
+
+        // Runs from a previous start() still in progress will see that the generation has changed and not reschedule
+        int current = ++generation;
+        future = TIMER.schedule(() -> dispatch(current), 0, TimeUnit.NANOSECONDS);
+
+    }
+
+    private void dispatch(int current) {
 
-        task = new TimerTask() {
+        try {
+            WORKERS.execute(() -> execute(current));
+        } catch (RejectedExecutionException e) {
+            Util.errLog.printf("Could not run repeat task: \"%s\"\n", e.getMessage());
+        }
+
+    }
+
+    private void execute(int current) {
+
+        long late;
+
+        synchronized (this) {
+
+            if (!running || current != generation) {
+                return;
+            }
+
+            late = Math.max(0, System.nanoTime() - deadline);
+
+            // Welford's algorithm for running mean and variance
+            lateCount++;
+            double delta = late - lateMean;
+            lateMean += delta / lateCount;
+            lateM2 += delta * (late - lateMean);
+            lateMax = Math.max(lateMax, late);
+
+        }
+
+        try {
+            toRun.run(RTask.this);
+        } catch (Throwable e) {
+            Util.errLog.printf("Exception encountered running repeat task: \"%s\"\n", e.getMessage());
+            e.printStackTrace();
+        }
+
+        synchronized (this) {
+
+            if (current != generation) {
+                return;
+            }
+
+            iteration++;
+
+            if (!running) {
+                return;
+            }
+
+            long now = System.nanoTime();
+
+            // Always schedule from the original time grid, so that timing errors don't accumulate
+            deadline += interval;
+
+            if (now > deadline) {
+
+                long behind = (now - deadline) / interval;
+
+                switch (overrun) {
+
+                    case SKIP:
+                        missed   += behind + 1;
+                        deadline += (behind + 1) * interval;
+                        break;
+
+                    case COALESCE:
+                        missed += behind;
+                        deadline = now;
+                        break;
+
+                    case CATCH_UP:
+                        break;
 
-            public void run() {
-                try {
-                    toRun.run(RTask.this);
-                } catch (Throwable e) {
-                    Util.errLog.printf("Exception encountered running repeat task: \"%s\"\n", e.getMessage());
-                    e.printStackTrace();
                 }
-                iteration++;
+
             }
 
-        };
+            future = TIMER.schedule(() -> dispatch(current), deadline - now, TimeUnit.NANOSECONDS);
 
-        timer.scheduleAtFixedRate(task, 0, interval);
-        running = true;
+        }
 
     }
 
@@ -70,9 +216,60 @@ public class RTask {
             return;
         }
 
-        task.cancel();
+        future.cancel(false);
         running = false;
 
+        release();
+
+    }
+
+    /**
+     * Registers a newly started task, starting the keep-alive thread if it is the only one running.
+     */
+    private static void retain() {
+
+        synchronized (ALIVE) {
+
+            if (active++ > 0) {
+                return;
+            }
+
+            Thread keeper = new Thread(() -> {
+
+                synchronized (ALIVE) {
+
+                    while (active > 0) {
+
+                        try {
+                            ALIVE.wait();
+                        } catch (InterruptedException e) {
+                            return;
+                        }
+
+                    }
+
+                }
+
+            }, "RTask Keep-Alive");
+
+            // Would otherwise inherit daemon status from whichever thread called start()
+            keeper.setDaemon(false);
+            keeper.start();
+
+        }
+
+    }
+
+    /**
+     * Unregisters a stopped task, letting the keep-alive thread end if no others are running.
+     */
+    private static void release() {
+
+        synchronized (ALIVE) {
+            active--;
+            ALIVE.notifyAll();
+        }
+
     }
 
     /**
@@ -80,17 +277,35 @@ public class RTask {
      *
      * @return Running?
      */
-    public boolean isRunning() {
+    public synchronized boolean isRunning() {
         return running;
     }
 
+    /**
+     * Returns the interval between runs of this task.
+     *
+     * @return Interval, in nanoseconds
+     */
+    public long getInterval() {
+        return interval;
+    }
+
     /**
      * Returns the number of milliseconds that have elapsed since the task was started.
      *
      * @return Time running, in milliseconds
      */
     public long getMSecFromStart() {
-        return System.currentTimeMillis() - started;
+        return TimeUnit.NANOSECONDS.toMillis(getNSecFromStart());
+    }
+
+    /**
+     * Returns the number of nanoseconds that have elapsed since the task was started.
+     *
+     * @return Time running, in nanoseconds
+     */
+    public long getNSecFromStart() {
+        return System.nanoTime() - started;
     }
 
     /**
@@ -99,7 +314,7 @@ public class RTask {
      * @return Time running, in seconds
      */
     public double getSecFromStart() {
-        return ((double) getMSecFromStart()) / 1000D;
+        return getNSecFromStart() / 1e9;
     }
 
     /**
@@ -111,10 +326,69 @@ public class RTask {
         return iteration;
     }
 
+    /**
+     * Returns how many scheduled runs have been skipped (or merged together) due to previous runs overrunning since
+     * the timer was last started. Always zero when using the CATCH_UP policy.
+     *
+     * @return Number of missed runs
+     */
+    public synchronized long getMissedCount() {
+        return missed;
+    }
+
+    /**
+     * Returns the mean amount by which each run started after its scheduled time.
+     *
+     * @return Mean lateness, in milliseconds
+     */
+    public synchronized double getMeanJitter() {
+        return lateMean / 1e6;
+    }
+
+    /**
+     * Returns the standard deviation of the amount by which each run started after its scheduled time.
+     *
+     * @return Standard deviation of lateness, in milliseconds
+     */
+    public synchronized double getJitterStdDev() {
+        return lateCount < 2 ? 0.0 : Math.sqrt(lateM2 / (lateCount - 1)) / 1e6;
+    }
+
+    /**
+     * Returns the largest amount by which any run started after its scheduled time.
+     *
+     * @return Maximum lateness, in milliseconds
+     */
+    public synchronized double getMaxJitter() {
+        return lateMax / 1e6;
+    }
+
     public interface Task {
 
         void run(RTask task) throws Exception;
 
     }
 
+    /**
+     * What to do when a run of the task takes longer than the interval.
+     */
+    public enum Overrun {
+
+        /**
+         * Drop any runs that were missed, carrying on from the next scheduled time.
+         */
+        SKIP,
+
+        /**
+         * Run missed runs back-to-back until caught up with the schedule.
+         */
+        CATCH_UP,
+
+        /**
+         * Do a single run straight away in place of all those missed, then continue at the interval from then.
+         */
+        COALESCE
+
+    }
+
 }
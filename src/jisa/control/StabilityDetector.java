@@ -0,0 +1,382 @@
+package jisa.control;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Decides whether a stream of readings has become stable, doing a constant (amortised) amount of work per reading
+ * regardless of how long the stability window is. Readings are considered stable once every reading over at least the
+ * required duration has been within a percentage margin of every other reading in that period (or of a fixed target
+ * value), and optionally once the fitted slope and standard deviation over that period are small enough.
+ */
+public class StabilityDetector {
+
+    private final Double         target;
+    private final double         margin;
+    private final long           duration;
+    private final Deque<Sample>  window    = new ArrayDeque<>();
+    private final Deque<Sample>  minima    = new ArrayDeque<>();
+    private final Deque<Sample>  maxima    = new ArrayDeque<>();
+    private       double         maxSlope  = Double.POSITIVE_INFINITY;
+    private       double         maxStdDev = Double.POSITIVE_INFINITY;
+    private       long           origin    = Long.MIN_VALUE;
+    private       long           start     = 0;
+    private       double         runMin    = Double.NaN;
+    private       double         runMax    = Double.NaN;
+    private       long           base      = 0;
+    private       int            removed   = 0;
+    private       double         sumT      = 0;
+    private       double         sumV      = 0;
+    private       double         sumTT     = 0;
+    private       double         sumTV     = 0;
+    private       double         sumVV     = 0;
+    private       boolean        stable    = false;
+
+    private StabilityDetector(Double target, double pctMargin, long duration) {
+        this.target   = target;
+        this.margin   = pctMargin / 100.0;
+        this.duration = duration;
+    }
+
+    /**
+     * Creates a detector that considers readings stable once they have all remained within the given percentage
+     * margin of each other for at least the given amount of time.
+     *
+     * @param pctMargin Percentage margin
+     * @param duration  Minimum time, in milliseconds
+     *
+     * @return Stability detector
+     */
+    public static StabilityDetector relative(double pctMargin, long duration) {
+        return new StabilityDetector(null, pctMargin, duration);
+    }
+
+    /**
+     * Creates a detector that considers readings stable once they have all remained within the given percentage
+     * margin of a target value for at least the given amount of time.
+     *
+     * @param target    Target value
+     * @param pctMargin Percentage margin
+     * @param duration  Minimum time, in milliseconds
+     *
+     * @return Stability detector
+     */
+    public static StabilityDetector target(double target, double pctMargin, long duration) {
+        return new StabilityDetector(target, pctMargin, duration);
+    }
+
+    /**
+     * Additionally requires the slope of a straight line fitted to the readings in the stability window to be no
+     * steeper than the given value.
+     *
+     * @param perSecond Maximum magnitude of slope, in units per second
+     *
+     * @return Self, for chaining
+     */
+    public synchronized StabilityDetector setMaxSlope(double perSecond) {
+        maxSlope = Math.abs(perSecond);
+        return this;
+    }
+
+    /**
+     * Additionally requires the standard deviation of the readings in the stability window to be no larger than the
+     * given value.
+     *
+     * @param stdDev Maximum standard deviation
+     *
+     * @return Self, for chaining
+     */
+    public synchronized StabilityDetector setMaxStdDev(double stdDev) {
+        maxStdDev = stdDev;
+        return this;
+    }
+
+    /**
+     * Adds a reading taken now.
+     *
+     * @param value Reading
+     *
+     * @return Whether the readings are now stable
+     */
+    public boolean add(double value) {
+        return add(System.nanoTime() / 1000000L, value);
+    }
+
+    /**
+     * Adds a reading taken at the given time. Readings must be added in time order.
+     *
+     * @param time  Time of reading, in milliseconds
+     * @param value Reading
+     *
+     * @return Whether the readings are now stable
+     */
+    public synchronized boolean add(long time, double value) {
+
+        if (origin == Long.MIN_VALUE) {
+            origin = time;
+        }
+
+        Sample sample = new Sample(time - origin, value);
+
+        if (target != null) {
+
+            // Anything outside the target band means starting again
+            if (!withinMargin(value, target)) {
+                clear();
+                stable = false;
+                return false;
+            }
+
+        } else {
+
+            // The run may have started before the oldest reading still kept, so check against its extremes too
+            boolean continues = !window.isEmpty() && withinMargin(value, runMin) && withinMargin(value, runMax);
+
+            // Drop the oldest readings until the new one is within margin of all those that remain, since it need only
+            // be checked against the smallest and largest of them.
+            while (!window.isEmpty() && !(withinMargin(value, minima.getFirst().value) && withinMargin(value, maxima.getFirst().value))) {
+                removeOldest();
+                continues = false;
+            }
+
+            if (!continues && !window.isEmpty()) {
+                start  = window.getFirst().time;
+                runMin = minima.getFirst().value;
+                runMax = maxima.getFirst().value;
+            }
+
+        }
+
+        if (window.isEmpty()) {
+            start  = sample.time;
+            base   = sample.time;
+            runMin = value;
+            runMax = value;
+        }
+
+        runMin = Math.min(runMin, value);
+        runMax = Math.max(runMax, value);
+
+        window.addLast(sample);
+
+        while (!minima.isEmpty() && minima.getLast().value >= value) {
+            minima.removeLast();
+        }
+
+        while (!maxima.isEmpty() && maxima.getLast().value <= value) {
+            maxima.removeLast();
+        }
+
+        minima.addLast(sample);
+        maxima.addLast(sample);
+
+        double t = sample.time - base;
+
+        sumT  += t;
+        sumV  += value;
+        sumTT += t * t;
+        sumTV += t * value;
+        sumVV += value * value;
+
+        // Only the last "duration" worth of readings count towards the slope and standard deviation, so drop the oldest
+        // for as long as what remains still covers that
+        while (window.size() > 1 && sample.time - secondOldest().time >= duration) {
+            removeOldest();
+        }
+
+        // Subtracting removed readings from the sums slowly builds up rounding errors, so every so often work them out
+        // afresh (which, amortised, is still a constant amount of work per reading)
+        if (removed > window.size()) {
+            resum();
+        }
+
+        stable = (sample.time - window.getFirst().time) >= duration && getSlope() <= maxSlope && getStdDev() <= maxStdDev;
+
+        return stable;
+
+    }
+
+    private boolean withinMargin(double value, double reference) {
+        return Math.abs(value - reference) <= margin * Math.abs(reference);
+    }
+
+    private void removeOldest() {
+
+        Sample oldest = window.removeFirst();
+
+        if (minima.getFirst() == oldest) {
+            minima.removeFirst();
+        }
+
+        if (maxima.getFirst() == oldest) {
+            maxima.removeFirst();
+        }
+
+        double t = oldest.time - base;
+
+        sumT  -= t;
+        sumV  -= oldest.value;
+        sumTT -= t * t;
+        sumTV -= t * oldest.value;
+        sumVV -= oldest.value * oldest.value;
+
+        removed++;
+
+    }
+
+    private Sample secondOldest() {
+        Iterator<Sample> iterator = window.iterator();
+        iterator.next();
+        return iterator.next();
+    }
+
+    /**
+     * Works out the sums over the window again from scratch, with times measured from its oldest reading.
+     */
+    private void resum() {
+
+        base    = window.getFirst().time;
+        removed = 0;
+        sumT    = 0;
+        sumV    = 0;
+        sumTT   = 0;
+        sumTV   = 0;
+        sumVV   = 0;
+
+        for (Sample sample : window) {
+
+            double t = sample.time - base;
+
+            sumT  += t;
+            sumV  += sample.value;
+            sumTT += t * t;
+            sumTV += t * sample.value;
+            sumVV += sample.value * sample.value;
+
+        }
+
+    }
+
+    private void clear() {
+        window.clear();
+        minima.clear();
+        maxima.clear();
+        removed = 0;
+        sumT    = 0;
+        sumV    = 0;
+        sumTT   = 0;
+        sumTV   = 0;
+        sumVV   = 0;
+    }
+
+    /**
+     * Forgets all readings added so far.
+     */
+    public synchronized void reset() {
+        clear();
+        stable = false;
+        origin = Long.MIN_VALUE;
+    }
+
+    /**
+     * Returns whether the readings added so far are stable.
+     *
+     * @return Stable?
+     */
+    public synchronized boolean isStable() {
+        return stable;
+    }
+
+    /**
+     * Returns how long the current run of mutually-consistent readings has lasted.
+     *
+     * @return Duration, in milliseconds
+     */
+    public synchronized long getStableTime() {
+        return window.isEmpty() ? 0 : window.getLast().time - start;
+    }
+
+    /**
+     * Returns the magnitude of the slope of a straight line fitted to the readings in the current run, over (at most)
+     * the last stability duration of it.
+     *
+     * @return Slope magnitude, in units per second
+     */
+    public synchronized double getSlope() {
+
+        int n = window.size();
+
+        if (n < 2) {
+            return 0.0;
+        }
+
+        double denominator = n * sumTT - sumT * sumT;
+
+        if (denominator == 0) {
+            return 0.0;
+        }
+
+        return Math.abs(1000.0 * (n * sumTV - sumT * sumV) / denominator);
+
+    }
+
+    /**
+     * Returns the standard deviation of the readings in the current run, over (at most) the last stability duration of
+     * it.
+     *
+     * @return Standard deviation
+     */
+    public synchronized double getStdDev() {
+
+        int n = window.size();
+
+        if (n < 2) {
+            return 0.0;
+        }
+
+        double mean = sumV / n;
+        return Math.sqrt(Math.max(0.0, (sumVV - n * mean * mean) / (n - 1)));
+
+    }
+
+    /**
+     * Feeds this detector with every new reading of the given monitored quantity, returning a future that completes
+     * (with the stable value) as soon as the readings become stable. No thread is kept waiting in the meantime.
+     * Cancelling the future stops the detector listening.
+     *
+     * @param quantity Monitored quantity
+     *
+     * @return Future that completes once stable
+     */
+    public CompletableFuture<Double> watch(Monitor.Quantity quantity) {
+
+        CompletableFuture<Double> future = new CompletableFuture<>();
+
+        Monitor.Listener listener = reading -> {
+            if (!future.isDone() && add(reading.getTime(), reading.getValue())) {
+                future.complete(reading.getValue());
+            }
+        };
+
+        future.whenComplete((v, e) -> quantity.removeListener(listener));
+        quantity.addListener(listener);
+
+        return future;
+
+    }
+
+    private static class Sample {
+
+        private final long   time;
+        private final double value;
+
+        private Sample(long time, double value) {
+            this.time  = time;
+            this.value = value;
+        }
+
+    }
+
+}
@@ -1,13 +1,20 @@
 package jisa.control;
 
 import jisa.devices.DeviceException;
-import jisa.Util;
 
 import java.io.IOException;
-import java.util.ArrayList;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class Synch {
 
+    private static final ScheduledExecutorService CHECKER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "JISA Condition Checker");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     public static void waitForCondition(ICondition condition, int interval) throws Exception {
 
         int i = 0;
@@ -46,30 +53,28 @@ public class Synch {
 
     public static void waitForParamStable(DoubleReturn valueToCheck, double errorPct, int interval, long duration) throws IOException, DeviceException, InterruptedException {
 
-        ArrayList<Double> list = new ArrayList<>();
+        StabilityDetector detector = StabilityDetector.relative(errorPct, duration);
 
-        while (list.size() * interval < duration) {
+        while (!detector.add(valueToCheck.getValue())) {
 
             if (Thread.currentThread().isInterrupted()) {
                 throw new InterruptedException("Interrupted");
             }
 
-            double value = valueToCheck.getValue();
-            list.add(value);
+            Thread.sleep(interval);
 
-            // Go back through the list of past values
-            for (int i = list.size() - 1; i >= 0; i--) {
+        }
 
-                double pastValue = list.get(i);
-                double min       = pastValue * (1 - (errorPct / 100D));
-                double max       = pastValue * (1 + (errorPct / 100D));
+    }
 
-                // When/if we find a value outside our error range, cut out all values before it
-                if (!Util.isBetween(value, min, max)) {
-                    list.subList(0, i).clear();
-                    break;
-                }
+    public static void waitForStableTarget(Returnable<Double> valueToCheck, double target, double pctMargin, int interval, long duration) throws IOException, DeviceException, InterruptedException {
 
+        StabilityDetector detector = StabilityDetector.target(target, pctMargin, duration);
+
+        while (!detector.add(valueToCheck.get())) {
+
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedException("Interrupted");
             }
 
             Thread.sleep(interval);
@@ -78,29 +83,72 @@ public class Synch {
 
     }
 
-    public static void waitForStableTarget(Returnable<Double> valueToCheck, double target, double pctMargin, int interval, long duration) throws IOException, DeviceException, InterruptedException {
+    /**
+     * Returns a future that completes once the given monitored quantity has remained within a percentage margin of
+     * itself for at least the given duration. No thread is kept waiting in the meantime, so any number of these can
+     * be outstanding at once.
+     *
+     * @param quantity  Monitored quantity
+     * @param pctMargin Percentage margin
+     * @param duration  Minimum duration, in milliseconds
+     *
+     * @return Future that completes with the stable value
+     */
+    public static CompletableFuture<Double> whenParamStable(Monitor.Quantity quantity, double pctMargin, long duration) {
+        return StabilityDetector.relative(pctMargin, duration).watch(quantity);
+    }
 
-        long   time = 0;
-        double min  = target * (1 - (pctMargin / 100D));
-        double max  = target * (1 + (pctMargin / 100D));
+    /**
+     * Returns a future that completes once the given monitored quantity has remained within a percentage margin of
+     * the target value for at least the given duration. No thread is kept waiting in the meantime, so any number of
+     * these can be outstanding at once.
+     *
+     * @param quantity  Monitored quantity
+     * @param target    Target value
+     * @param pctMargin Percentage margin
+     * @param duration  Minimum duration, in milliseconds
+     *
+     * @return Future that completes with the stable value
+     */
+    public static CompletableFuture<Double> whenStableTarget(Monitor.Quantity quantity, double target, double pctMargin, long duration) {
+        return StabilityDetector.target(target, pctMargin, duration).watch(quantity);
+    }
 
-        while (time < duration) {
+    /**
+     * Returns a future that completes once the given condition is met, checking it at the given interval on a shared
+     * background thread rather than keeping a thread of its own waiting. Completes exceptionally if checking the
+     * condition throws an exception. Cancelling the future stops the checking.
+     *
+     * @param condition Condition to check
+     * @param interval  Interval between checks, in milliseconds
+     *
+     * @return Future that completes once the condition is met
+     */
+    public static CompletableFuture<Void> whenCondition(ICondition condition, int interval) {
 
-            if (Thread.currentThread().isInterrupted()) {
-                throw new InterruptedException("Interrupted");
-            }
+        CompletableFuture<Void>    future = new CompletableFuture<>();
+        AtomicInteger              count  = new AtomicInteger(0);
+        AtomicReference<Future<?>> task   = new AtomicReference<>();
+
+        task.set(CHECKER.scheduleWithFixedDelay(() -> {
 
-            double value = valueToCheck.get();
+            try {
 
-            if (Util.isBetween(value, min, max)) {
-                time += interval;
-            } else {
-                time = 0;
+                if (future.isDone()) {
+                    task.get().cancel(false);
+                } else if (condition.isMet(count.getAndIncrement())) {
+                    future.complete(null);
+                }
+
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
             }
 
-            Thread.sleep(interval);
+        }, 0, interval, TimeUnit.MILLISECONDS));
 
-        }
+        future.whenComplete((v, e) -> task.get().cancel(false));
+
+        return future;
 
     }
 
@@ -3,17 +3,20 @@ package jisa.devices.amp;
 import jisa.addresses.Address;
 import jisa.control.Nameable;
 import jisa.devices.DeviceException;
-import jisa.devices.interfaces.DPLockIn;
+import jisa.devices.interfaces.BufferedLockIn;
 import jisa.devices.interfaces.LockIn;
 import jisa.enums.*;
 import jisa.Util;
 import jisa.visa.VISADevice;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
 import java.util.*;
 import java.util.stream.Collectors;
 
-public class SR830 extends VISADevice implements DPLockIn {
+public class SR830 extends VISADevice implements BufferedLockIn {
 
     public static String getDescription() {
         return "Stanford Research Systems SR830";
@@ -45,6 +48,15 @@ public class SR830 extends VISADevice implements DPLockIn {
     private static final String C_SET_LINE           = "ILIN %d";
     private static final String C_SET_SOURCE         = "ISRC %d";
     private static final String C_QUERY_SOURCE       = "ISRC?";
+    private static final String C_SET_DISPLAY        = "DDEF %d,%d,0";
+    private static final String C_SET_BUFFER_RATE    = "SRAT %d";
+    private static final String C_QUERY_BUFFER_RATE  = "SRAT?";
+    private static final String C_SET_BUFFER_MODE    = "SEND %d";
+    private static final String C_START_BUFFER       = "STRT";
+    private static final String C_PAUSE_BUFFER       = "PAUS";
+    private static final String C_RESET_BUFFER       = "REST";
+    private static final String C_QUERY_BUFFER_COUNT = "SPTS?";
+    private static final String C_QUERY_BUFFER_DATA  = "TRCB? %d,%d,%d";
     private static final int    OUTPUT_X             = 1;
     private static final int    OUTPUT_Y             = 2;
     private static final int    OUTPUT_R             = 3;
@@ -56,6 +68,12 @@ public class SR830 extends VISADevice implements DPLockIn {
     private static final double STANDARD_ERROR       = 1.0;
     private static final int    STANDARD_INTERVAL    = 100;
     private static final long   STANDARD_DURATION    = 10000;
+    private static final int    BUFFER_CAPACITY      = 16383;
+    private static final int    BUFFER_SINGLE_SHOT   = 0;
+    private static final int    DISPLAY_CH1_X        = 0;
+    private static final int    DISPLAY_CH2_Y        = 0;
+    private static final double BUFFER_BASE_RATE     = 62.5e-3;
+    private static final int    BUFFER_MAX_RATE      = 13;
 
     private static final int COUPLING_AC = 0;
     private static final int COUPLING_DC = 1;
@@ -554,6 +572,113 @@ public class SR830 extends VISADevice implements DPLockIn {
     }
 
 
+    @Override
+    public void setBufferRate(double rate) throws IOException, DeviceException {
+
+        if (rate <= 0) {
+            throw new DeviceException("Buffer rate must be positive.");
+        }
+
+        // Rates are 62.5 mHz * 2^n for n = 0 to 13 (ie up to 512 Hz)
+        int code = (int) Math.round(Math.log(rate / BUFFER_BASE_RATE) / Math.log(2));
+        write(C_SET_BUFFER_RATE, Math.max(0, Math.min(BUFFER_MAX_RATE, code)));
+
+    }
+
+    @Override
+    public double getBufferRate() throws IOException, DeviceException {
+
+        int code = queryInt(C_QUERY_BUFFER_RATE);
+
+        if (code > BUFFER_MAX_RATE) {
+            throw new DeviceException("SR830 is set to store readings on trigger, not at a fixed rate.");
+        }
+
+        return BUFFER_BASE_RATE * Math.pow(2, code);
+
+    }
+
+    @Override
+    public int getBufferCapacity() {
+        return BUFFER_CAPACITY;
+    }
+
+    @Override
+    public synchronized void startBuffer() throws IOException {
+
+        // The buffers store whatever is shown on the channel displays, so make sure that's X and Y
+        write(C_SET_DISPLAY, 1, DISPLAY_CH1_X);
+        write(C_SET_DISPLAY, 2, DISPLAY_CH2_Y);
+        write(C_SET_BUFFER_MODE, BUFFER_SINGLE_SHOT);
+        write(C_RESET_BUFFER);
+        write(C_START_BUFFER);
+
+    }
+
+    @Override
+    public void pauseBuffer() throws IOException {
+        write(C_PAUSE_BUFFER);
+    }
+
+    @Override
+    public void resetBuffer() throws IOException {
+        write(C_RESET_BUFFER);
+    }
+
+    @Override
+    public int getBufferCount() throws IOException {
+        return queryInt(C_QUERY_BUFFER_COUNT);
+    }
+
+    @Override
+    public synchronized double[][] readBuffer(int start, int count) throws IOException {
+        return new double[][]{readBufferChannel(1, start, count), readBufferChannel(2, start, count)};
+    }
+
+    /**
+     * Reads a block of values from one of the two channel buffers using binary transfer, which returns each value as
+     * a 4-byte little-endian IEEE float.
+     *
+     * @param channel Buffer number (1 or 2)
+     * @param start   Index of first value
+     * @param count   Number of values
+     *
+     * @return Values read
+     *
+     * @throws IOException Upon communication error
+     */
+    private synchronized double[] readBufferChannel(int channel, int start, int count) throws IOException {
+
+        write(C_QUERY_BUFFER_DATA, channel, start, count);
+
+        byte[] raw  = new byte[count * Float.BYTES];
+        int    read = 0;
+
+        // Large transfers can arrive in more than one piece
+        while (read < raw.length) {
+
+            byte[] chunk = readBytes(raw.length - read);
+
+            if (chunk.length == 0) {
+                throw new IOException("SR830 stopped sending buffer data early.");
+            }
+
+            System.arraycopy(chunk, 0, raw, read, Math.min(chunk.length, raw.length - read));
+            read += chunk.length;
+
+        }
+
+        FloatBuffer floats = ByteBuffer.wrap(raw).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer();
+        double[]    values = new double[count];
+
+        for (int i = 0; i < count; i++) {
+            values[i] = floats.get(i);
+        }
+
+        return values;
+
+    }
+
     public TimeConst getTimeConst() throws IOException {
         return TimeConst.fromInt(queryInt(C_QUERY_TIME_CONST));
     }
@@ -0,0 +1,313 @@
+package jisa.devices.interfaces;
+
+import jisa.Util;
+import jisa.devices.DeviceException;
+import jisa.experiment.ResultTable;
+
+import java.io.IOException;
+
+/**
+ * Extension of the DPLockIn interface for dual-phase lock-in amplifiers that can store X and Y readings in an internal
+ * buffer at a fixed sample rate, allowing traces to be captured faster than individual queries would allow.
+ */
+public interface BufferedLockIn extends DPLockIn {
+
+    public static String getDescription() {
+        return "Buffered Dual-Phase Lock-In Amplifier";
+    }
+
+    /**
+     * Sets the rate at which readings are stored in the internal buffer (or closest available rate for devices with
+     * discrete settings).
+     *
+     * @param rate Sample rate, in Hz
+     *
+     * @throws IOException     Upon communication error
+     * @throws DeviceException Upon compatibility error
+     */
+    void setBufferRate(double rate) throws IOException, DeviceException;
+
+    /**
+     * Returns the rate at which readings are stored in the internal buffer.
+     *
+     * @return Sample rate, in Hz
+     *
+     * @throws IOException     Upon communication error
+     * @throws DeviceException Upon compatibility error
+     */
+    double getBufferRate() throws IOException, DeviceException;
+
+    /**
+     * Returns the maximum number of X,Y readings the internal buffer can hold.
+     *
+     * @return Capacity, in number of readings
+     *
+     * @throws IOException     Upon communication error
+     * @throws DeviceException Upon compatibility error
+     */
+    int getBufferCapacity() throws IOException, DeviceException;
+
+    /**
+     * Clears the internal buffer and starts storing X and Y readings in it at the set buffer rate. Storage stops by
+     * itself once the buffer is full.
+     *
+     * @throws IOException     Upon communication error
+     * @throws DeviceException Upon compatibility error
+     */
+    void startBuffer() throws IOException, DeviceException;
+
+    /**
+     * Pauses storage of readings in the internal buffer, keeping what has been stored so far.
+     *
+     * @throws IOException     Upon communication error
+     * @throws DeviceException Upon compatibility error
+     */
+    void pauseBuffer() throws IOException, DeviceException;
+
+    /**
+     * Stops storage of readings and clears the internal buffer.
+     *
+     * @throws IOException     Upon communication error
+     * @throws DeviceException Upon compatibility error
+     */
+    void resetBuffer() throws IOException, DeviceException;
+
+    /**
+     * Returns the number of X,Y readings currently held in the internal buffer.
+     *
+     * @return Number of readings
+     *
+     * @throws IOException     Upon communication error
+     * @throws DeviceException Upon compatibility error
+     */
+    int getBufferCount() throws IOException, DeviceException;
+
+    /**
+     * Reads a block of readings from the internal buffer. Can be called while storage is still in progress.
+     *
+     * @param start Index of first reading to return
+     * @param count Number of readings to return
+     *
+     * @return Two arrays: [0] = X values, [1] = Y values, in volts
+     *
+     * @throws IOException     Upon communication error
+     * @throws DeviceException Upon compatibility error
+     */
+    double[][] readBuffer(int start, int count) throws IOException, DeviceException;
+
+    /**
+     * Starts capturing the given number of X,Y readings into the internal buffer, streaming them back in blocks
+     * on a separate thread while acquisition continues. Each block is handed to the given listener in order.
+     *
+     * @param points   Number of readings to capture (at most the buffer capacity)
+     * @param listener Listener to receive each block of readings
+     *
+     * @return Capture object, for waiting on or stopping the capture
+     *
+     * @throws IOException     Upon communication error
+     * @throws DeviceException Upon compatibility error (or if more points are requested than the buffer can hold)
+     */
+    default Capture capture(int points, BlockListener listener) throws IOException, DeviceException {
+
+        int capacity = getBufferCapacity();
+
+        if (points > capacity) {
+            throw new DeviceException("Cannot capture %d points, buffer only holds %d.", points, capacity);
+        }
+
+        Capture capture = new Capture(this, points, listener);
+        capture.start();
+
+        return capture;
+
+    }
+
+    /**
+     * Starts capturing the given number of X,Y readings into the internal buffer, appending them to the given
+     * ResultTable as they are streamed back. The table must have three (non-calculated) columns: time (in seconds
+     * from the start of the capture), X and Y.
+     *
+     * @param points Number of readings to capture (at most the buffer capacity)
+     * @param table  ResultTable to append readings to
+     *
+     * @return Capture object, for waiting on or stopping the capture
+     *
+     * @throws IOException     Upon communication error
+     * @throws DeviceException Upon compatibility error (or if more points are requested than the buffer can hold)
+     */
+    default Capture capture(int points, ResultTable table) throws IOException, DeviceException {
+
+        double rate = getBufferRate();
+
+        return capture(points, (start, x, y) -> {
+
+            for (int i = 0; i < x.length; i++) {
+                table.addData((start + i) / rate, x[i], y[i]);
+            }
+
+        });
+
+    }
+
+    /**
+     * Captures the given number of X,Y readings using the internal buffer, waiting until all have been taken.
+     *
+     * @param points Number of readings to capture (at most the buffer capacity)
+     *
+     * @return Two arrays: [0] = X values, [1] = Y values, in volts
+     *
+     * @throws IOException          Upon communication error
+     * @throws DeviceException      Upon compatibility error
+     * @throws InterruptedException If interrupted while waiting
+     */
+    default double[][] capture(int points) throws IOException, DeviceException, InterruptedException {
+
+        double[][] data = new double[2][points];
+
+        capture(points, (start, x, y) -> {
+            System.arraycopy(x, 0, data[0], start, x.length);
+            System.arraycopy(y, 0, data[1], start, y.length);
+        }).await();
+
+        return data;
+
+    }
+
+    interface BlockListener {
+
+        void handle(int start, double[] x, double[] y) throws Exception;
+
+    }
+
+    /**
+     * Represents an on-going buffered capture, polling the instrument's buffer on its own thread and reading back
+     * whatever has been stored since the last poll.
+     */
+    class Capture {
+
+        /**
+         * Largest number of readings to transfer in one go.
+         */
+        public static final int MAX_BLOCK = 4096;
+
+        /**
+         * Smallest number of new readings to wait for before transferring, unless the capture is complete.
+         */
+        public static final int MIN_BLOCK = 64;
+
+        private final    BufferedLockIn lockIn;
+        private final    BlockListener  listener;
+        private final    int            points;
+        private final    Thread         thread;
+        private          long           interval;
+        private volatile int            count     = 0;
+        private volatile Throwable      exception = null;
+        private volatile boolean        running   = false;
+
+        private Capture(BufferedLockIn lockIn, int points, BlockListener listener) {
+            this.lockIn   = lockIn;
+            this.points   = points;
+            this.listener = listener;
+            this.thread   = new Thread(this::run);
+        }
+
+        private void start() throws IOException, DeviceException {
+
+            interval = Math.max(20, Math.min(1000, (long) (1000 * MIN_BLOCK / lockIn.getBufferRate())));
+
+            lockIn.startBuffer();
+            running = true;
+            thread.start();
+
+        }
+
+        private void run() {
+
+            try {
+
+                while (running && count < points) {
+
+                    int stored = Math.min(points, lockIn.getBufferCount());
+
+                    if (stored - count < MIN_BLOCK && stored < points) {
+                        Util.sleep(interval);
+                        continue;
+                    }
+
+                    while (count < stored) {
+
+                        int        block = Math.min(MAX_BLOCK, stored - count);
+                        double[][] data  = lockIn.readBuffer(count, block);
+
+                        listener.handle(count, data[0], data[1]);
+                        count += block;
+
+                    }
+
+                }
+
+                lockIn.pauseBuffer();
+
+            } catch (Throwable e) {
+                exception = e;
+            } finally {
+                running = false;
+            }
+
+        }
+
+        /**
+         * Returns whether the capture is still in progress.
+         *
+         * @return Running?
+         */
+        public boolean isRunning() {
+            return running;
+        }
+
+        /**
+         * Returns the number of readings that have been transferred so far.
+         *
+         * @return Number of readings
+         */
+        public int getCount() {
+            return count;
+        }
+
+        /**
+         * Stops the capture early, waiting for any block currently being transferred to finish.
+         *
+         * @throws IOException          Upon communication error
+         * @throws DeviceException      Upon compatibility error
+         * @throws InterruptedException If interrupted while waiting
+         */
+        public void stop() throws IOException, DeviceException, InterruptedException {
+            running = false;
+            await();
+        }
+
+        /**
+         * Halts the current thread until the capture has completed, rethrowing any exception encountered while
+         * capturing.
+         *
+         * @throws IOException          Upon communication error
+         * @throws DeviceException      Upon compatibility error
+         * @throws InterruptedException If interrupted while waiting
+         */
+        public void await() throws IOException, DeviceException, InterruptedException {
+
+            thread.join();
+
+            if (exception instanceof IOException) {
+                throw (IOException) exception;
+            } else if (exception instanceof DeviceException) {
+                throw (DeviceException) exception;
+            } else if (exception != null) {
+                throw new DeviceException("Error handling captured data: %s", exception.getMessage());
+            }
+
+        }
+
+    }
+
+}
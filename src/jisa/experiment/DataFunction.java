@@ -1,47 +1,421 @@
 package jisa.experiment;
 
 import jisa.maths.functions.Function;
+import jisa.maths.matrices.exceptions.DimensionException;
 
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
+import java.util.stream.IntStream;
 
+/**
+ * Function defined by interpolating between a set of (x, y) data points, for instance a calibration curve. Points are
+ * held in sorted primitive arrays, so each evaluation only needs a binary search to find the interval containing x.
+ * Between points, the function can be:
+ *
+ * <ul>
+ *     <li>LINEAR: straight lines between points</li>
+ *     <li>CUBIC: a natural cubic spline, smooth in both slope and curvature</li>
+ *     <li>MONOTONE: a cubic that never overshoots the data (Fritsch-Carlson), so monotonic data stays monotonic</li>
+ * </ul>
+ *
+ * <p>Outside the range of the data, the function is extrapolated linearly from the first or last pair of points. Any
+ * points sharing the same x value are replaced by a single point at the mean of their y values.</p>
+ *
+ * <pre>
+ * DataFunction calibration = new DataFunction(resistances, temperatures, DataFunction.Mode.MONOTONE);
+ *
+ * double   temperature  = calibration.value(1250.0);
+ * double[] temperatures = calibration.value(measuredResistances);
+ * </pre>
+ */
 public class DataFunction implements Function {
 
-    private List<XYPoint>  points;
+    private final double[] x;
+    private final double[] y;
+    private final double[] slopes;
+    private final Mode     mode;
 
+    /**
+     * Creates a function that linearly interpolates between the given points.
+     *
+     * @param points Points to interpolate between
+     */
     public DataFunction(List<XYPoint> points) {
+        this(points, Mode.LINEAR);
+    }
+
+    /**
+     * Creates a function that interpolates between the given points using the given method.
+     *
+     * @param points Points to interpolate between
+     * @param mode   Interpolation method
+     */
+    public DataFunction(List<XYPoint> points, Mode mode) {
+        this(points.stream().mapToDouble(p -> p.x).toArray(), points.stream().mapToDouble(p -> p.y).toArray(), mode);
+    }
+
+    /**
+     * Creates a function that linearly interpolates between the given points.
+     *
+     * @param x X values
+     * @param y Y values
+     */
+    public DataFunction(double[] x, double[] y) {
+        this(x, y, Mode.LINEAR);
+    }
+
+    /**
+     * Creates a function that interpolates between the given points using the given method. Points need not be in
+     * order, and any with NaN or infinite values are ignored.
+     *
+     * @param x    X values
+     * @param y    Y values
+     * @param mode Interpolation method
+     */
+    public DataFunction(double[] x, double[] y, Mode mode) {
+
+        if (x.length != y.length) {
+            throw new DimensionException(y.length, x.length);
+        }
+
+        int[] order = IntStream.range(0, x.length).filter(i -> Double.isFinite(x[i]) && Double.isFinite(y[i])).toArray();
+
+        if (!isSorted(x, order)) {
+            order = IntStream.of(order).boxed().sorted(Comparator.comparingDouble(i -> x[i])).mapToInt(i -> i).toArray();
+        }
+
+        // Merge points with equal x values into one at their mean y value
+        double[] sortedX = new double[order.length];
+        double[] sortedY = new double[order.length];
+        int      count   = 0;
+        int      start   = 0;
+
+        for (int i = 1; i <= order.length; i++) {
+
+            if (i < order.length && x[order[i]] == x[order[start]]) {
+                continue;
+            }
+
+            double sum = 0.0;
+
+            for (int j = start; j < i; j++) {
+                sum += y[order[j]];
+            }
+
+            sortedX[count] = x[order[start]];
+            sortedY[count] = sum / (i - start);
+            count++;
+            start = i;
+
+        }
+
+        this.x    = Arrays.copyOf(sortedX, count);
+        this.y    = Arrays.copyOf(sortedY, count);
+        this.mode = count > 2 ? mode : Mode.LINEAR;
+
+        switch (this.mode) {
+
+            case CUBIC:
+                slopes = splineSlopes(this.x, this.y);
+                break;
+
+            case MONOTONE:
+                slopes = monotoneSlopes(this.x, this.y);
+                break;
+
+            default:
+                slopes = null;
+                break;
+
+        }
+
+    }
+
+    private static boolean isSorted(double[] x, int[] order) {
+
+        for (int i = 1; i < order.length; i++) {
+
+            if (x[order[i]] < x[order[i - 1]]) {
+                return false;
+            }
+
+        }
+
+        return true;
+
+    }
+
+    /**
+     * Slope at each point of the natural cubic spline through the given points (second derivative zero at both ends),
+     * found by solving the usual tridiagonal system for the second derivatives.
+     */
+    private static double[] splineSlopes(double[] x, double[] y) {
+
+        int      n      = x.length;
+        double[] diag   = new double[n];
+        double[] rhs    = new double[n];
+        double[] upper  = new double[n];
+        double[] second = new double[n];
+
+        // Natural end conditions: second derivative is zero at the first and last points
+        diag[0]     = 1.0;
+        diag[n - 1] = 1.0;
+
+        for (int i = 1; i < n - 1; i++) {
+
+            double h0 = x[i] - x[i - 1];
+            double h1 = x[i + 1] - x[i];
+
+            // Forward elimination of the sub-diagonal (h0) as we go (Thomas algorithm)
+            double lower = h0;
+            double d     = 2 * (h0 + h1) - lower * upper[i - 1] / diag[i - 1];
+            double r     = 6 * ((y[i + 1] - y[i]) / h1 - (y[i] - y[i - 1]) / h0) - lower * rhs[i - 1] / diag[i - 1];
+
+            diag[i]  = d;
+            rhs[i]   = r;
+            upper[i] = h1;
+
+        }
+
+        for (int i = n - 2; i > 0; i--) {
+            second[i] = (rhs[i] - upper[i] * second[i + 1]) / diag[i];
+        }
+
+        double[] slopes = new double[n];
+
+        for (int i = 0; i < n - 1; i++) {
+            double h = x[i + 1] - x[i];
+            slopes[i] = (y[i + 1] - y[i]) / h - h * (2 * second[i] + second[i + 1]) / 6;
+        }
+
+        double h = x[n - 1] - x[n - 2];
+
+        slopes[n - 1] = (y[n - 1] - y[n - 2]) / h + h * (second[n - 2] + 2 * second[n - 1]) / 6;
+
+        return slopes;
+
+    }
+
+    /**
+     * Slopes at each point for a monotone cubic Hermite interpolant (Fritsch-Carlson): secant averages, set to zero at
+     * local extrema and scaled down wherever they would cause an overshoot.
+     */
+    private static double[] monotoneSlopes(double[] x, double[] y) {
+
+        int      n      = x.length;
+        double[] secant = new double[n - 1];
+        double[] slopes = new double[n];
+
+        for (int i = 0; i < n - 1; i++) {
+            secant[i] = (y[i + 1] - y[i]) / (x[i + 1] - x[i]);
+        }
+
+        slopes[0]     = secant[0];
+        slopes[n - 1] = secant[n - 2];
+
+        for (int i = 1; i < n - 1; i++) {
+            slopes[i] = secant[i - 1] * secant[i] <= 0 ? 0.0 : (secant[i - 1] + secant[i]) / 2;
+        }
 
-        this.points = points;
-        this.points.sort(Comparator.comparingDouble(o -> o.x));
+        for (int i = 0; i < n - 1; i++) {
+
+            if (secant[i] == 0) {
+                slopes[i]     = 0.0;
+                slopes[i + 1] = 0.0;
+                continue;
+            }
+
+            double a   = slopes[i] / secant[i];
+            double b   = slopes[i + 1] / secant[i];
+            double sum = a * a + b * b;
+
+            if (sum > 9) {
+                double tau = 3 / Math.sqrt(sum);
+                slopes[i]     = tau * a * secant[i];
+                slopes[i + 1] = tau * b * secant[i];
+            }
+
+        }
+
+        return slopes;
+
+    }
+
+    /**
+     * Returns the interpolation method being used.
+     *
+     * @return Interpolation method
+     */
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Returns the number of distinct points being interpolated between.
+     *
+     * @return Number of points
+     */
+    public int size() {
+        return x.length;
+    }
+
+    /**
+     * Returns the (sorted) x values of the points being interpolated between.
+     *
+     * @return X values
+     */
+    public double[] getXValues() {
+        return x.clone();
+    }
+
+    /**
+     * Returns the y values of the points being interpolated between, in order of x value.
+     *
+     * @return Y values
+     */
+    public double[] getYValues() {
+        return y.clone();
+    }
+
+    /**
+     * Returns the index, i, of the interval [x[i], x[i + 1]] to use for the given value, clamped to the first or last
+     * interval outside the range of the data.
+     */
+    private int interval(double value) {
+
+        int index = Arrays.binarySearch(x, value);
+
+        if (index < 0) {
+            index = -index - 2;
+        }
+
+        return Math.max(0, Math.min(x.length - 2, index));
+
+    }
+
+    private double value(int i, double value) {
+
+        double h = x[i + 1] - x[i];
+        double t = (value - x[i]) / h;
+
+        if (slopes == null || t < 0 || t > 1) {
+            return y[i] + t * (y[i + 1] - y[i]);
+        }
+
+        double t2 = t * t;
+        double t3 = t2 * t;
+
+        return (2 * t3 - 3 * t2 + 1) * y[i] + (t3 - 2 * t2 + t) * h * slopes[i]
+            + (-2 * t3 + 3 * t2) * y[i + 1] + (t3 - t2) * h * slopes[i + 1];
 
     }
 
     @Override
     public double value(double x) {
 
-        int index = 0;
+        if (this.x.length < 2) {
+            return this.x.length == 1 ? y[0] : Double.NaN;
+        }
 
-        if (x < points.get(0).x) {
-            index = 1;
-        } else if (x > points.get(points.size() - 1).x) {
-            index = points.size() - 1;
-        } else {
+        return value(interval(x), x);
 
-            for (int i = 1; i < points.size(); i++) {
+    }
 
-                if (x < points.get(i).x) {
-                    index = i;
-                    break;
+    /**
+     * Evaluates the function at each of the given values. When the values are in ascending order (as they would be
+     * when re-sampling onto a new set of x values), each interval is found by stepping along from the last rather than
+     * searching from scratch.
+     *
+     * @param values X values
+     *
+     * @return Function values
+     */
+    public double[] value(double[] values) {
+
+        double[] results = new double[values.length];
+
+        if (x.length < 2) {
+            Arrays.fill(results, x.length == 1 ? y[0] : Double.NaN);
+            return results;
+        }
+
+        int i = 0;
+
+        for (int k = 0; k < values.length; k++) {
+
+            double value = values[k];
+
+            if (value >= x[i] || i == 0) {
+
+                int steps = 0;
+
+                while (i < x.length - 2 && value >= x[i + 1] && steps++ < 8) {
+                    i++;
+                }
+
+                if (i < x.length - 2 && value >= x[i + 1]) {
+                    i = interval(value);
                 }
 
+            } else {
+                i = interval(value);
             }
+
+            results[k] = value(i, value);
+
+        }
+
+        return results;
+
+    }
+
+    @Override
+    public Function derivative() {
+
+        if (x.length < 2) {
+            return v -> x.length == 1 ? 0.0 : Double.NaN;
         }
 
-        double diffY = points.get(index).y - points.get(index - 1).y;
-        double diffX = points.get(index).x - points.get(index - 1).x;
-        double diff  = x - points.get(index - 1).x;
+        return v -> {
+
+            int    i = interval(v);
+            double h = x[i + 1] - x[i];
+            double t = (v - x[i]) / h;
+
+            if (slopes == null || t < 0 || t > 1) {
+                return (y[i + 1] - y[i]) / h;
+            }
+
+            double t2 = t * t;
 
-        return points.get(index - 1).y + ((diff / diffX) * diffY);
+            return ((6 * t2 - 6 * t) * y[i] + (3 * t2 - 4 * t + 1) * h * slopes[i]
+                + (-6 * t2 + 6 * t) * y[i + 1] + (3 * t2 - 2 * t) * h * slopes[i + 1]) / h;
+
+        };
+
+    }
+
+    /**
+     * Methods of interpolating between points.
+     */
+    public enum Mode {
+
+        /**
+         * Straight lines between points.
+         */
+        LINEAR,
+
+        /**
+         * Natural cubic spline through the points.
+         */
+        CUBIC,
+
+        /**
+         * Monotone cubic (Fritsch-Carlson), which does not overshoot between points.
+         */
+        MONOTONE
 
     }
+
 }
@@ -0,0 +1,747 @@
+package jisa.experiment;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Multi-resolution summary of one pair of columns (x and y) in a CSV file written by a ResultStream, allowing very
+ * large data files to be plotted without reading (or keeping) every point. Rows are grouped into buckets of 64, then
+ * 128, 256, 512 etc rows, with each bucket storing the range of x and y values within it. A plot can then ask for
+ * just the buckets covering its current x-range, at whichever level gives roughly one bucket per pixel, only falling
+ * back to reading the raw rows once zoomed in far enough that there are only a few of them.
+ *
+ * <p>The summary is built in a single pass over the file and stored alongside it (as "[file].x[n]-y[m].lod"),
+ * so it only needs building again if the data file changes. It is written to a temporary file first and then renamed
+ * into place, so anyone else opening it never sees a half-written summary. Only the parts of it that are needed are
+ * ever read, in tiles of 4096 buckets, with recently used tiles cached.</p>
+ */
+public class ResultPyramid {
+
+    /**
+     * Number of rows in each bucket of the finest level.
+     */
+    public static final int BASE = 64;
+
+    private static final long   MAGIC  = 0x4A495341_4C4F4431L; // "JISALOD1"
+    private static final int    TILE   = 4096;
+    private static final int    RECORD = 6;
+    private static final int    CACHE  = 64;
+
+    private final String                 path;
+    private final File                   lodFile;
+    private final RandomAccessFile       lod;
+    private final int                    xColumn;
+    private final int                    yColumn;
+    private final long                   rows;
+    private final boolean                sorted;
+    private final double[]               extremes = new double[4];
+    private final long[]                 levelCounts;
+    private final long[]                 levelOffsets;
+    private final long                   indexOffset;
+    private final Map<Long, double[]>    tiles    = new LinkedHashMap<>(CACHE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, double[]> eldest) {
+            return size() > CACHE;
+        }
+    };
+
+    private ResultPyramid(String path, File lodFile, int xColumn, int yColumn) throws IOException {
+
+        String lodPath = lodFile.getPath();
+
+        this.path    = path;
+        this.lodFile = lodFile;
+        this.lod     = new RandomAccessFile(lodPath, "r");
+        this.xColumn = xColumn;
+        this.yColumn = yColumn;
+
+        lod.seek(0);
+
+        if (lod.readLong() != MAGIC) {
+            lod.close();
+            throw new IOException("Not a level-of-detail file: " + lodPath);
+        }
+
+        lod.readLong();
+        lod.readLong();
+        lod.readInt();
+        lod.readInt();
+
+        rows   = lod.readLong();
+        sorted = lod.readBoolean();
+
+        for (int i = 0; i < 4; i++) {
+            extremes[i] = lod.readDouble();
+        }
+
+        int levels = lod.readInt();
+
+        levelCounts  = new long[levels];
+        levelOffsets = new long[levels];
+
+        for (int i = 0; i < levels; i++) {
+            levelCounts[i]  = lod.readLong();
+            levelOffsets[i] = lod.readLong();
+        }
+
+        indexOffset = lod.readLong();
+
+    }
+
+    /**
+     * Opens the summary of the given columns of a (finalised) ResultStream, building it first if it does not exist or
+     * is out of date.
+     *
+     * @param stream  ResultStream to summarise
+     * @param xColumn Index of x column
+     * @param yColumn Index of y column
+     *
+     * @return Summary
+     *
+     * @throws IOException Upon error reading or writing files
+     */
+    public static ResultPyramid open(ResultStream stream, int xColumn, int yColumn) throws IOException {
+        stream.flush();
+        return open(stream.getPath(), xColumn, yColumn);
+    }
+
+    /**
+     * Opens the summary of the given columns of a CSV file written by a ResultStream, building it first if it does
+     * not exist or is out of date.
+     *
+     * @param path    Path to CSV file
+     * @param xColumn Index of x column
+     * @param yColumn Index of y column
+     *
+     * @return Summary
+     *
+     * @throws IOException Upon error reading or writing files
+     */
+    public static ResultPyramid open(String path, int xColumn, int yColumn) throws IOException {
+
+        File csv = new File(path);
+        File lod = new File(String.format("%s.x%d-y%d.lod", path, xColumn, yColumn));
+
+        if (!isCurrent(csv, lod, xColumn, yColumn)) {
+            return new ResultPyramid(path, build(csv, lod, xColumn, yColumn), xColumn, yColumn);
+        }
+
+        return new ResultPyramid(path, lod, xColumn, yColumn);
+
+    }
+
+    private static boolean isCurrent(File csv, File lod, int xColumn, int yColumn) {
+
+        if (!lod.exists()) {
+            return false;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(lod)))) {
+
+            return in.readLong() == MAGIC
+                    && in.readLong() == csv.length()
+                    && in.readLong() == csv.lastModified()
+                    && in.readInt() == xColumn
+                    && in.readInt() == yColumn;
+
+        } catch (IOException e) {
+            return false;
+        }
+
+    }
+
+    /**
+     * Builds the summary and moves it into place as the given file, returning that file (or, if it could not be
+     * replaced because it is open elsewhere, the temporary file the summary was built in, which is deleted on close).
+     */
+    private static File build(File csv, File lod, int xColumn, int yColumn) throws IOException {
+
+        // Taken before reading, so that anything written while reading makes the summary out of date
+        long                   modified   = csv.lastModified();
+        long                   length     = 0;
+        List<File>             levelFiles = new ArrayList<>();
+        List<DataOutputStream> levelOuts  = new ArrayList<>();
+        List<Bucket>           buckets    = new ArrayList<>();
+        List<Long>             counts     = new ArrayList<>();
+        File                   indexFile  = File.createTempFile("JISA-lod-index-", ".tmp");
+        long                   rows       = 0;
+        boolean                sorted     = true;
+        double                 lastX      = Double.NEGATIVE_INFINITY;
+        Bucket                 all        = new Bucket();
+
+        try (
+                LineReader in = new LineReader(new FileInputStream(csv));
+                DataOutputStream index = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(indexFile)))
+        ) {
+
+            long   position = 0;
+            String line;
+
+            // Skip attributes and column headers
+            while ((line = in.readLine()) != null) {
+
+                position = in.getPosition();
+
+                if (!line.startsWith("%")) {
+                    break;
+                }
+
+            }
+
+            while ((line = in.readLine()) != null) {
+
+                // A row still being written when the file was read, so leave it for next time
+                if (!in.isTerminated()) {
+                    break;
+                }
+
+                if (line.isBlank()) {
+                    position = in.getPosition();
+                    continue;
+                }
+
+                String[] values = line.split(",");
+                double   x      = Double.parseDouble(values[xColumn].trim());
+                double   y      = Double.parseDouble(values[yColumn].trim());
+
+                if (rows % BASE == 0) {
+                    index.writeLong(position);
+                }
+
+                if (x < lastX) {
+                    sorted = false;
+                }
+
+                if (!Double.isNaN(x)) {
+                    lastX = x;
+                }
+
+                all.add(x, y);
+                addToLevel(0, x, x, y, y, x, x, 1, levelFiles, levelOuts, buckets, counts);
+
+                rows++;
+                position = in.getPosition();
+
+            }
+
+            length = position;
+
+            // Write out any partially filled buckets, passing each up to the level above until reaching the top
+            for (int level = 0; level < buckets.size(); level++) {
+
+                Bucket bucket = buckets.get(level);
+
+                if (bucket.count == 0) {
+                    continue;
+                }
+
+                Bucket partial = bucket.copy();
+                bucket.clear();
+                writeBucket(level, partial, levelOuts, counts);
+
+                if (counts.get(level) > 1) {
+                    addToLevel(level + 1, partial.xMin, partial.xMax, partial.yMin, partial.yMax, partial.xAtYMin, partial.xAtYMax, 2, levelFiles, levelOuts, buckets, counts);
+                }
+
+            }
+
+        } finally {
+
+            for (DataOutputStream out : levelOuts) {
+                out.close();
+            }
+
+        }
+
+        // Only keep levels up to and including the first with a single bucket
+        int levels = 0;
+
+        while (levels < counts.size() && counts.get(levels) > 0) {
+
+            levels++;
+
+            if (counts.get(levels - 1) <= 1) {
+                break;
+            }
+
+        }
+
+        long headerSize = 8 + 8 + 8 + 4 + 4 + 8 + 1 + 4 * 8 + 4 + levels * 16L + 8;
+        long offset     = headerSize;
+
+        File temporary = File.createTempFile(lod.getName() + "-", ".tmp", lod.getAbsoluteFile().getParentFile());
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporary)))) {
+
+            // Record how much of the file was actually summarised, not its length now
+            out.writeLong(MAGIC);
+            out.writeLong(length);
+            out.writeLong(modified);
+            out.writeInt(xColumn);
+            out.writeInt(yColumn);
+            out.writeLong(rows);
+            out.writeBoolean(sorted);
+            out.writeDouble(all.xMin);
+            out.writeDouble(all.xMax);
+            out.writeDouble(all.yMin);
+            out.writeDouble(all.yMax);
+            out.writeInt(levels);
+
+            for (int i = 0; i < levels; i++) {
+                out.writeLong(counts.get(i));
+                out.writeLong(offset);
+                offset += counts.get(i) * RECORD * 8;
+            }
+
+            out.writeLong(offset);
+
+            for (int i = 0; i < levels; i++) {
+                copy(levelFiles.get(i), out);
+            }
+
+            copy(indexFile, out);
+
+        } catch (IOException e) {
+            temporary.delete();
+            throw e;
+        } finally {
+            levelFiles.forEach(File::delete);
+            indexFile.delete();
+        }
+
+        try {
+            Files.move(temporary.toPath(), lod.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            return lod;
+        } catch (IOException e) {
+            // eg on Windows, where a summary that is open can't be replaced
+            return temporary;
+        }
+
+    }
+
+    private static void addToLevel(int level, double xMin, double xMax, double yMin, double yMax, double xAtYMin, double xAtYMax, int full, List<File> files, List<DataOutputStream> outs, List<Bucket> buckets, List<Long> counts) throws IOException {
+
+        if (level >= buckets.size()) {
+            File file = File.createTempFile("JISA-lod-", ".tmp");
+            files.add(file);
+            outs.add(new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file))));
+            buckets.add(new Bucket());
+            counts.add(0L);
+        }
+
+        Bucket bucket = buckets.get(level);
+        bucket.merge(xMin, xMax, yMin, yMax, xAtYMin, xAtYMax);
+
+        // Level 0 buckets are full after BASE rows, all others after two buckets from the level below
+        if (bucket.count == (level == 0 ? BASE : full)) {
+
+            writeBucket(level, bucket, outs, counts);
+            addToLevel(level + 1, bucket.xMin, bucket.xMax, bucket.yMin, bucket.yMax, bucket.xAtYMin, bucket.xAtYMax, 2, files, outs, buckets, counts);
+            bucket.clear();
+
+        }
+
+    }
+
+    private static void writeBucket(int level, Bucket bucket, List<DataOutputStream> outs, List<Long> counts) throws IOException {
+
+        DataOutputStream out = outs.get(level);
+        out.writeDouble(bucket.xMin);
+        out.writeDouble(bucket.xMax);
+        out.writeDouble(bucket.yMin);
+        out.writeDouble(bucket.yMax);
+        out.writeDouble(bucket.xAtYMin);
+        out.writeDouble(bucket.xAtYMax);
+        counts.set(level, counts.get(level) + 1);
+
+    }
+
+    private static void copy(File from, OutputStream to) throws IOException {
+
+        try (InputStream in = new BufferedInputStream(new FileInputStream(from))) {
+            in.transferTo(to);
+        }
+
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public int getXColumn() {
+        return xColumn;
+    }
+
+    public int getYColumn() {
+        return yColumn;
+    }
+
+    public long getNumRows() {
+        return rows;
+    }
+
+    /**
+     * Returns the number of summary levels, level n having buckets of BASE × 2^n rows.
+     *
+     * @return Number of levels
+     */
+    public int getNumLevels() {
+        return levelCounts.length;
+    }
+
+    /**
+     * Returns whether the x values in the file never decrease, in which case only the buckets covering a given
+     * x-range need to be read.
+     *
+     * @return Sorted by x?
+     */
+    public boolean isSorted() {
+        return sorted;
+    }
+
+    public double getMinX() {
+        return extremes[0];
+    }
+
+    public double getMaxX() {
+        return extremes[1];
+    }
+
+    public double getMinY() {
+        return extremes[2];
+    }
+
+    public double getMaxY() {
+        return extremes[3];
+    }
+
+    /**
+     * Returns points to plot for the given x-range at the given resolution. For each bucket at the chosen level, the
+     * lowest and highest points are returned (in x order) so that a line drawn through them has the same envelope as
+     * one drawn through every row. If few enough rows are in range, they are returned instead.
+     *
+     * @param xMin   Lower limit of x-range
+     * @param xMax   Upper limit of x-range
+     * @param pixels Width of plot, in pixels
+     *
+     * @return Two arrays: [0] = x values, [1] = y values
+     *
+     * @throws IOException Upon error reading files
+     */
+    public synchronized double[][] getPoints(double xMin, double xMax, int pixels) throws IOException {
+
+        if (rows == 0 || levelCounts.length == 0) {
+            return new double[2][0];
+        }
+
+        pixels = Math.max(1, pixels);
+
+        long first = 0;
+        long last  = levelCounts[0] - 1;
+
+        // If sorted, find which finest-level buckets overlap the range, plus one each side to continue the line
+        if (sorted) {
+            first = Math.max(0, findBucket(xMin) - 1);
+            last  = Math.min(levelCounts[0] - 1, findBucket(xMax) + 1);
+        }
+
+        long startRow = first * BASE;
+        long endRow   = Math.min(rows, (last + 1) * BASE);
+
+        if (sorted && endRow - startRow <= 4L * pixels) {
+            return readRows(startRow, endRow);
+        }
+
+        int level = getLevel(endRow - startRow, pixels);
+        int size  = BASE << level;
+
+        long from = startRow / size;
+        long to   = Math.min(levelCounts[level] - 1, (endRow - 1) / size);
+
+        double[] x     = new double[(int) (2 * (to - from + 1))];
+        double[] y     = new double[x.length];
+        int      count = 0;
+
+        for (long i = from; i <= to; i++) {
+
+            double[] tile = getTile(level, i / TILE);
+            int      o    = (int) (i % TILE) * RECORD;
+
+            // Skip buckets wholly outside the range (only possible here if not sorted)
+            if (!sorted && (tile[o + 1] < xMin || tile[o] > xMax)) {
+                continue;
+            }
+
+            boolean minFirst = tile[o + 4] <= tile[o + 5];
+
+            x[count]     = minFirst ? tile[o + 4] : tile[o + 5];
+            y[count]     = minFirst ? tile[o + 2] : tile[o + 3];
+            x[count + 1] = minFirst ? tile[o + 5] : tile[o + 4];
+            y[count + 1] = minFirst ? tile[o + 3] : tile[o + 2];
+            count += 2;
+
+        }
+
+        if (count < x.length) {
+            x = Arrays.copyOf(x, count);
+            y = Arrays.copyOf(y, count);
+        }
+
+        return new double[][]{x, y};
+
+    }
+
+    /**
+     * Returns which level would be used to show the given number of rows across the given number of pixels: the
+     * coarsest that still has at least one bucket per pixel.
+     */
+    private int getLevel(long rows, int pixels) {
+
+        int level = 0;
+
+        while (level + 1 < levelCounts.length && rows / ((long) BASE << (level + 1)) >= pixels) {
+            level++;
+        }
+
+        return level;
+
+    }
+
+    /**
+     * Binary search for the finest-level bucket containing the given x value (assuming x is sorted).
+     */
+    private long findBucket(double x) throws IOException {
+
+        long low  = 0;
+        long high = levelCounts[0] - 1;
+
+        while (low < high) {
+
+            long     mid  = (low + high) >>> 1;
+            double[] tile = getTile(0, mid / TILE);
+
+            if (tile[(int) (mid % TILE) * RECORD + 1] < x) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+
+        }
+
+        return low;
+
+    }
+
+    private double[] getTile(int level, long tile) throws IOException {
+
+        long     key    = ((long) level << 48) | tile;
+        double[] values = tiles.get(key);
+
+        if (values == null) {
+
+            int    count = (int) Math.min(TILE, levelCounts[level] - tile * TILE);
+            byte[] bytes = new byte[count * RECORD * 8];
+
+            lod.seek(levelOffsets[level] + tile * TILE * RECORD * 8);
+            lod.readFully(bytes);
+
+            DoubleBuffer buffer = ByteBuffer.wrap(bytes).asDoubleBuffer();
+            values = new double[count * RECORD];
+            buffer.get(values);
+
+            tiles.put(key, values);
+
+        }
+
+        return values;
+
+    }
+
+    /**
+     * Reads the x and y values of the given rows directly from the data file, starting from the nearest indexed
+     * position rather than the start of the file.
+     */
+    private double[][] readRows(long start, long end) throws IOException {
+
+        lod.seek(indexOffset + (start / BASE) * 8);
+        long position = lod.readLong();
+
+        double[] x = new double[(int) (end - start)];
+        double[] y = new double[x.length];
+
+        try (RandomAccessFile csv = new RandomAccessFile(path, "r")) {
+
+            csv.seek(position);
+
+            LineReader in    = new LineReader(new FileInputStream(csv.getFD()));
+            int        count = 0;
+            String line;
+
+            while (count < x.length && (line = in.readLine()) != null) {
+
+                if (line.isBlank()) {
+                    continue;
+                }
+
+                String[] values = line.split(",");
+                x[count] = Double.parseDouble(values[xColumn].trim());
+                y[count] = Double.parseDouble(values[yColumn].trim());
+                count++;
+
+            }
+
+            if (count < x.length) {
+                x = Arrays.copyOf(x, count);
+                y = Arrays.copyOf(y, count);
+            }
+
+        }
+
+        return new double[][]{x, y};
+
+    }
+
+    public synchronized void close() throws IOException {
+
+        tiles.clear();
+        lod.close();
+
+        if (lodFile.getName().endsWith(".tmp")) {
+            lodFile.delete();
+        }
+
+    }
+
+    private static class Bucket {
+
+        private double xMin    = Double.POSITIVE_INFINITY;
+        private double xMax    = Double.NEGATIVE_INFINITY;
+        private double yMin    = Double.POSITIVE_INFINITY;
+        private double yMax    = Double.NEGATIVE_INFINITY;
+        private double xAtYMin = Double.NaN;
+        private double xAtYMax = Double.NaN;
+        private int    count   = 0;
+
+        private void add(double x, double y) {
+            merge(x, x, y, y, x, x);
+        }
+
+        private void merge(double xMin, double xMax, double yMin, double yMax, double xAtYMin, double xAtYMax) {
+
+            this.xMin = Math.min(this.xMin, xMin);
+            this.xMax = Math.max(this.xMax, xMax);
+
+            if (yMin < this.yMin) {
+                this.yMin    = yMin;
+                this.xAtYMin = xAtYMin;
+            }
+
+            if (yMax > this.yMax) {
+                this.yMax    = yMax;
+                this.xAtYMax = xAtYMax;
+            }
+
+            count++;
+
+        }
+
+        private Bucket copy() {
+            Bucket copy = new Bucket();
+            copy.xMin    = xMin;
+            copy.xMax    = xMax;
+            copy.yMin    = yMin;
+            copy.yMax    = yMax;
+            copy.xAtYMin = xAtYMin;
+            copy.xAtYMax = xAtYMax;
+            copy.count   = count;
+            return copy;
+        }
+
+        private void clear() {
+            xMin    = Double.POSITIVE_INFINITY;
+            xMax    = Double.NEGATIVE_INFINITY;
+            yMin    = Double.POSITIVE_INFINITY;
+            yMax    = Double.NEGATIVE_INFINITY;
+            xAtYMin = Double.NaN;
+            xAtYMax = Double.NaN;
+            count   = 0;
+        }
+
+    }
+
+    /**
+     * Buffered reader of '\n'-terminated lines that keeps track of its byte position in the stream.
+     */
+    private static class LineReader implements Closeable {
+
+        private final InputStream   in;
+        private final byte[]        buffer   = new byte[65536];
+        private final StringBuilder line       = new StringBuilder();
+        private       int           length     = 0;
+        private       int           index      = 0;
+        private       long          position   = 0;
+        private       boolean       terminated = false;
+
+        private LineReader(InputStream in) {
+            this.in = in;
+        }
+
+        private String readLine() throws IOException {
+
+            line.setLength(0);
+
+            while (true) {
+
+                if (index >= length) {
+
+                    length = in.read(buffer);
+                    index  = 0;
+
+                    if (length <= 0) {
+                        terminated = false;
+                        return line.length() > 0 ? line.toString() : null;
+                    }
+
+                }
+
+                byte b = buffer[index++];
+                position++;
+
+                if (b == '\n') {
+                    terminated = true;
+                    return line.toString();
+                } else if (b != '\r') {
+                    line.append((char) b);
+                }
+
+            }
+
+        }
+
+        private long getPosition() {
+            return position;
+        }
+
+        /**
+         * Returns whether the last line read ended with a line break (rather than the end of the file).
+         */
+        private boolean isTerminated() {
+            return terminated;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+
+    }
+
+}
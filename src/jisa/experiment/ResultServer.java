@@ -0,0 +1,705 @@
+package jisa.experiment;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import jisa.gui.Clearable;
+import jisa.gui.plotting.M4Decimator;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Lightweight HTTP server allowing ResultTables to be watched live from a web browser, without needing a display or
+ * touching the GUI thread. Each registered table can be fetched as a decimated snapshot of two of its columns, after
+ * which new rows are pushed out to all watching browsers as server-sent events. Opening the server's address in a
+ * browser shows a simple page for picking a table and columns to plot.
+ *
+ * <pre>
+ * ResultServer server = new ResultServer(8080);
+ * server.add("IV Curve", results);
+ * server.start();
+ * </pre>
+ *
+ * <p>Endpoints:</p>
+ * <ul>
+ *     <li><code>/</code> - Browser view</li>
+ *     <li><code>/tables</code> - JSON list of tables and their columns</li>
+ *     <li><code>/snapshot/[name]?x=0&amp;y=1&amp;width=800</code> - JSON snapshot of columns x and y, decimated to at most four points per pixel of width</li>
+ *     <li><code>/stream/[name]</code> - Server-sent event stream of new rows ("rows" events) and clears ("clear" events)</li>
+ * </ul>
+ */
+public class ResultServer implements AutoCloseable {
+
+    private static final long   BATCH_INTERVAL = 100;
+    private static final long   KEEP_ALIVE     = 15000;
+    private static final long   PYRAMID_AGE    = 5000;
+    private static final int    CLIENT_QUEUE   = 100;
+    private static final String PAGE;
+
+    private final HttpServer               server;
+    private final Map<String, Entry>       tables      = new ConcurrentHashMap<>();
+    private final ExecutorService          handlers    = Executors.newCachedThreadPool(r -> daemon(r, "Result Server"));
+    private final ScheduledExecutorService broadcaster = Executors.newSingleThreadScheduledExecutor(r -> daemon(r, "Result Server Broadcaster"));
+    private       long                     lastSent    = System.currentTimeMillis();
+
+    /**
+     * Creates a server to listen on the given port, on all network interfaces. Call start() to start it.
+     *
+     * @param port Port number (0 to pick any free port)
+     *
+     * @throws IOException If the port cannot be bound to
+     */
+    public ResultServer(int port) throws IOException {
+
+        server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.setExecutor(handlers);
+
+        server.createContext("/", this::handlePage);
+        server.createContext("/tables", this::handleTables);
+        server.createContext("/snapshot/", this::handleSnapshot);
+        server.createContext("/stream/", this::handleStream);
+
+    }
+
+    private static Thread daemon(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /**
+     * Makes the given table available from this server under the given name, replacing any table already added under
+     * that name.
+     *
+     * @param name  Name to use
+     * @param table Table to make available
+     *
+     * @return Self-reference
+     */
+    public ResultServer add(String name, ResultTable table) {
+
+        Entry old = tables.put(name, new Entry(name, table));
+
+        if (old != null) {
+            old.close();
+        }
+
+        return this;
+
+    }
+
+    /**
+     * Stops making the table with the given name available, disconnecting anyone watching it.
+     *
+     * @param name Name of table
+     */
+    public void remove(String name) {
+
+        Entry entry = tables.remove(name);
+
+        if (entry != null) {
+            entry.close();
+        }
+
+    }
+
+    /**
+     * Starts the server listening for connections.
+     */
+    public void start() {
+        server.start();
+        broadcaster.scheduleAtFixedRate(this::broadcast, BATCH_INTERVAL, BATCH_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Returns the port that this server is listening on.
+     *
+     * @return Port number
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Stops the server, disconnecting everyone and detaching from all tables.
+     */
+    @Override
+    public void close() {
+
+        broadcaster.shutdownNow();
+
+        for (Entry entry : tables.values()) {
+            entry.close();
+        }
+
+        tables.clear();
+        server.stop(0);
+        handlers.shutdownNow();
+
+    }
+
+    /**
+     * Sends out all rows added to each table since the last call, as one event per table, to everyone watching it.
+     */
+    private void broadcast() {
+
+        boolean keepAlive = System.currentTimeMillis() - lastSent >= KEEP_ALIVE;
+
+        if (keepAlive) {
+            lastSent = System.currentTimeMillis();
+        }
+
+        for (Entry entry : tables.values()) {
+
+            StringBuilder event = new StringBuilder();
+
+            if (entry.cleared) {
+                entry.cleared = false;
+                event.append("event: clear\ndata: {}\n\n");
+            }
+
+            double[] row = entry.pending.poll();
+
+            if (row != null) {
+
+                event.append("event: rows\ndata: [");
+
+                do {
+                    appendArray(event, row, row.length).append(',');
+                } while ((row = entry.pending.poll()) != null);
+
+                event.setCharAt(event.length() - 1, ']');
+                event.append("\n\n");
+
+            }
+
+            if (event.length() == 0 && keepAlive) {
+                event.append(":\n\n");
+            }
+
+            if (event.length() > 0) {
+                entry.send(event.toString().getBytes(StandardCharsets.UTF_8));
+            }
+
+        }
+
+    }
+
+    private void handlePage(HttpExchange exchange) throws IOException {
+
+        if (!exchange.getRequestURI().getPath().equals("/")) {
+            respond(exchange, 404, "text/plain", "Not found");
+        } else {
+            respond(exchange, 200, "text/html", PAGE);
+        }
+
+    }
+
+    private void handleTables(HttpExchange exchange) throws IOException {
+
+        StringBuilder json = new StringBuilder("[");
+
+        for (Entry entry : new TreeMap<>(tables).values()) {
+
+            ResultTable table = entry.table;
+
+            json.append("{\"name\":").append(JSONObject.quote(entry.name)).append(",\"columns\":[");
+
+            for (int i = 0; i < table.getNumCols(); i++) {
+                json.append(i > 0 ? "," : "").append(JSONObject.quote(table.getTitle(i)));
+            }
+
+            json.append("]},");
+
+        }
+
+        if (json.length() > 1) {
+            json.setLength(json.length() - 1);
+        }
+
+        respond(exchange, 200, "application/json", json.append("]").toString());
+
+    }
+
+    private void handleSnapshot(HttpExchange exchange) throws IOException {
+
+        Entry entry = find(exchange, "/snapshot/");
+
+        if (entry == null) {
+            respond(exchange, 404, "text/plain", "No such table");
+            return;
+        }
+
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+        ResultTable         table = entry.table;
+        double[][]          points;
+        int                 x;
+        int                 y;
+        int                 width;
+
+        try {
+            x     = Integer.parseInt(query.getOrDefault("x", "0"));
+            y     = Integer.parseInt(query.getOrDefault("y", "1"));
+            width = Math.max(1, Math.min(10000, Integer.parseInt(query.getOrDefault("width", "800"))));
+        } catch (NumberFormatException e) {
+            respond(exchange, 400, "text/plain", "Invalid parameters");
+            return;
+        }
+
+        if (x < 0 || y < 0 || x >= table.getNumCols() || y >= table.getNumCols()) {
+            respond(exchange, 400, "text/plain", "No such column");
+            return;
+        }
+
+        long rows;
+
+        if (table instanceof ResultStream) {
+
+            // Streams can be very large and slow to read through, so use a (shared, periodically updated) summary
+            synchronized (entry) {
+
+                ResultPyramid pyramid = entry.getPyramid(x, y);
+
+                rows   = pyramid.getNumRows();
+                points = pyramid.getPoints(pyramid.getMinX(), pyramid.getMaxX(), width);
+
+            }
+
+        } else {
+            rows   = table.getNumRows();
+            points = decimate(table, x, y, width, (int) rows);
+        }
+
+        StringBuilder json = new StringBuilder();
+
+        json.append("{\"name\":").append(JSONObject.quote(entry.name));
+        json.append(",\"rows\":").append(rows);
+        json.append(",\"x\":");
+        appendArray(json, points[0], points[0].length);
+        json.append(",\"y\":");
+        appendArray(json, points[1], points[1].length);
+        json.append("}");
+
+        respond(exchange, 200, "application/json", json.toString());
+
+    }
+
+    private void handleStream(HttpExchange exchange) throws IOException {
+
+        Entry entry = find(exchange, "/stream/");
+
+        if (entry == null) {
+            respond(exchange, 404, "text/plain", "No such table");
+            return;
+        }
+
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+        exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+        exchange.sendResponseHeaders(200, 0);
+
+        OutputStream stream = exchange.getResponseBody();
+        stream.write(":\n\n".getBytes(StandardCharsets.UTF_8));
+        stream.flush();
+
+        // Left open, with this thread writing out whatever the broadcaster queues up for it from now on
+        Client client = new Client(exchange);
+        entry.clients.add(client);
+        client.run();
+
+    }
+
+    private Entry find(HttpExchange exchange, String prefix) {
+        String name = URLDecoder.decode(exchange.getRequestURI().getRawPath().substring(prefix.length()), StandardCharsets.UTF_8);
+        return tables.get(name);
+    }
+
+    /**
+     * Reduces columns x and y of the given table to at most four points per pixel column (first, last, minimum and
+     * maximum), as would be drawn on a plot of the given width.
+     */
+    private static double[][] decimate(ResultTable table, int x, int y, int width, int rows) {
+
+        double minX = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+
+        // Go by row number, since rows may be added to the table while we're doing this
+        for (int i = 0; i < rows; i++) {
+            double xValue = table.getRow(i).get(x);
+            minX = Math.min(minX, xValue);
+            maxX = Math.max(maxX, xValue);
+        }
+
+        M4Decimator<Result> decimator = new M4Decimator<>(width);
+        double              scale     = maxX > minX ? (width - 1) / (maxX - minX) : 0.0;
+
+        for (int i = 0; i < rows; i++) {
+            Result row = table.getRow(i);
+            decimator.add(row, (row.get(x) - minX) * scale, row.get(y));
+        }
+
+        List<Result> kept    = decimator.getPoints();
+        double[]     xValues = new double[kept.size()];
+        double[]     yValues = new double[kept.size()];
+
+        for (int i = 0; i < xValues.length; i++) {
+            xValues[i] = kept.get(i).get(x);
+            yValues[i] = kept.get(i).get(y);
+        }
+
+        return new double[][]{xValues, yValues};
+
+    }
+
+    private static Map<String, String> parseQuery(String query) {
+
+        Map<String, String> values = new HashMap<>();
+
+        if (query == null) {
+            return values;
+        }
+
+        for (String pair : query.split("&")) {
+
+            String[] parts = pair.split("=", 2);
+
+            if (parts.length == 2) {
+                values.put(URLDecoder.decode(parts[0], StandardCharsets.UTF_8), URLDecoder.decode(parts[1], StandardCharsets.UTF_8));
+            }
+
+        }
+
+        return values;
+
+    }
+
+    private static StringBuilder appendArray(StringBuilder json, double[] values, int count) {
+
+        json.append('[');
+
+        for (int i = 0; i < count; i++) {
+
+            if (i > 0) {
+                json.append(',');
+            }
+
+            // JSON has no way of writing NaN or infinity
+            if (Double.isFinite(values[i])) {
+                json.append(values[i]);
+            } else {
+                json.append("null");
+            }
+
+        }
+
+        return json.append(']');
+
+    }
+
+    private static void respond(HttpExchange exchange, int code, String type, String body) throws IOException {
+
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+
+        exchange.getResponseHeaders().set("Content-Type", type + "; charset=utf-8");
+        exchange.sendResponseHeaders(code, bytes.length);
+
+        try (OutputStream stream = exchange.getResponseBody()) {
+            stream.write(bytes);
+        }
+
+    }
+
+    /**
+     * A table being served, along with the rows added to it that are waiting to be sent out and everyone watching it.
+     */
+    private static class Entry implements Clearable {
+
+        private final    String               name;
+        private final    ResultTable          table;
+        private final    ResultTable.OnUpdate updater;
+        private final    Queue<double[]>      pending  = new ConcurrentLinkedQueue<>();
+        private final    List<Client>         clients  = new CopyOnWriteArrayList<>();
+        private final    Map<Long, Pyramid>   pyramids = new HashMap<>();
+        private volatile boolean              cleared  = false;
+
+        private Entry(String name, ResultTable table) {
+
+            this.name  = name;
+            this.table = table;
+
+            // Listeners are run while holding the table's lock, so they must only be added or removed while holding it
+            synchronized (table) {
+
+                // Only copy rows when someone is watching, and never do anything slow on the thread adding them
+                updater = table.addOnUpdate(row -> {
+                    if (!clients.isEmpty()) {
+                        pending.add(row.getData().clone());
+                    }
+                });
+
+                table.addClearable(this);
+
+            }
+
+        }
+
+        @Override
+        public void clear() {
+            pending.clear();
+            cleared = true;
+        }
+
+        /**
+         * Queues an event to be sent to everyone watching, dropping anyone who has gone away or fallen too far behind.
+         */
+        private void send(byte[] event) {
+
+            for (Client client : clients) {
+
+                if (!client.offer(event)) {
+                    clients.remove(client);
+                    client.close();
+                }
+
+            }
+
+        }
+
+        /**
+         * Returns the summary of the given columns of this (ResultStream) table, only bringing it up to date if it is
+         * older than PYRAMID_AGE, so that a page polling for snapshots does not have the whole file re-read each time.
+         * Must be called, and the returned summary used, while synchronized on this entry.
+         */
+        private ResultPyramid getPyramid(int x, int y) throws IOException {
+
+            long    key     = ((long) x << 32) | y;
+            Pyramid current = pyramids.get(key);
+
+            if (current != null && System.currentTimeMillis() - current.opened < PYRAMID_AGE) {
+                return current.pyramid;
+            }
+
+            ResultPyramid pyramid = ResultPyramid.open((ResultStream) table, x, y);
+
+            pyramids.put(key, new Pyramid(pyramid, System.currentTimeMillis()));
+
+            if (current != null) {
+                current.pyramid.close();
+            }
+
+            return pyramid;
+
+        }
+
+        private void close() {
+
+            synchronized (table) {
+                table.removeOnUpdate(updater);
+                table.removeClearable(this);
+            }
+
+            synchronized (this) {
+
+                for (Pyramid pyramid : pyramids.values()) {
+
+                    try {
+                        pyramid.pyramid.close();
+                    } catch (IOException ignored) {}
+
+                }
+
+                pyramids.clear();
+
+            }
+
+            for (Client client : clients) {
+                client.close();
+            }
+
+            clients.clear();
+            pending.clear();
+
+        }
+
+    }
+
+    /**
+     * Someone watching a table's event stream, with their own queue of events waiting to be written out by their own
+     * thread, so that a browser that stops reading only holds up (and, once its queue is full, loses) its own updates.
+     */
+    private static class Client implements Runnable {
+
+        private static final byte[] CLOSE = new byte[0];
+
+        private final    HttpExchange          exchange;
+        private final    BlockingQueue<byte[]> queue = new ArrayBlockingQueue<>(CLIENT_QUEUE);
+        private volatile boolean               open  = true;
+
+        private Client(HttpExchange exchange) {
+            this.exchange = exchange;
+        }
+
+        /**
+         * Queues an event to be sent, returning false if there is no room for it or the client has gone away.
+         */
+        private boolean offer(byte[] event) {
+            return open && queue.offer(event);
+        }
+
+        /**
+         * Stops sending events, without waiting for whatever is being written now to finish.
+         */
+        private void close() {
+            open = false;
+            queue.clear();
+            queue.offer(CLOSE);
+        }
+
+        @Override
+        public void run() {
+
+            try {
+
+                OutputStream stream = exchange.getResponseBody();
+
+                while (open) {
+
+                    byte[] event = queue.take();
+
+                    if (event == CLOSE) {
+                        break;
+                    }
+
+                    stream.write(event);
+                    stream.flush();
+
+                }
+
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (IOException ignored) {
+                // Browser has gone away
+            } finally {
+                open = false;
+                exchange.close();
+            }
+
+        }
+
+    }
+
+    /**
+     * An open summary of two columns of a ResultStream, along with when it was opened.
+     */
+    private static class Pyramid {
+
+        private final ResultPyramid pyramid;
+        private final long          opened;
+
+        private Pyramid(ResultPyramid pyramid, long opened) {
+            this.pyramid = pyramid;
+            this.opened  = opened;
+        }
+
+    }
+
+    static {
+
+        PAGE = String.join(
+                "\n",
+                "<!DOCTYPE html>",
+                "<html>",
+                "<head>",
+                "<meta charset='utf-8'>",
+                "<title>JISA Results</title>",
+                "<style>",
+                "body { font-family: sans-serif; margin: 1em; }",
+                "select { margin-right: 1em; }",
+                "canvas { display: block; margin-top: 1em; border: 1px solid #ccc; width: 100%; height: 70vh; }",
+                "</style>",
+                "</head>",
+                "<body>",
+                "<label>Table <select id='table'></select></label>",
+                "<label>X <select id='x'></select></label>",
+                "<label>Y <select id='y'></select></label>",
+                "<span id='rows'></span>",
+                "<canvas id='plot'></canvas>",
+                "<script>",
+                "const $ = id => document.getElementById(id);",
+                "let tables = [], xs = [], ys = [], rows = 0, source = null, pending = false, queued = null;",
+                "function draw() {",
+                "  pending = false;",
+                "  const c = $('plot'), g = c.getContext('2d');",
+                "  c.width = c.clientWidth; c.height = c.clientHeight;",
+                "  g.clearRect(0, 0, c.width, c.height);",
+                "  $('rows').textContent = rows + ' rows';",
+                "  let x0 = Infinity, x1 = -Infinity, y0 = Infinity, y1 = -Infinity;",
+                "  for (let i = 0; i < xs.length; i++) {",
+                "    if (xs[i] === null || ys[i] === null) continue;",
+                "    x0 = Math.min(x0, xs[i]); x1 = Math.max(x1, xs[i]); y0 = Math.min(y0, ys[i]); y1 = Math.max(y1, ys[i]);",
+                "  }",
+                "  if (!(x1 >= x0)) return;",
+                "  if (x1 === x0) { x0 -= 1; x1 += 1; }",
+                "  if (y1 === y0) { y0 -= 1; y1 += 1; }",
+                "  const m = 60, w = c.width - 2 * m, h = c.height - 2 * m;",
+                "  const px = v => m + w * (v - x0) / (x1 - x0), py = v => m + h * (1 - (v - y0) / (y1 - y0));",
+                "  g.strokeStyle = '#000'; g.strokeRect(m, m, w, h);",
+                "  g.fillStyle = '#000'; g.font = '12px sans-serif';",
+                "  g.textAlign = 'left'; g.fillText(x0.toPrecision(4), m, m + h + 15);",
+                "  g.textAlign = 'right'; g.fillText(x1.toPrecision(4), m + w, m + h + 15);",
+                "  g.fillText(y0.toPrecision(4), m - 5, m + h); g.fillText(y1.toPrecision(4), m - 5, m + 10);",
+                "  g.strokeStyle = '#c00'; g.beginPath();",
+                "  let move = true;",
+                "  for (let i = 0; i < xs.length; i++) {",
+                "    if (xs[i] === null || ys[i] === null) { move = true; continue; }",
+                "    if (move) g.moveTo(px(xs[i]), py(ys[i])); else g.lineTo(px(xs[i]), py(ys[i]));",
+                "    move = false;",
+                "  }",
+                "  g.stroke();",
+                "}",
+                "function redraw() { if (!pending) { pending = true; requestAnimationFrame(draw); } }",
+                "async function load() {",
+                "  if (source) source.close();",
+                "  const name = $('table').value, x = +$('x').value, y = +$('y').value;",
+                "  if (!name) return;",
+                "  const url = encodeURIComponent(name);",
+                "  source = new EventSource('/stream/' + url);",
+                "  const add = data => {",
+                "    for (const row of data) { xs.push(row[x]); ys.push(row[y]); rows++; }",
+                "    if (xs.length > 8 * $('plot').clientWidth) load(); else redraw();",
+                "  };",
+                "  queued = [];",
+                "  source.addEventListener('rows', e => queued ? queued.push(JSON.parse(e.data)) : add(JSON.parse(e.data)));",
+                "  source.addEventListener('clear', () => { xs = []; ys = []; rows = 0; queued = queued && []; redraw(); });",
+                "  const snap = await (await fetch('/snapshot/' + url + '?x=' + x + '&y=' + y + '&width=' + $('plot').clientWidth)).json();",
+                "  xs = snap.x; ys = snap.y; rows = snap.rows;",
+                "  const waiting = queued; queued = null;",
+                "  waiting.forEach(add);",
+                "  redraw();",
+                "}",
+                "function columns() {",
+                "  const table = tables.find(t => t.name === $('table').value);",
+                "  for (const id of ['x', 'y']) $(id).innerHTML = table.columns.map((c, i) => '<option value=' + i + '>' + c.replace(/</g, '&lt;') + '</option>').join('');",
+                "  $('y').value = Math.min(1, table.columns.length - 1);",
+                "  load();",
+                "}",
+                "fetch('/tables').then(r => r.json()).then(t => {",
+                "  tables = t;",
+                "  $('table').innerHTML = t.map(t => '<option>' + t.name.replace(/</g, '&lt;') + '</option>').join('');",
+                "  if (t.length > 0) columns();",
+                "});",
+                "$('table').onchange = columns; $('x').onchange = load; $('y').onchange = load;",
+                "window.onresize = redraw;",
+                "</script>",
+                "</body>",
+                "</html>"
+        );
+
+    }
+
+}
@@ -12,13 +12,19 @@ import java.util.regex.Pattern;
 
 public class ResultStream extends ResultTable {
 
-    protected RandomAccessFile file;
-    private   String           path;
-    private   String[]         names;
-    private   String[]         units       = null;
-    private   JSONObject       attributes  = new JSONObject();
-    private   int              cols;
-    private   int              currentLine = 0;
+    protected        RandomAccessFile file;
+    private          String           path;
+    private          String[]         names;
+    private          String[]         units       = null;
+    private          JSONObject       attributes  = new JSONObject();
+    private          int              cols;
+    private          int              currentLine = 0;
+    private          StringBuilder    pending     = new StringBuilder();
+    private          int              pendingRows = 0;
+    private          int              batchRows   = 1;
+    private          long             batchTime   = 0;
+    private          long             lastFlush   = System.currentTimeMillis();
+    private volatile int              numRows     = -1;
 
     public ResultStream(String path, Col... columns) throws IOException {
         super(columns);
@@ -114,6 +120,57 @@ public class ResultStream extends ResultTable {
 
     }
 
+    /**
+     * Returns the path of the CSV file backing this ResultStream.
+     *
+     * @return Path to file
+     */
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * Sets how rows added to this ResultStream are batched before being written to its file. Rows are held in memory
+     * until either the given number of rows have built up or the given time has passed since the last write (checked
+     * whenever a row is added), so that each row does not need its own write to disk. Any held rows are always written
+     * before the file is read back or closed. By default, every row is written as soon as it is added.
+     *
+     * @param rows    Maximum number of rows to hold before writing
+     * @param maxTime Maximum time to hold rows for before writing, in milliseconds (0 for no limit)
+     */
+    public synchronized void setWriteBatch(int rows, long maxTime) {
+        batchRows = Math.max(1, rows);
+        batchTime = Math.max(0, maxTime);
+        flush();
+    }
+
+    /**
+     * Writes any rows currently being held in memory, due to write batching, to the file.
+     */
+    public synchronized void flush() {
+
+        lastFlush = System.currentTimeMillis();
+
+        if (pendingRows == 0) {
+            return;
+        }
+
+        try {
+
+            long current = file.getFilePointer();
+            file.seek(file.length());
+            file.writeBytes(pending.toString());
+            file.seek(current);
+
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        pending.setLength(0);
+        pendingRows = 0;
+
+    }
+
     private synchronized void init(String path) throws IOException {
 
         System.out.println(path);
@@ -129,6 +186,11 @@ public class ResultStream extends ResultTable {
         file.writeBytes(String.join(",", getNames()));
         file.writeBytes("\n");
 
+        numRows = 0;
+
+        // Reads count lines from the start of the file, so the file pointer must be there too
+        resetPosition();
+
     }
 
     @Override
@@ -146,6 +208,8 @@ public class ResultStream extends ResultTable {
 
         StringBuilder newFile = new StringBuilder();
 
+        numRows = -1;
+
         try {
 
             resetPosition();
@@ -182,6 +246,8 @@ public class ResultStream extends ResultTable {
 
         StringBuilder newFile = new StringBuilder();
 
+        numRows = -1;
+
         try {
 
             resetPosition();
@@ -215,6 +281,8 @@ public class ResultStream extends ResultTable {
 
         StringBuilder newFile = new StringBuilder();
 
+        numRows = -1;
+
         try {
 
             resetPosition();
@@ -257,15 +325,15 @@ public class ResultStream extends ResultTable {
     @Override
     protected synchronized void addRow(Result row) {
 
-        try {
+        pending.append(row.getOutput(","));
+        pendingRows++;
 
-            long current = file.getFilePointer();
-            file.seek(file.length());
-            file.writeBytes(row.getOutput(","));
-            file.seek(current);
+        if (numRows >= 0) {
+            numRows++;
+        }
 
-        } catch (IOException e) {
-            e.printStackTrace();
+        if (pendingRows >= batchRows || (batchTime > 0 && System.currentTimeMillis() - lastFlush >= batchTime)) {
+            flush();
         }
 
     }
@@ -273,6 +341,10 @@ public class ResultStream extends ResultTable {
     @Override
     protected synchronized void clearData() {
 
+        pending.setLength(0);
+        pendingRows = 0;
+        numRows     = 0;
+
         try {
 
             file.setLength(0);
@@ -295,8 +367,29 @@ public class ResultStream extends ResultTable {
 
     }
 
+    /**
+     * Returns the number of rows in the stream. This is counted by reading through the file the first time it is
+     * needed (or after lines have been removed or inserted) and then kept up to date as rows are added, so that
+     * frequent callers (eg a Table refreshing on the GUI thread) don't read the whole file each time.
+     */
     @Override
-    public synchronized int getNumRows() {
+    public int getNumRows() {
+
+        int rows = numRows;
+
+        if (rows >= 0) {
+            return rows;
+        }
+
+        return countRows();
+
+    }
+
+    private synchronized int countRows() {
+
+        if (numRows >= 0) {
+            return numRows;
+        }
 
         int count = 0;
 
@@ -312,17 +405,23 @@ public class ResultStream extends ResultTable {
             e.printStackTrace();
         }
 
-        return count - 2;
+        numRows = count - 2;
+
+        return numRows;
 
     }
 
     protected synchronized void resetPosition() throws IOException {
+        flush();
         file.seek(0);
         currentLine = 0;
     }
 
     protected synchronized String getLine(int no) throws IOException {
 
+        // Rows held back by write batching are not in the file yet
+        flush();
+
         if (no < currentLine) {
             resetPosition();
         }
@@ -364,6 +463,8 @@ public class ResultStream extends ResultTable {
 
     public synchronized Set<Double> getValueSet(int column) {
 
+        flush();
+
         Set<Double> set = new HashSet<>();
         getColumns(column).forEach(set::add);
         return set;
@@ -378,6 +479,8 @@ public class ResultStream extends ResultTable {
     @Override
     public synchronized void close() {
 
+        flush();
+
         try {
             file.close();
             file = new RandomAccessFile(path, "r");
@@ -390,6 +493,8 @@ public class ResultStream extends ResultTable {
     @Override
     public Iterator<Result> iterator() {
 
+        flush();
+
         try {
 
             RandomAccessFile file = new RandomAccessFile(ResultStream.this.path, "r");
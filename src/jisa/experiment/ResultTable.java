@@ -3,6 +3,7 @@ package jisa.experiment;
 import jisa.Util;
 import jisa.gui.Clearable;
 import jisa.maths.fits.*;
+import jisa.maths.fourier.Welch;
 import jisa.maths.functions.Function;
 import jisa.maths.functions.PFunction;
 import jisa.maths.matrices.Matrix;
@@ -233,6 +234,10 @@ public abstract class ResultTable implements Iterable<Result> {
         toClear.add(c);
     }
 
+    public void removeClearable(Clearable c) {
+        toClear.remove(c);
+    }
+
     public OnUpdate addOnUpdate(OnUpdate o) {
         onUpdate.add(o);
         return o;
@@ -427,7 +432,7 @@ public abstract class ResultTable implements Iterable<Result> {
 
     public List<XYPoint> getXYPoints(int xData, int yData) {
 
-        List<XYPoint> points = new LinkedList<>();
+        List<XYPoint> points = new ArrayList<>(getNumRows());
 
         for (Result r : this) {
             points.add(new XYPoint(r.get(xData), r.get(yData)));
@@ -446,6 +451,32 @@ public abstract class ResultTable implements Iterable<Result> {
         return Fitting.polyFit(this, xData, yData, degree);
     }
 
+    /**
+     * Starts a polynomial fit to the given columns that is kept up to date as rows are added to this table.
+     *
+     * @param xData  X column
+     * @param yData  Y column
+     * @param degree Degree of polynomial
+     *
+     * @return Fit that follows this table
+     */
+    public OnlineFit onlineFit(int xData, int yData, int degree) {
+        return new OnlineFit(this, xData, yData, degree);
+    }
+
+    /**
+     * Starts a polynomial fit to the given values that is kept up to date as rows are added to this table.
+     *
+     * @param xData  X values
+     * @param yData  Y values
+     * @param degree Degree of polynomial
+     *
+     * @return Fit that follows this table
+     */
+    public OnlineFit onlineFit(Evaluable xData, Evaluable yData, int degree) {
+        return new OnlineFit(this, xData, yData, degree);
+    }
+
     public GaussianFit gaussianFit(int xData, int yData) {
         return Fitting.gaussianFit(this, xData, yData);
     }
@@ -459,7 +490,66 @@ public abstract class ResultTable implements Iterable<Result> {
     }
 
     public Function asFunction(int xData, int yData) {
-        return new DataFunction(getXYPoints(xData, yData));
+        return asFunction(xData, yData, DataFunction.Mode.LINEAR);
+    }
+
+    /**
+     * Returns a function that interpolates between the values in the given columns, using the given method.
+     *
+     * @param xData X column
+     * @param yData Y column
+     * @param mode  Interpolation method
+     *
+     * @return Interpolated function
+     */
+    public DataFunction asFunction(int xData, int yData, DataFunction.Mode mode) {
+        return asFunction(r -> r.get(xData), r -> r.get(yData), mode);
+    }
+
+    /**
+     * Returns a function that interpolates between the given values, using the given method.
+     *
+     * @param xData X values
+     * @param yData Y values
+     * @param mode  Interpolation method
+     *
+     * @return Interpolated function
+     */
+    public DataFunction asFunction(Evaluable xData, Evaluable yData, DataFunction.Mode mode) {
+
+        double[] x     = new double[getNumRows()];
+        double[] y     = new double[x.length];
+        int      count = 0;
+
+        for (Result r : this) {
+
+            // Rows may have been added since the arrays were made
+            if (count == x.length) {
+                x = Arrays.copyOf(x, 2 * count + 1);
+                y = Arrays.copyOf(y, 2 * count + 1);
+            }
+
+            x[count] = xData.evaluate(r);
+            y[count] = yData.evaluate(r);
+            count++;
+
+        }
+
+        return new DataFunction(Arrays.copyOf(x, count), Arrays.copyOf(y, count), mode);
+
+    }
+
+    /**
+     * Returns the power spectral density of the values in one column, assuming the rows are evenly spaced in time,
+     * using Welch's method with its default settings (Hann window, 256-point segments overlapping by half).
+     *
+     * @param timeData  Time column, in seconds
+     * @param valueData Value column
+     *
+     * @return Power spectral density
+     */
+    public Spectrum powerSpectrum(int timeData, int valueData) {
+        return new Welch().calculate(this, timeData, valueData);
     }
 
     public void finalise() {
@@ -693,11 +783,11 @@ public abstract class ResultTable implements Iterable<Result> {
 
     public Map<Double, ResultTable> split(Evaluable splitBy) {
 
-        Set<Double>              values = getUniqueValues(splitBy);
-        Map<Double, ResultTable> map    = new TreeMap<>();
+        Map<Double, ResultTable> map = new TreeMap<>();
 
-        for (double value : values) {
-            map.put(value, filteredCopy(r -> splitBy.evaluate(r) == value));
+        // Sort rows into their tables in one go, rather than going through every row again for each value
+        for (Result row : this) {
+            map.computeIfAbsent(splitBy.evaluate(row), v -> new ResultList(columns.toArray(new Col[0]))).addRow(row);
         }
 
         return map;
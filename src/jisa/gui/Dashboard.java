@@ -1,5 +1,6 @@
 package jisa.gui;
 
+import jisa.Util;
 import jisa.control.IConf;
 import jisa.control.RTask;
 import jisa.control.Returnable;
@@ -9,11 +10,20 @@ import jisa.experiment.Col;
 import jisa.experiment.ResultStream;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.*;
 
 public class Dashboard extends Grid {
 
+    private static final ExecutorService SAMPLERS = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "Dashboard Sampler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     private final Grid                                 topRow      = new Grid(4);
     private final Grid                                 plots       = new Grid(3);
     private final List<Category<? extends Instrument>> categories  = new LinkedList<>();
@@ -60,7 +70,8 @@ public class Dashboard extends Grid {
         protected final IConf<T> conf;
         protected final Fields   fields;
         protected final String   name;
-        protected final List<Plotted<T>> list = new LinkedList<>();
+        protected final List<Plotted<T>> list    = new LinkedList<>();
+        protected       long             timeout = -1;
 
         public Category(String name, IConf<T> conf) {
 
@@ -81,6 +92,21 @@ public class Dashboard extends Grid {
 
         }
 
+        /**
+         * Sets how long each round of readings from this instrument is allowed to take before being recorded as NaN.
+         * Until a timed-out round finishes, later rounds are also recorded as NaN rather than queuing up behind it.
+         * Readings are never waited for beyond half the logging interval, so that a slow instrument can't hold up the
+         * next round of readings from the others.
+         *
+         * @param timeout Timeout, in milliseconds (negative to use half the logging interval)
+         *
+         * @return Self-reference
+         */
+        public Category<T> setTimeout(long timeout) {
+            this.timeout = timeout;
+            return this;
+        }
+
     }
 
     public synchronized void start(String filePath) throws IOException {
@@ -89,33 +115,38 @@ public class Dashboard extends Grid {
             return;
         }
 
-        List<Col>                columns   = new LinkedList<>();
-        List<Returnable<Double>> toMeasure = new LinkedList<>();
+        List<Col>     columns  = new LinkedList<>();
+        List<Sampler> samplers = new LinkedList<>();
 
         columns.add(new Col("Time", "mins"));
 
         for (Category<? extends Instrument> cat : categories) {
 
             Instrument instrument = cat.conf.get();
+            Sampler    sampler    = new Sampler(cat.timeout < 0 ? interval / 2 : Math.min(cat.timeout, interval / 2));
 
-            int i = 1;
             for (Plotted<? extends Instrument> plotted : cat.list) {
 
-                columns.add(plotted.header);
-
                 if (instrument == null || !(plotted.checkBox.get())) {
-                    toMeasure.add(() -> 0.0);
+                    sampler.add(columns.size(), () -> 0.0);
                 } else {
-                    toMeasure.add(() -> plotted.measurable.getGeneric(instrument));
+                    sampler.add(columns.size(), () -> plotted.measurable.getGeneric(instrument));
                 }
 
+                columns.add(plotted.header);
+                columns.add(new Col(plotted.header.getName() + " Time", "mins"));
+
             }
 
+            samplers.add(sampler);
+
         }
 
         stream = new ResultStream(filePath, columns.toArray(new Col[0]));
+        stream.setWriteBatch(32, 10000);
 
         int j = 1;
+        int m = 0;
         for (Category<?> cat : categories) {
 
             for (Plotted<?> plotted : cat.list) {
@@ -124,18 +155,17 @@ public class Dashboard extends Grid {
 
                     plotted.plot.clear();
                     plotted.plot.createSeries()
-                                .watch(stream, 0, j)
+                                .watch(stream, j + 1, j)
                                 .setName("Data")
-                                .setColour(Series.defaultColours[(j - 1) % Series.defaultColours.length])
+                                .setColour(Series.defaultColours[m % Series.defaultColours.length])
                                 .setMarkerVisible(false);
 
-                    System.out.println(Series.defaultColours[(j - 1) % Series.defaultColours.length].toString());
-
                     plotted.plot.setLegendVisible(false);
 
                 }
 
-                j++;
+                j += 2;
+                m++;
 
             }
 
@@ -143,12 +173,18 @@ public class Dashboard extends Grid {
 
         logger = new RTask(interval, (task) -> {
 
-            double[] data = new double[columns.size()];
+            double[] data  = new double[columns.size()];
+            long     start = System.currentTimeMillis();
 
             data[0] = task.getSecFromStart() / 60.0;
 
-            for (int i = 0; i < toMeasure.size(); i++) {
-                data[i + 1] = toMeasure.get(i).get();
+            // Set all instruments reading at once, then collect what each has managed within its timeout
+            for (Sampler sampler : samplers) {
+                sampler.start(task);
+            }
+
+            for (Sampler sampler : samplers) {
+                sampler.collect(data, start);
             }
 
             stream.addData(data);
@@ -175,6 +211,88 @@ public class Dashboard extends Grid {
 
     }
 
+    /**
+     * Takes the readings for one category on its own thread, so that a slow instrument only holds up its own readings.
+     */
+    private static class Sampler {
+
+        private final long                     timeout;
+        private final List<Integer>            columns  = new ArrayList<>();
+        private final List<Returnable<Double>> readings = new ArrayList<>();
+        private       Future<double[]>         current  = null;
+        private       boolean                  fresh    = false;
+
+        private Sampler(long timeout) {
+            this.timeout = timeout;
+        }
+
+        private void add(int column, Returnable<Double> reading) {
+            columns.add(column);
+            readings.add(reading);
+        }
+
+        private void start(RTask task) {
+
+            // If the last round is still going, don't queue another up behind it
+            fresh = current == null || current.isDone();
+
+            if (fresh) {
+
+                current = SAMPLERS.submit(() -> {
+
+                    double[] values = new double[2 * readings.size()];
+
+                    for (int i = 0; i < readings.size(); i++) {
+
+                        try {
+                            values[2 * i] = readings.get(i).get();
+                        } catch (Exception e) {
+                            Util.errLog.printf("Dashboard reading failed: \"%s\"\n", e.getMessage());
+                            values[2 * i] = Double.NaN;
+                        }
+
+                        values[2 * i + 1] = task.getSecFromStart() / 60.0;
+
+                    }
+
+                    return values;
+
+                });
+
+            }
+
+        }
+
+        private void collect(double[] data, long start) {
+
+            double[] values;
+
+            try {
+
+                if (!fresh) {
+                    throw new TimeoutException();
+                }
+
+                values = current.get(Math.max(0, start + timeout - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                values = new double[2 * readings.size()];
+                Arrays.fill(values, Double.NaN);
+            } catch (ExecutionException | TimeoutException e) {
+                values = new double[2 * readings.size()];
+                Arrays.fill(values, Double.NaN);
+            }
+
+            for (int i = 0; i < columns.size(); i++) {
+                data[columns.get(i)]     = values[2 * i];
+                data[columns.get(i) + 1] = values[2 * i + 1];
+            }
+
+        }
+
+    }
+
     private class Plotted<T extends Instrument> {
 
         protected final Field<Boolean> checkBox;
@@ -0,0 +1,471 @@
+package jisa.gui;
+
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+import jisa.Util;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Batches GUI updates submitted from any number of threads, running them in order on the GUI thread once per frame
+ * instead of making each submitting thread wait for its own individual update to be processed. Updates submitted with
+ * a key replace any update with the same key that is still waiting to be run, so that things that change faster than
+ * the screen can be redrawn (eg axis limits) are only recalculated once per frame. These keyed updates are run after
+ * the ordered updates in the same frame, so they see the effect of everything queued before them.
+ */
+public class FrameDispatcher {
+
+    private static final Queue<Runnable>       QUEUE     = new ConcurrentLinkedQueue<>();
+    private static final Map<Object, Keyed>    LATEST    = new ConcurrentHashMap<>();
+    private static final Queue<Object>         KEYS      = new ConcurrentLinkedQueue<>();
+    private static final AtomicLong            ENQUEUED  = new AtomicLong(0);
+    private static final AtomicBoolean         SCHEDULED = new AtomicBoolean(false);
+    private static final AtomicInteger         PENDING   = new AtomicInteger(0);
+    private static final AtomicLong            SUBMITTED = new AtomicLong(0);
+    private static final AtomicLong            EXECUTED  = new AtomicLong(0);
+    private static final AtomicLong            COALESCED = new AtomicLong(0);
+    private static final AtomicLong            STALLS    = new AtomicLong(0);
+    private static final Object                LOCK      = new Object();
+    private static final Object                ORDER     = new Object();
+    private static final int                   MAX_DEFER = 10;
+
+    private static volatile int            maxPending    = 100000;
+    private static volatile long           frameBudget   = 8000000L;
+    private static volatile int            peakPending   = 0;
+    private static volatile int            lastBatchSize = 0;
+    private static volatile long           lastFrameTime = 0;
+    private static volatile long           frames        = 0;
+    private static          long           dequeued      = 0;
+    private static          boolean        draining      = false;
+    private static          AnimationTimer timer         = null;
+
+    static {
+        GUI.touch();
+    }
+
+    /**
+     * Queues the given code to be run on the GUI thread at the next frame, returning immediately. Updates are run in
+     * the order they were submitted. If called from the GUI thread, any queued updates are run first, followed by the
+     * given code, before returning.
+     *
+     * <p>If the number of queued updates has reached the limit set by setMaxPending(...), the calling thread is
+     * halted until the GUI thread has caught up.</p>
+     *
+     * @param toRun Code to run on GUI thread
+     */
+    public static void submit(Runnable toRun) {
+
+        if (Platform.isFxApplicationThread()) {
+            SUBMITTED.incrementAndGet();
+            drainAll();
+            execute(toRun);
+            return;
+        }
+
+        enqueue(toRun);
+
+    }
+
+    /**
+     * Queues the given code to be run on the GUI thread at the next frame, replacing any code queued with the same key
+     * that has not yet been run. Returns immediately. Use this for updates where only the most recent one matters. The
+     * code is run after every update submitted (by any means) before this call, including those that end up being run
+     * in the same frame.
+     *
+     * @param key   Key identifying what is being updated
+     * @param toRun Code to run on GUI thread
+     */
+    public static void coalesce(Object key, Runnable toRun) {
+
+        if (Platform.isFxApplicationThread() && !draining) {
+            submit(toRun);
+            return;
+        }
+
+        SUBMITTED.incrementAndGet();
+
+        AtomicBoolean added = new AtomicBoolean(false);
+
+        // Wait for everything queued so far, keeping the frame it was first queued in so it can't be put off forever
+        LATEST.compute(key, (k, previous) -> {
+
+            if (previous == null) {
+                added.set(true);
+                return new Keyed(toRun, ENQUEUED.get(), frames);
+            }
+
+            COALESCED.incrementAndGet();
+            return new Keyed(toRun, ENQUEUED.get(), previous.frame);
+
+        });
+
+        if (added.get()) {
+            KEYS.add(key);
+        }
+
+        schedule();
+
+    }
+
+    /**
+     * Runs the given code on the GUI thread, after any updates already queued, waiting until it has finished. Unlike
+     * submit(...), this does not wait for the next frame.
+     *
+     * @param toRun Code to run on GUI thread
+     */
+    public static void runNow(Runnable toRun) {
+
+        if (Platform.isFxApplicationThread()) {
+            submit(toRun);
+            return;
+        }
+
+        Semaphore semaphore = new Semaphore(0);
+
+        enqueue(() -> {
+            try {
+                toRun.run();
+            } finally {
+                semaphore.release();
+            }
+        });
+
+        Platform.runLater(FrameDispatcher::drainAll);
+
+        try {
+            semaphore.acquire();
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+
+    }
+
+    /**
+     * Halts the current thread until all updates submitted so far have been run.
+     */
+    public static void flush() {
+        runNow(() -> {});
+    }
+
+    private static void enqueue(Runnable toRun) {
+
+        // Only the GUI thread can make room, so it must never wait for room itself
+        if (PENDING.get() >= maxPending && !Platform.isFxApplicationThread()) {
+
+            STALLS.incrementAndGet();
+
+            synchronized (LOCK) {
+
+                while (PENDING.get() >= maxPending) {
+
+                    try {
+                        LOCK.wait(100);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        break;
+                    }
+
+                }
+
+            }
+
+        }
+
+        SUBMITTED.incrementAndGet();
+
+        // Count in queue order, so that a count of ENQUEUED means exactly the first ENQUEUED updates in the queue
+        synchronized (ORDER) {
+            QUEUE.add(toRun);
+            ENQUEUED.incrementAndGet();
+        }
+
+        peakPending = Math.max(peakPending, PENDING.incrementAndGet());
+
+        schedule();
+
+    }
+
+    private static void schedule() {
+
+        if (SCHEDULED.compareAndSet(false, true)) {
+            Platform.runLater(FrameDispatcher::startTimer);
+        }
+
+    }
+
+    private static void startTimer() {
+
+        if (timer == null) {
+
+            timer = new AnimationTimer() {
+
+                @Override
+                public void handle(long now) {
+                    frame();
+                }
+
+            };
+
+        }
+
+        timer.start();
+
+    }
+
+    private static void frame() {
+
+        long start = System.nanoTime();
+        int  count = drain(start + frameBudget);
+
+        lastFrameTime = System.nanoTime() - start;
+        lastBatchSize = count;
+        frames++;
+
+        // Stop the timer when idle so that we don't force the GUI to redraw every frame for no reason. Anyone who
+        // submits after we clear the flag will start it again.
+        SCHEDULED.set(false);
+
+        if ((QUEUE.isEmpty() && LATEST.isEmpty()) || !SCHEDULED.compareAndSet(false, true)) {
+            timer.stop();
+        }
+
+    }
+
+    private static void drainAll() {
+        drain(Long.MAX_VALUE);
+    }
+
+    private static int drain(long deadline) {
+
+        if (draining) {
+            return 0;
+        }
+
+        draining = true;
+
+        int      count = 0;
+        Runnable next;
+
+        try {
+
+            while (System.nanoTime() < deadline && (next = QUEUE.poll()) != null) {
+
+                PENDING.decrementAndGet();
+                dequeued++;
+                execute(next);
+                count++;
+
+                if (count % 256 == 0) {
+                    release();
+                }
+
+            }
+
+            count += runKeyed();
+
+        } finally {
+            draining = false;
+            release();
+        }
+
+        return count;
+
+    }
+
+    /**
+     * Runs each keyed update whose preceding updates have all been run. Any still waiting on updates left over for the
+     * next frame are kept back, unless they have already waited for several frames (so a GUI thread that never quite
+     * catches up still shows something).
+     */
+    private static int runKeyed() {
+
+        int count = 0;
+
+        for (int i = KEYS.size(); i > 0; i--) {
+
+            Object key   = KEYS.poll();
+            Keyed  keyed = key == null ? null : LATEST.get(key);
+
+            if (keyed == null) {
+                continue;
+            }
+
+            if ((keyed.after <= dequeued || frames - keyed.frame >= MAX_DEFER) && LATEST.remove(key, keyed)) {
+                execute(keyed.toRun);
+                count++;
+            } else {
+                KEYS.add(key);
+            }
+
+        }
+
+        return count;
+
+    }
+
+    private static void execute(Runnable toRun) {
+
+        try {
+            toRun.run();
+        } catch (Throwable e) {
+            Util.errLog.printf("Exception encountered running GUI update: \"%s\"\n", e.getMessage());
+            e.printStackTrace();
+        }
+
+        EXECUTED.incrementAndGet();
+
+    }
+
+    private static void release() {
+
+        synchronized (LOCK) {
+            LOCK.notifyAll();
+        }
+
+    }
+
+    /**
+     * Sets the maximum number of updates that can be queued before submitting threads are made to wait for the GUI
+     * thread to catch up.
+     *
+     * @param max Maximum number of queued updates
+     */
+    public static void setMaxPending(int max) {
+        maxPending = Math.max(1, max);
+        release();
+    }
+
+    public static int getMaxPending() {
+        return maxPending;
+    }
+
+    /**
+     * Sets the maximum amount of time to spend running queued updates each frame, so that the GUI remains responsive
+     * even when updates are being submitted faster than they can be run. Any left over are run in the next frame.
+     *
+     * @param msec Time budget, in milliseconds
+     */
+    public static void setFrameBudget(double msec) {
+        frameBudget = (long) (msec * 1e6);
+    }
+
+    /**
+     * Returns the number of updates currently waiting to be run.
+     *
+     * @return Number of queued updates
+     */
+    public static int getPending() {
+        return PENDING.get();
+    }
+
+    /**
+     * Returns the largest number of updates that have been waiting to be run at once.
+     *
+     * @return Peak number of queued updates
+     */
+    public static int getPeakPending() {
+        return peakPending;
+    }
+
+    /**
+     * Returns the total number of updates submitted, including those replaced by a newer update with the same key.
+     *
+     * @return Number of updates submitted
+     */
+    public static long getSubmitted() {
+        return SUBMITTED.get();
+    }
+
+    /**
+     * Returns the total number of updates run.
+     *
+     * @return Number of updates run
+     */
+    public static long getExecuted() {
+        return EXECUTED.get();
+    }
+
+    /**
+     * Returns the total number of updates that were replaced by a newer update with the same key before being run.
+     *
+     * @return Number of coalesced updates
+     */
+    public static long getCoalesced() {
+        return COALESCED.get();
+    }
+
+    /**
+     * Returns the number of times a submitting thread has had to wait because too many updates were queued.
+     *
+     * @return Number of stalls
+     */
+    public static long getStalls() {
+        return STALLS.get();
+    }
+
+    /**
+     * Returns the number of frames in which queued updates have been run.
+     *
+     * @return Number of frames
+     */
+    public static long getFrames() {
+        return frames;
+    }
+
+    /**
+     * Returns the number of updates run in the most recent frame.
+     *
+     * @return Batch size
+     */
+    public static int getLastBatchSize() {
+        return lastBatchSize;
+    }
+
+    /**
+     * Returns how long it took to run the updates in the most recent frame.
+     *
+     * @return Frame time, in milliseconds
+     */
+    public static double getLastFrameTime() {
+        return lastFrameTime / 1e6;
+    }
+
+    /**
+     * Resets all counters.
+     */
+    public static void resetStatistics() {
+        SUBMITTED.set(0);
+        EXECUTED.set(0);
+        COALESCED.set(0);
+        STALLS.set(0);
+        peakPending   = PENDING.get();
+        lastBatchSize = 0;
+        lastFrameTime = 0;
+        frames        = 0;
+    }
+
+    /**
+     * A keyed update, along with how many updates must have been run before it and the frame it was first queued in.
+     */
+    private static class Keyed {
+
+        private final Runnable toRun;
+        private final long     after;
+        private final long     frame;
+
+        private Keyed(Runnable toRun, long after, long frame) {
+            this.toRun = toRun;
+            this.after = after;
+            this.frame = frame;
+        }
+
+    }
+
+}
@@ -549,33 +549,23 @@ public class GUI extends Application {
     }
 
     /**
-     * Runs the supplied Runnable on the GUI thread, waits until it has finished.
+     * Runs the supplied Runnable on the GUI thread, waits until it has finished. Any updates already queued by
+     * runLater(...) are run first, so that updates are always applied in the order they were made.
      *
      * @param toRun Code to run on GUI thread
      */
     public static void runNow(Runnable toRun) {
+        FrameDispatcher.runNow(toRun);
+    }
 
-        if (Platform.isFxApplicationThread()) {
-
-            toRun.run();
-
-        } else {
-
-            Semaphore s = new Semaphore(0);
-
-            Platform.runLater(() -> {
-                toRun.run();
-                s.release();
-            });
-
-            try {
-                s.acquire();
-            } catch (InterruptedException e) {
-                e.printStackTrace();
-            }
-
-        }
-
+    /**
+     * Queues the supplied Runnable to be run on the GUI thread at the next frame, without waiting for it. Updates
+     * queued this way from any thread are batched together and run in order.
+     *
+     * @param toRun Code to run on GUI thread
+     */
+    public static void runLater(Runnable toRun) {
+        FrameDispatcher.submit(toRun);
     }
 
     @Override
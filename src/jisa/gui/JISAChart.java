@@ -4,15 +4,21 @@ import javafx.animation.Animation;
 import javafx.animation.KeyFrame;
 import javafx.animation.KeyValue;
 import javafx.animation.Timeline;
+import javafx.beans.InvalidationListener;
 import javafx.collections.FXCollections;
 import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
 import javafx.geometry.Side;
 import javafx.scene.Node;
 import javafx.scene.Scene;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.chart.ValueAxis;
 import javafx.scene.chart.XYChart;
 import javafx.scene.control.Button;
 import javafx.scene.effect.DropShadow;
+import javafx.scene.image.Image;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.StackPane;
 import javafx.scene.paint.Color;
@@ -21,8 +27,10 @@ import javafx.stage.Stage;
 import javafx.util.Duration;
 import jisa.Util;
 import jisa.experiment.Result;
+import jisa.experiment.ResultPyramid;
 import jisa.experiment.ResultTable;
 import jisa.experiment.RowValue;
+import jisa.gui.plotting.M4Decimator;
 import jisa.maths.fits.Fit;
 import jisa.maths.functions.Function;
 
@@ -46,6 +54,8 @@ public class JISAChart extends XYChart<Double, Double> {
     private final BorderPane             legendPane    = new BorderPane();
     private       Stage                  legendStage;
     private       Plot.Sort              sorting       = Plot.Sort.X_AXIS;
+    private       Plot.Renderer          renderer      = Plot.Renderer.NODES;
+    private       ChartCanvas            canvas        = null;
     // private ParallelTransition     animation     = new ParallelTransition();
 
     public JISAChart() {
@@ -71,37 +81,6 @@ public class JISAChart extends XYChart<Double, Double> {
 
     }
 
-    private static List<XYChart.Data<Double, Double>> reducePoints(List<XYChart.Data<Double, Double>> points, double epsilon) {
-
-        double dmax  = 0;
-        int    index = 0;
-        int    end   = points.size() - 1;
-        Line   line  = new Line(points.get(0), points.get(end));
-
-        for (int i = 1; i < end; i++) {
-            double d = line.getDistance(points.get(i));
-            if (d > dmax) {
-                dmax  = d;
-                index = i;
-            }
-        }
-
-        List<XYChart.Data<Double, Double>> results = new LinkedList<>();
-
-        if (dmax > epsilon) {
-            List<XYChart.Data<Double, Double>> list1 = reducePoints(points.subList(0, index + 1), epsilon);
-            List<XYChart.Data<Double, Double>> list2 = reducePoints(points.subList(index, points.size()), epsilon);
-            results.addAll(list1);
-            results.addAll(list2.subList(1, list2.size()));
-        } else {
-            results.add(points.get(0));
-            results.add(points.get(end));
-        }
-
-        return results;
-
-    }
-
     private ChartNode createSymbol(Series<Double, Double> series, Data<Double, Double> item) {
 
         ChartNode symbol;
@@ -125,7 +104,16 @@ public class JISAChart extends XYChart<Double, Double> {
     }
 
     public void updateAxisRange() {
-        super.updateAxisRange();
+
+        // Rather than handing every data point to the axes each time, they keep track of the extent of the data themselves
+        if (getXAxis().isAutoRanging()) {
+            ((SmartAxis) getXAxis()).updateRange();
+        }
+
+        if (getYAxis().isAutoRanging()) {
+            ((SmartAxis) getYAxis()).updateRange();
+        }
+
     }
 
     public void updateAxes() {
@@ -135,6 +123,14 @@ public class JISAChart extends XYChart<Double, Double> {
     @Override
     protected void dataItemAdded(Series<Double, Double> series, int itemIndex, Data<Double, Double> item) {
 
+        ((SmartAxis) getXAxis()).dataAdded(item);
+        ((SmartAxis) getYAxis()).dataAdded(item);
+
+        if (renderer == Plot.Renderer.CANVAS) {
+            canvas.added(series, itemIndex);
+            return;
+        }
+
         Node symbol = createSymbol(series, item);
         item.setNode(symbol);
         newlyAdded.add(symbol);
@@ -145,19 +141,32 @@ public class JISAChart extends XYChart<Double, Double> {
     @Override
     protected void dataItemRemoved(Data<Double, Double> item, Series<Double, Double> series) {
 
+        ((SmartAxis) getXAxis()).dataRemoved(item);
+        ((SmartAxis) getYAxis()).dataRemoved(item);
+
         Node symbol = item.getNode();
 
         if (symbol != null) {
             GUI.runNow(() -> getPlotChildren().remove(symbol));
+            leftOverNodes.add((ChartNode) symbol);
         }
 
-        leftOverNodes.add((ChartNode) symbol);
+        if (canvas != null) {
+            canvas.invalidate(series);
+        }
 
     }
 
     @Override
     protected void dataItemChanged(Data<Double, Double> item) {
 
+        ((SmartAxis) getXAxis()).dataInvalidated();
+        ((SmartAxis) getYAxis()).dataInvalidated();
+
+        if (canvas != null) {
+            canvas.invalidateAll();
+        }
+
     }
 
     @Override
@@ -225,6 +234,9 @@ public class JISAChart extends XYChart<Double, Double> {
     @Override
     protected void seriesRemoved(Series<Double, Double> series) {
 
+        ((SmartAxis) getXAxis()).dataInvalidated();
+        ((SmartAxis) getYAxis()).dataInvalidated();
+
         GUI.runNow(() -> {
 
             for (Data<Double, Double> data : series.getData()) {
@@ -245,6 +257,10 @@ public class JISAChart extends XYChart<Double, Double> {
             nodeTemplates.remove(series);
             fitters.remove(series);
 
+            if (canvas != null) {
+                canvas.invalidate(series);
+            }
+
             legend.removeItem(series);
 
         });
@@ -254,6 +270,11 @@ public class JISAChart extends XYChart<Double, Double> {
     @Override
     public synchronized void layoutPlotChildren() {
 
+        if (renderer == Plot.Renderer.CANVAS) {
+            GUI.runNow(canvas::draw);
+            return;
+        }
+
         GUI.runNow(() -> {
 
             // this.animation.jumpTo(Duration.millis(250));
@@ -425,6 +446,91 @@ public class JISAChart extends XYChart<Double, Double> {
         requestChartLayout();
     }
 
+    public Plot.Renderer getRenderer() {
+        return renderer;
+    }
+
+    /**
+     * Switches between giving each data point its own node (NODES) and drawing all series onto a single canvas
+     * (CANVAS). Must be called on the GUI thread.
+     *
+     * @param renderer Renderer to use
+     */
+    public void setRenderer(Plot.Renderer renderer) {
+
+        if (renderer == this.renderer) {
+            return;
+        }
+
+        this.renderer = renderer;
+
+        switch (renderer) {
+
+            case CANVAS:
+
+                Set<Node> symbols = new HashSet<>();
+
+                for (Series<Double, Double> series : getData()) {
+
+                    for (Data<Double, Double> data : series.getData()) {
+
+                        if (data.getNode() != null) {
+                            symbols.add(data.getNode());
+                            leftOverNodes.add((ChartNode) data.getNode());
+                            data.setNode(null);
+                        }
+
+                    }
+
+                    if (series.getNode() instanceof Path) {
+                        ((Path) series.getNode()).getElements().clear();
+                    }
+
+                }
+
+                getPlotChildren().removeAll(symbols);
+
+                if (canvas == null) {
+                    canvas = new ChartCanvas();
+                }
+
+                canvas.invalidateAll();
+                getPlotChildren().add(canvas);
+                break;
+
+            case NODES:
+
+                getPlotChildren().remove(canvas);
+
+                for (Series<Double, Double> series : getData()) {
+
+                    JISASeries owner = findSeries(series);
+                    int        i     = 0;
+
+                    for (Data<Double, Double> data : series.getData()) {
+
+                        dataItemAdded(series, i++, data);
+
+                        if (owner != null) {
+                            owner.attachClick(data);
+                        }
+
+                    }
+
+                }
+
+                break;
+
+        }
+
+        requestChartLayout();
+
+    }
+
+    private JISASeries findSeries(Series<Double, Double> series) {
+        return this.series.stream().filter(s -> s.series == series).findFirst().orElse(null);
+    }
+
     public interface ResultHandler {
 
         void handle(Result row, double x, double y, double e);
@@ -524,6 +630,7 @@ public class JISAChart extends XYChart<Double, Double> {
         private       double                size      = 5.0;
         private       boolean               visible   = true;
         private       boolean               isLegend  = false;
+        private       Runnable              onChange  = null;
 
         public ChartNode() {
             this(false, null);
@@ -600,6 +707,19 @@ public class JISAChart extends XYChart<Double, Double> {
             style.forEach((k, v) -> list.add(String.format("%s: %s;", k, v)));
             symbol.setStyle(String.join(" ", list));
 
+            if (onChange != null) {
+                onChange.run();
+            }
+
+        }
+
+        /**
+         * Sets code to run whenever the style of this node changes.
+         *
+         * @param onChange Code to run
+         */
+        public void setOnChange(Runnable onChange) {
+            this.onChange = onChange;
         }
 
         public void setStyle(jisa.gui.Series.Shape shape, Color colour, double size) {
@@ -778,42 +898,6 @@ public class JISAChart extends XYChart<Double, Double> {
 
     }
 
-    private static class Line {
-
-        private final double x1;
-        private final double x2;
-        private final double y1;
-        private final double y2;
-        private final double dx;
-        private final double dy;
-        private final double x1y2;
-        private final double x2y1;
-        private final double length;
-
-        public Line(XYChart.Data<Double, Double> start, XYChart.Data<Double, Double> end) {
-
-            x1     = start.getXValue();
-            x2     = end.getXValue();
-            y1     = start.getYValue();
-            y2     = end.getYValue();
-            dx     = x1 - x2;
-            dy     = y1 - y2;
-            x1y2   = x1 * y2;
-            x2y1   = x2 * y1;
-            length = Math.sqrt(Math.pow(dx, 2) + Math.pow(dy, 2));
-        }
-
-        public double getDistance(XYChart.Data<Double, Double> p) {
-
-            if (length == 0) {
-                return 0;
-            }
-
-            return Math.abs(dy * p.getXValue() - dx * p.getYValue() + x1y2 - x2y1) / length;
-        }
-
-    }
-
     public class ChartLine extends Path {
 
         private final List<ChartLine>     clones  = new LinkedList<>();
@@ -853,6 +937,10 @@ public class JISAChart extends XYChart<Double, Double> {
 
             clones.forEach(ChartLine::updateStyle);
 
+            if (renderer == Plot.Renderer.CANVAS) {
+                GUI.runLater(JISAChart.this::requestChartLayout);
+            }
+
         }
 
         public double getLineWidth() {
@@ -875,12 +963,11 @@ public class JISAChart extends XYChart<Double, Double> {
 
             getStrokeDashArray().setAll(dashes);
             clones.forEach(c -> c.getStrokeDashArray().setAll(dashes));
+            updateStyle();
         }
 
         public void setDashes(Double... dashes) {
-
-            getStrokeDashArray().setAll(dashes);
-            clones.forEach(c -> c.getStrokeDashArray().setAll(dashes));
+            setDashes(Arrays.asList(dashes));
         }
 
         public Color getLineColour() {
@@ -909,6 +996,451 @@ public class JISAChart extends XYChart<Double, Double> {
 
     }
 
+    private static double getError(Data<Double, Double> data) {
+        return data.getExtraValue() instanceof Double ? (Double) data.getExtraValue() : 0.0;
+    }
+
+    /**
+     * Draws all series onto a single canvas, rather than each point being its own node. Keeps track of how much of
+     * each series has already been drawn so that, as long as points are only being appended and the axes have not
+     * moved, only the newly added points need drawing on top of what is already there.
+     */
+    private class ChartCanvas extends Canvas {
+
+        private final Map<Series<Double, Double>, Drawn> drawn   = new HashMap<>();
+        private       double[]                           view    = new double[0];
+        private       double[]                           xPixels = new double[64];
+        private       double[]                           yPixels = new double[64];
+        private       double[]                           ePixels = new double[64];
+        private       double[]                           xLine   = new double[0];
+        private       double[]                           yLine   = new double[0];
+
+        public ChartCanvas() {
+
+            setManaged(false);
+
+            setOnMouseClicked(e -> {
+
+                if (e.getClickCount() == 1) {
+                    click(e.getX(), e.getY());
+                }
+
+            });
+
+        }
+
+        /**
+         * Records that a point has been added to the given series, forcing a full redraw if it was not appended to
+         * the end.
+         */
+        public void added(Series<Double, Double> series, int index) {
+
+            Drawn state = drawn.get(series);
+
+            if (state != null && index < state.count) {
+                state.valid = false;
+            }
+
+        }
+
+        public void invalidate(Series<Double, Double> series) {
+
+            Drawn state = drawn.get(series);
+
+            if (state != null) {
+                state.valid = false;
+            }
+
+        }
+
+        public void invalidateAll() {
+            drawn.values().forEach(d -> d.valid = false);
+        }
+
+        public void draw() {
+
+            ValueAxis<Double> xAxis  = (ValueAxis<Double>) getXAxis();
+            ValueAxis<Double> yAxis  = (ValueAxis<Double>) getYAxis();
+            double            width  = xAxis.getWidth();
+            double            height = yAxis.getHeight();
+
+            if (getWidth() != width || getHeight() != height) {
+                setWidth(width);
+                setHeight(height);
+                invalidateAll();
+            }
+
+            double[] newView = {xAxis.getLowerBound(), xAxis.getUpperBound(), yAxis.getLowerBound(), yAxis.getUpperBound(), sorting.ordinal()};
+
+            if (!Arrays.equals(view, newView)) {
+                view = newView;
+                invalidateAll();
+            }
+
+            drawn.keySet().retainAll(getData());
+
+            boolean full = false;
+
+            for (Series<Double, Double> series : getData()) {
+
+                Drawn state = drawn.computeIfAbsent(series, s -> new Drawn());
+                int   style = getStyle(series);
+
+                if (!state.valid || state.style != style || state.count > series.getData().size() || fitters.containsKey(series)) {
+                    full = true;
+                }
+
+                state.style = style;
+
+            }
+
+            GraphicsContext gc = getGraphicsContext2D();
+
+            if (full || !drawAppended(gc)) {
+
+                gc.clearRect(0, 0, getWidth(), getHeight());
+
+                for (Series<Double, Double> series : getData()) {
+                    drawSeries(gc, series, drawn.get(series), 0);
+                }
+
+            }
+
+            if (getPlotChildren().indexOf(this) != getPlotChildren().size() - 1) {
+                toFront();
+            }
+
+        }
+
+        private boolean drawAppended(GraphicsContext gc) {
+
+            for (Series<Double, Double> series : getData()) {
+
+                Drawn state = drawn.get(series);
+
+                if (state.count < series.getData().size() && !drawSeries(gc, series, state, state.count)) {
+                    return false;
+                }
+
+            }
+
+            return true;
+
+        }
+
+        private int getStyle(Series<Double, Double> series) {
+
+            ChartNode template = nodeTemplates.get(series);
+            ChartLine line     = series.getNode() instanceof ChartLine ? (ChartLine) series.getNode() : null;
+
+            return Objects.hash(
+                    template == null ? null : template.getMarkerShape(),
+                    template == null ? null : template.getMarkerColour(),
+                    template == null ? null : template.getMarkerSize(),
+                    template == null ? null : template.isMarkerVisible(),
+                    line == null ? null : line.getLineColour(),
+                    line == null ? null : line.getLineWidth(),
+                    line == null ? null : line.isLineVisible(),
+                    line == null ? null : line.getDashes()
+            );
+
+        }
+
+        private boolean drawSeries(GraphicsContext gc, Series<Double, Double> series, Drawn state, int from) {
+
+            List<Data<Double, Double>> points   = series.getData();
+            ChartNode                  template = nodeTemplates.get(series);
+            ChartLine                  line     = series.getNode() instanceof ChartLine ? (ChartLine) series.getNode() : null;
+            int                        n        = points.size();
+            int                        start    = Math.max(0, from - 1);
+
+            if (xPixels.length < n - start) {
+                int size = Math.max(n - start, 2 * xPixels.length);
+                xPixels = new double[size];
+                yPixels = new double[size];
+                ePixels = new double[size];
+            }
+
+            int     count   = 0;
+            boolean ordered = true;
+
+            for (int i = start; i < n; i++) {
+
+                Data<Double, Double> point  = points.get(i);
+                double               yValue = point.getYValue();
+                double               error  = getError(point);
+                double               x      = getXAxis().getDisplayPosition(point.getXValue());
+                double               y      = getYAxis().getDisplayPosition(yValue);
+
+                if (Double.isNaN(x) || Double.isNaN(y)) {
+                    continue;
+                }
+
+                xPixels[count] = x;
+                yPixels[count] = y;
+                ePixels[count] = error > 0 ? Math.abs(getYAxis().getDisplayPosition(yValue + error) - y) : 0.0;
+
+                if (count > 0) {
+
+                    switch (sorting) {
+
+                        case X_AXIS:
+                            ordered &= x >= xPixels[count - 1];
+                            break;
+
+                        case Y_AXIS:
+                            ordered &= y >= yPixels[count - 1];
+                            break;
+
+                    }
+
+                }
+
+                count++;
+
+            }
+
+            // Appended points that would join the line somewhere other than at its end mean starting again
+            if (from > 0 && !ordered) {
+                return false;
+            }
+
+            if (!ordered) {
+                sortPixels(count);
+            }
+
+            Function fitted = null;
+
+            try {
+                Fit fit = fitters.containsKey(series) ? fitters.get(series).getFit(points) : null;
+                fitted = fit == null ? null : fit.getFunction();
+            } catch (Throwable ignored) {
+            }
+
+            if (line != null && line.isLineVisible()) {
+
+                gc.setStroke(line.getLineColour());
+                gc.setLineWidth(line.getLineWidth());
+                gc.setLineJoin(StrokeLineJoin.BEVEL);
+                gc.setLineDashes(line.getDashes().stream().mapToDouble(Double::doubleValue).toArray());
+
+                if (fitted != null) {
+
+                    int      pixels = (int) getWidth();
+                    double[] fitX   = Util.makeLinearArray(0, getWidth(), pixels + 1);
+                    double[] fitY   = new double[fitX.length];
+
+                    for (int i = 0; i < fitX.length; i++) {
+                        fitY[i] = getYAxis().getDisplayPosition(fitted.value(getXAxis().getValueForDisplay(fitX[i])));
+                    }
+
+                    gc.strokePolyline(fitX, fitY, fitX.length);
+
+                } else if (sorting == Plot.Sort.X_AXIS && count > 4 * (getWidth() + 2)) {
+
+                    // More points than pixels, so only draw those that make a visible difference to the line
+                    int columns = (int) Math.ceil(getWidth());
+
+                    if (xLine.length < 4 * (columns + 2)) {
+                        xLine = new double[4 * (columns + 2)];
+                        yLine = new double[4 * (columns + 2)];
+                    }
+
+                    int kept = M4Decimator.decimate(xPixels, yPixels, count, columns, xLine, yLine);
+                    gc.strokePolyline(xLine, yLine, kept);
+
+                } else {
+                    gc.strokePolyline(xPixels, yPixels, count);
+                }
+
+                gc.setLineDashes();
+
+            }
+
+            if (template != null && template.isMarkerVisible()) {
+
+                Image  sprite = getSprite(template, state);
+                double size   = template.getMarkerSize();
+                double w      = sprite.getWidth() / 2;
+                double h      = sprite.getHeight() / 2;
+
+                gc.setStroke(template.getMarkerColour());
+                gc.setLineWidth(line == null ? 2.5 : line.getLineWidth());
+
+                for (int i = 0; i < count; i++) {
+
+                    if (ePixels[i] > 0) {
+                        double top    = yPixels[i] - ePixels[i];
+                        double bottom = yPixels[i] + ePixels[i];
+                        gc.strokeLine(xPixels[i], top, xPixels[i], bottom);
+                        gc.strokeLine(xPixels[i] - size, top, xPixels[i] + size, top);
+                        gc.strokeLine(xPixels[i] - size, bottom, xPixels[i] + size, bottom);
+                    }
+
+                    gc.drawImage(sprite, xPixels[i] - w, yPixels[i] - h);
+
+                }
+
+            }
+
+            state.count = n;
+            state.valid = true;
+
+            return true;
+
+        }
+
+        private void sortPixels(int count) {
+
+            double[] keys = sorting == Plot.Sort.Y_AXIS ? yPixels : xPixels;
+
+            Integer[] order = new Integer[count];
+
+            for (int i = 0; i < count; i++) {
+                order[i] = i;
+            }
+
+            Arrays.sort(order, Comparator.comparingDouble(i -> keys[i]));
+
+            double[] x = new double[xPixels.length];
+            double[] y = new double[yPixels.length];
+            double[] e = new double[ePixels.length];
+
+            for (int i = 0; i < count; i++) {
+                x[i] = xPixels[order[i]];
+                y[i] = yPixels[order[i]];
+                e[i] = ePixels[order[i]];
+            }
+
+            xPixels = x;
+            yPixels = y;
+            ePixels = e;
+
+        }
+
+        /**
+         * Returns a pre-rendered image of the series' marker, so that drawing each point is a single image copy.
+         */
+        private Image getSprite(ChartNode template, Drawn state) {
+
+            int key = Objects.hash(template.getMarkerShape(), template.getMarkerColour(), template.getMarkerSize());
+
+            if (state.sprite != null && state.spriteKey == key) {
+                return state.sprite;
+            }
+
+            double          r      = template.getMarkerSize();
+            double          size   = Math.ceil(3 * r) + 2;
+            double          c      = size / 2;
+            Color           colour = template.getMarkerColour();
+            Canvas          canvas = new Canvas(size, size);
+            GraphicsContext gc     = canvas.getGraphicsContext2D();
+            double          d      = r * Math.sqrt(2);
+
+            gc.setFill(colour);
+
+            switch (template.getMarkerShape()) {
+
+                case CIRCLE:
+                    gc.fillOval(c - r, c - r, 2 * r, 2 * r);
+                    gc.setFill(Color.WHITE);
+                    gc.fillOval(c - r + 2, c - r + 2, 2 * r - 4, 2 * r - 4);
+                    break;
+
+                case DOT:
+                    gc.fillOval(c - r, c - r, 2 * r, 2 * r);
+                    break;
+
+                case SQUARE:
+                    gc.fillRect(c - r, c - r, 2 * r, 2 * r);
+                    gc.setFill(Color.WHITE);
+                    gc.fillRect(c - r + 2, c - r + 2, 2 * r - 4, 2 * r - 4);
+                    break;
+
+                case DIAMOND:
+                    gc.fillPolygon(new double[]{c, c + d, c, c - d}, new double[]{c - d, c, c + d, c}, 4);
+                    gc.setFill(Color.WHITE);
+                    d -= 2 * Math.sqrt(2);
+                    gc.fillPolygon(new double[]{c, c + d, c, c - d}, new double[]{c - d, c, c + d, c}, 4);
+                    break;
+
+                case CROSS:
+                    gc.setStroke(colour);
+                    gc.setLineWidth(2);
+                    gc.strokeLine(c - r, c - r, c + r, c + r);
+                    gc.strokeLine(c - r, c + r, c + r, c - r);
+                    break;
+
+                case TRIANGLE:
+                    gc.fillPolygon(new double[]{c - r, c, c + r}, new double[]{c + r, c - r, c + r}, 3);
+                    gc.setFill(Color.WHITE);
+                    gc.fillPolygon(new double[]{c - r + 3.5, c, c + r - 3.5}, new double[]{c + r - 2, c - r + 4.5, c + r - 2}, 3);
+                    break;
+
+                case DASH:
+                    gc.fillRect(c - r, c - 1, 2 * r, 2);
+                    break;
+
+            }
+
+            SnapshotParameters parameters = new SnapshotParameters();
+            parameters.setFill(Color.TRANSPARENT);
+
+            state.sprite    = canvas.snapshot(parameters, null);
+            state.spriteKey = key;
+
+            return state.sprite;
+
+        }
+
+        private void click(double x, double y) {
+
+            JISASeries           closest  = null;
+            Data<Double, Double> point    = null;
+            double               distance = Double.POSITIVE_INFINITY;
+
+            for (JISASeries series : JISAChart.this.series) {
+
+                if (!getData().contains(series.series) || !series.isMarkerVisible()) {
+                    continue;
+                }
+
+                double limit = series.getMarkerSize() + 2;
+
+                for (Data<Double, Double> data : series.series.getData()) {
+
+                    double dx   = getXAxis().getDisplayPosition(data.getXValue()) - x;
+                    double dy   = getYAxis().getDisplayPosition(data.getYValue()) - y;
+                    double dist = Math.sqrt(dx * dx + dy * dy);
+
+                    if (dist <= limit && dist < distance) {
+                        distance = dist;
+                        closest  = series;
+                        point    = data;
+                    }
+
+                }
+
+            }
+
+            if (closest != null) {
+                closest.click.click(point.getXValue(), point.getYValue(), getError(point));
+            }
+
+        }
+
+    }
+
+    private static class Drawn {
+
+        private int     count     = 0;
+        private boolean valid     = false;
+        private int     style     = 0;
+        private int     spriteKey = 0;
+        private Image   sprite    = null;
+
+    }
+
     public class JISASeries implements jisa.gui.Series {
 
         private final Series<Double, Double>     series;
@@ -931,6 +1463,10 @@ public class JISAChart extends XYChart<Double, Double> {
         private       Color[]                    defaultColours = jisa.gui.Series.defaultColours;
         private       int                        maxPoints      = Integer.MAX_VALUE;
         private       int                        redPoints      = Integer.MAX_VALUE;
+        private       ResultPyramid              pyramid        = null;
+        private       InvalidationListener       pyramidUpdater = null;
+        private       double[]                   pyramidView    = new double[0];
+        private final AtomicReference<double[]>  pyramidQuery   = new AtomicReference<>(null);
         private       DataHandler                click          = (x, y, e) -> {
         };
 
@@ -944,7 +1480,13 @@ public class JISAChart extends XYChart<Double, Double> {
 
             this.template = nodeTemplates.get(series);
             this.line     = (ChartLine) series.getNode();
-            this.data     = series.getData();
+            this.data     = Collections.synchronizedList(new ArrayList<>(series.getData()));
+
+            template.setOnChange(() -> {
+                if (renderer == Plot.Renderer.CANVAS) {
+                    GUI.runLater(JISAChart.this::requestChartLayout);
+                }
+            });
 
         }
 
@@ -960,6 +1502,7 @@ public class JISAChart extends XYChart<Double, Double> {
             }
 
             watching = list;
+            pyramid  = null;
 
             this.xData = xData;
             this.yData = yData;
@@ -972,7 +1515,10 @@ public class JISAChart extends XYChart<Double, Double> {
             rtListener = list.addOnUpdate(r -> {
 
                 if (filter.test(r)) {
-                    GUI.runNow(() -> handler.handle(r, xData.evaluate(r), yData.evaluate(r), eData.evaluate(r)));
+                    double x = xData.evaluate(r);
+                    double y = yData.evaluate(r);
+                    double e = eData.evaluate(r);
+                    GUI.runLater(() -> handler.handle(r, x, y, e));
                 }
 
             });
@@ -980,7 +1526,10 @@ public class JISAChart extends XYChart<Double, Double> {
             for (Result row : list) {
 
                 if (filter.test(row)) {
-                    GUI.runNow(() -> handler.handle(row, xData.evaluate(row), yData.evaluate(row), eData.evaluate(row)));
+                    double x = xData.evaluate(row);
+                    double y = yData.evaluate(row);
+                    double e = eData.evaluate(row);
+                    GUI.runLater(() -> handler.handle(row, x, y, e));
                 }
 
             }
@@ -989,6 +1538,113 @@ public class JISAChart extends XYChart<Double, Double> {
 
         }
 
+        @Override
+        public JISASeries watch(ResultPyramid pyramid) {
+
+            if (watching != null) {
+                watching.removeOnUpdate(rtListener);
+                watching = null;
+            }
+
+            ValueAxis<Double> xAxis = (ValueAxis<Double>) getXAxis();
+
+            GUI.runNow(() -> {
+
+                if (pyramidUpdater != null) {
+                    xAxis.lowerBoundProperty().removeListener(pyramidUpdater);
+                    xAxis.upperBoundProperty().removeListener(pyramidUpdater);
+                    xAxis.widthProperty().removeListener(pyramidUpdater);
+                }
+
+                this.pyramid   = pyramid;
+                pyramidView    = new double[0];
+                pyramidUpdater = o -> updatePyramid();
+
+                xAxis.lowerBoundProperty().addListener(pyramidUpdater);
+                xAxis.upperBoundProperty().addListener(pyramidUpdater);
+                xAxis.widthProperty().addListener(pyramidUpdater);
+
+                updatePyramid();
+
+            });
+
+            return this;
+
+        }
+
+        /**
+         * Works out what range of the pyramid is currently visible, and if it has changed, starts loading the points
+         * for it in the background.
+         */
+        private void updatePyramid() {
+
+            ValueAxis<Double> xAxis  = (ValueAxis<Double>) getXAxis();
+            double            width  = xAxis.getWidth() > 0 ? xAxis.getWidth() : 1000;
+            double[]          view;
+
+            if (pyramid == null) {
+                return;
+            }
+
+            // If auto-ranging, the axis range follows the data so we must show all of it (otherwise it would never grow)
+            if (xAxis.isAutoRanging()) {
+                view = new double[]{pyramid.getMinX(), pyramid.getMaxX(), width};
+            } else {
+                view = new double[]{xAxis.getLowerBound(), xAxis.getUpperBound(), width};
+            }
+
+            if (Arrays.equals(view, pyramidView)) {
+                return;
+            }
+
+            pyramidView = view;
+
+            // Only one query runs at a time, picking up whichever view was requested most recently when it finishes
+            if (pyramidQuery.getAndSet(view) == null) {
+                Util.runAsync(this::loadPyramid);
+            }
+
+        }
+
+        private void loadPyramid() {
+
+            ResultPyramid pyramid = this.pyramid;
+            double[]      view;
+
+            while ((view = pyramidQuery.get()) != null) {
+
+                try {
+
+                    double[][]                 points = pyramid.getPoints(view[0], view[1], (int) view[2]);
+                    List<Data<Double, Double>> list   = new ArrayList<>(points[0].length);
+
+                    for (int i = 0; i < points[0].length; i++) {
+                        list.add(new Data<>(points[0][i], points[1][i], 0.0));
+                    }
+
+                    GUI.runLater(() -> {
+
+                        if (this.pyramid == pyramid) {
+                            data.clear();
+                            data.addAll(list);
+                            series.getData().setAll(list);
+                            list.forEach(this::attachClick);
+                        }
+
+                    });
+
+                } catch (Throwable e) {
+                    Util.errLog.printf("Exception encountered loading plot points: \"%s\"\n", e.getMessage());
+                }
+
+                if (pyramidQuery.compareAndSet(view, null)) {
+                    break;
+                }
+
+            }
+
+        }
+
         public JISASeries watch(ResultTable list, int xData, int yData, int eData) {
 
             GUI.runNow(() -> {
@@ -1207,35 +1863,109 @@ public class JISAChart extends XYChart<Double, Double> {
         @Override
         public JISASeries addPoint(double x, double y, double error) {
 
-            maxX = Math.max(x, maxX);
-            maxY = Math.max(y, maxY);
+            int size;
+
+            // The points themselves are updated straight away, so getPoints() and fits see the new point immediately
+            synchronized (data) {
+
+                maxX = Math.max(x, maxX);
+                maxY = Math.max(y, maxY);
+
+                if (isInRange(x, y)) {
+                    data.add(new Data<>(x, y, error));
+                }
+
+                if (isTracking()) {
+                    data.removeIf(d -> !isInRange(d.getXValue(), d.getYValue()));
+                }
+
+                size = data.size();
+
+            }
+
+            if (size > maxPoints) {
+                reduceNow();
+            }
+
+            // ...but the chart itself is only brought up to date once per frame, rather than once per point
+            updateNodes();
+
+            return this;
+        }
+
+        private boolean isTracking() {
+            return Double.isFinite(xTrack) || Double.isFinite(yTrack);
+        }
+
+        /**
+         * Queues the points shown on the chart to be brought into line with the points in this series at the next
+         * frame. However many times this is called before then, this only happens once.
+         */
+        private void updateNodes() {
+
+            FrameDispatcher.coalesce(data, () -> {
+
+                List<Data<Double, Double>> points;
+
+                synchronized (data) {
+                    points = new ArrayList<>(data);
+                }
+
+                Set<Data<Double, Double>> current = Collections.newSetFromMap(new IdentityHashMap<>());
+                current.addAll(points);
+
+                ObservableList<Data<Double, Double>> shown = series.getData();
+                shown.removeIf(d -> !current.contains(d));
+
+                Set<Data<Double, Double>> present = Collections.newSetFromMap(new IdentityHashMap<>());
+                present.addAll(shown);
+
+                List<Data<Double, Double>> added = new ArrayList<>();
+
+                for (Data<Double, Double> point : points) {
+                    if (!present.contains(point)) {
+                        added.add(point);
+                    }
+                }
+
+                shown.addAll(added);
+                added.forEach(this::attachClick);
+
+            });
+
+        }
+
+        private void attachClick(Data<Double, Double> data) {
+
+            if (data.getNode() != null) {
 
-            if (isInRange(x, y)) {
-                Data<Double, Double> data = new Data<>(x, y, error);
-                GUI.runNow(() -> series.getData().add(data));
                 data.getNode().setOnMouseClicked(e -> {
                     if (e.getClickCount() == 1) {
-                        click.click(x, y, error);
+                        click.click(data.getXValue(), data.getYValue(), getError(data));
                     }
                 });
-            }
-
-            series.getData().removeIf(data -> !isInRange(data.getXValue(), data.getYValue()));
 
-            if (data.size() > maxPoints) {
-                reduceNow();
             }
 
-            return this;
         }
 
+        /**
+         * Returns a copy of the points in this series, since points may be added to it from other threads at any time.
+         *
+         * @return Snapshot of points
+         */
         @Override
         public List<Data<Double, Double>> getPoints() {
-            return series.getData();
+
+            synchronized (data) {
+                return new ArrayList<>(data);
+            }
+
         }
 
         @Override
         public JISASeries clear() {
+            data.clear();
             GUI.runNow(() -> series.getData().clear());
             subSeries.forEach(jisa.gui.Series::clear);
             return this;
@@ -1403,35 +2133,31 @@ public class JISAChart extends XYChart<Double, Double> {
         public JISASeries reduceNow(boolean subs) {
 
             List<Data<Double, Double>> list = new ArrayList<>(data);
-            list.sort(Comparator.comparing(XYChart.Data::getXValue));
 
-            double[] deviations = new double[Math.max(0, list.size() - 2)];
-            for (int i = 2; i < list.size(); i++) {
-                XYChart.Data<Double, Double> p1  = list.get(i - 2);
-                XYChart.Data<Double, Double> p2  = list.get(i - 1);
-                XYChart.Data<Double, Double> p3  = list.get(i);
-                double                       dev = new Line(p1, p3).getDistance(p2);
-                deviations[i - 2] = dev;
-            }
+            if (list.size() > redPoints) {
 
-            double max = Double.NEGATIVE_INFINITY;
-            double min = Double.POSITIVE_INFINITY;
+                list.sort(Comparator.comparing(XYChart.Data::getXValue));
 
-            for (double d : deviations) {
-                max = Math.max(d, max);
-                min = Math.min(d, min);
-            }
+                // Keep the first, last, lowest and highest point in each of redPoints / 4 equal-width x-bins, which
+                // preserves the shape of the line drawn through them
+                int    columns = Math.max(1, redPoints / 4);
+                double minX    = list.get(0).getXValue();
+                double maxX    = list.get(list.size() - 1).getXValue();
+                double scale   = maxX > minX ? columns / (maxX - minX) : 0.0;
 
-            double epsilon = min;
-            double step    = (max - min) / 10.0;
+                M4Decimator<Data<Double, Double>> decimator = new M4Decimator<>(columns);
 
-            while (list.size() > redPoints) {
-                List<XYChart.Data<Double, Double>> toKeep = reducePoints(list, epsilon);
-                list.removeIf(d -> !toKeep.contains(d));
-                epsilon += step;
-            }
+                for (Data<Double, Double> point : list) {
+                    decimator.add(point, (point.getXValue() - minX) * scale, point.getYValue());
+                }
 
-            GUI.runNow(() -> data.removeIf(d -> !list.contains(d)));
+                Set<Data<Double, Double>> toKeep = Collections.newSetFromMap(new IdentityHashMap<>());
+                toKeep.addAll(decimator.getPoints());
+
+                data.removeIf(d -> !toKeep.contains(d));
+                updateNodes();
+
+            }
 
             if (subs) {
                 subSeries.forEach(jisa.gui.Series::reduceNow);
@@ -1446,7 +2172,8 @@ public class JISAChart extends XYChart<Double, Double> {
 
             xTrack = range;
             subSeries.forEach(s -> s.setXAutoRemove(range));
-            series.getData().removeIf(data -> !isInRange(data.getXValue(), data.getYValue()));
+            data.removeIf(d -> !isInRange(d.getXValue(), d.getYValue()));
+            updateNodes();
 
             return this;
 
@@ -1457,7 +2184,8 @@ public class JISAChart extends XYChart<Double, Double> {
 
             yTrack = range;
             subSeries.forEach(s -> s.setYAutoRemove(range));
-            series.getData().removeIf(data -> !isInRange(data.getXValue(), data.getYValue()));
+            data.removeIf(d -> !isInRange(d.getXValue(), d.getYValue()));
+            updateNodes();
 
             return this;
 
@@ -1511,7 +2239,7 @@ public class JISAChart extends XYChart<Double, Double> {
 
         @Override
         public Iterator<Data<Double, Double>> iterator() {
-            return series.getData().iterator();
+            return getPoints().iterator();
         }
 
     }
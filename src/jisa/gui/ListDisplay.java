@@ -56,7 +56,7 @@ public class ListDisplay<T> extends JFXElement implements Iterable<ListDisplay.I
             item.addMenuItem(menuItem.text, () -> menuItem.action.run(item));
         }
 
-        GUI.runNow(() -> list.getItems().add(item));
+        GUI.runLater(() -> list.getItems().add(item));
         return item;
     }
 
@@ -66,14 +66,12 @@ public class ListDisplay<T> extends JFXElement implements Iterable<ListDisplay.I
     @SuppressWarnings("SuspiciousMethodCalls")
     public void remove(Item<T> toRemove) {
 
-        if (list.getItems().contains(toRemove)) {
-            GUI.runNow(() -> list.getItems().remove(toRemove));
-        }
+        GUI.runLater(() -> list.getItems().remove(toRemove));
 
     }
 
     public void clear() {
-        GUI.runNow(() -> list.getItems().clear());
+        GUI.runLater(() -> list.getItems().clear());
     }
 
     /**
@@ -265,7 +263,7 @@ public class ListDisplay<T> extends JFXElement implements Iterable<ListDisplay.I
 
         @Override
         public void remove() {
-            GUI.runNow(() -> list.getItems().remove(this));
+            GUI.runLater(() -> list.getItems().remove(this));
         }
 
         public void select() {
@@ -283,15 +281,15 @@ public class ListDisplay<T> extends JFXElement implements Iterable<ListDisplay.I
 
         @Override
         public void setImage(Image image) {
-            GUI.runNow(() -> imageView.setImage(image));
+            FrameDispatcher.coalesce(imageView, () -> imageView.setImage(image));
         }
 
         public void setTitle(String title) {
-            GUI.runNow(() -> this.title.setText(title));
+            FrameDispatcher.coalesce(this.title, () -> this.title.setText(title));
         }
 
         public void setSubTitle(String subTitle) {
-            GUI.runNow(() -> this.subTitle.setText(subTitle));
+            FrameDispatcher.coalesce(this.subTitle, () -> this.subTitle.setText(subTitle));
         }
 
         protected void triggerOnSelected() {
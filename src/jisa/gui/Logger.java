@@ -44,7 +44,7 @@ public class Logger extends JFXElement {
     public synchronized Line addLine(String text, Object... args) {
 
         final Label l = new Label(String.format(text, args));
-        GUI.runNow(() -> {
+        GUI.runLater(() -> {
             l.setFont(Font.font("Monospace", 12));
             int index = list.getItems().size();
             list.getItems().add(l);
@@ -54,12 +54,12 @@ public class Logger extends JFXElement {
         return new Line() {
             @Override
             public void edit(String newText) {
-                GUI.runNow(() -> l.setText(newText));
+                FrameDispatcher.coalesce(l, () -> l.setText(newText));
             }
 
             @Override
             public void delete() {
-                GUI.runNow(() -> list.getItems().remove(l));
+                GUI.runLater(() -> list.getItems().remove(l));
             }
 
         };
@@ -67,7 +67,7 @@ public class Logger extends JFXElement {
     }
 
     public synchronized void clear() {
-        GUI.runNow(list.getItems()::clear);
+        GUI.runLater(list.getItems()::clear);
     }
 
 }
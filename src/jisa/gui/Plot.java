@@ -1,7 +1,6 @@
 package jisa.gui;
 
 import javafx.beans.property.SimpleObjectProperty;
-import javafx.embed.swing.SwingFXUtils;
 import javafx.geometry.Point2D;
 import javafx.geometry.Pos;
 import javafx.geometry.Side;
@@ -10,7 +9,6 @@ import javafx.scene.Node;
 import javafx.scene.chart.XYChart;
 import javafx.scene.control.Button;
 import javafx.scene.control.Slider;
-import javafx.scene.image.WritableImage;
 import javafx.scene.layout.AnchorPane;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.HBox;
@@ -18,22 +16,12 @@ import javafx.scene.layout.Pane;
 import javafx.scene.paint.Color;
 import javafx.scene.shape.Rectangle;
 import javafx.stage.Stage;
-import javafx.util.StringConverter;
 import jisa.Util;
 import jisa.experiment.ResultTable;
-import jisa.gui.svg.*;
-import jisa.maths.Range;
-import jisa.maths.fits.Fit;
-import jisa.maths.functions.Function;
-
-import javax.imageio.ImageIO;
-import java.io.File;
-import java.io.FileOutputStream;
+import jisa.gui.plotting.PlotExport;
+
 import java.io.IOException;
-import java.io.PrintStream;
 import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.LinkedList;
 import java.util.List;
 
 public class Plot extends JFXElement implements Element, Clearable {
@@ -280,6 +268,26 @@ public class Plot extends JFXElement implements Element, Clearable {
         chart.setAxisSortingPolicy(ordering);
     }
 
+    /**
+     * Returns how data points are being drawn on this plot.
+     *
+     * @return NODES or CANVAS
+     */
+    public Renderer getRenderer() {
+        return chart.getRenderer();
+    }
+
+    /**
+     * Sets how data points are drawn on this plot. NODES (the default) makes each point its own interactive node,
+     * which is only practical for up to a few thousand points. CANVAS instead draws all series onto a single canvas,
+     * which remains responsive with hundreds of thousands of points.
+     *
+     * @param renderer NODES or CANVAS
+     */
+    public void setRenderer(Renderer renderer) {
+        GUI.runNow(() -> chart.setRenderer(renderer));
+    }
+
     /**
      * Creates a new data series to display on the plot.
      *
@@ -731,6 +739,7 @@ public class Plot extends JFXElement implements Element, Clearable {
     public Plot copy() {
 
         Plot plot = new Plot(getTitle(), getXLabel(), getYLabel());
+        plot.setRenderer(getRenderer());
 
         for (JISAChart.JISASeries series : chart.getSeries()) {
 
@@ -783,589 +792,48 @@ public class Plot extends JFXElement implements Element, Clearable {
 
     }
 
+    /**
+     * Saves what is currently shown on this plot as a PNG image of the given size. The image is drawn off-screen, so
+     * the plot does not need to be shown (nor a display be available) to do this.
+     *
+     * @param path Path to save to
+     * @param w    Width of image
+     * @param h    Height of image
+     */
     public void savePNG(String path, double w, double h) {
 
-        Plot plot = copy();
-
-        plot.setWindowSize(w, h);
-        plot.show();
-
-        Util.sleep(250);
-
-        double diffH = h - plot.chart.getHeight();
-        double diffW = w - plot.chart.getWidth();
-
-        plot.setWindowSize(w + diffW, h + diffH);
-
-        Util.sleep(250);
-
-        GUI.runNow(() -> {
-
-            WritableImage image = plot.chart.snapshot(null, null);
-            try {
-                ImageIO.write(SwingFXUtils.fromFXImage(image, null), "png", new File(path));
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
-
-        });
-
-        plot.close();
-
-    }
-
-    public void saveSVG(String fileName, double width, double height) throws IOException {
-
-        SVGElement main = new SVGElement("g");
-
-        main.setAttribute("font-family", "sans-serif")
-            .setAttribute("font-size", 12);
-
-        double aStartX = 100.0;
-        double aStartY = height + 65.0;
-        double aEndX   = 100.0 + width;
-        double aEndY   = 65.0;
-
-        SVGElement axisBox = new SVGElement("rect");
-
-        axisBox.setAttribute("x", 100.0)
-               .setAttribute("y", 65.0)
-               .setAttribute("width", width)
-               .setAttribute("height", height)
-               .setStrokeWidth(1)
-               .setFillColour("none")
-               .setStrokeColour(Color.BLACK);
-
-        SVGElement clip = new SVGElement("clipPath");
-        clip.setAttribute("id", "lineClip");
-
-        SVGElement clipPath = new SVGElement("rect");
-
-        clipPath.setAttribute("x", aStartX)
-                .setAttribute("y", aEndY)
-                .setAttribute("width", width)
-                .setAttribute("height", height);
-
-        clipPath.setStrokeColour("none");
-        clipPath.setFillColour("none");
-
-        clip.add(clipPath);
-        main.add(clip);
-
-        SVGText title = new SVGText((aStartX + aEndX) / 2, 50.0, "middle", chart.getTitle());
-        title.setAttribute("font-size", "20px");
-        main.add(title);
-
-        List<Double> xTicks = this.xAxis.getMajorTicks();
-        List<Double> yTicks = this.yAxis.getMajorTicks();
-
-        double xScale = (aEndX - aStartX) / this.xAxis.getWidth();
-        double yScale = (aEndY - aStartY) / this.yAxis.getHeight();
-
-        StringConverter<Double> formatterX = this.xAxis.getTickLabelFormatter();
-        StringConverter<Double> formatterY = this.yAxis.getTickLabelFormatter();
-
-        for (Double x : xTicks) {
-
-            double pos = xScale * this.xAxis.getDisplayPosition(x) + aStartX;
-
-            if (!Util.isBetween(pos, aStartX, aEndX)) {
-                continue;
-            }
-
-            SVGLine tick = new SVGLine(pos, aStartY, pos, aStartY + 10);
-
-            tick.setStrokeWidth(1)
-                .setStrokeColour(Colour.BLACK);
-
-            SVGLine grid = new SVGLine(pos, aStartY, pos, aEndY);
-
-            grid.setStrokeWidth(0.5)
-                .setStrokeColour(Colour.SILVER)
-                .setDash("2", "2");
-
-            main.add(tick);
-            main.add(grid);
-
-            SVGText label = new SVGText(pos, aStartY + 26.0, "middle", formatterX.toString(x));
-            main.add(label);
-
-        }
-
-        SVGText xLabel = new SVGText((aEndX + aStartX) / 2, aStartY + 75.0, "middle", this.xAxis.getLabel());
-        xLabel.setAttribute("font-size", "16px");
-        main.add(xLabel);
-
-        for (Double y : yTicks) {
-
-            double pos = aEndY - yScale * this.yAxis.getDisplayPosition(y);
-
-            if (!Util.isBetween(pos, aEndY, aStartY)) {
-                continue;
-            }
-
-            SVGLine tick = new SVGLine(aStartX, pos, aStartX - 10, pos);
-
-            tick.setStrokeWidth(1)
-                .setStrokeColour(Colour.BLACK);
-            SVGLine grid = new SVGLine(aStartX, pos, aEndX, pos);
-
-            grid.setStrokeWidth(0.5)
-                .setStrokeColour(Colour.SILVER)
-                .setDash("2", "2");
-            main.add(tick);
-            main.add(grid);
-
-            SVGText label = new SVGText(aStartX - 12.0, pos + 4.0, "end", formatterY.toString(y));
-            main.add(label);
-
-        }
-
-        SVGText yLabel = new SVGText(aStartX - 75.0, (aEndY + aStartY) / 2, "middle", this.yAxis.getLabel());
-        yLabel.setAttribute("transform", String.format("rotate(-90 %s %s)", aStartX - 75.0, (aEndY + aStartY) / 2))
-              .setAttribute("font-size", "16px");
-        main.add(yLabel);
-        main.add(axisBox);
-
-        SVGElement legend = new SVGElement("rect");
-
-        legend.setStrokeWidth(1.0)
-              .setStrokeColour(Color.BLACK)
-              .setFillColour("none");
-
-
-        double legendH = (chart.getData().size() * 25) + 5.0;
-        double legendX = aEndX + 25.0;
-        double legendY = aEndY;
-
-        double legendW = 0.0;
-
-        for (XYChart.Series s : chart.getData()) {
-            legendW = Math.max(legendW, (10.0 * s.getName().length()) + 15.0 + 5 + 3 + 20.0);
-        }
-
-        legend.setAttribute("x", legendX)
-              .setAttribute("y", legendY)
-              .setAttribute("width", legendW)
-              .setAttribute("height", legendH);
-
-        if (chart.isLegendVisible()) {
-            main.add(legend);
-        } else {
-            legendW = 0;
-        }
-
-        int i = 0;
-        for (Series s : chart.getSeries()) {
-
-            if (!chart.getData().contains(s.getXYChartSeries())) {
-                continue;
-            }
-
-            Color        c = s.getColour();
-            double       w = s.getLineWidth();
-            double       m = s.getMarkerSize();
-            Series.Shape p = s.getMarkerShape();
-
-            List<String> terms = new LinkedList<>();
-
-            SVGElement legendCircle = makeMarker(s.isMarkerVisible() ? p : Series.Shape.DASH, c, legendX + 15.0, legendY + (25 * i) + 15.0, 5.0);
-            SVGText legendText = new SVGText(
-                    legendX + 15.0 + 5 + 3 + 10,
-                    legendY + (25 * i) + 15.0 + 5,
-                    "beginning",
-                    s.getName()
-            );
-
-            legendText.setAttribute("font-size", "16px");
-
-            if (chart.isLegendVisible()) {
-                main.add(legendCircle);
-                main.add(legendText);
-            }
-
-            boolean first = true;
-
-            List<SVGElement> list = new LinkedList<>();
-
-            double lastX = -1;
-            double lastY = -1;
-
-            List<XYChart.Data<Double, Double>> data;
-
-            switch (getPointOrdering()) {
-
-                case X_AXIS:
-                    data = s.getXYChartSeries().getData().sorted(Comparator.comparingDouble(XYChart.Data::getXValue));
-                    break;
-
-                case Y_AXIS:
-                    data = s.getXYChartSeries().getData().sorted(Comparator.comparingDouble(XYChart.Data::getYValue));
-                    break;
-
-                default:
-                    data = s.getXYChartSeries().getData();
-                    break;
-
-
-            }
-
-            for (XYChart.Data<Double, Double> point : data) {
-
-                double x = aStartX + xScale * this.xAxis.getDisplayPosition(point.getXValue());
-                double y = aEndY - yScale * this.yAxis.getDisplayPosition(point.getYValue());
-
-                if (!Util.isBetween(x, aStartX, aEndX) || !Util.isBetween(y, aEndY, aStartY)) {
-                    continue;
-                }
-
-                terms.add(String.format("%s%s %s", first ? "M" : "L", x, y));
-
-                if (s.isMarkerVisible()) {
-
-                    if (point.getExtraValue() != null && (double) point.getExtraValue() > 0) {
-
-                        double error = (double) point.getExtraValue();
-                        double yp    = aEndY - yScale * this.yAxis.getDisplayPosition(point.getYValue() + error);
-                        double yn    = aEndY - yScale * this.yAxis.getDisplayPosition(point.getYValue() - error);
-                        double xn    = x - 5;
-                        double xp    = x + 5;
-
-                        String  erPath   = String.format("M%s %s L%s %s M%s %s L%s %s M%s %s L%s %s", xn, yp, xp, yp, x, yp, x, yn, xn, yn, xp, yn);
-                        SVGPath errorBar = new SVGPath(erPath);
-
-                        errorBar.setStrokeColour(c)
-                                .setStrokeWidth(w)
-                                .setStyle("fill", "none");
-
-                        list.add(errorBar);
-
-                    }
-
-                    list.add(makeMarker(p, c, x, y, m));
-
-                }
-
-                first = false;
-
-            }
-
-            SVGPath path;
-            if (!s.isFitted()) {
-                path = new SVGPath(String.join(" ", terms));
-                path.setAttribute("clip-path", "url(#lineClip)");
-            } else {
-
-                Fit          fit      = s.getFit();
-                Function     func     = fit.getFunction();
-                List<String> elements = new LinkedList<>();
-                boolean      firstEl  = true;
-
-                for (double xc = aStartX; xc <= aEndX; xc++) {
-
-                    double x  = this.xAxis.getValueForDisplay((xc - aStartX) / xScale);
-                    double y  = func.value(x);
-                    double yc = aEndY - yScale * this.yAxis.getDisplayPosition(y);
-
-                    if (Util.isBetween(yc, aEndY, aStartY)) {
-
-                        elements.add(String.format("%s%s %s", firstEl ? "M" : "L", xc, yc));
-                        firstEl = false;
-
-                    }
-
-                }
-
-                path = new SVGPath(String.join(" ", elements));
-
-            }
-
-            path.setStrokeColour(c)
-                .setStrokeWidth(w)
-                .setDash(s.getLineDash().getArray())
-                .setStyle("fill", "none");
-
-            if (s.isLineVisible()) {
-                main.add(path);
-            }
-
-            list.forEach(main::add);
-
-            i++;
+        PlotExport export = PlotExport.of(this);
 
+        try {
+            export.savePNG(path, Math.max(1, w - export.getTotalWidth(0)), Math.max(1, h - export.getTotalHeight(0)));
+        } catch (IOException e) {
+            e.printStackTrace();
         }
 
-
-        SVG svg = new SVG(width + legendW + 50.0 + 100.0, height + 60.0 + 100.0);
-        svg.add(main);
-
-        svg.output(fileName);
-
-
     }
 
-    private SVGElement makeMarker(Series.Shape p, Color c, double x, double y, double m) {
-        SVGElement marker;
-
-        switch (p) {
-
-            case TRIANGLE:
-
-                marker = new SVGTriangle(x, y, m)
-                        .setStrokeColour(c)
-                        .setFillColour(Color.WHITE)
-                        .setStrokeWidth(2);
-                break;
-
-            case DASH:
-
-                marker = new SVGLine(x - m, y, x + m, y)
-                        .setStrokeColour(c)
-                        .setStrokeWidth(2);
-                break;
-
-            default:
-            case CIRCLE:
-            case DOT:
-
-                marker = new SVGCircle(x, y, m)
-                        .setStrokeColour(c)
-                        .setFillColour(p == Series.Shape.CIRCLE ? Color.WHITE : c)
-                        .setStrokeWidth(2);
-                break;
-
-            case SQUARE:
-            case DIAMOND:
-
-                marker = new SVGSquare(x, y, m)
-                        .setStrokeColour(c)
-                        .setFillColour(Color.WHITE)
-                        .setStrokeWidth(2);
-
-                if (p == Series.Shape.DIAMOND) {
-                    marker.setAttribute("transform", "rotate(45 " + x + " " + y + ")");
-                }
-
-                break;
-
-            case CROSS:
-
-                marker = new SVGCross(x, y, m)
-                        .setStrokeColour(c)
-                        .setFillColour(c)
-                        .setStrokeWidth(1);
-
-                break;
-
-
-        }
-
-        return marker;
-
+    /**
+     * Saves what is currently shown on this plot as an SVG file, with a plotting area of the given size.
+     *
+     * @param fileName Path to save to
+     * @param width    Width of plotting area
+     * @param height   Height of plotting area
+     *
+     * @throws IOException Upon error writing file
+     */
+    public void saveSVG(String fileName, double width, double height) throws IOException {
+        PlotExport.of(this).saveSVG(fileName, width, height);
     }
 
+    /**
+     * Saves what is currently shown on this plot as a TikZ (pgfplots) picture.
+     *
+     * @param path Path to save to
+     *
+     * @throws IOException Upon error writing file
+     */
     public void saveTex(String path) throws IOException {
-
-        StringBuilder builder = new StringBuilder();
-        builder.append("\\begin{tikzpicture}\n");
-
-
-        builder.append("\\begin{axis}[\n")
-               .append("\txmode                   = ").append(xAxis.getMode() == SmartAxis.Mode.LOGARITHMIC ? "log" : "normal").append(",\n")
-               .append("\tymode                   = ").append(yAxis.getMode() == SmartAxis.Mode.LOGARITHMIC ? "log" : "normal").append(",\n");
-
-        if (!xAxis.isAutoRanging()) {
-            builder.append("\txmin                    = ").append(xAxis.getLowerBound()).append(",\n")
-                   .append("\txmax                    = ").append(xAxis.getUpperBound()).append(",\n");
-        }
-        if (!yAxis.isAutoRanging()) {
-            builder.append("\tymin                    = ").append(yAxis.getLowerBound()).append(",\n")
-                   .append("\tymax                    = ").append(yAxis.getUpperBound()).append(",\n");
-        }
-
-        builder.append("\tgrid,\n")
-               .append("\tgrid style              = {dotted},\n")
-               .append("\tlegend pos              = outer north east,\n")
-               .append("\twidth                   = 0.7 * \\linewidth,\n")
-               .append("\ttitle                   = {\\textbf{").append(getTitle().replace("^", "\\^{}")).append("}},\n")
-               .append("\txlabel                  = {").append(getXLabel().replace("^", "\\^{}")).append("},\n")
-               .append("\tylabel                  = {").append(getYLabel().replace("^", "\\^{}")).append("},\n")
-               .append("\tlegend cell align       = left,\n")
-               .append("\tevery axis title/.style = {at={(0.5, 1.2)}}\n")
-               .append("]\n");
-
-        List<String> legend = new LinkedList<>();
-
-        for (JISAChart.JISASeries series : chart.getSeries()) {
-
-            int red   = (int) (series.getColour().getRed() * 255);
-            int green = (int) (series.getColour().getGreen() * 255);
-            int blue  = (int) (series.getColour().getBlue() * 255);
-
-            if (!chart.getData().contains(series.getXYChartSeries())) {
-                continue;
-            }
-
-            String symbol;
-            String fill;
-
-            switch (series.getMarkerShape()) {
-
-                case CIRCLE:
-                    symbol = "*";
-                    fill = "white";
-                    break;
-
-                case DOT:
-                    symbol = "*";
-                    fill = String.format("{rgb,255:red,%d;green,%d;blue,%d}", red, green, blue);
-                    break;
-
-                case SQUARE:
-                    symbol = "square*";
-                    fill = "white";
-                    break;
-
-                case DIAMOND:
-                    symbol = "diamond";
-                    fill = "white";
-                    break;
-
-                case CROSS:
-                    symbol = "x";
-                    fill = "none";
-                    break;
-
-                case TRIANGLE:
-                    symbol = "triangle";
-                    fill = "none";
-                    break;
-
-                case STAR:
-                    symbol = "star";
-                    fill = "none";
-                    break;
-
-                case DASH:
-                    symbol = "-";
-                    fill = "none";
-                    break;
-
-                default:
-                    symbol = "none";
-                    fill = "none";
-
-            }
-
-            if (!series.isMarkerVisible()) symbol = "none";
-
-            String onlyMarks = series.isLineVisible() ? "" : "only marks,\n";
-
-
-            String lineType;
-
-            switch (series.getLineDash()) {
-                case DOTTED:
-                    lineType = ",\n\tdotted";
-                    break;
-
-                case DASHED:
-                case TWO_DASH:
-                case DOT_DASH:
-                case LONG_DASH:
-                    lineType = ",\n\tdashed";
-                    break;
-
-                default:
-                case SOLID:
-                    lineType = "";
-                    break;
-
-            }
-
-            builder.append("\\addplot[\n");
-
-            if (!series.isLineVisible() || series.isFitted()) builder.append("\tonly marks,\n");
-
-            builder.append("\tmark               = ").append(symbol).append(",\n")
-                   .append("\tmark options       = { fill = ").append(fill).append(", scale=1.25 },\n")
-                   .append("\tcolor              = {rgb,255:red,").append(red).append(";green,").append(green).append(";blue,").append(blue).append("},\n")
-                   .append("\tline width         = ").append(series.getLineWidth() / 2.0)
-                   .append(lineType).append(",\n")
-                   .append("\terror bars/.cd,\n")
-                   .append("\ty dir              = both,\n")
-                   .append("\ty explicit,\n")
-                   .append("\terror bar style    = { line width = ").append(series.getLineWidth() / 2.0).append(" },\n")
-                   .append("\terror mark options = { rotate = 90, mark size = 3, line width = ").append(series.getLineWidth() / 2.0).append(" },\n")
-                   .append("]\n")
-                   .append("table[x index = 0, y index = 1, y error index = 2] {\n");
-
-
-            List<XYChart.Data<Double, Double>> data;
-
-            switch (getPointOrdering()) {
-
-                case X_AXIS:
-                    data = series.getXYChartSeries().getData().sorted(Comparator.comparingDouble(XYChart.Data::getXValue));
-                    break;
-
-                case Y_AXIS:
-                    data = series.getXYChartSeries().getData().sorted(Comparator.comparingDouble(XYChart.Data::getYValue));
-                    break;
-
-                default:
-                    data = series.getXYChartSeries().getData();
-                    break;
-
-
-            }
-
-            for (XYChart.Data<Double, Double> point : data) {
-                builder.append(String.format("\t%.04e\t%.04e\t%.04e\n", point.getXValue(), point.getYValue(), point.getExtraValue() instanceof Double && ((Double) point.getExtraValue()) != 0 ? (Double) point.getExtraValue() : Double.NaN));
-            }
-
-            builder.append("\n};\n");
-
-            legend.add("\t{" + series.getName().replace("^", "\\^{}") + "}");
-
-            if (series.isFitted()) {
-
-                Function fit = series.getFit().getFunction();
-
-                builder.append("\\addplot[\n")
-                       .append("\tmark               = none,\n")
-                       .append("\tcolor              = {rgb,255:red,").append(red).append(";green,").append(green).append(";blue,").append(blue).append("},\n")
-                       .append("\tline width         = ").append(series.getLineWidth() / 2.0)
-                       .append(lineType).append(",\n")
-                       .append("\tforget plot\n")
-                       .append("]\n")
-                       .append("table[x index = 0, y index = 1] {\n");
-
-                for (double x : Range.linear(getXLowerLimit(), getXUpperLimit(), 100)) {
-                    builder.append(String.format("\t%.04e\t%.04e\n", x, fit.value(x)));
-                }
-
-                builder.append("\n};\n");
-
-            }
-
-        }
-
-        if (isLegendVisible()) {
-            builder.append(String.format("\\legend{\n%s\n}\n", String.join(",\n", legend)));
-        }
-
-        builder.append("\\end{axis}\n");
-
-        builder.append("\\end{tikzpicture}");
-
-        FileOutputStream writer = new FileOutputStream(path);
-        PrintStream      stream = new PrintStream(writer);
-
-        stream.print(builder.toString());
-
-        stream.close();
-
+        PlotExport.of(this).saveTeX(path);
     }
 
     public void saveSVG(String path) throws IOException {
@@ -1412,4 +880,9 @@ public class Plot extends JFXElement implements Element, Clearable {
         ORDER_ADDED
     }
 
+    public enum Renderer {
+        NODES,
+        CANVAS
+    }
+
 }
@@ -5,6 +5,7 @@ import javafx.scene.paint.Color;
 import jisa.Util;
 import jisa.experiment.Col;
 import jisa.experiment.Result;
+import jisa.experiment.ResultPyramid;
 import jisa.experiment.ResultTable;
 import jisa.experiment.RowValue;
 import jisa.maths.matrices.Matrix;
@@ -93,6 +94,16 @@ public interface Series extends Iterable<XYChart.Data<Double, Double>> {
         return watch(table, 0, 1);
     }
 
+    /**
+     * Plot the columns summarised by the specified ResultPyramid, loading only as much detail as is needed for the
+     * visible x-range (and reloading upon zooming/panning). Use this to plot very large finalised ResultStreams.
+     *
+     * @param pyramid Summary of columns to plot
+     *
+     * @return Self-reference
+     */
+    Series watch(ResultPyramid pyramid);
+
     // == Split ========================================================================================================
 
     /**
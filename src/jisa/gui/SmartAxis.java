@@ -9,9 +9,7 @@ import javafx.util.StringConverter;
 import jisa.Util;
 
 import java.text.DecimalFormat;
-import java.util.ArrayList;
-import java.util.LinkedList;
-import java.util.List;
+import java.util.*;
 
 public final class SmartAxis extends ValueAxis<Double> {
 
@@ -35,9 +33,11 @@ public final class SmartAxis extends ValueAxis<Double> {
     private       double           minValueInRange          = 0.0;
     private       Mode             mode                     = Mode.LINEAR;
     private       double           range                    = Double.POSITIVE_INFINITY;
-    private       List<Double>     data                     = new LinkedList<>();
     private       boolean          empty                    = true;
     private       List<Double>     majorTicks               = new LinkedList<>();
+    private final Extent           extent                   = new Extent();
+    private       double[]         rangedOn                 = null;
+    private       double[]         tickedOn                 = null;
 
 
     private BooleanProperty forceZeroInRange = new BooleanPropertyBase(true) {
@@ -260,53 +260,127 @@ public final class SmartAxis extends ValueAxis<Double> {
 
     }
 
+    /**
+     * Marks this axis as needing to be re-ranged. The given values are not used, since the axis keeps track of the
+     * extent of the data in its chart itself as points are added and removed.
+     *
+     * @param data Ignored
+     */
+    @Override
     public void invalidateRange(List<Double> data) {
+        rangedOn = null;
+        updateRange();
+    }
 
-        this.data = data;
+    /**
+     * Updates the extent of the data plotted against this axis, only re-ranging it (and thus regenerating its ticks)
+     * if this has changed since it was last ranged.
+     */
+    public void updateRange() {
 
-        int mag = 0;
-        if (!data.isEmpty()) {
+        if (chart == null || chart.getData() == null) {
+            super.invalidateRange(Collections.emptyList());
+            return;
+        }
 
-            double min = Double.POSITIVE_INFINITY;
-            double max = Double.NEGATIVE_INFINITY;
+        int total = 0;
 
-            for (Number n : data) {
-                min = Math.min(min, n.doubleValue());
-                max = Math.max(max, n.doubleValue());
+        for (XYChart.Series<Double, Double> series : chart.getData()) {
+            total += series.getData().size();
+        }
 
-                double abs = Math.abs(n.doubleValue());
+        // Re-scan if an extreme point has been removed, or points have been added/removed without us being told
+        if (extent.dirty || extent.count != total) {
+            rescan();
+        }
 
-                if (abs > 0) {
-                    minNonZero = Math.min(minNonZero, abs);
-                    maxNonZero = Math.max(maxNonZero, abs);
-                }
+        minValue = extent.count > 0 ? extent.minValue : 0;
+        maxValue = extent.count > 0 ? extent.maxValue : 100;
+        empty    = extent.count == 0;
 
-            }
+        double[] state = {extent.min, extent.max, extent.minNonZero, extent.maxNonZero, extent.minValue, extent.maxValue, Math.min(extent.count, 2), range};
 
-            minValue = min;
-            maxValue = max;
-            empty = false;
+        // If the other axis is hiding some points, the range depends on more than just the overall extent
+        if (isFiltered() || !Arrays.equals(state, rangedOn)) {
+            rangedOn = state;
+            super.invalidateRange(Collections.emptyList());
+        }
 
-        } else {
+    }
 
-            minValue = 0;
-            maxValue = 100;
+    void dataAdded(XYChart.Data<Double, Double> point) {
+        extent.add(valueOf(point), errorOf(point));
+    }
 
-            empty = true;
+    void dataRemoved(XYChart.Data<Double, Double> point) {
+        extent.remove(valueOf(point), errorOf(point));
+    }
+
+    void dataInvalidated() {
+        extent.dirty = true;
+    }
+
+    private double valueOf(XYChart.Data<Double, Double> point) {
+        return isXAxis ? point.getXValue() : point.getYValue();
+    }
+
+    private double errorOf(XYChart.Data<Double, Double> point) {
+        return isXAxis || point.getExtraValue() == null ? 0.0 : (Double) point.getExtraValue();
+    }
+
+    private void rescan() {
+
+        extent.clear();
+
+        for (XYChart.Series<Double, Double> series : chart.getData()) {
+
+            for (XYChart.Data<Double, Double> point : series.getData()) {
+                dataAdded(point);
+            }
 
         }
 
-        super.invalidateRange(data);
+    }
 
+    private boolean isFiltered() {
+        SmartAxis otherAxis = isXAxis ? (SmartAxis) chart.getYAxis() : (SmartAxis) chart.getXAxis();
+        return !otherAxis.isAutoRanging() || otherAxis.range != Double.POSITIVE_INFINITY;
     }
 
     @Override
     protected List<Double> calculateTickValues(double length, Object range) {
 
-        double lowerBound = getLowerBound();
-        double upperBound = getUpperBound();
+        double   minInRange = extent.count > 0 ? extent.minValue : Double.NaN;
+        double[] state      = {getLowerBound(), getUpperBound(), minInRange, extent.count == 1 ? 1 : 0, mode.ordinal()};
+
+        // Nothing that the ticks depend on has changed, so there is no need to work them out again
+        if (Arrays.equals(state, tickedOn)) {
+            return new ArrayList<>(majorTicks);
+        }
+
+        tickedOn   = state;
+        majorTicks = calculateTicks(mode, getLowerBound(), getUpperBound(), minInRange, extent.count == 1, numTicks);
+
+        return new ArrayList<>(majorTicks);
+
+    }
+
+    /**
+     * Works out where the major ticks go on an axis with the given limits. On a linear axis, ticks are spaced by
+     * one-significant-figure steps and shifted so that one lands on the lowest value shown (if it is in range).
+     *
+     * @param mode       Linear or logarithmic
+     * @param lowerBound Lower limit of axis
+     * @param upperBound Upper limit of axis
+     * @param minValue   Lowest value plotted (NaN if none)
+     * @param single     Whether only a single point is plotted
+     * @param numTicks   Number of ticks to aim for
+     *
+     * @return Tick values
+     */
+    public static List<Double> calculateTicks(Mode mode, double lowerBound, double upperBound, double minValue, boolean single, int numTicks) {
 
-        if (upperBound == lowerBound || data.size() == 1) {
+        if (upperBound == lowerBound || single) {
             double amount = Math.abs(0.1 * lowerBound);
             lowerBound -= amount;
             upperBound += amount;
@@ -320,17 +394,11 @@ public final class SmartAxis extends ValueAxis<Double> {
         final double       tickUnit   = Math.abs(Util.oneSigFigCeil((upperBound - lowerBound) / numTicks));
         final List<Double> tickValues = new ArrayList<>();
 
-        double minInRange = Double.POSITIVE_INFINITY;
+        double minInRange;
 
-        for (Double d : data) {
-
-            if (Util.isBetween(d, lowerBound, upperBound)) {
-                minInRange = Math.min(minInRange, d);
-            }
-
-        }
-
-        if (minInRange == Double.POSITIVE_INFINITY) {
+        if (Util.isBetween(minValue, lowerBound, upperBound)) {
+            minInRange = minValue;
+        } else {
             minInRange = Util.oneSigFigCeil(lowerBound);
         }
 
@@ -391,8 +459,6 @@ public final class SmartAxis extends ValueAxis<Double> {
 
         }
 
-        majorTicks = tickValues;
-
         return tickValues;
 
     }
@@ -496,18 +562,7 @@ public final class SmartAxis extends ValueAxis<Double> {
     public void setMaxRange(double range) {
 
         this.range = range;
-
-        List<Double> data = new LinkedList<>();
-
-        for (XYChart.Series<Double, Double> series : chart.getData()) {
-
-            for (XYChart.Data<Double, Double> point : series.getData()) {
-                data.add(isXAxis ? point.getXValue() : point.getYValue());
-            }
-
-        }
-
-        invalidateRange(data);
+        invalidateRange(Collections.emptyList());
 
     }
 
@@ -537,7 +592,15 @@ public final class SmartAxis extends ValueAxis<Double> {
             return getRange();
         }
 
-        for (int j = 0; j < chart.getData().size(); j++) {
+        if (!isFiltered() && !extent.dirty) {
+
+            // Every point is shown, so the extent we've been keeping track of is all we need
+            min        = extent.min;
+            max        = extent.max;
+            minNonZero = extent.minNonZero;
+            maxNonZero = extent.maxNonZero;
+
+        } else for (int j = 0; j < chart.getData().size(); j++) {
 
             XYChart.Series<Double, Double> data = chart.getData().get(j);
 
@@ -576,10 +639,7 @@ public final class SmartAxis extends ValueAxis<Double> {
             empty = true;
         }
 
-        int mag = 0;
-        if (Math.max(Math.abs(min), Math.abs(max)) > 0) {
-            mag = (int) Math.floor(Math.floor(Math.log10(Math.max(Math.abs(min), Math.abs(max)))) / 3) * 3;
-        }
+        int mag = magnitude(min, max);
 
         defaultFormatter.magnitude = Math.pow(10, mag);
 
@@ -588,68 +648,108 @@ public final class SmartAxis extends ValueAxis<Double> {
             switch (mode) {
 
                 case LOGARITHMIC:
-
                     setLabelSuffix("");
+                    break;
 
-                    if (empty) {
-                        minValue = 1;
-                        maxValue = 100;
-                    }
+                default:
+                case LINEAR:
+                    setLabelSuffix(mag != 0 ? String.format(" (E%+d)", mag) : "");
+                    break;
 
-                    double minExp = Math.log10(Math.abs(minNonZero));
-                    double maxExp = Math.log10(Math.abs(maxNonZero));
-                    double expRange = maxExp - minExp;
+            }
 
-                    if (expRange < 2) {
-                        double diff = (2 - expRange) / 2;
-                        minExp -= diff;
-                        maxExp += diff;
-                        expRange = 2;
-                    }
+            double[] limits = autoRange(mode, min, max, minNonZero, maxNonZero, range, numTicks);
 
-                    return new Object[]{
-                            Math.pow(10, minExp - (0.05 * expRange)),
-                            Math.pow(10, maxExp + (0.05 * expRange)),
-                            getTickUnit(),
-                            getScale(),
-                            currentFormatterProperty.get()
-                    };
+            return new Object[]{
+                    limits[0],
+                    limits[1],
+                    getTickUnit(),
+                    getScale(),
+                    currentFormatterProperty.get()
+            };
 
+        } else {
+            return getRange();
+        }
 
-                default:
-                case LINEAR:
+    }
 
-                    if (mag != 0) {
-                        setLabelSuffix(String.format(" (E%+d)", mag));
-                    } else {
-                        setLabelSuffix("");
-                    }
+    /**
+     * Returns the power of ten, as a multiple of 3, that linear tick labels are divided by for data spanning the given
+     * range (eg 3 for data in the thousands, shown as "(E+3)").
+     *
+     * @param min Lowest value
+     * @param max Highest value
+     *
+     * @return Power of ten
+     */
+    public static int magnitude(double min, double max) {
 
-                    if (empty || (min == 0 && max == 0)) {
-                        min = -100;
-                        max = 100;
-                    }
+        if (Math.max(Math.abs(min), Math.abs(max)) > 0) {
+            return (int) Math.floor(Math.floor(Math.log10(Math.max(Math.abs(min), Math.abs(max)))) / 3) * 3;
+        } else {
+            return 0;
+        }
 
-                    double range = max - min;
-                    if (range == 0) {
-                        range = max;
-                    }
+    }
 
-                    range = Math.min(range, this.range);
+    /**
+     * Chooses the limits of an auto-ranging axis to show data with the given extent, with some padding either side.
+     *
+     * @param mode       Linear or logarithmic
+     * @param min        Lowest value (including error bars), 0 or +Infinity if there is no data
+     * @param max        Highest value (including error bars), 0 or -Infinity if there is no data
+     * @param minNonZero Smallest non-zero magnitude of any value
+     * @param maxNonZero Largest non-zero magnitude of any value
+     * @param maxRange   Largest range to show, back from the highest value (+Infinity for no limit)
+     * @param numTicks   Number of ticks aimed for
+     *
+     * @return Lower and upper limits
+     */
+    public static double[] autoRange(Mode mode, double min, double max, double minNonZero, double maxNonZero, double maxRange, int numTicks) {
 
-                    return new Object[]{
-                            Math.max(max - this.range, min - 0.5 * (range / numTicks)),
-                            max + 0.5 * (range / numTicks),
-                            getTickUnit(),
-                            getScale(),
-                            currentFormatterProperty.get()
-                    };
+        boolean empty = min > max;
 
+        switch (mode) {
 
-            }
+            case LOGARITHMIC:
+
+                double minExp = Math.log10(empty || minNonZero == Double.POSITIVE_INFINITY ? 1 : minNonZero);
+                double maxExp = Math.log10(empty || maxNonZero == Double.NEGATIVE_INFINITY ? 100 : maxNonZero);
+                double expRange = maxExp - minExp;
+
+                if (expRange < 2) {
+                    double diff = (2 - expRange) / 2;
+                    minExp -= diff;
+                    maxExp += diff;
+                    expRange = 2;
+                }
+
+                return new double[]{
+                        Math.pow(10, minExp - (0.05 * expRange)),
+                        Math.pow(10, maxExp + (0.05 * expRange))
+                };
+
+            default:
+            case LINEAR:
+
+                if (empty || (min == 0 && max == 0)) {
+                    min = -100;
+                    max = 100;
+                }
+
+                double range = max - min;
+                if (range == 0) {
+                    range = Math.abs(max);
+                }
+
+                range = Math.min(range, maxRange);
+
+                return new double[]{
+                        Math.max(max - maxRange, min - 0.5 * (range / numTicks)),
+                        max + 0.5 * (range / numTicks)
+                };
 
-        } else {
-            return getRange();
         }
 
     }
@@ -665,6 +765,72 @@ public final class SmartAxis extends ValueAxis<Double> {
         LOGARITHMIC
     }
 
+    /**
+     * Extent of the data plotted against an axis, kept up to date as points are added and removed. Removing a point
+     * only means all points need to be looked at again if it was one of the extremes.
+     */
+    private static final class Extent {
+
+        private int     count      = 0;
+        private double  min        = Double.POSITIVE_INFINITY;
+        private double  max        = Double.NEGATIVE_INFINITY;
+        private double  minValue   = Double.POSITIVE_INFINITY;
+        private double  maxValue   = Double.NEGATIVE_INFINITY;
+        private double  minNonZero = Double.POSITIVE_INFINITY;
+        private double  maxNonZero = Double.NEGATIVE_INFINITY;
+        private boolean dirty      = false;
+
+        private void clear() {
+            count      = 0;
+            min        = Double.POSITIVE_INFINITY;
+            max        = Double.NEGATIVE_INFINITY;
+            minValue   = Double.POSITIVE_INFINITY;
+            maxValue   = Double.NEGATIVE_INFINITY;
+            minNonZero = Double.POSITIVE_INFINITY;
+            maxNonZero = Double.NEGATIVE_INFINITY;
+            dirty      = false;
+        }
+
+        private void add(double value, double error) {
+
+            count++;
+
+            if (Double.isNaN(value)) {
+                return;
+            }
+
+            double absolute = Math.abs(value);
+
+            min      = Math.min(min, value - error);
+            max      = Math.max(max, value + error);
+            minValue = Math.min(minValue, value);
+            maxValue = Math.max(maxValue, value);
+
+            if (absolute > 0) {
+                minNonZero = Math.min(minNonZero, absolute);
+                maxNonZero = Math.max(maxNonZero, absolute);
+            }
+
+        }
+
+        private void remove(double value, double error) {
+
+            count--;
+
+            if (Double.isNaN(value)) {
+                return;
+            }
+
+            double absolute = Math.abs(value);
+
+            if (value - error <= min || value + error >= max || value <= minValue || value >= maxValue || (absolute > 0 && (absolute <= minNonZero || absolute >= maxNonZero))) {
+                dirty = true;
+            }
+
+        }
+
+    }
+
     public static class LogFormatter extends StringConverter<Double> {
 
 
@@ -701,6 +867,14 @@ public final class SmartAxis extends ValueAxis<Double> {
             this.suffix = suffix;
         }
 
+        public double getMagnitude() {
+            return magnitude;
+        }
+
+        public void setMagnitude(double magnitude) {
+            this.magnitude = magnitude;
+        }
+
         @Override
         public String toString(Double number) {
 
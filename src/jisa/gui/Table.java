@@ -1,25 +1,23 @@
 package jisa.gui;
 
-import javafx.application.Platform;
-import javafx.beans.InvalidationListener;
 import javafx.beans.property.ReadOnlyObjectWrapper;
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
+import javafx.collections.ObservableListBase;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
-import javafx.scene.control.ToolBar;
-import javafx.scene.layout.BorderPane;
-import javafx.scene.layout.ColumnConstraints;
-import javafx.scene.layout.Pane;
-import jisa.control.SRunnable;
 import jisa.experiment.Result;
 import jisa.experiment.ResultTable;
 
-import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 public class Table extends JFXElement implements Element, Clearable {
 
-    public TableView  table;
+    public  TableView            table;
+    private Rows                 rows       = null;
+    private ResultTable          watching   = null;
+    private ResultTable.OnUpdate updater    = null;
+    private boolean              autoScroll = true;
 
     /**
      * Creates an empty table.
@@ -50,7 +48,12 @@ public class Table extends JFXElement implements Element, Clearable {
      */
     public synchronized void watchList(ResultTable list) {
 
-        list.addOnUpdate(this::update);
+        if (watching != null) {
+            watching.removeOnUpdate(updater);
+        }
+
+        watching = list;
+        updater  = list.addOnUpdate(this::update);
         setUp(list);
         list.addClearable(this);
 
@@ -65,65 +68,146 @@ public class Table extends JFXElement implements Element, Clearable {
         watchList(list);
     }
 
+    /**
+     * Sets whether the table should scroll down to show new rows as they are added. If enabled, scrolling happens at
+     * most once per frame, regardless of how quickly rows are added.
+     *
+     * @param autoScroll Scroll to new rows?
+     */
+    public void setAutoScroll(boolean autoScroll) {
+        this.autoScroll = autoScroll;
+    }
+
+    public boolean isAutoScroll() {
+        return autoScroll;
+    }
+
     private synchronized void setUp(ResultTable list) {
 
+        Rows newRows = new Rows(list);
+        rows = newRows;
+
         GUI.runNow(() -> {
-            table.getItems().clear();
+
             table.getColumns().clear();
+
+            for (int i = 0; i < list.getNumCols(); i++) {
+
+                final int                   finalI = i;
+                TableColumn<Result, Double> col    = new TableColumn<>(list.getTitle(i));
+
+                col.setCellValueFactory(param -> new ReadOnlyObjectWrapper<>(param.getValue().get(finalI)));
+                table.getColumns().add(col);
+
+            }
+
+            table.setItems(newRows);
+            newRows.refresh();
+
         });
 
-        int numCols = list.getNumCols();
+    }
+
+    public synchronized void update(Result row) {
+
+        // Any number of rows added within one frame only results in one update to the table
+        FrameDispatcher.coalesce(table, () -> rows.refresh());
+
+    }
+
+    @Override
+    public synchronized void clear() {
+
+        Rows current = rows;
 
-        for (int i = 0; i < numCols; i++) {
-            final int                                   finalI = i;
-            TableColumn<ObservableList<Double>, Double> col    = new TableColumn(list.getTitle(i));
-            col.setCellValueFactory(param ->
-                    new ReadOnlyObjectWrapper<>(param.getValue().get(finalI))
-            );
-            GUI.runNow(() -> table.getColumns().add(col));
+        if (current != null) {
+            GUI.runNow(current::reset);
         }
 
-        for (Result row : list) {
+    }
 
-            double[] data  = row.getData();
-            Double[] oData = new Double[data.length];
+    /**
+     * Read-only list view of the rows of a ResultTable for the TableView to display. Rows are taken directly from the
+     * ResultTable when the TableView asks for them (which, since it only creates cells for visible rows, is only for
+     * those on screen) rather than being copied. The size of the list is only updated on the GUI thread, by refresh().
+     */
+    private class Rows extends ObservableListBase<Result> {
 
-            for (int j = 0; j < data.length; j++) {
-                oData[j] = data[j];
+        private final ResultTable          source;
+        private final Map<Integer, Result> cache = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Result> eldest) {
+                return size() > 256;
             }
+        };
+        private       int                  size  = 0;
 
-            GUI.runNow(() -> {
-                table.getItems().add(FXCollections.observableArrayList(Arrays.asList(oData)));
-                table.scrollTo(table.getItems().size() - 1);
-            });
+        private Rows(ResultTable source) {
+            this.source = source;
         }
 
+        /**
+         * Tells the TableView about all rows added to the ResultTable since the last refresh, then scrolls to the
+         * last row if auto-scrolling.
+         */
+        private void refresh() {
 
-    }
+            int newSize = source.getNumRows();
 
-    public synchronized void update(Result row) {
+            if (newSize == size) {
+                return;
+            }
+
+            beginChange();
 
-        Platform.runLater(() -> {
+            if (newSize > size) {
+                nextAdd(size, newSize);
+            } else {
+                cache.clear();
+                nextRemove(0, Collections.<Result>nCopies(size, null));
+                nextAdd(0, newSize);
+            }
 
-            double[] data  = row.getData();
-            Double[] oData = new Double[data.length];
+            size = newSize;
+            endChange();
 
-            for (int j = 0; j < data.length; j++) {
-                oData[j] = data[j];
+            if (autoScroll && size > 0) {
+                table.scrollTo(size - 1);
             }
-            int index = table.getItems().size();
-            table.getItems().add(FXCollections.observableArrayList(Arrays.asList(oData)));
-            table.scrollTo(index);
-        });
 
+        }
 
-    }
+        private void reset() {
+
+            if (size == 0) {
+                return;
+            }
+
+            cache.clear();
+            beginChange();
+            nextRemove(0, Collections.<Result>nCopies(size, null));
+            size = 0;
+            endChange();
+
+        }
+
+        @Override
+        public Result get(int index) {
+
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException(index);
+            }
+
+            // Some ResultTables (ie ResultStream) have to read from file to get each row, so keep recently used ones
+            return cache.computeIfAbsent(index, source::getRow);
+
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
 
-    @Override
-    public synchronized void clear() {
-        GUI.runNow(() -> {
-            table.getItems().clear();
-        });
     }
 
 }
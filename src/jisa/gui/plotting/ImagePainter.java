@@ -0,0 +1,218 @@
+package jisa.gui.plotting;
+
+import javafx.scene.paint.Color;
+import jisa.gui.Series;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.geom.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Draws onto an image in memory using Java2D, which (unlike JavaFX) does not need a display or GUI thread, so any
+ * number of these can be drawn on at once from different threads.
+ */
+public class ImagePainter implements PlotPainter {
+
+    private final BufferedImage image;
+    private final Graphics2D    graphics;
+    private       Shape         clip = null;
+
+    /**
+     * Creates a blank (white) image of the given size to draw on.
+     *
+     * @param width  Width, in pixels
+     * @param height Height, in pixels
+     */
+    public ImagePainter(int width, int height) {
+
+        image    = new BufferedImage(Math.max(1, width), Math.max(1, height), BufferedImage.TYPE_INT_ARGB);
+        graphics = image.createGraphics();
+
+        graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        graphics.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        graphics.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_PURE);
+        graphics.setColor(java.awt.Color.WHITE);
+        graphics.fillRect(0, 0, image.getWidth(), image.getHeight());
+
+    }
+
+    private static java.awt.Color toAWT(Color colour) {
+        return new java.awt.Color((float) colour.getRed(), (float) colour.getGreen(), (float) colour.getBlue(), (float) colour.getOpacity());
+    }
+
+    private static Stroke stroke(double width, Double... dash) {
+
+        if (dash.length == 0) {
+            return new BasicStroke((float) width, BasicStroke.CAP_BUTT, BasicStroke.JOIN_ROUND);
+        }
+
+        float[] array = new float[dash.length];
+
+        for (int i = 0; i < dash.length; i++) {
+            array[i] = dash[i].floatValue();
+        }
+
+        return new BasicStroke((float) width, BasicStroke.CAP_BUTT, BasicStroke.JOIN_ROUND, 10f, array, 0f);
+
+    }
+
+    @Override
+    public void line(double x1, double y1, double x2, double y2, Color colour, double width, Double... dash) {
+        graphics.setColor(toAWT(colour));
+        graphics.setStroke(stroke(width, dash));
+        graphics.draw(new Line2D.Double(x1, y1, x2, y2));
+    }
+
+    @Override
+    public void polyline(double[] x, double[] y, int n, Color colour, double width, Double... dash) {
+
+        if (n == 0) {
+            return;
+        }
+
+        Path2D.Double path = new Path2D.Double(Path2D.WIND_NON_ZERO, n);
+        path.moveTo(x[0], y[0]);
+
+        for (int i = 1; i < n; i++) {
+            path.lineTo(x[i], y[i]);
+        }
+
+        graphics.setColor(toAWT(colour));
+        graphics.setStroke(stroke(width, dash));
+        graphics.setClip(clip);
+        graphics.draw(path);
+        graphics.setClip(null);
+
+    }
+
+    @Override
+    public void rect(double x, double y, double width, double height, Color colour, double lineWidth) {
+        graphics.setColor(toAWT(colour));
+        graphics.setStroke(stroke(lineWidth));
+        graphics.draw(new Rectangle2D.Double(x, y, width, height));
+    }
+
+    @Override
+    public void text(double x, double y, String anchor, String text, double size, double rotation) {
+
+        AffineTransform transform = graphics.getTransform();
+
+        graphics.setFont(new Font(Font.SANS_SERIF, Font.PLAIN, (int) Math.round(size)));
+        graphics.setColor(java.awt.Color.BLACK);
+        graphics.rotate(Math.toRadians(rotation), x, y);
+
+        double width = graphics.getFontMetrics().stringWidth(text);
+
+        switch (anchor) {
+
+            case "middle":
+                x -= width / 2;
+                break;
+
+            case "end":
+                x -= width;
+                break;
+
+        }
+
+        graphics.drawString(text, (float) x, (float) y);
+        graphics.setTransform(transform);
+
+    }
+
+    @Override
+    public void marker(Series.Shape shape, double x, double y, double m, Color colour) {
+
+        java.awt.Shape outline;
+        boolean        filled = false;
+
+        switch (shape) {
+
+            case TRIANGLE:
+                Path2D.Double triangle = new Path2D.Double();
+                triangle.moveTo(x - m, y + m);
+                triangle.lineTo(x, y - m);
+                triangle.lineTo(x + m, y + m);
+                triangle.closePath();
+                outline = triangle;
+                break;
+
+            case DASH:
+                line(x - m, y, x + m, y, colour, 2);
+                return;
+
+            case SQUARE:
+                outline = new Rectangle2D.Double(x - m, y - m, 2 * m, 2 * m);
+                break;
+
+            case DIAMOND:
+                Path2D.Double diamond = new Path2D.Double();
+                diamond.moveTo(x, y - m * Math.sqrt(2));
+                diamond.lineTo(x + m * Math.sqrt(2), y);
+                diamond.lineTo(x, y + m * Math.sqrt(2));
+                diamond.lineTo(x - m * Math.sqrt(2), y);
+                diamond.closePath();
+                outline = diamond;
+                break;
+
+            case CROSS:
+                line(x - m, y - m, x + m, y + m, colour, 2);
+                line(x - m, y + m, x + m, y - m, colour, 2);
+                return;
+
+            case DOT:
+                filled  = true;
+                outline = new Ellipse2D.Double(x - m, y - m, 2 * m, 2 * m);
+                break;
+
+            default:
+            case CIRCLE:
+                outline = new Ellipse2D.Double(x - m, y - m, 2 * m, 2 * m);
+                break;
+
+        }
+
+        graphics.setColor(filled ? toAWT(colour) : java.awt.Color.WHITE);
+        graphics.fill(outline);
+        graphics.setColor(toAWT(colour));
+        graphics.setStroke(stroke(2));
+        graphics.draw(outline);
+
+    }
+
+    @Override
+    public void errorBar(double x, double top, double bottom, double capWidth, Color colour, double width) {
+        line(x - capWidth, top, x + capWidth, top, colour, width);
+        line(x, top, x, bottom, colour, width);
+        line(x - capWidth, bottom, x + capWidth, bottom, colour, width);
+    }
+
+    @Override
+    public void setClip(double x, double y, double width, double height) {
+        clip = new Rectangle2D.Double(x, y, width, height);
+    }
+
+    /**
+     * Returns the image being drawn on.
+     *
+     * @return Image
+     */
+    public BufferedImage getImage() {
+        return image;
+    }
+
+    /**
+     * Writes the image, in PNG format, to the given stream (which is left open).
+     *
+     * @param out Stream to write to
+     *
+     * @throws IOException Upon error writing
+     */
+    public void writePNG(OutputStream out) throws IOException {
+        ImageIO.write(image, "png", out);
+    }
+
+}
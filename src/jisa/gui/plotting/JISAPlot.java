@@ -5,6 +5,7 @@ import javafx.collections.ObservableList;
 import javafx.scene.layout.*;
 import javafx.scene.shape.Line;
 import jisa.Util;
+import jisa.gui.FrameDispatcher;
 import jisa.gui.GUI;
 
 import java.util.Collection;
@@ -51,84 +52,84 @@ public class JISAPlot extends BorderPane {
 
     public void pointAdded(JISAPlotSeries series, JISAPlotPoint point) {
 
-        GUI.runNow(() -> {
-
+        GUI.runLater(() -> {
             markerArea.getChildren().add(point.getMarker());
             errorArea.getChildren().add(point.getXErrorBar());
             errorArea.getChildren().add(point.getYErrorBar());
             point.reposition();
-
-            if (autoLimit()) {
-                drawAxes();
-                updatePositions();
-                updateBinningSimple();
-                updateLines();
-            } else {
-                series.updateBinningSimple();
-                series.updateLine();
-            }
-
         });
 
+        relayout(series, true);
+
     }
 
     public void pointsAdded(JISAPlotSeries series, Collection<JISAPlotPoint> points) {
 
-        GUI.runNow(() -> {
-
+        GUI.runLater(() -> {
             markerArea.getChildren().addAll(points.stream().map(JISAPlotPoint::getMarker).collect(Collectors.toList()));
             errorArea.getChildren().addAll(points.stream().map(JISAPlotPoint::getXErrorBar).collect(Collectors.toList()));
             errorArea.getChildren().addAll(points.stream().map(JISAPlotPoint::getYErrorBar).collect(Collectors.toList()));
             points.forEach(JISAPlotPoint::reposition);
-
-            if (autoLimit()) {
-                drawAxes();
-                updatePositions();
-                updateBinningSimple();
-                updateLines();
-            } else {
-                series.updateBinningSimple();
-                series.updateLine();
-            }
-
         });
 
+        relayout(series, true);
+
     }
 
     public void pointRemoved(JISAPlotSeries series, JISAPlotPoint point) {
 
-        GUI.runNow(() -> {
-
+        GUI.runLater(() -> {
             markerArea.getChildren().remove(point.getMarker());
             errorArea.getChildren().remove(point.getXErrorBar());
             errorArea.getChildren().remove(point.getYErrorBar());
-
-            if (autoLimit()) {
-                drawAxes();
-                updatePositions();
-                updateLines();
-            } else {
-                series.updateLine();
-            }
-
         });
 
+        relayout(series, false);
+
     }
 
     public void pointsRemoved(JISAPlotSeries series, Collection<JISAPlotPoint> points) {
 
-        GUI.runNow(() -> {
-
+        GUI.runLater(() -> {
             markerArea.getChildren().removeAll(points.stream().map(JISAPlotPoint::getMarker).collect(Collectors.toList()));
             errorArea.getChildren().removeAll(points.stream().map(JISAPlotPoint::getXErrorBar).collect(Collectors.toList()));
             errorArea.getChildren().removeAll(points.stream().map(JISAPlotPoint::getYErrorBar).collect(Collectors.toList()));
+        });
+
+        relayout(series, false);
+
+    }
+
+    /**
+     * Queues the axes, positions and lines to be recalculated once all point changes queued for this frame have been
+     * made, rather than after each individual point.
+     *
+     * @param series  Series whose points have changed
+     * @param binning Whether to re-bin points as well
+     */
+    private void relayout(JISAPlotSeries series, boolean binning) {
+
+        FrameDispatcher.coalesce(List.of(this, series, binning), () -> {
 
             if (autoLimit()) {
+
                 drawAxes();
                 updatePositions();
+
+                if (binning) {
+                    updateBinningSimple();
+                }
+
                 updateLines();
+
             } else {
+
+                if (binning) {
+                    series.updateBinningSimple();
+                }
+
                 series.updateLine();
+
             }
 
         });
@@ -169,7 +170,7 @@ public class JISAPlot extends BorderPane {
                 double niceMax = Math.ceil(max / tickSpacing) * tickSpacing;
 
 
-                for (double v = niceMax; v <= niceMax; v += tickSpacing) {
+                for (double v = niceMin; v <= niceMax; v += tickSpacing) {
                     ticks.add(v);
                 }
 
@@ -256,6 +257,12 @@ public class JISAPlot extends BorderPane {
 
     }
 
+    /**
+     * Sets the x-limits from the extents of each series, which each keep track of their own as points are added, so
+     * this only depends on the number of series and not the number of points.
+     *
+     * @return Whether the limits changed
+     */
     public boolean autoLimitX() {
 
         double minX = this.minX;
@@ -265,14 +272,14 @@ public class JISAPlot extends BorderPane {
 
             case AUTO:
 
-                minX = series.stream().mapToDouble(JISAPlotSeries::getMinX).min().orElse(this.minX);
-                maxX = series.stream().mapToDouble(JISAPlotSeries::getMaxX).max().orElse(this.maxX);
+                minX = series.stream().mapToDouble(JISAPlotSeries::getMinX).filter(v -> !Double.isNaN(v)).min().orElse(this.minX);
+                maxX = series.stream().mapToDouble(JISAPlotSeries::getMaxX).filter(v -> !Double.isNaN(v)).max().orElse(this.maxX);
 
                 break;
 
             case TRACK:
 
-                maxX = series.stream().mapToDouble(JISAPlotSeries::getMaxX).max().orElse(this.maxX);
+                maxX = series.stream().mapToDouble(JISAPlotSeries::getMaxX).filter(v -> !Double.isNaN(v)).max().orElse(this.maxX);
                 minX = maxX - trackX;
 
                 break;
@@ -289,24 +296,30 @@ public class JISAPlot extends BorderPane {
 
     }
 
+    /**
+     * Sets the y-limits from the extents of each series, which each keep track of their own as points are added, so
+     * this only depends on the number of series and not the number of points.
+     *
+     * @return Whether the limits changed
+     */
     public boolean autoLimitY() {
 
         double minY = this.minY;
         double maxY = this.maxY;
 
-        switch (xMode) {
+        switch (yMode) {
 
             case AUTO:
 
-                minY = series.stream().mapToDouble(JISAPlotSeries::getMinY).min().orElse(this.minY);
-                maxY = series.stream().mapToDouble(JISAPlotSeries::getMaxY).max().orElse(this.maxY);
+                minY = series.stream().mapToDouble(JISAPlotSeries::getMinY).filter(v -> !Double.isNaN(v)).min().orElse(this.minY);
+                maxY = series.stream().mapToDouble(JISAPlotSeries::getMaxY).filter(v -> !Double.isNaN(v)).max().orElse(this.maxY);
 
                 break;
 
             case TRACK:
 
-                maxY = series.stream().mapToDouble(JISAPlotSeries::getMaxY).max().orElse(this.maxY);
-                minY = maxY - trackX;
+                maxY = series.stream().mapToDouble(JISAPlotSeries::getMaxY).filter(v -> !Double.isNaN(v)).max().orElse(this.maxY);
+                minY = maxY - trackY;
 
                 break;
 
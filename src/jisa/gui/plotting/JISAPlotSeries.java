@@ -12,9 +12,7 @@ import jisa.experiment.ResultTable;
 import jisa.experiment.ResultTable.Evaluable;
 import jisa.gui.Clearable;
 
-import java.util.Comparator;
-import java.util.LinkedList;
-import java.util.List;
+import java.util.*;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Predicate;
 
@@ -44,6 +42,8 @@ public class JISAPlotSeries implements Clearable {
     private       JISAPlotPoint                     templateElement;
     private       String                            name                 = "";
     private       PlotOrder                         order                = PlotOrder.ORDER_ADDED;
+    private final M4Decimator<JISAPlotPoint>        decimator            = new M4Decimator<>(1);
+    private       double[]                          binnedView           = new double[0];
 
 
     public JISAPlotSeries(JISAPlot plot, ResultTable dataTable, Evaluable xValue, Evaluable yValue, Evaluable exValue, Evaluable eyValue) {
@@ -106,6 +106,7 @@ public class JISAPlotSeries implements Clearable {
         }
 
         used.add(element);
+        decimator.add(element, plot.getXPosition(element.getX()), element.getY());
 
         return element;
 
@@ -167,45 +168,47 @@ public class JISAPlotSeries implements Clearable {
         updateBinningSimple(true);
     }
 
+    /**
+     * Removes all but the first, last, lowest and highest point in each pixel column. Each added point is binned as
+     * it is added, so this only has to go through every point again if the plot's x-range or width has changed since
+     * last time.
+     *
+     * @param update Whether to tell the plot about removed points
+     */
     public synchronized void updateBinningSimple(boolean update) {
 
-        int width = (int) plot.getAreaWidth();
+        double[] view = {plot.getMinX(), plot.getMaxX(), plot.getAreaWidth()};
 
-        List<JISAPlotPoint> binned = new LinkedList<>();
-        Double              lastY  = null;
+        if (!Arrays.equals(view, binnedView)) {
 
-        for (int x = 0; x <= width; x++) {
+            binnedView = view;
+            decimator.resize((int) plot.getAreaWidth());
 
-            final int     finalX = x;
-            final Double  finalY = lastY;
-            JISAPlotPoint found;
+            for (JISAPlotPoint point : used) {
+                decimator.add(point, plot.getXPosition(point.getX()), point.getY());
+            }
 
-            if (lastY == null) {
+        }
 
-                found = used
-                        .stream()
-                        .filter(p -> ((int) plot.getXPosition(p.getX())) == finalX)
-                        .findFirst().orElse(null);
+        Set<JISAPlotPoint>  binned  = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<JISAPlotPoint> removed = new ArrayList<>();
 
-            } else {
+        binned.addAll(decimator.getPoints());
 
-                found = used.stream()
-                            .filter(p -> ((int) plot.getXPosition(p.getX())) == finalX)
-                            .max(Comparator.comparingDouble(p -> Math.abs(p.getY() - finalY)))
-                            .orElse(null);
+        for (JISAPlotPoint point : used) {
 
+            if (!binned.contains(point)) {
+                removed.add(point);
             }
 
-            if (found != null) {
-                lastY = found.getY();
-                binned.add(found);
-            }
+        }
 
+        if (removed.isEmpty()) {
+            return;
         }
 
-        List<JISAPlotPoint> removed = used.filtered(p -> !binned.contains(p));
         reserved.addAll(removed);
-        used.removeAll(removed);
+        used.removeIf(p -> !binned.contains(p));
 
         if (update) {
             plot.pointsRemoved(this, removed);
@@ -215,11 +218,14 @@ public class JISAPlotSeries implements Clearable {
 
     public synchronized void updateBinningFull() {
 
-        List<JISAPlotPoint> removed = used.filtered(p -> plot.isInRange(p.getX(), p.getY()));
+        List<JISAPlotPoint> removed = new ArrayList<>(used.filtered(p -> plot.isInRange(p.getX(), p.getY())));
         reserved.addAll(removed);
         used.removeAll(removed);
         plot.pointsRemoved(this, removed);
 
+        // Start binning again from scratch
+        binnedView = new double[0];
+
         for (Result row : dataTable) {
             if (plot.isInRange(xValue.evaluate(row), yValue.evaluate(row)) && test(row)) {
                 addPoint(row);
@@ -286,6 +292,7 @@ public class JISAPlotSeries implements Clearable {
 
         used.clear();
         reserved.clear();
+        decimator.clear();
         System.gc();
 
         for (Result row : dataTable) {
@@ -323,6 +330,7 @@ public class JISAPlotSeries implements Clearable {
     public void clear() {
         reserved.addAll(used);
         used.clear();
+        decimator.clear();
         minX = null;
         maxX = null;
         minY = null;
@@ -338,19 +346,19 @@ public class JISAPlotSeries implements Clearable {
     }
 
     public double getMinX() {
-        return minX;
+        return minX == null ? Double.NaN : minX;
     }
 
     public double getMinY() {
-        return minY;
+        return minY == null ? Double.NaN : minY;
     }
 
     public double getMaxX() {
-        return maxX;
+        return maxX == null ? Double.NaN : maxX;
     }
 
     public double getMaxY() {
-        return maxY;
+        return maxY == null ? Double.NaN : maxY;
     }
 
     public Path getLine() {
@@ -0,0 +1,280 @@
+package jisa.gui.plotting;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reduces a series of points to at most four per pixel column: the first, last, lowest and highest points to fall
+ * in each column. Drawing a line through only these points gives the same picture as drawing it through all of them,
+ * so any number of points can be displayed using only around 4 × width of them.
+ *
+ * <p>Points are added one at a time, each costing a constant amount of work. Columns are given as (fractional) pixel
+ * positions from 0 to the number of columns. Points left or right of that range are binned into two extra columns so
+ * that lines still run off the edges correctly. If the column positions of points change (eg on zooming), clear() the
+ * decimator and add the points again.</p>
+ *
+ * @param <T> Type of object representing each point
+ */
+public class M4Decimator<T> {
+
+    private int      columns;
+    private Object[] first;
+    private Object[] last;
+    private Object[] min;
+    private Object[] max;
+    private long[]   firstOrder;
+    private long[]   lastOrder;
+    private long[]   minOrder;
+    private long[]   maxOrder;
+    private double[] minY;
+    private double[] maxY;
+    private long     count;
+
+    /**
+     * Creates a decimator with the given number of columns.
+     *
+     * @param columns Number of columns (ie width in pixels)
+     */
+    public M4Decimator(int columns) {
+        resize(columns);
+    }
+
+    /**
+     * Changes the number of columns, clearing all points.
+     *
+     * @param columns Number of columns (ie width in pixels)
+     */
+    public void resize(int columns) {
+
+        this.columns = Math.max(1, columns);
+
+        int bins = this.columns + 2;
+
+        first      = new Object[bins];
+        last       = new Object[bins];
+        min        = new Object[bins];
+        max        = new Object[bins];
+        firstOrder = new long[bins];
+        lastOrder  = new long[bins];
+        minOrder   = new long[bins];
+        maxOrder   = new long[bins];
+        minY       = new double[bins];
+        maxY       = new double[bins];
+        count      = 0;
+
+    }
+
+    /**
+     * Removes all points.
+     */
+    public void clear() {
+
+        Arrays.fill(first, null);
+        Arrays.fill(last, null);
+        Arrays.fill(min, null);
+        Arrays.fill(max, null);
+        count = 0;
+
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    /**
+     * Adds a point. Points with NaN positions are ignored.
+     *
+     * @param point  Point object
+     * @param column Column position of point (ie x pixel position)
+     * @param y      Y value (or position) of point
+     */
+    public void add(T point, double column, double y) {
+
+        if (Double.isNaN(column) || Double.isNaN(y)) {
+            return;
+        }
+
+        int  bin   = bin(column, columns);
+        long order = count++;
+
+        if (first[bin] == null) {
+            first[bin]      = point;
+            min[bin]        = point;
+            max[bin]        = point;
+            firstOrder[bin] = order;
+            minOrder[bin]   = order;
+            maxOrder[bin]   = order;
+            minY[bin]       = y;
+            maxY[bin]       = y;
+        }
+
+        last[bin]      = point;
+        lastOrder[bin] = order;
+
+        if (y < minY[bin]) {
+            min[bin]      = point;
+            minOrder[bin] = order;
+            minY[bin]     = y;
+        }
+
+        if (y > maxY[bin]) {
+            max[bin]      = point;
+            maxOrder[bin] = order;
+            maxY[bin]     = y;
+        }
+
+    }
+
+    private static int bin(double column, int columns) {
+        return column < 0 ? 0 : column >= columns ? columns + 1 : 1 + (int) column;
+    }
+
+    /**
+     * Returns the points kept, ordered by column and, within each column, by the order in which they were added.
+     *
+     * @return Kept points
+     */
+    @SuppressWarnings("unchecked")
+    public List<T> getPoints() {
+
+        List<T>  points = new ArrayList<>(4 * first.length);
+        long[]   orders = new long[4];
+        Object[] kept   = new Object[4];
+
+        for (int bin = 0; bin < first.length; bin++) {
+
+            if (first[bin] == null) {
+                continue;
+            }
+
+            int n = 0;
+
+            n = insert(kept, orders, n, first[bin], firstOrder[bin]);
+            n = insert(kept, orders, n, min[bin], minOrder[bin]);
+            n = insert(kept, orders, n, max[bin], maxOrder[bin]);
+            n = insert(kept, orders, n, last[bin], lastOrder[bin]);
+
+            for (int i = 0; i < n; i++) {
+                points.add((T) kept[i]);
+            }
+
+        }
+
+        return points;
+
+    }
+
+    /**
+     * Insertion step of a sort of (at most) four points by order added, skipping duplicates.
+     */
+    private static int insert(Object[] kept, long[] orders, int n, Object point, long order) {
+
+        int i = n;
+
+        while (i > 0 && orders[i - 1] >= order) {
+
+            if (orders[i - 1] == order) {
+                return n;
+            }
+
+            i--;
+
+        }
+
+        System.arraycopy(kept, i, kept, i + 1, n - i);
+        System.arraycopy(orders, i, orders, i + 1, n - i);
+
+        kept[i]   = point;
+        orders[i] = order;
+
+        return n + 1;
+
+    }
+
+    /**
+     * Decimates arrays of pixel positions (as used for drawing a polyline), writing the kept positions to the start of
+     * the given output arrays. Runs in O(n) time.
+     *
+     * @param x       X pixel positions, in drawing order
+     * @param y       Y pixel positions
+     * @param n       Number of positions to use from the arrays
+     * @param columns Number of columns (ie width in pixels)
+     * @param xOut    Array to write kept x positions to (at least 4 × (columns + 2) long)
+     * @param yOut    Array to write kept y positions to (at least 4 × (columns + 2) long)
+     *
+     * @return Number of positions kept
+     */
+    public static int decimate(double[] x, double[] y, int n, int columns, double[] xOut, double[] yOut) {
+
+        columns = Math.max(1, columns);
+
+        int   bins  = columns + 2;
+        int[] first = new int[bins];
+        int[] last  = new int[bins];
+        int[] min   = new int[bins];
+        int[] max   = new int[bins];
+
+        Arrays.fill(first, -1);
+
+        for (int i = 0; i < n; i++) {
+
+            if (Double.isNaN(x[i]) || Double.isNaN(y[i])) {
+                continue;
+            }
+
+            int bin = bin(x[i], columns);
+
+            if (first[bin] < 0) {
+                first[bin] = i;
+                min[bin]   = i;
+                max[bin]   = i;
+            }
+
+            last[bin] = i;
+
+            if (y[i] < y[min[bin]]) {
+                min[bin] = i;
+            }
+
+            if (y[i] > y[max[bin]]) {
+                max[bin] = i;
+            }
+
+        }
+
+        int   count = 0;
+        int[] kept  = new int[4];
+
+        for (int bin = 0; bin < bins; bin++) {
+
+            if (first[bin] < 0) {
+                continue;
+            }
+
+            kept[0] = first[bin];
+            kept[1] = min[bin];
+            kept[2] = max[bin];
+            kept[3] = last[bin];
+
+            Arrays.sort(kept);
+
+            for (int i = 0; i < 4; i++) {
+
+                if (i > 0 && kept[i] == kept[i - 1]) {
+                    continue;
+                }
+
+                xOut[count] = x[kept[i]];
+                yOut[count] = y[kept[i]];
+                count++;
+
+            }
+
+        }
+
+        return count;
+
+    }
+
+}
@@ -0,0 +1,1349 @@
+package jisa.gui.plotting;
+
+import javafx.scene.chart.XYChart;
+import javafx.scene.paint.Color;
+import javafx.util.StringConverter;
+import jisa.Util;
+import jisa.experiment.Result;
+import jisa.experiment.ResultTable;
+import jisa.gui.*;
+import jisa.maths.functions.Function;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Description of a plot (axes, series and styling) that can be written out as SVG, PNG or TikZ without needing a
+ * JISAChart, the GUI thread or a display. Points are streamed from their source (eg a ResultTable or ResultStream) as
+ * the output is written, with only as many kept as can be told apart at the output resolution: the first, last, lowest
+ * and highest point in each pixel column for lines, and one marker per marker-sized cell for markers. This way the
+ * memory needed to export a plot does not depend on how many points are in it.
+ *
+ * <p>Layout, tick placement and styling follow those of Plot. Use PlotExport.of(plot) to export what is currently
+ * shown on a Plot.</p>
+ */
+public class PlotExport {
+
+    private static final int    NUM_TICKS  = 8;
+    private static final double LEFT       = 100.0;
+    private static final double TOP        = 65.0;
+    private static final int    TEX_WIDTH  = 600;
+    private static final int    TEX_HEIGHT = 500;
+
+    private final List<Trace>             traces        = new LinkedList<>();
+    private       String                  title;
+    private       String                  xLabel;
+    private       String                  yLabel;
+    private       SmartAxis.Mode          xMode         = SmartAxis.Mode.LINEAR;
+    private       SmartAxis.Mode          yMode         = SmartAxis.Mode.LINEAR;
+    private       StringConverter<Double> xFormatter    = null;
+    private       StringConverter<Double> yFormatter    = null;
+    private       double                  xMin          = Double.NaN;
+    private       double                  xMax          = Double.NaN;
+    private       double                  yMin          = Double.NaN;
+    private       double                  yMax          = Double.NaN;
+    private       boolean                 legendVisible = true;
+    private       Plot.Sort               ordering      = Plot.Sort.X_AXIS;
+
+    public PlotExport(String title, String xLabel, String yLabel) {
+        this.title  = title;
+        this.xLabel = xLabel;
+        this.yLabel = yLabel;
+    }
+
+    public PlotExport(String title) {
+        this(title, "", "");
+    }
+
+    /**
+     * Creates a PlotExport of what is currently shown on the given Plot: its axis ranges, styling and the points
+     * currently in each of its series.
+     *
+     * @param plot Plot to export
+     *
+     * @return PlotExport of plot
+     */
+    public static PlotExport of(Plot plot) {
+
+        PlotExport export = new PlotExport(plot.chart.getTitle(), plot.getXLabel(), plot.getYLabel());
+
+        export.setXMode(plot.xAxis.getMode())
+              .setYMode(plot.yAxis.getMode())
+              .setXLimits(plot.getXLowerLimit(), plot.getXUpperLimit())
+              .setYLimits(plot.getYLowerLimit(), plot.getYUpperLimit())
+              .setLegendVisible(plot.isLegendVisible())
+              .setPointOrdering(plot.getPointOrdering())
+              .setXFormatter(customFormatter(plot.xAxis))
+              .setYFormatter(customFormatter(plot.yAxis));
+
+        for (Series series : plot.getSeries()) {
+
+            List<double[]> points = new ArrayList<>(1);
+
+            GUI.runNow(() -> {
+
+                if (!plot.chart.getData().contains(series.getXYChartSeries())) {
+                    return;
+                }
+
+                List<XYChart.Data<Double, Double>> data = series.getXYChartSeries().getData();
+
+                double[] x = new double[data.size()];
+                double[] y = new double[data.size()];
+                double[] e = new double[data.size()];
+
+                for (int i = 0; i < x.length; i++) {
+
+                    XYChart.Data<Double, Double> point = data.get(i);
+
+                    x[i] = point.getXValue();
+                    y[i] = point.getYValue();
+                    e[i] = point.getExtraValue() instanceof Double ? (Double) point.getExtraValue() : 0.0;
+
+                }
+
+                points.add(x);
+                points.add(y);
+                points.add(e);
+
+            });
+
+            if (points.isEmpty()) {
+                continue;
+            }
+
+            double[] x = points.get(0);
+            double[] y = points.get(1);
+            double[] e = points.get(2);
+
+            Trace trace = export.addSeries(consumer -> {
+                for (int i = 0; i < x.length; i++) {
+                    consumer.accept(x[i], y[i], e[i]);
+                }
+            });
+
+            trace.setName(series.getName())
+                 .setColour(series.getColour())
+                 .setLineWidth(series.getLineWidth())
+                 .setLineDash(series.getLineDash())
+                 .setLineVisible(series.isLineVisible())
+                 .setMarkerSize(series.getMarkerSize())
+                 .setMarkerShape(series.getMarkerShape())
+                 .setMarkerVisible(series.isMarkerVisible())
+                 .setFit(series.isFitted() ? series.getFit().getFunction() : null);
+
+        }
+
+        return export;
+
+    }
+
+    /**
+     * Returns the tick-label formatter of an axis if it has been replaced, or null if it is still the default one for
+     * its mode (which depends on the range of the axis, so is recreated for the exported range).
+     */
+    private static StringConverter<Double> customFormatter(SmartAxis axis) {
+
+        StringConverter<Double> formatter = axis.getTickLabelFormatter();
+
+        if (formatter instanceof SmartAxis.DefaultFormatter || formatter instanceof SmartAxis.LogFormatter) {
+            return null;
+        }
+
+        return formatter;
+
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public PlotExport setTitle(String title) {
+        this.title = title;
+        return this;
+    }
+
+    public String getXLabel() {
+        return xLabel;
+    }
+
+    public PlotExport setXLabel(String xLabel) {
+        this.xLabel = xLabel;
+        return this;
+    }
+
+    public String getYLabel() {
+        return yLabel;
+    }
+
+    public PlotExport setYLabel(String yLabel) {
+        this.yLabel = yLabel;
+        return this;
+    }
+
+    public SmartAxis.Mode getXMode() {
+        return xMode;
+    }
+
+    public PlotExport setXMode(SmartAxis.Mode mode) {
+        this.xMode = mode;
+        return this;
+    }
+
+    public StringConverter<Double> getXFormatter() {
+        return xFormatter;
+    }
+
+    /**
+     * Sets how tick labels on the x-axis are written. Use null for the default for the axis mode, as on a Plot.
+     *
+     * @param formatter Tick-label formatter
+     *
+     * @return Self-reference
+     */
+    public PlotExport setXFormatter(StringConverter<Double> formatter) {
+        this.xFormatter = formatter;
+        return this;
+    }
+
+    public StringConverter<Double> getYFormatter() {
+        return yFormatter;
+    }
+
+    /**
+     * Sets how tick labels on the y-axis are written. Use null for the default for the axis mode, as on a Plot.
+     *
+     * @param formatter Tick-label formatter
+     *
+     * @return Self-reference
+     */
+    public PlotExport setYFormatter(StringConverter<Double> formatter) {
+        this.yFormatter = formatter;
+        return this;
+    }
+
+    public SmartAxis.Mode getYMode() {
+        return yMode;
+    }
+
+    public PlotExport setYMode(SmartAxis.Mode mode) {
+        this.yMode = mode;
+        return this;
+    }
+
+    /**
+     * Sets the range of the x-axis. Use NaN for either to have it chosen automatically to fit the data.
+     *
+     * @param min Minimum
+     * @param max Maximum
+     *
+     * @return Self-reference
+     */
+    public PlotExport setXLimits(double min, double max) {
+        xMin = min;
+        xMax = max;
+        return this;
+    }
+
+    /**
+     * Sets the range of the y-axis. Use NaN for either to have it chosen automatically to fit the data.
+     *
+     * @param min Minimum
+     * @param max Maximum
+     *
+     * @return Self-reference
+     */
+    public PlotExport setYLimits(double min, double max) {
+        yMin = min;
+        yMax = max;
+        return this;
+    }
+
+    public PlotExport autoLimits() {
+        return setXLimits(Double.NaN, Double.NaN).setYLimits(Double.NaN, Double.NaN);
+    }
+
+    public boolean isLegendVisible() {
+        return legendVisible;
+    }
+
+    public PlotExport setLegendVisible(boolean visible) {
+        legendVisible = visible;
+        return this;
+    }
+
+    public Plot.Sort getPointOrdering() {
+        return ordering;
+    }
+
+    public PlotExport setPointOrdering(Plot.Sort ordering) {
+        this.ordering = ordering;
+        return this;
+    }
+
+    public List<Trace> getSeries() {
+        return new ArrayList<>(traces);
+    }
+
+    /**
+     * Adds a series whose points are supplied by the given source, which is asked for them each time the plot is
+     * written.
+     *
+     * @param source Source of points
+     *
+     * @return The new series, for setting its style
+     */
+    public Trace addSeries(PointSource source) {
+
+        Trace trace = new Trace(source);
+        trace.setColour(Series.defaultColours[traces.size() % Series.defaultColours.length]);
+        traces.add(trace);
+
+        return trace;
+
+    }
+
+    /**
+     * Adds a series plotting the given values from each row of a ResultTable. Rows are read from the table each time
+     * the plot is written, so a ResultStream of any size can be exported this way.
+     *
+     * @param table ResultTable to plot
+     * @param x     X values
+     * @param y     Y values
+     * @param e     Error-bar values
+     *
+     * @return The new series, for setting its style
+     */
+    public Trace addSeries(ResultTable table, ResultTable.Evaluable x, ResultTable.Evaluable y, ResultTable.Evaluable e) {
+
+        return addSeries(consumer -> {
+            for (Result row : table) {
+                consumer.accept(x.evaluate(row), y.evaluate(row), e.evaluate(row));
+            }
+        });
+
+    }
+
+    public Trace addSeries(ResultTable table, ResultTable.Evaluable x, ResultTable.Evaluable y) {
+        return addSeries(table, x, y, r -> 0.0);
+    }
+
+    public Trace addSeries(ResultTable table, int x, int y, int e) {
+
+        useTitles(table, x, y);
+        return addSeries(table, r -> r.get(x), r -> r.get(y), r -> r.get(e)).setName(table.getTitle(y));
+
+    }
+
+    public Trace addSeries(ResultTable table, int x, int y) {
+
+        useTitles(table, x, y);
+        return addSeries(table, r -> r.get(x), r -> r.get(y), r -> 0.0).setName(table.getTitle(y));
+
+    }
+
+    private void useTitles(ResultTable table, int x, int y) {
+
+        if (xLabel == null || xLabel.isBlank()) {
+            xLabel = table.getTitle(x);
+        }
+
+        if (yLabel == null || yLabel.isBlank()) {
+            yLabel = table.getTitle(y);
+        }
+
+    }
+
+    /**
+     * Works out the range and ticks of both axes, which (unless fixed) requires going through every point once.
+     */
+    private Axis[] layout() throws IOException {
+
+        Extent x = new Extent(xMode, xMin, xMax);
+        Extent y = new Extent(yMode, yMin, yMax);
+
+        for (Trace trace : traces) {
+
+            trace.source.forEach((xv, yv, ev) -> {
+
+                // Infinite values would otherwise stretch the axes to infinity
+                if (!Double.isFinite(xv) || !Double.isFinite(yv)) {
+                    return;
+                }
+
+                double error = Double.isNaN(ev) ? 0.0 : Math.abs(ev);
+
+                // As with SmartAxis, only points visible on the other axis count towards each axis' range
+                if (y.shows(yv)) {
+                    x.add(xv, 0.0);
+                }
+
+                if (x.shows(xv)) {
+                    y.add(yv, error);
+                }
+
+            });
+
+        }
+
+        return new Axis[]{x.toAxis(xFormatter), y.toAxis(yFormatter)};
+
+    }
+
+    /**
+     * Returns the total width of the output for a plotting area of the given width, allowing room for axis labels
+     * and legend.
+     *
+     * @param width Width of plotting area
+     *
+     * @return Total width
+     */
+    public double getTotalWidth(double width) {
+        return width + getLegendWidth() + 50.0 + 100.0;
+    }
+
+    /**
+     * Returns the total height of the output for a plotting area of the given height, allowing room for the title and
+     * axis labels.
+     *
+     * @param height Height of plotting area
+     *
+     * @return Total height
+     */
+    public double getTotalHeight(double height) {
+        return height + 60.0 + 100.0;
+    }
+
+    private double getLegendWidth() {
+
+        if (!legendVisible) {
+            return 0.0;
+        }
+
+        double legendW = 0.0;
+
+        for (Trace trace : traces) {
+            legendW = Math.max(legendW, (10.0 * trace.name.length()) + 15.0 + 5 + 3 + 20.0);
+        }
+
+        return legendW;
+
+    }
+
+    /**
+     * Draws the plot, with a plotting area of the given size, onto the given painter.
+     *
+     * @param painter Painter to draw with
+     * @param width   Width of plotting area
+     * @param height  Height of plotting area
+     *
+     * @throws IOException Upon error reading points or writing output
+     */
+    public void draw(PlotPainter painter, double width, double height) throws IOException {
+
+        Axis[] axes  = layout();
+        Axis   xAxis = axes[0];
+        Axis   yAxis = axes[1];
+
+        double aStartX = LEFT;
+        double aStartY = TOP + height;
+        double aEndX   = LEFT + width;
+        double aEndY   = TOP;
+
+        painter.setClip(aStartX, aEndY, width, height);
+        painter.text((aStartX + aEndX) / 2, 50.0, "middle", title, 20, 0);
+
+        for (double x : xAxis.ticks) {
+
+            double pos = aStartX + width * xAxis.fraction(x);
+
+            if (!Util.isBetween(pos, aStartX, aEndX)) {
+                continue;
+            }
+
+            painter.line(pos, aStartY, pos, aStartY + 10, Colour.BLACK, 1);
+            painter.line(pos, aStartY, pos, aEndY, Colour.SILVER, 0.5, 2.0, 2.0);
+            painter.text(pos, aStartY + 26.0, "middle", xAxis.label(x), 12, 0);
+
+        }
+
+        painter.text((aEndX + aStartX) / 2, aStartY + 75.0, "middle", xLabel + xAxis.suffix, 16, 0);
+
+        for (double y : yAxis.ticks) {
+
+            double pos = aStartY - height * yAxis.fraction(y);
+
+            if (!Util.isBetween(pos, aEndY, aStartY)) {
+                continue;
+            }
+
+            painter.line(aStartX, pos, aStartX - 10, pos, Colour.BLACK, 1);
+            painter.line(aStartX, pos, aEndX, pos, Colour.SILVER, 0.5, 2.0, 2.0);
+            painter.text(aStartX - 12.0, pos + 4.0, "end", yAxis.label(y), 12, 0);
+
+        }
+
+        painter.text(aStartX - 75.0, (aEndY + aStartY) / 2, "middle", yLabel + yAxis.suffix, 16, -90);
+        painter.rect(aStartX, aEndY, width, height, Colour.BLACK, 1);
+
+        if (legendVisible) {
+
+            double legendX = aEndX + 25.0;
+            double legendY = aEndY;
+            int    i       = 0;
+
+            painter.rect(legendX, legendY, getLegendWidth(), (traces.size() * 25) + 5.0, Colour.BLACK, 1);
+
+            for (Trace trace : traces) {
+                painter.marker(trace.markerVisible ? trace.shape : Series.Shape.DASH, legendX + 15.0, legendY + (25 * i) + 15.0, 5.0, trace.colour);
+                painter.text(legendX + 15.0 + 5 + 3 + 10, legendY + (25 * i) + 15.0 + 5, "start", trace.name, 16, 0);
+                i++;
+            }
+
+        }
+
+        for (Trace trace : traces) {
+            drawTrace(painter, trace, xAxis, yAxis, width, height);
+        }
+
+    }
+
+    private void drawTrace(PlotPainter painter, Trace trace, Axis xAxis, Axis yAxis, double width, double height) throws IOException {
+
+        boolean        byY     = ordering == Plot.Sort.Y_AXIS;
+        boolean        drawn   = trace.lineVisible && trace.fit == null;
+        Line<double[]> line    = drawn ? line((int) Math.ceil(byY ? height : width)) : null;
+        double         cell    = Math.max(1.0, trace.markerSize / 2);
+        int            columns = (int) Math.ceil(width / cell) + 1;
+        BitSet         used    = new BitSet();
+        Points         markers = new Points(4);
+
+        trace.source.forEach((x, y, e) -> {
+
+            double px = LEFT + width * xAxis.fraction(x);
+            double py = TOP + height * (1 - yAxis.fraction(y));
+
+            if (!Double.isFinite(px) || !Double.isFinite(py)) {
+                return;
+            }
+
+            if (drawn) {
+                line.add(new double[]{px, py}, byY ? (TOP + height - py) : (px - LEFT), byY ? px : py);
+            }
+
+            if (!trace.markerVisible || !Util.isBetween(px, LEFT, LEFT + width) || !Util.isBetween(py, TOP, TOP + height)) {
+                return;
+            }
+
+            // Only one marker is drawn per marker-sized cell, since any more would just be drawn on top of it
+            int index = (int) ((py - TOP) / cell) * columns + (int) ((px - LEFT) / cell);
+
+            if (!used.get(index)) {
+
+                used.set(index);
+
+                if (e > 0) {
+                    markers.add(px, py, TOP + height * (1 - yAxis.fraction(y + e)), TOP + height * (1 - yAxis.fraction(y - e)));
+                } else {
+                    markers.add(px, py, Double.NaN, Double.NaN);
+                }
+
+            }
+
+        });
+
+        if (drawn) {
+
+            List<double[]> kept = line.getPoints();
+            double[]       x    = new double[kept.size()];
+            double[]       y    = new double[kept.size()];
+
+            for (int i = 0; i < x.length; i++) {
+                x[i] = kept.get(i)[0];
+                y[i] = kept.get(i)[1];
+            }
+
+            painter.polyline(x, y, x.length, trace.colour, trace.lineWidth, trace.dash.getArray());
+
+        } else if (trace.fit != null) {
+
+            double[] x = new double[(int) width + 1];
+            double[] y = new double[x.length];
+            int      n = 0;
+
+            for (int i = 0; i < x.length; i++) {
+
+                double py = TOP + height * (1 - yAxis.fraction(trace.fit.value(xAxis.value(i / width))));
+
+                if (Double.isFinite(py)) {
+                    x[n] = LEFT + i;
+                    y[n] = Math.max(-10 * height, Math.min(11 * height, py));
+                    n++;
+                }
+
+            }
+
+            painter.polyline(x, y, n, trace.colour, trace.lineWidth, trace.dash.getArray());
+
+        }
+
+        for (int i = 0; i < markers.size; i++) {
+
+            double[] m = markers.values;
+            int      o = 4 * i;
+
+            if (!Double.isNaN(m[o + 2])) {
+                painter.errorBar(m[o], m[o + 2], m[o + 3], 5, trace.colour, trace.lineWidth);
+            }
+
+            painter.marker(trace.shape, m[o], m[o + 1], trace.markerSize, trace.colour);
+
+        }
+
+    }
+
+    /**
+     * Writes the plot as an SVG document to the given stream, which is left open.
+     *
+     * @param out    Stream to write to
+     * @param width  Width of plotting area
+     * @param height Height of plotting area
+     *
+     * @throws IOException Upon error reading points or writing output
+     */
+    public void writeSVG(OutputStream out, double width, double height) throws IOException {
+
+        SVGPainter painter = new SVGPainter(out, getTotalWidth(width), getTotalHeight(height));
+        draw(painter, width, height);
+        painter.finish();
+
+    }
+
+    /**
+     * Writes the plot as an SVG file.
+     *
+     * @param path   Path to write to
+     * @param width  Width of plotting area
+     * @param height Height of plotting area
+     *
+     * @throws IOException Upon error reading points or writing output
+     */
+    public void saveSVG(String path, double width, double height) throws IOException {
+
+        try (OutputStream out = new FileOutputStream(path)) {
+            writeSVG(out, width, height);
+        }
+
+    }
+
+    /**
+     * Draws the plot onto a new image. This does not need a display or the GUI thread, so can be done in parallel
+     * from any number of threads.
+     *
+     * @param width  Width of plotting area
+     * @param height Height of plotting area
+     *
+     * @return Image of plot
+     *
+     * @throws IOException Upon error reading points
+     */
+    public BufferedImage renderImage(double width, double height) throws IOException {
+
+        ImagePainter painter = new ImagePainter((int) Math.ceil(getTotalWidth(width)), (int) Math.ceil(getTotalHeight(height)));
+        draw(painter, width, height);
+
+        return painter.getImage();
+
+    }
+
+    /**
+     * Writes the plot as a PNG image to the given stream, which is left open.
+     *
+     * @param out    Stream to write to
+     * @param width  Width of plotting area
+     * @param height Height of plotting area
+     *
+     * @throws IOException Upon error reading points or writing output
+     */
+    public void writePNG(OutputStream out, double width, double height) throws IOException {
+
+        ImageIO.write(renderImage(width, height), "png", out);
+
+    }
+
+    /**
+     * Writes the plot as a PNG image file.
+     *
+     * @param path   Path to write to
+     * @param width  Width of plotting area
+     * @param height Height of plotting area
+     *
+     * @throws IOException Upon error reading points or writing output
+     */
+    public void savePNG(String path, double width, double height) throws IOException {
+
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(path))) {
+            writePNG(out, width, height);
+        }
+
+    }
+
+    /**
+     * Writes the plot as a TikZ (pgfplots) picture to the given stream, which is left open.
+     *
+     * @param out Stream to write to
+     *
+     * @throws IOException Upon error reading points or writing output
+     */
+    public void writeTeX(OutputStream out) throws IOException {
+
+        Axis[]      axes    = layout();
+        Axis        xAxis   = axes[0];
+        Axis        yAxis   = axes[1];
+        PrintStream builder = new PrintStream(new BufferedOutputStream(out), false, StandardCharsets.UTF_8);
+
+        builder.append("\\begin{tikzpicture}\n");
+
+        builder.append("\\begin{axis}[\n")
+               .append("\txmode                   = ").append(xMode == SmartAxis.Mode.LOGARITHMIC ? "log" : "normal").append(",\n")
+               .append("\tymode                   = ").append(yMode == SmartAxis.Mode.LOGARITHMIC ? "log" : "normal").append(",\n");
+
+        if (!Double.isNaN(xMin) && !Double.isNaN(xMax)) {
+            builder.append("\txmin                    = ").append(String.valueOf(xMin)).append(",\n")
+                   .append("\txmax                    = ").append(String.valueOf(xMax)).append(",\n");
+        }
+
+        if (!Double.isNaN(yMin) && !Double.isNaN(yMax)) {
+            builder.append("\tymin                    = ").append(String.valueOf(yMin)).append(",\n")
+                   .append("\tymax                    = ").append(String.valueOf(yMax)).append(",\n");
+        }
+
+        builder.append("\tgrid,\n")
+               .append("\tgrid style              = {dotted},\n")
+               .append("\tlegend pos              = outer north east,\n")
+               .append("\twidth                   = 0.7 * \\linewidth,\n")
+               .append("\ttitle                   = {\\textbf{").append(tex(title)).append("}},\n")
+               .append("\txlabel                  = {").append(tex(xLabel)).append("},\n")
+               .append("\tylabel                  = {").append(tex(yLabel)).append("},\n")
+               .append("\tlegend cell align       = left,\n")
+               .append("\tevery axis title/.style = {at={(0.5, 1.2)}}\n")
+               .append("]\n");
+
+        List<String> legend = new LinkedList<>();
+
+        for (Trace trace : traces) {
+
+            int red   = (int) (trace.colour.getRed() * 255);
+            int green = (int) (trace.colour.getGreen() * 255);
+            int blue  = (int) (trace.colour.getBlue() * 255);
+
+            String symbol;
+            String fill;
+
+            switch (trace.shape) {
+
+                case CIRCLE:
+                    symbol = "*";
+                    fill = "white";
+                    break;
+
+                case DOT:
+                    symbol = "*";
+                    fill = String.format("{rgb,255:red,%d;green,%d;blue,%d}", red, green, blue);
+                    break;
+
+                case SQUARE:
+                    symbol = "square*";
+                    fill = "white";
+                    break;
+
+                case DIAMOND:
+                    symbol = "diamond";
+                    fill = "white";
+                    break;
+
+                case CROSS:
+                    symbol = "x";
+                    fill = "none";
+                    break;
+
+                case TRIANGLE:
+                    symbol = "triangle";
+                    fill = "none";
+                    break;
+
+                case STAR:
+                    symbol = "star";
+                    fill = "none";
+                    break;
+
+                case DASH:
+                    symbol = "-";
+                    fill = "none";
+                    break;
+
+                default:
+                    symbol = "none";
+                    fill = "none";
+
+            }
+
+            if (!trace.markerVisible) symbol = "none";
+
+            String lineType;
+
+            switch (trace.dash) {
+
+                case DOTTED:
+                    lineType = ",\n\tdotted";
+                    break;
+
+                case DASHED:
+                case TWO_DASH:
+                case DOT_DASH:
+                case LONG_DASH:
+                    lineType = ",\n\tdashed";
+                    break;
+
+                default:
+                case SOLID:
+                    lineType = "";
+                    break;
+
+            }
+
+            boolean onlyMarks = !trace.lineVisible || trace.fit != null;
+
+            builder.append("\\addplot[\n");
+
+            if (onlyMarks) builder.append("\tonly marks,\n");
+
+            builder.append("\tmark               = ").append(symbol).append(",\n")
+                   .append("\tmark options       = { fill = ").append(fill).append(", scale=1.25 },\n")
+                   .append("\tcolor              = {rgb,255:red,").append(String.valueOf(red)).append(";green,").append(String.valueOf(green)).append(";blue,").append(String.valueOf(blue)).append("},\n")
+                   .append("\tline width         = ").append(String.valueOf(trace.lineWidth / 2.0))
+                   .append(lineType).append(",\n")
+                   .append("\terror bars/.cd,\n")
+                   .append("\ty dir              = both,\n")
+                   .append("\ty explicit,\n")
+                   .append("\terror bar style    = { line width = ").append(String.valueOf(trace.lineWidth / 2.0)).append(" },\n")
+                   .append("\terror mark options = { rotate = 90, mark size = 3, line width = ").append(String.valueOf(trace.lineWidth / 2.0)).append(" },\n")
+                   .append("]\n")
+                   .append("table[x index = 0, y index = 1, y error index = 2] {\n");
+
+            if (!onlyMarks) {
+                writeTeXLine(builder, trace, xAxis, yAxis);
+            } else if (trace.markerVisible) {
+                writeTeXMarkers(builder, trace, xAxis, yAxis);
+            }
+
+            builder.append("\n};\n");
+
+            legend.add("\t{" + tex(trace.name) + "}");
+
+            if (trace.fit != null) {
+
+                builder.append("\\addplot[\n")
+                       .append("\tmark               = none,\n")
+                       .append("\tcolor              = {rgb,255:red,").append(String.valueOf(red)).append(";green,").append(String.valueOf(green)).append(";blue,").append(String.valueOf(blue)).append("},\n")
+                       .append("\tline width         = ").append(String.valueOf(trace.lineWidth / 2.0))
+                       .append(lineType).append(",\n")
+                       .append("\tforget plot\n")
+                       .append("]\n")
+                       .append("table[x index = 0, y index = 1] {\n");
+
+                for (int i = 0; i < 100; i++) {
+                    double x = xAxis.value(i / 99.0);
+                    builder.printf("\t%.04e\t%.04e\n", x, trace.fit.value(x));
+                }
+
+                builder.append("\n};\n");
+
+            }
+
+        }
+
+        if (legendVisible) {
+            builder.printf("\\legend{\n%s\n}\n", String.join(",\n", legend));
+        }
+
+        builder.append("\\end{axis}\n");
+        builder.append("\\end{tikzpicture}");
+        builder.flush();
+
+    }
+
+    private void writeTeXLine(PrintStream stream, Trace trace, Axis xAxis, Axis yAxis) throws IOException {
+
+        boolean        byY  = ordering == Plot.Sort.Y_AXIS;
+        Line<double[]> line = line(byY ? TEX_HEIGHT : TEX_WIDTH);
+
+        trace.source.forEach((x, y, e) -> {
+
+            double px = TEX_WIDTH * xAxis.fraction(x);
+            double py = TEX_HEIGHT * yAxis.fraction(y);
+
+            line.add(new double[]{x, y, e}, byY ? py : px, byY ? px : py);
+
+        });
+
+        for (double[] point : line.getPoints()) {
+            stream.printf("\t%.04e\t%.04e\t%.04e\n", point[0], point[1], point[2] > 0 ? point[2] : Double.NaN);
+        }
+
+    }
+
+    /**
+     * Returns what to reduce the points of a line with, for the given number of pixel columns. Lines sorted by x or y
+     * are M4-decimated by column, but lines joined in the order points were added (eg hysteresis loops) only have runs
+     * of consecutive points in the same column reduced, so that the path is kept in order.
+     */
+    private <T> Line<T> line(int columns) {
+
+        if (ordering == Plot.Sort.ORDER_ADDED) {
+            return new RunDecimator<>(columns);
+        }
+
+        M4Decimator<T> decimator = new M4Decimator<>(columns);
+
+        return new Line<>() {
+
+            public void add(T point, double column, double y) {
+                decimator.add(point, column, y);
+            }
+
+            public List<T> getPoints() {
+                return decimator.getPoints();
+            }
+
+        };
+
+    }
+
+    private void writeTeXMarkers(PrintStream stream, Trace trace, Axis xAxis, Axis yAxis) throws IOException {
+
+        double cell    = Math.max(1.0, trace.markerSize / 2);
+        int    columns = (int) Math.ceil(TEX_WIDTH / cell) + 1;
+        BitSet used    = new BitSet();
+
+        trace.source.forEach((x, y, e) -> {
+
+            double px = TEX_WIDTH * xAxis.fraction(x);
+            double py = TEX_HEIGHT * yAxis.fraction(y);
+
+            if (!Util.isBetween(px, 0, TEX_WIDTH) || !Util.isBetween(py, 0, TEX_HEIGHT)) {
+                return;
+            }
+
+            int index = (int) (py / cell) * columns + (int) (px / cell);
+
+            if (!used.get(index)) {
+                used.set(index);
+                stream.printf("\t%.04e\t%.04e\t%.04e\n", x, y, e > 0 ? e : Double.NaN);
+            }
+
+        });
+
+    }
+
+    /**
+     * Writes the plot as a TikZ (pgfplots) picture to a file.
+     *
+     * @param path Path to write to
+     *
+     * @throws IOException Upon error reading points or writing output
+     */
+    public void saveTeX(String path) throws IOException {
+
+        try (OutputStream out = new FileOutputStream(path)) {
+            writeTeX(out);
+        }
+
+    }
+
+    private static String tex(String text) {
+        return text == null ? "" : text.replace("^", "\\^{}");
+    }
+
+    /**
+     * Supplies the points of a series, by calling the given consumer once for each point, each time it is asked.
+     */
+    public interface PointSource {
+
+        void forEach(PointConsumer consumer) throws IOException;
+
+    }
+
+    public interface PointConsumer {
+
+        void accept(double x, double y, double e);
+
+    }
+
+    /**
+     * A series in a PlotExport.
+     */
+    public static class Trace {
+
+        private final PointSource  source;
+        private       String       name          = "";
+        private       Color        colour        = Series.defaultColours[0];
+        private       double       lineWidth     = 2.5;
+        private       double       markerSize    = 5.0;
+        private       Series.Shape shape         = Series.Shape.CIRCLE;
+        private       Series.Dash  dash          = Series.Dash.SOLID;
+        private       boolean      lineVisible   = true;
+        private       boolean      markerVisible = true;
+        private       Function     fit           = null;
+
+        private Trace(PointSource source) {
+            this.source = source;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Trace setName(String name) {
+            this.name = name == null ? "" : name;
+            return this;
+        }
+
+        public Color getColour() {
+            return colour;
+        }
+
+        public Trace setColour(Color colour) {
+            this.colour = colour;
+            return this;
+        }
+
+        public double getLineWidth() {
+            return lineWidth;
+        }
+
+        public Trace setLineWidth(double width) {
+            this.lineWidth = width;
+            return this;
+        }
+
+        public double getMarkerSize() {
+            return markerSize;
+        }
+
+        public Trace setMarkerSize(double size) {
+            this.markerSize = size;
+            return this;
+        }
+
+        public Series.Shape getMarkerShape() {
+            return shape;
+        }
+
+        public Trace setMarkerShape(Series.Shape shape) {
+            this.shape = shape;
+            return this;
+        }
+
+        public Series.Dash getLineDash() {
+            return dash;
+        }
+
+        public Trace setLineDash(Series.Dash dash) {
+            this.dash = dash;
+            return this;
+        }
+
+        public boolean isLineVisible() {
+            return lineVisible;
+        }
+
+        public Trace setLineVisible(boolean visible) {
+            this.lineVisible = visible;
+            return this;
+        }
+
+        public boolean isMarkerVisible() {
+            return markerVisible;
+        }
+
+        public Trace setMarkerVisible(boolean visible) {
+            this.markerVisible = visible;
+            return this;
+        }
+
+        public Function getFit() {
+            return fit;
+        }
+
+        /**
+         * Sets a fitted function to draw in place of the line joining the points (or null for none).
+         *
+         * @param fit Fitted function
+         *
+         * @return Self-reference
+         */
+        public Trace setFit(Function fit) {
+            this.fit = fit;
+            return this;
+        }
+
+    }
+
+    /**
+     * Running range of values along one axis, used to choose its limits in the same way SmartAxis does.
+     */
+    private static class Extent {
+
+        private final SmartAxis.Mode mode;
+        private final double         fixedMin;
+        private final double         fixedMax;
+        private       double         min        = Double.POSITIVE_INFINITY;
+        private       double         max        = Double.NEGATIVE_INFINITY;
+        private       double         minNonZero = Double.POSITIVE_INFINITY;
+        private       double         maxNonZero = Double.NEGATIVE_INFINITY;
+        private       double         minValue   = Double.POSITIVE_INFINITY;
+
+        private Extent(SmartAxis.Mode mode, double fixedMin, double fixedMax) {
+            this.mode     = mode;
+            this.fixedMin = fixedMin;
+            this.fixedMax = fixedMax;
+        }
+
+        private boolean isFixed() {
+            return !Double.isNaN(fixedMin) && !Double.isNaN(fixedMax);
+        }
+
+        private boolean shows(double value) {
+            return !isFixed() || Util.isBetween(value, fixedMin, fixedMax);
+        }
+
+        private void add(double value, double error) {
+
+            min = Math.min(min, value - error);
+            max = Math.max(max, value + error);
+
+            double abs = Math.abs(value);
+
+            if (abs > 0) {
+                minNonZero = Math.min(minNonZero, abs);
+                maxNonZero = Math.max(maxNonZero, abs);
+            }
+
+            if (shows(value)) {
+                minValue = Math.min(minValue, value);
+            }
+
+        }
+
+        private Axis toAxis(StringConverter<Double> formatter) {
+
+            double[] limits;
+
+            if (isFixed()) {
+                limits = new double[]{fixedMin, fixedMax};
+            } else {
+                limits = SmartAxis.autoRange(mode, min, max, minNonZero, maxNonZero, Double.POSITIVE_INFINITY, NUM_TICKS);
+            }
+
+            int mag = min > max || mode != SmartAxis.Mode.LINEAR ? 0 : SmartAxis.magnitude(min, max);
+
+            return new Axis(mode, limits[0], limits[1], mag, minValue, formatter);
+
+        }
+
+    }
+
+    /**
+     * Limits and ticks of one axis, with mapping from values to fractions of the axis length.
+     */
+    private static class Axis {
+
+        private final SmartAxis.Mode          mode;
+        private final double                  lower;
+        private final double                  upper;
+        private final String                  suffix;
+        private final StringConverter<Double> formatter;
+        private final List<Double>            ticks;
+
+        private Axis(SmartAxis.Mode mode, double lower, double upper, int mag, double minInRange, StringConverter<Double> formatter) {
+
+            this.mode   = mode;
+            this.lower  = lower;
+            this.upper  = upper;
+            this.suffix = mag != 0 ? String.format(" (E%+d)", mag) : "";
+            this.ticks  = SmartAxis.calculateTicks(mode, lower, upper, minInRange, false, NUM_TICKS);
+
+            if (formatter != null) {
+                this.formatter = formatter;
+            } else if (mode == SmartAxis.Mode.LOGARITHMIC) {
+                this.formatter = new SmartAxis.LogFormatter();
+            } else {
+                SmartAxis.DefaultFormatter linear = new SmartAxis.DefaultFormatter(null);
+                linear.setMagnitude(Math.pow(10, mag));
+                this.formatter = linear;
+            }
+
+        }
+
+        private double fraction(double value) {
+
+            if (mode == SmartAxis.Mode.LOGARITHMIC) {
+                return value > 0 ? (Math.log10(value) - Math.log10(lower)) / (Math.log10(upper) - Math.log10(lower)) : Double.NaN;
+            } else {
+                return (value - lower) / (upper - lower);
+            }
+
+        }
+
+        private double value(double fraction) {
+
+            if (mode == SmartAxis.Mode.LOGARITHMIC) {
+                return Math.pow(10, Math.log10(lower) + fraction * (Math.log10(upper) - Math.log10(lower)));
+            } else {
+                return lower + fraction * (upper - lower);
+            }
+
+        }
+
+        private String label(double value) {
+            return formatter.toString(value);
+        }
+
+    }
+
+    private interface Line<T> {
+
+        void add(T point, double column, double y);
+
+        List<T> getPoints();
+
+    }
+
+    /**
+     * Keeps the first, last, lowest and highest of each run of consecutive points falling in the same pixel column, in
+     * the order they were added. Points left or right of the columns are binned together, as with M4Decimator.
+     */
+    private static class RunDecimator<T> implements Line<T> {
+
+        private final int      columns;
+        private final List<T>  points = new ArrayList<>();
+        private final Object[] kept   = new Object[4];
+        private final long[]   orders = new long[4];
+        private final double[] ys     = new double[4];
+        private       int      bin    = -1;
+        private       long     count  = 0;
+
+        private RunDecimator(int columns) {
+            this.columns = Math.max(1, columns);
+        }
+
+        public void add(T point, double column, double y) {
+
+            if (Double.isNaN(column) || Double.isNaN(y)) {
+                return;
+            }
+
+            int  bin   = column < 0 ? 0 : column >= columns ? columns + 1 : 1 + (int) column;
+            long order = count++;
+
+            if (bin != this.bin) {
+
+                flush();
+
+                this.bin = bin;
+                Arrays.fill(kept, point);
+                Arrays.fill(orders, order);
+                Arrays.fill(ys, y);
+                return;
+
+            }
+
+            // kept holds first, lowest, highest, last
+            if (y < ys[1]) {
+                kept[1]   = point;
+                orders[1] = order;
+                ys[1]     = y;
+            }
+
+            if (y > ys[2]) {
+                kept[2]   = point;
+                orders[2] = order;
+                ys[2]     = y;
+            }
+
+            kept[3]   = point;
+            orders[3] = order;
+            ys[3]     = y;
+
+        }
+
+        @SuppressWarnings("unchecked")
+        private void flush() {
+
+            if (bin < 0) {
+                return;
+            }
+
+            int lo = orders[1] <= orders[2] ? 1 : 2;
+            int hi = 3 - lo;
+
+            points.add((T) kept[0]);
+
+            if (orders[lo] > orders[0]) {
+                points.add((T) kept[lo]);
+            }
+
+            if (orders[hi] > orders[lo] && orders[hi] > orders[0]) {
+                points.add((T) kept[hi]);
+            }
+
+            if (orders[3] > Math.max(orders[0], Math.max(orders[1], orders[2]))) {
+                points.add((T) kept[3]);
+            }
+
+            bin = -1;
+
+        }
+
+        public List<T> getPoints() {
+            flush();
+            return points;
+        }
+
+    }
+
+    /**
+     * Growable array of points, each of a fixed number of values.
+     */
+    private static class Points {
+
+        private final int      stride;
+        private       double[] values = new double[256];
+        private       int      size   = 0;
+
+        private Points(int stride) {
+            this.stride = stride;
+        }
+
+        private void add(double... point) {
+
+            if ((size + 1) * stride > values.length) {
+                values = Arrays.copyOf(values, values.length * 2);
+            }
+
+            System.arraycopy(point, 0, values, size * stride, stride);
+            size++;
+
+        }
+
+    }
+
+}
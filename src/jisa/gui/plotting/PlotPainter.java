@@ -0,0 +1,71 @@
+package jisa.gui.plotting;
+
+import javafx.scene.paint.Color;
+import jisa.gui.Series;
+
+import java.io.IOException;
+
+/**
+ * Something a PlotExport can draw itself onto (eg an SVG file or an image). All positions are in pixels from the
+ * top-left corner.
+ */
+public interface PlotPainter {
+
+    /**
+     * Draws a straight line.
+     *
+     * @param x1     Start x
+     * @param y1     Start y
+     * @param x2     End x
+     * @param y2     End y
+     * @param colour Line colour
+     * @param width  Line width
+     * @param dash   Dash pattern (empty for solid)
+     */
+    void line(double x1, double y1, double x2, double y2, Color colour, double width, Double... dash) throws IOException;
+
+    /**
+     * Draws a line through the given points, clipped to the current clipping area.
+     *
+     * @param x      X positions
+     * @param y      Y positions
+     * @param n      Number of points to use from the arrays
+     * @param colour Line colour
+     * @param width  Line width
+     * @param dash   Dash pattern (empty for solid)
+     */
+    void polyline(double[] x, double[] y, int n, Color colour, double width, Double... dash) throws IOException;
+
+    /**
+     * Draws an outlined rectangle.
+     */
+    void rect(double x, double y, double width, double height, Color colour, double lineWidth) throws IOException;
+
+    /**
+     * Draws text.
+     *
+     * @param x        X position
+     * @param y        Y position (of baseline)
+     * @param anchor   Which part of the text is at x: "start", "middle" or "end"
+     * @param text     Text to draw
+     * @param size     Font size
+     * @param rotation Rotation (degrees clockwise) about (x, y)
+     */
+    void text(double x, double y, String anchor, String text, double size, double rotation) throws IOException;
+
+    /**
+     * Draws a data point marker.
+     */
+    void marker(Series.Shape shape, double x, double y, double size, Color colour) throws IOException;
+
+    /**
+     * Draws a vertical error bar, with caps at each end.
+     */
+    void errorBar(double x, double top, double bottom, double capWidth, Color colour, double width) throws IOException;
+
+    /**
+     * Sets the area that polylines are clipped to.
+     */
+    void setClip(double x, double y, double width, double height) throws IOException;
+
+}
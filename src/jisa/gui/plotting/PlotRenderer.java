@@ -0,0 +1,171 @@
+package jisa.gui.plotting;
+
+import jisa.Util;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Renders PlotExports to images or files on a pool of worker threads. Since rendering does not need a display or the
+ * GUI thread, any number of plots can be rendered at once, so generating large numbers of plots (eg a report at the end
+ * of a run of measurements) scales with the number of processor cores available.
+ *
+ * <pre>
+ * try (PlotRenderer renderer = new PlotRenderer()) {
+ *
+ *     for (ResultTable table : results) {
+ *         PlotExport plot = new PlotExport(table.getAttribute("Name"));
+ *         plot.addSeries(table, 0, 1);
+ *         renderer.savePNG(plot, table.getAttribute("Name") + ".png", 600, 500);
+ *     }
+ *
+ * } // Waits here for all plots to be saved, throwing an exception if any failed
+ * </pre>
+ *
+ * <p>Any plot that fails to render is reported on the error log as it happens, since nobody may be waiting on its
+ * Future to find out, and close() throws an exception if any have failed.</p>
+ */
+public class PlotRenderer implements AutoCloseable {
+
+    private final ExecutorService            workers;
+    private final AtomicReference<Exception> failure  = new AtomicReference<>();
+    private final AtomicInteger              failures = new AtomicInteger(0);
+
+    /**
+     * Creates a renderer with one worker thread per available processor core.
+     */
+    public PlotRenderer() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a renderer with the given number of worker threads.
+     *
+     * @param threads Number of threads
+     */
+    public PlotRenderer(int threads) {
+
+        workers = Executors.newFixedThreadPool(Math.max(1, threads), r -> {
+            Thread thread = new Thread(r, "Plot Renderer");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+    }
+
+    /**
+     * Queues the given plot to be drawn onto an image.
+     *
+     * @param plot   Plot to draw
+     * @param width  Width of plotting area
+     * @param height Height of plotting area
+     *
+     * @return Future image
+     */
+    public Future<BufferedImage> render(PlotExport plot, double width, double height) {
+        return submit(() -> plot.renderImage(width, height));
+    }
+
+    /**
+     * Queues the given plot to be saved as a PNG image file.
+     *
+     * @param plot   Plot to save
+     * @param path   Path to save to
+     * @param width  Width of plotting area
+     * @param height Height of plotting area
+     *
+     * @return Future path of the saved file
+     */
+    public Future<String> savePNG(PlotExport plot, String path, double width, double height) {
+
+        return submit(() -> {
+            plot.savePNG(path, width, height);
+            return path;
+        });
+
+    }
+
+    /**
+     * Queues the given plot to be saved as an SVG file.
+     *
+     * @param plot   Plot to save
+     * @param path   Path to save to
+     * @param width  Width of plotting area
+     * @param height Height of plotting area
+     *
+     * @return Future path of the saved file
+     */
+    public Future<String> saveSVG(PlotExport plot, String path, double width, double height) {
+
+        return submit(() -> {
+            plot.saveSVG(path, width, height);
+            return path;
+        });
+
+    }
+
+    /**
+     * Queues the given plot to be saved as a TikZ (pgfplots) file.
+     *
+     * @param plot Plot to save
+     * @param path Path to save to
+     *
+     * @return Future path of the saved file
+     */
+    public Future<String> saveTeX(PlotExport plot, String path) {
+
+        return submit(() -> {
+            plot.saveTeX(path);
+            return path;
+        });
+
+    }
+
+    private <T> Future<T> submit(Callable<T> task) {
+
+        return workers.submit(() -> {
+
+            try {
+                return task.call();
+            } catch (Exception e) {
+                Util.errLog.printf("Exception encountered rendering plot: \"%s\"\n", e.getMessage());
+                failures.incrementAndGet();
+                failure.compareAndSet(null, e);
+                throw e;
+            }
+
+        });
+
+    }
+
+    /**
+     * Stops accepting new plots and waits for all queued plots to finish being rendered. If interrupted while waiting,
+     * this returns straight away (leaving the remaining plots to carry on in the background) with the thread's
+     * interrupted flag set.
+     *
+     * @throws IOException If any plot failed to render, with the first failure as its cause
+     */
+    @Override
+    public void close() throws IOException {
+
+        workers.shutdown();
+
+        try {
+            workers.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        Exception first = failure.get();
+
+        if (first != null) {
+            throw new IOException(String.format("%d plot(s) failed to render: %s", failures.get(), first.getMessage()), first);
+        }
+
+    }
+
+}
@@ -0,0 +1,226 @@
+package jisa.gui.plotting;
+
+import javafx.scene.paint.Color;
+import jisa.gui.Series;
+import jisa.gui.svg.*;
+
+import java.io.BufferedOutputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Draws onto an SVG document, writing each element out as soon as it is drawn rather than building the whole document
+ * in memory first.
+ */
+public class SVGPainter implements PlotPainter {
+
+    private final PrintStream stream;
+    private       int         clips = 0;
+
+    /**
+     * Starts an SVG document of the given size, written to the given stream. Call finish() once done drawing.
+     *
+     * @param out    Stream to write to
+     * @param width  Width of document
+     * @param height Height of document
+     */
+    public SVGPainter(OutputStream out, double width, double height) {
+
+        stream = new PrintStream(new BufferedOutputStream(out), false, StandardCharsets.UTF_8);
+        stream.printf("<svg width='%s' height='%s' xmlns=\"http://www.w3.org/2000/svg\">", width, height);
+        stream.print("<g font-family=\"sans-serif\" font-size=\"12\">");
+
+    }
+
+    @Override
+    public void line(double x1, double y1, double x2, double y2, Color colour, double width, Double... dash) {
+
+        SVGElement line = new SVGLine(x1, y1, x2, y2).setStrokeColour(colour).setStrokeWidth(width);
+
+        if (dash.length > 0) {
+            line.setDash(dash);
+        }
+
+        line.output(stream);
+
+    }
+
+    @Override
+    public void polyline(double[] x, double[] y, int n, Color colour, double width, Double... dash) {
+
+        if (n == 0) {
+            return;
+        }
+
+        StringBuilder path = new StringBuilder(n * 24);
+
+        for (int i = 0; i < n; i++) {
+            path.append(i == 0 ? "M" : " L").append((float) x[i]).append(' ').append((float) y[i]);
+        }
+
+        SVGElement line = new SVGPath(path.toString()).setStrokeColour(colour)
+                                                      .setStrokeWidth(width)
+                                                      .setStyle("fill", "none");
+
+        if (dash.length > 0) {
+            line.setDash(dash);
+        }
+
+        if (clips > 0) {
+            line.setAttribute("clip-path", String.format("url(#clip%d)", clips));
+        }
+
+        line.output(stream);
+
+    }
+
+    @Override
+    public void rect(double x, double y, double width, double height, Color colour, double lineWidth) {
+
+        new SVGElement("rect").setAttribute("x", x)
+                              .setAttribute("y", y)
+                              .setAttribute("width", width)
+                              .setAttribute("height", height)
+                              .setStrokeWidth(lineWidth)
+                              .setFillColour("none")
+                              .setStrokeColour(colour)
+                              .output(stream);
+
+    }
+
+    @Override
+    public void text(double x, double y, String anchor, String text, double size, double rotation) {
+
+        SVGElement element = new SVGText(x, y, anchor, escape(text)).setAttribute("font-size", String.format("%spx", size));
+
+        if (rotation != 0) {
+            element.setAttribute("transform", String.format("rotate(%s %s %s)", rotation, x, y));
+        }
+
+        element.output(stream);
+
+    }
+
+    @Override
+    public void marker(Series.Shape shape, double x, double y, double size, Color colour) {
+        makeMarker(shape, colour, x, y, size).output(stream);
+    }
+
+    @Override
+    public void errorBar(double x, double top, double bottom, double capWidth, Color colour, double width) {
+
+        double xn = x - capWidth;
+        double xp = x + capWidth;
+
+        new SVGPath(String.format("M%s %s L%s %s M%s %s L%s %s M%s %s L%s %s", xn, top, xp, top, x, top, x, bottom, xn, bottom, xp, bottom))
+                .setStrokeColour(colour)
+                .setStrokeWidth(width)
+                .setStyle("fill", "none")
+                .output(stream);
+
+    }
+
+    @Override
+    public void setClip(double x, double y, double width, double height) {
+
+        SVGElement clip = new SVGElement("clipPath");
+        clip.setAttribute("id", String.format("clip%d", ++clips));
+
+        clip.add(
+                new SVGElement("rect").setAttribute("x", x)
+                                      .setAttribute("y", y)
+                                      .setAttribute("width", width)
+                                      .setAttribute("height", height)
+                                      .setStrokeColour("none")
+                                      .setFillColour("none")
+        );
+
+        clip.output(stream);
+
+    }
+
+    /**
+     * Closes the SVG document and flushes it to the underlying stream (which is left open).
+     */
+    public void finish() {
+        stream.print("</g></svg>");
+        stream.flush();
+    }
+
+    private static String escape(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+
+    /**
+     * Creates the SVG element for a marker of the given shape.
+     *
+     * @param p Shape
+     * @param c Colour
+     * @param x X position
+     * @param y Y position
+     * @param m Size
+     *
+     * @return Marker element
+     */
+    public static SVGElement makeMarker(Series.Shape p, Color c, double x, double y, double m) {
+
+        SVGElement marker;
+
+        switch (p) {
+
+            case TRIANGLE:
+
+                marker = new SVGTriangle(x, y, m)
+                        .setStrokeColour(c)
+                        .setFillColour(Color.WHITE)
+                        .setStrokeWidth(2);
+                break;
+
+            case DASH:
+
+                marker = new SVGLine(x - m, y, x + m, y)
+                        .setStrokeColour(c)
+                        .setStrokeWidth(2);
+                break;
+
+            default:
+            case CIRCLE:
+            case DOT:
+
+                marker = new SVGCircle(x, y, m)
+                        .setStrokeColour(c)
+                        .setFillColour(p == Series.Shape.CIRCLE ? Color.WHITE : c)
+                        .setStrokeWidth(2);
+                break;
+
+            case SQUARE:
+            case DIAMOND:
+
+                marker = new SVGSquare(x, y, m)
+                        .setStrokeColour(c)
+                        .setFillColour(Color.WHITE)
+                        .setStrokeWidth(2);
+
+                if (p == Series.Shape.DIAMOND) {
+                    marker.setAttribute("transform", "rotate(45 " + x + " " + y + ")");
+                }
+
+                break;
+
+            case CROSS:
+
+                marker = new SVGCross(x, y, m)
+                        .setStrokeColour(c)
+                        .setFillColour(c)
+                        .setStrokeWidth(1);
+
+                break;
+
+        }
+
+        return marker;
+
+    }
+
+}
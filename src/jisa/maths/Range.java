@@ -3,14 +3,25 @@ package jisa.maths;
 import jisa.maths.functions.GFunction;
 import jisa.maths.matrices.RealMatrix;
 
+import java.lang.reflect.Array;
 import java.math.BigDecimal;
-import java.math.BigInteger;
 import java.math.MathContext;
 import java.math.RoundingMode;
 import java.util.*;
+import java.util.function.IntFunction;
+import java.util.function.IntToDoubleFunction;
+import java.util.function.IntUnaryOperator;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
 
 /**
- * Class for defining ranges of numbers to iterate over.
+ * Class for defining ranges of numbers to iterate over. Values are generated on demand from the formula defining the
+ * range (or from a primitive array for manually specified values) rather than stored, so even ranges of millions of
+ * points take up no memory to speak of, and any element can be found directly by index. Operations like reverse(),
+ * mirror() and repeat() return views of the original range rather than copies.
+ *
+ * <p>Values can be iterated over as boxed numbers (for-each) or as primitive doubles (doubleIterator(),
+ * doubleStream()), which avoids creating an object per value.</p>
  *
  * @param <T> Type of number (ie Double or Integer).
  */
@@ -18,19 +29,101 @@ public class Range<T extends Number> implements Iterable<T> {
 
     private static final MathContext CONTEXT = MathContext.DECIMAL128;
 
-    private final T[] data;
+    private final int                 size;
+    private final Class<?>            type;
+    private final IntFunction<T>      elements;
+    private final IntToDoubleFunction values;
+    private final T[]                 data;
+
+    public Range(T[] data) {
+        this.size     = data.length;
+        this.type     = data.getClass().getComponentType();
+        this.elements = i -> data[i];
+        this.values   = i -> data[i].doubleValue();
+        this.data     = data;
+    }
+
+    private Range(int size, Class<?> type, IntFunction<T> elements, IntToDoubleFunction values) {
+        this.size     = size;
+        this.type     = type;
+        this.elements = elements;
+        this.values   = values;
+        this.data     = null;
+    }
+
+    private Range(Range<T> range) {
+        this.size     = range.size;
+        this.type     = range.type;
+        this.elements = range.elements;
+        this.values   = range.values;
+        this.data     = range.data;
+    }
+
+    /**
+     * Creates a range of doubles whose values are generated on demand by the given function of index.
+     */
+    private static Range<Double> generate(int size, IntToDoubleFunction values) {
+        return new Range<>(size, Double.class, values::applyAsDouble, values);
+    }
+
+    /**
+     * Returns a view of this range, whose i-th element is the index.applyAsInt(i)-th element of this range.
+     */
+    private Range<T> view(int size, IntUnaryOperator index) {
+        return new Range<>(size, type, i -> elements.apply(index.applyAsInt(i)), i -> values.applyAsDouble(index.applyAsInt(i)));
+    }
+
+    /**
+     * Returns a function giving start + i * step for index i. If both are short decimals (as they usually are, eg 0.1)
+     * this is worked out in whole numbers of the smallest decimal place used, so that each value is the closest double
+     * to the exact decimal value (ie 0.3 rather than 0.30000000000000004).
+     */
+    private static IntToDoubleFunction arithmetic(BigDecimal start, BigDecimal step, int size) {
+
+        int        places = Math.max(0, Math.max(start.stripTrailingZeros().scale(), step.stripTrailingZeros().scale()));
+        BigDecimal end    = start.add(step.multiply(BigDecimal.valueOf(Math.max(0, size - 1))));
+        BigDecimal limit  = BigDecimal.valueOf(1L << 53);
+
+        if (places <= 22 && start.abs().max(end.abs()).movePointRight(places).compareTo(limit) < 0) {
+
+            long   first = start.movePointRight(places).longValueExact();
+            long   delta = step.movePointRight(places).longValueExact();
+            double scale = Math.pow(10, places);
+
+            return i -> (first + i * delta) / scale;
+
+        }
+
+        // Otherwise, carry the rounding errors of start and step along (as a double-double sum) so that the result is
+        // still the closest double to start + i * step
+        double first      = start.doubleValue();
+        double firstError = start.subtract(new BigDecimal(first)).doubleValue();
+        double delta      = step.doubleValue();
+        double deltaError = step.subtract(new BigDecimal(delta)).doubleValue();
+
+        return i -> {
+
+            double product      = i * delta;
+            double productError = Math.fma(i, delta, -product);
+            double sum          = first + product;
+            double back         = sum - first;
+            double sumError     = (first - (sum - back)) + (product - back);
 
-    public Range(T[] data) {this.data = data;}
+            return sum + (sumError + productError + firstError + i * deltaError);
+
+        };
+
+    }
 
     public static Range<Double> manual(Number... values) {
 
-        Double[] toReturn = new Double[values.length];
+        double[] toReturn = new double[values.length];
 
         for (int i = 0; i < toReturn.length; i++) {
             toReturn[i] = values[i].doubleValue();
         }
 
-        return new Range<>(toReturn);
+        return generate(toReturn.length, i -> toReturn[i]);
 
     }
 
@@ -48,27 +141,20 @@ public class Range<T extends Number> implements Iterable<T> {
         if (numSteps < 1) {
             throw new IllegalArgumentException("You cannot have fewer than 1 step.");
         } else if (numSteps == 1) {
-            return new Range<>(new Double[]{start.doubleValue()});
+            return repeat(start, 1);
         }
 
         if (start.intValue() == start.doubleValue() && stop.intValue() == stop.doubleValue() && (stop.intValue() - start.intValue() + 1) == numSteps) {
             return linear(start.intValue(), stop.intValue());
         }
 
-        BigDecimal startV      = BigDecimal.valueOf(start.doubleValue());
-        BigDecimal stopV       = BigDecimal.valueOf(stop.doubleValue());
-        BigDecimal denominator = BigDecimal.valueOf(numSteps - 1);
+        BigDecimal          startV = BigDecimal.valueOf(start.doubleValue());
+        BigDecimal          stopV  = BigDecimal.valueOf(stop.doubleValue());
+        BigDecimal          step   = stopV.subtract(startV, CONTEXT).divide(BigDecimal.valueOf(numSteps - 1), CONTEXT);
+        IntToDoubleFunction values = arithmetic(startV, step, numSteps);
+        double              last   = stop.doubleValue();
 
-        BigDecimal[] values = new BigDecimal[numSteps];
-        BigDecimal   step   = stopV.subtract(startV, CONTEXT).divide(denominator, CONTEXT);
-        values[0]            = startV;
-        values[numSteps - 1] = stopV;
-
-        for (int i = 1; i < numSteps - 1; i++) {
-            values[i] = values[i - 1].add(step);
-        }
-
-        return manual(values);
+        return generate(numSteps, i -> i == numSteps - 1 ? last : values.applyAsDouble(i));
 
     }
 
@@ -82,15 +168,10 @@ public class Range<T extends Number> implements Iterable<T> {
      */
     public static Range<Double> linear(int start, int stop) {
 
-        int      numSteps = Math.abs(stop - start) + 1;
-        Double[] range    = new Double[numSteps];
-        int      step     = stop < start ? -1 : +1;
-
-        for (int i = 0; i < numSteps; i++) {
-            range[i] = (double) (start + (i * step));
-        }
+        int numSteps = Math.abs(stop - start) + 1;
+        int step     = stop < start ? -1 : +1;
 
-        return new Range<>(range);
+        return generate(numSteps, i -> start + (i * step));
 
     }
 
@@ -104,15 +185,10 @@ public class Range<T extends Number> implements Iterable<T> {
      */
     public static Range<Integer> count(int start, int stop) {
 
-        int       numSteps = Math.abs(stop - start) + 1;
-        Integer[] range    = new Integer[numSteps];
-        int       step     = stop < start ? -1 : +1;
-
-        for (int i = 0; i < numSteps; i++) {
-            range[i] = (start + (i * step));
-        }
+        int numSteps = Math.abs(stop - start) + 1;
+        int step     = stop < start ? -1 : +1;
 
-        return new Range<>(range);
+        return new Range<>(numSteps, Integer.class, i -> start + (i * step), i -> start + (i * step));
 
     }
 
@@ -124,72 +200,58 @@ public class Range<T extends Number> implements Iterable<T> {
      * @param stop    Number to end at
      * @param noSteps Total number of elements
      *
-     * @return
+     * @return Exponential range
      */
     public static Range<Double> exponential(Number start, Number stop, int noSteps) {
 
         if (noSteps < 1) {
             throw new IllegalArgumentException("You cannot have fewer than 1 step.");
         } else if (noSteps == 1) {
-            return new Range<>(new Double[]{start.doubleValue()});
+            return repeat(start, 1);
         }
 
-        BigDecimal a = BigDecimal.valueOf(start.doubleValue());
-        BigDecimal b = BigDecimal.valueOf(stop.doubleValue());
-        BigDecimal o = b.divide(a, CONTEXT);
-        BigDecimal s = nthRoot(o, noSteps - 1, CONTEXT);
-
-        BigDecimal[] values = new BigDecimal[noSteps];
-
-        values[0]           = a;
-        values[noSteps - 1] = b;
+        BigDecimal first = BigDecimal.valueOf(start.doubleValue());
+        BigDecimal last  = BigDecimal.valueOf(stop.doubleValue());
 
-        for (int i = 1; i < noSteps - 1; i++) {
-            values[i] = values[i - 1].multiply(s, CONTEXT);
+        if (first.signum() * last.signum() <= 0) {
+            throw new IllegalArgumentException("Exponential range cannot start or stop at, or cross, zero.");
         }
 
-        return manual(values);
+        // Each term is worked out on its own as first * factor^i, so nothing needs to be stored
+        BigDecimal factor = nthRoot(last.divide(first, CONTEXT), noSteps - 1);
+        double     end    = last.doubleValue();
+
+        return generate(noSteps, i -> i == noSteps - 1 ? end : first.multiply(factor.pow(i, CONTEXT), CONTEXT).doubleValue());
 
     }
 
-    private static BigDecimal nthRoot(final BigDecimal a, final int n, final MathContext context) {
+    /**
+     * Returns the (positive) nth root of a, by Newton's method starting from a double-precision estimate.
+     */
+    private static BigDecimal nthRoot(BigDecimal a, int n) {
 
-        final BigDecimal N   = BigDecimal.valueOf(n);
-        final int        n_1 = n - 1;
+        MathContext context = new MathContext(CONTEXT.getPrecision() + 5, CONTEXT.getRoundingMode());
+        BigDecimal  order   = BigDecimal.valueOf(n);
 
-        final int newPrecision = context.getPrecision() + n;
+        // log10(a) from its digits and scale, so that the estimate can't overflow even if a doesn't fit in a double
+        double     log      = (Math.log10(a.unscaledValue().doubleValue()) - a.scale()) / n;
+        double     exponent = Math.floor(log);
+        BigDecimal x        = BigDecimal.valueOf(Math.pow(10, log - exponent)).scaleByPowerOfTen((int) exponent);
 
-        final MathContext c = expandContext(context, newPrecision);
+        for (int i = 0; i < 20; i++) {
 
-        final int limit = n * n * (31 - Integer.numberOfLeadingZeros(newPrecision)) >>> 1;
+            BigDecimal delta = a.divide(x.pow(n - 1, context), context).subtract(x, context).divide(order, context);
 
-        BigDecimal x = guessRoot(a, n);
-        BigDecimal x0;
+            x = x.add(delta, context);
 
-        for (int i = 0; i < limit; i++) {
-            x0 = x;
-            BigDecimal delta = a.divide(x0.pow(n_1), c)
-                                .subtract(x0, c)
-                                .divide(N, c);
-            x = x0.add(delta, c);
-        }
+            if (delta.signum() == 0 || delta.abs().compareTo(x.ulp()) <= 0) {
+                break;
+            }
 
-        return x.round(c);
-    }
+        }
 
-    private static BigDecimal guessRoot(BigDecimal a, int n) {
-        BigInteger magnitude = a.unscaledValue();
-        final int  length    = magnitude.bitLength() * (n - 1) / n;
-        magnitude = magnitude.shiftRight(length);
-        final int newScale = a.scale() / n;
-        return new BigDecimal(magnitude, newScale);
-    }
+        return x.round(CONTEXT);
 
-    private static MathContext expandContext(MathContext c0, int newPrecision) {
-        return new MathContext(
-            newPrecision,
-            c0.getRoundingMode()    // Retain rounding mode
-        );
     }
 
     /**
@@ -204,33 +266,78 @@ public class Range<T extends Number> implements Iterable<T> {
      */
     public static Range<Double> geometric(Number start, Number stop, Number factor) {
 
-        BigDecimal       a      = BigDecimal.valueOf(start.doubleValue());
-        BigDecimal       b      = BigDecimal.valueOf(stop.doubleValue());
-        BigDecimal       s      = BigDecimal.valueOf(factor.doubleValue());
-        List<BigDecimal> values = new LinkedList<>();
+        BigDecimal first = BigDecimal.valueOf(start.doubleValue());
+        BigDecimal last  = BigDecimal.valueOf(stop.doubleValue());
+        BigDecimal ratio = BigDecimal.valueOf(factor.doubleValue());
 
-        for (BigDecimal v = a; v.compareTo(b) <= 0; v = v.multiply(s, CONTEXT)) {
-            values.add(v);
+        // Values only ever pass the end if they grow away from zero, or shrink towards it from below a negative end
+        boolean passes = first.signum() > 0
+                         ? ratio.compareTo(BigDecimal.ONE) > 0
+                         : first.signum() < 0 && last.signum() < 0 && ratio.signum() > 0 && ratio.compareTo(BigDecimal.ONE) < 0;
+
+        if (first.compareTo(last) <= 0 && !passes) {
+            throw new IllegalArgumentException("Geometric range would never pass its end value.");
         }
 
-        return manual(values.toArray(new BigDecimal[0]));
+        // The number of terms only grows logarithmically, so they are worked out up front as exact decimal products
+        // (so 0.1 * 1.5 gives 0.15, and the end value is not lost to rounding)
+        double[] values = new double[16];
+        int      count  = 0;
+
+        for (BigDecimal value = first; value.compareTo(last) <= 0; value = value.multiply(ratio, CONTEXT)) {
+
+            if (count == values.length) {
+                values = Arrays.copyOf(values, 2 * count);
+            }
+
+            values[count++] = value.doubleValue();
+
+        }
+
+        double[] terms = Arrays.copyOf(values, count);
+
+        return generate(count, i -> terms[i]);
 
     }
 
     public static Range<Double> polynomial(Number start, Number stop, int noSteps, int order) {
 
-        BigDecimal    startBD = BigDecimal.valueOf(start.doubleValue()).abs().pow(order).multiply(BigDecimal.valueOf(Math.signum(start.doubleValue())));
-        BigDecimal    stopBD  = BigDecimal.valueOf(stop.doubleValue()).abs().pow(order).multiply(BigDecimal.valueOf(Math.signum(stop.doubleValue())));
-        Range<Double> linear  = Range.linear(startBD, stopBD, noSteps);
-        BigDecimal[]  values  = new BigDecimal[noSteps];
+        double        first  = start.doubleValue();
+        double        last   = stop.doubleValue();
+        double        from   = Math.signum(first) * Math.pow(Math.abs(first), order);
+        double        to     = Math.signum(last) * Math.pow(Math.abs(last), order);
+        Range<Double> linear = Range.linear(from, to, noSteps);
 
-        for (int i = 0; i < values.length; i++) {
-            values[i] = BigDecimal.valueOf(linear.get(i));
-        }
+        return generate(noSteps, i -> {
+
+            if (i == 0) {
+                return first;
+            } else if (i == noSteps - 1) {
+                return last;
+            }
+
+            double value = linear.getDouble(i);
+            double root;
 
-        BigDecimal[] roots = Arrays.stream(values).map(v -> v.abs().doubleValue() > 0 ? nthRoot(v.abs(), order, CONTEXT).multiply(BigDecimal.valueOf(v.signum())) : BigDecimal.ZERO).toArray(BigDecimal[]::new);
+            switch (order) {
 
-        return manual(roots);
+                case 2:
+                    root = Math.sqrt(Math.abs(value));
+                    break;
+
+                case 3:
+                    root = Math.cbrt(Math.abs(value));
+                    break;
+
+                default:
+                    root = Math.pow(Math.abs(value), 1.0 / order);
+                    break;
+
+            }
+
+            return Math.signum(value) * root;
+
+        });
 
     }
 
@@ -249,7 +356,7 @@ public class Range<T extends Number> implements Iterable<T> {
         BigDecimal stopN  = BigDecimal.valueOf(stop.doubleValue());
         BigDecimal stepN  = BigDecimal.valueOf(step.doubleValue());
 
-        if (stepN.equals(BigDecimal.ZERO)) {
+        if (stepN.compareTo(BigDecimal.ZERO) == 0) {
             throw new IllegalArgumentException("Step size must not be zero!");
         }
 
@@ -257,15 +364,7 @@ public class Range<T extends Number> implements Iterable<T> {
 
         stepN = (stopN.compareTo(startN) < 0 ? stepN.abs().negate() : stepN.abs());
 
-        BigDecimal[] values = new BigDecimal[steps];
-
-        values[0] = startN;
-
-        for (int i = 1; i < steps; i++) {
-            values[i] = values[i - 1].add(stepN, CONTEXT);
-        }
-
-        return manual(values);
+        return generate(steps, arithmetic(startN, stepN, steps));
 
     }
 
@@ -278,15 +377,13 @@ public class Range<T extends Number> implements Iterable<T> {
      * @return Repeated range
      */
     public static Range<Double> repeat(Number value, int numTimes) {
-
-        Double[] values = new Double[numTimes];
-        Arrays.fill(values, value.doubleValue());
-        return new Range<>(values);
-
+        double constant = value.doubleValue();
+        return generate(numTimes, i -> constant);
     }
 
     /**
-     * Creates a range of numbers defined by a custom series function.
+     * Creates a range of numbers defined by a custom series function. The function is evaluated once for each element
+     * when the range is created, rather than each time an element is used.
      *
      * @param start    Index to start at
      * @param stop     Index to stop at
@@ -299,56 +396,40 @@ public class Range<T extends Number> implements Iterable<T> {
         int numSteps = Math.abs(stop - start) + 1;
         int step     = stop > start ? +1 : -1;
 
-        Double[] values = new Double[numSteps];
+        double[] values = new double[numSteps];
 
         for (int i = 0; i < numSteps; i++) {
             values[i] = function.value((double) start + (step * i));
         }
 
-        return new Range<>(values);
+        return generate(numSteps, i -> values[i]);
 
     }
 
     /**
-     * Returns a copy of this range but with its elements in reverse-order.
+     * Returns a view of this range but with its elements in reverse-order.
      * <p>
      * Example: [4, 2, 7] becomes [7, 2, 4]
      *
      * @return Reversed range
      */
     public Range<T> reverse() {
-
-        T[] newData = Arrays.copyOf(data, data.length);
-
-        for (int i = 0; i < data.length; i++) {
-            newData[i] = data[data.length - i - 1];
-        }
-
-        return new Range<>(newData);
-
+        return view(size, i -> size - i - 1);
     }
 
     /**
-     * Returns a copy of this range, but with its reverse appended on the end.
+     * Returns a view of this range, but with its reverse appended on the end.
      * <p>
      * Example: [1, 2, 3] becomes [1, 2, 3, 3, 2, 1]
      *
      * @return Mirrored range
      */
     public Range<T> mirror() {
-
-        T[] newData = Arrays.copyOf(data, data.length * 2);
-
-        for (int i = 0; i < data.length; i++) {
-            newData[i + data.length] = data[data.length - i - 1];
-        }
-
-        return new Range<>(newData);
-
+        return view(2 * size, i -> i < size ? i : 2 * size - i - 1);
     }
 
     /**
-     * Returns a range containing this range plus itself again n times.
+     * Returns a view of this range plus itself again n times.
      * <p>
      * Example: [1, 2, 3] -> repeat(1) -> [1, 2, 3, 1, 2, 3]
      *
@@ -357,19 +438,11 @@ public class Range<T extends Number> implements Iterable<T> {
      * @return Repeated range
      */
     public Range<T> repeat(int times) {
-
-        T[] newData = Arrays.copyOf(data, data.length * (times + 1));
-
-        for (int i = 0; i < times; i++) {
-            System.arraycopy(data, 0, newData, data.length * (i + 1), data.length);
-        }
-
-        return new Range<>(newData);
-
+        return view(size * (times + 1), i -> i % size);
     }
 
     /**
-     * Returns a copy of this range but with all elements cyclically shifted by n places (+ve to the right, -ve to the left).
+     * Returns a view of this range but with all elements cyclically shifted by n places (+ve to the right, -ve to the left).
      * <p>
      * Example: [1, 2, 3] -> shift(+2) -> [2, 3, 1]
      * Example: [1, 2, 3] -> shift(-2) -> [3, 1, 2]
@@ -380,20 +453,14 @@ public class Range<T extends Number> implements Iterable<T> {
      */
     public Range<T> shift(int places) {
 
-        places = places % size();
-
-        T[] newData = Arrays.copyOf(data, data.length);
-
-        for (int i = 0; i < size(); i++) {
-            newData[i] = data[(size() + (i - places)) % size()];
-        }
+        int shift = places % size();
 
-        return new Range<>(newData);
+        return view(size, i -> (size + (i - shift)) % size);
 
     }
 
     /**
-     * Returns a copy of this range but with its elements in a random order.
+     * Returns a view of this range but with its elements in a random order.
      * <p>
      * Example: [1, 2, 3, 4] may become [3, 1, 4, 2]
      *
@@ -401,9 +468,21 @@ public class Range<T extends Number> implements Iterable<T> {
      */
     public Range<T> shuffle() {
 
-        List<T> data = Arrays.asList(this.data);
-        Collections.shuffle(data);
-        return new Range<>(data.toArray(Arrays.copyOf(this.data, this.data.length)));
+        int[]  order  = new int[size];
+        Random random = new Random();
+
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+
+        for (int i = size - 1; i > 0; i--) {
+            int j    = random.nextInt(i + 1);
+            int temp = order[i];
+            order[i] = order[j];
+            order[j] = temp;
+        }
+
+        return view(size, i -> order[i]);
 
     }
 
@@ -412,8 +491,21 @@ public class Range<T extends Number> implements Iterable<T> {
      *
      * @return Array of values
      */
+    @SuppressWarnings("unchecked")
     public T[] array() {
-        return data;
+
+        if (data != null) {
+            return data;
+        }
+
+        T[] array = (T[]) Array.newInstance(type, size);
+
+        for (int i = 0; i < size; i++) {
+            array[i] = elements.apply(i);
+        }
+
+        return array;
+
     }
 
     /**
@@ -426,7 +518,7 @@ public class Range<T extends Number> implements Iterable<T> {
         double[] toReturn = new double[size()];
 
         for (int i = 0; i < toReturn.length; i++) {
-            toReturn[i] = data[i].doubleValue();
+            toReturn[i] = values.applyAsDouble(i);
         }
 
         return toReturn;
@@ -439,7 +531,7 @@ public class Range<T extends Number> implements Iterable<T> {
      * @return Size of range
      */
     public int size() {
-        return data.length;
+        return size;
     }
 
     /**
@@ -450,7 +542,7 @@ public class Range<T extends Number> implements Iterable<T> {
      * @return Element at nth position
      */
     public T get(int index) {
-        return data[index];
+        return elements.apply(Objects.checkIndex(index, size));
     }
 
     /**
@@ -461,7 +553,7 @@ public class Range<T extends Number> implements Iterable<T> {
      * @return Element at nth position, as double
      */
     public double getDouble(int index) {
-        return data[index].doubleValue();
+        return values.applyAsDouble(Objects.checkIndex(index, size));
     }
 
     /**
@@ -506,7 +598,7 @@ public class Range<T extends Number> implements Iterable<T> {
      * @return String representation
      */
     public String toString() {
-        return Arrays.toString(data);
+        return Arrays.toString(array());
     }
 
     @Override
@@ -518,18 +610,64 @@ public class Range<T extends Number> implements Iterable<T> {
 
             @Override
             public boolean hasNext() {
-                return i < data.length;
+                return i < size;
             }
 
             @Override
             public T next() {
-                return data[i++];
+
+                if (i >= size) {
+                    throw new NoSuchElementException();
+                }
+
+                return elements.apply(i++);
+
             }
 
         };
 
     }
 
+    /**
+     * Returns an iterator over the values in this range as primitive doubles.
+     *
+     * @return Primitive iterator
+     */
+    public PrimitiveIterator.OfDouble doubleIterator() {
+
+        return new PrimitiveIterator.OfDouble() {
+
+            private int i = 0;
+
+            @Override
+            public boolean hasNext() {
+                return i < size;
+            }
+
+            @Override
+            public double nextDouble() {
+
+                if (i >= size) {
+                    throw new NoSuchElementException();
+                }
+
+                return values.applyAsDouble(i++);
+
+            }
+
+        };
+
+    }
+
+    /**
+     * Returns a stream of the values in this range as primitive doubles.
+     *
+     * @return Stream of values
+     */
+    public DoubleStream doubleStream() {
+        return IntStream.range(0, size).mapToDouble(values);
+    }
+
 
     public enum Type {
         LINEAR,
@@ -543,7 +681,7 @@ public class Range<T extends Number> implements Iterable<T> {
         private final int  order;
 
         public DoubleRange(Range<Double> range, Type type, int order) {
-            super(range.data);
+            super(range);
             this.type  = type;
             this.order = order;
         }
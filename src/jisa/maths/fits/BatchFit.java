@@ -0,0 +1,276 @@
+package jisa.maths.fits;
+
+import jisa.Util;
+import jisa.experiment.Col;
+import jisa.experiment.Result;
+import jisa.experiment.ResultList;
+import jisa.experiment.ResultTable;
+import jisa.experiment.ResultTable.Evaluable;
+import jisa.maths.functions.PFunction;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Runs the same fit on many tables at once (for instance one per gate voltage or temperature, as returned by
+ * ResultTable.split()), spread over a fork-join pool. The fitted parameters and their errors are returned as a
+ * ResultTable with one row per table, along with how long each fit took.
+ *
+ * <pre>
+ * BatchFit batch = BatchFit.linear(VOLTAGE, CURRENT).setParameterNames("Intercept", "Gradient");
+ *
+ * ResultTable fits = batch.fit(results, GATE, "Gate Voltage", "V");
+ * </pre>
+ *
+ * <p>The returned table has columns: key, then each parameter followed by its error, then the number of points
+ * in the table fitted to and the time taken by the fit. Fits that fail (return null or throw) have NaN parameters, and
+ * any exception thrown is reported on the error log.</p>
+ */
+public class BatchFit {
+
+    private final Fitter       fitter;
+    private       String[]     names = new String[0];
+    private       ForkJoinPool pool  = ForkJoinPool.commonPool();
+
+    /**
+     * Creates a batch fitter that fits each table using the given fitter.
+     *
+     * @param fitter Fit to do on each table
+     */
+    public BatchFit(Fitter fitter) {
+        this.fitter = fitter;
+    }
+
+    /**
+     * Creates a batch fitter that does a linear fit on each table.
+     *
+     * @param xCol X column
+     * @param yCol Y column
+     *
+     * @return Batch fitter
+     */
+    public static BatchFit linear(int xCol, int yCol) {
+        return new BatchFit(table -> Fitting.linearFit(table, xCol, yCol));
+    }
+
+    /**
+     * Creates a batch fitter that does a polynomial fit on each table.
+     *
+     * @param xCol   X column
+     * @param yCol   Y column
+     * @param degree Degree of polynomial
+     *
+     * @return Batch fitter
+     */
+    public static BatchFit polynomial(int xCol, int yCol, int degree) {
+        return new BatchFit(table -> Fitting.polyFit(table, xCol, yCol, degree));
+    }
+
+    /**
+     * Creates a batch fitter that fits the given parametric function to each table using the Levenberg-Marquardt
+     * algorithm, starting from the same initial parameter values each time.
+     *
+     * @param xCol    X column
+     * @param yCol    Y column
+     * @param toFit   Function to fit
+     * @param initial Initial parameter values
+     *
+     * @return Batch fitter
+     */
+    public static BatchFit function(int xCol, int yCol, PFunction toFit, double... initial) {
+
+        return new BatchFit(table -> {
+
+            double[] x = new double[table.getNumRows()];
+            double[] y = new double[x.length];
+            int      i = 0;
+
+            for (Result row : table) {
+
+                if (i >= x.length) {
+                    break;
+                }
+
+                x[i] = row.get(xCol);
+                y[i] = row.get(yCol);
+                i++;
+
+            }
+
+            LMFit fit = new LevenbergMarquardt(toFit).setParallel(false).fit(x, y, initial);
+            return fit.isConverged() ? fit : null;
+
+        });
+
+    }
+
+    /**
+     * Sets the names to give the parameter columns in the results table. Any parameters without a name are named
+     * "P0", "P1" etc.
+     *
+     * @param names Parameter names
+     *
+     * @return Self-reference
+     */
+    public BatchFit setParameterNames(String... names) {
+        this.names = names.clone();
+        return this;
+    }
+
+    /**
+     * Sets the fork-join pool to run fits on. By default, the common pool is used.
+     *
+     * @param pool Pool to use
+     *
+     * @return Self-reference
+     */
+    public BatchFit setPool(ForkJoinPool pool) {
+        this.pool = pool;
+        return this;
+    }
+
+    /**
+     * Splits the given table by the given value, then fits each resulting table.
+     *
+     * @param table   Table to split and fit
+     * @param groupBy Value to split by
+     * @param keyName Name to give the key column in the results
+     * @param keyUnit Units of the key column (null for none)
+     *
+     * @return Fit results, one row per group, in order of key
+     */
+    public ResultTable fit(ResultTable table, Evaluable groupBy, String keyName, String keyUnit) {
+        return fit(table.split(groupBy), keyName, keyUnit);
+    }
+
+    /**
+     * Splits the given table by the values in the given column, then fits each resulting table.
+     *
+     * @param table   Table to split and fit
+     * @param groupBy Column to split by
+     *
+     * @return Fit results, one row per group, in order of key
+     */
+    public ResultTable fit(ResultTable table, int groupBy) {
+        return fit(table.split(groupBy), table.getName(groupBy), table.getUnits(groupBy));
+    }
+
+    /**
+     * Fits each of the given tables.
+     *
+     * @param tables  Tables to fit, by key
+     * @param keyName Name to give the key column in the results
+     * @param keyUnit Units of the key column (null for none)
+     *
+     * @return Fit results, one row per table, in the iteration order of the map
+     */
+    public ResultTable fit(Map<Double, ResultTable> tables, String keyName, String keyUnit) {
+
+        List<Double>                keys  = new ArrayList<>(tables.size());
+        List<ForkJoinTask<Outcome>> tasks = new ArrayList<>(tables.size());
+
+        for (Map.Entry<Double, ResultTable> entry : tables.entrySet()) {
+            keys.add(entry.getKey());
+            tasks.add(pool.submit(() -> run(entry.getKey(), entry.getValue())));
+        }
+
+        List<Outcome> outcomes   = new ArrayList<>(tasks.size());
+        int           parameters = 0;
+
+        for (ForkJoinTask<Outcome> task : tasks) {
+
+            Outcome outcome = task.join();
+            outcomes.add(outcome);
+
+            if (outcome.fit != null) {
+                parameters = Math.max(parameters, outcome.fit.getParameters().length);
+            }
+
+        }
+
+        List<Col> columns = new ArrayList<>(2 * parameters + 3);
+
+        columns.add(keyUnit == null ? new Col(keyName) : new Col(keyName, keyUnit));
+
+        for (int i = 0; i < parameters; i++) {
+            String name = i < names.length ? names[i] : String.format("P%d", i);
+            columns.add(new Col(name));
+            columns.add(new Col(name + " Error"));
+        }
+
+        columns.add(new Col("Points"));
+        columns.add(new Col("Fit Time", "ms"));
+
+        ResultList results = new ResultList(columns.toArray(new Col[0]));
+
+        for (int i = 0; i < outcomes.size(); i++) {
+
+            Outcome  outcome = outcomes.get(i);
+            double[] row     = new double[columns.size()];
+
+            row[0] = keys.get(i);
+
+            for (int j = 0; j < parameters; j++) {
+
+                boolean has = outcome.fit != null && j < outcome.fit.getParameters().length;
+
+                row[1 + 2 * j] = has ? outcome.fit.getParameter(j) : Double.NaN;
+                row[2 + 2 * j] = has ? outcome.fit.getError(j) : Double.NaN;
+
+            }
+
+            row[row.length - 2] = outcome.points;
+            row[row.length - 1] = outcome.time / 1e6;
+
+            results.addData(row);
+
+        }
+
+        return results;
+
+    }
+
+    private Outcome run(double key, ResultTable table) {
+
+        long start = System.nanoTime();
+        Fit  fit;
+
+        try {
+            fit = fitter.fit(table);
+        } catch (Exception e) {
+            Util.errLog.printf("Exception encountered fitting table with key %s: \"%s\"\n", key, e.getMessage());
+            e.printStackTrace();
+            fit = null;
+        }
+
+        return new Outcome(fit, table.getNumRows(), System.nanoTime() - start);
+
+    }
+
+    /**
+     * The fit to do on each table.
+     */
+    public interface Fitter {
+
+        Fit fit(ResultTable table) throws Exception;
+
+    }
+
+    private static class Outcome {
+
+        private final Fit  fit;
+        private final int  points;
+        private final long time;
+
+        private Outcome(Fit fit, int points, long time) {
+            this.fit    = fit;
+            this.points = points;
+            this.time   = time;
+        }
+
+    }
+
+}
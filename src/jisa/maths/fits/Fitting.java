@@ -2,19 +2,18 @@ package jisa.maths.fits;
 
 import javafx.scene.chart.XYChart;
 import jisa.Util;
+import jisa.experiment.Result;
 import jisa.experiment.ResultTable;
-import jisa.maths.functions.Function;
 import jisa.maths.functions.PFunction;
-import jisa.maths.matrices.RealMatrix;
+import jisa.maths.matrices.exceptions.DimensionException;
+import jisa.maths.matrices.exceptions.SingularException;
 import org.apache.commons.math.FunctionEvaluationException;
-import org.apache.commons.math.analysis.polynomials.PolynomialFunction;
 import org.apache.commons.math.optimization.OptimizationException;
-import org.apache.commons.math.optimization.fitting.CurveFitter;
 import org.apache.commons.math.optimization.fitting.GaussianFitter;
 import org.apache.commons.math.optimization.fitting.HarmonicFitter;
-import org.apache.commons.math.optimization.fitting.ParametricRealFunction;
 import org.apache.commons.math.optimization.general.GaussNewtonOptimizer;
 
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 
@@ -80,109 +79,135 @@ public class Fitting {
     }
 
     public static LinearFit linearFit(ResultTable data, int xCol, int yCol) {
-        return linearFit(data.getColumns(xCol), data.getColumns(yCol));
+        PolyFit fit = polyFit(data, xCol, yCol, 1);
+        return fit == null ? null : new LinearFit(fit);
     }
 
     /**
-     * Fit a polynomial of given degree to the data provided as two column matrices x and y.
+     * Fit a polynomial of given degree to the data provided as x and y values, with each point's residual multiplied
+     * by the corresponding weight. Points with non-finite values are ignored.
      *
-     * @param xData  X-Data
-     * @param yData  Y-Data
-     * @param degree Degree of polynomial to fit
+     * @param xData   X-Data
+     * @param yData   Y-Data
+     * @param weights Weights
+     * @param degree  Degree of polynomial to fit
      *
-     * @return Polynomial function representing the fit
+     * @return Polynomial function representing the fit, null if there are not enough points to fit to
      */
     public static PolyFit polyFitWeighted(Iterable<Double> xData, Iterable<Double> yData, Iterable<Double> weights, final int degree) {
 
-        RealMatrix x = RealMatrix.iterableToCol(xData);
-        RealMatrix y = RealMatrix.iterableToCol(yData);
-        RealMatrix w = RealMatrix.iterableToCol(weights);
+        LeastSquares     solver = new LeastSquares(degree + 1);
+        Iterator<Double> x      = xData.iterator();
+        Iterator<Double> y      = yData.iterator();
+        Iterator<Double> w      = weights.iterator();
+        int              count  = 0;
 
-        try {
+        while (x.hasNext() && y.hasNext() && w.hasNext()) {
+            addPoint(solver, x.next(), y.next(), w.next());
+            count++;
+        }
 
-            RealMatrix V = new RealMatrix(x.size(), degree + 1);
+        if (x.hasNext() || y.hasNext() || w.hasNext()) {
 
-            for (int i = 0; i < x.size(); i++) {
-                V.set(i, degree, w.get(i, 0));
-            }
+            int xLength = count + remaining(x);
+            int yLength = count + remaining(y);
+            int wLength = count + remaining(w);
 
-            for (int j = degree - 1; j >= 0; j--) {
+            throw yLength != xLength ? new DimensionException(yLength, xLength) : new DimensionException(wLength, xLength);
 
-                Iterator<Double> ittr = x.iterator();
+        }
 
-                for (int i = 0; ittr.hasNext(); i++) {
-                    V.set(i, j, ittr.next() * V.get(i, j + 1));
-                }
+        return solve(solver);
 
-            }
+    }
+
+    /**
+     * Fit a polynomial of given degree to the data provided as x and y values. Points with non-finite values are
+     * ignored.
+     *
+     * @param xData  X-Data
+     * @param yData  Y-Data
+     * @param degree Degree of polynomial to fit
+     *
+     * @return Polynomial function representing the fit, null if there are not enough points to fit to
+     */
+    public static PolyFit polyFit(Iterable<Double> xData, Iterable<Double> yData, final int degree) {
 
-            RealMatrix.QR decomp = V.getQR();
-            RealMatrix    Q      = decomp.getQ();
-            RealMatrix    R      = decomp.getR();
-            RealMatrix    subR   = R.getSubMatrix(0, R.cols() - 1, 0, R.cols() - 1);
-            RealMatrix    denom  = Q.transpose().multiply(y.elementMultiply(w)).getSubMatrix(0, subR.cols() - 1, 0, 0);
-            double[]      p      = Util.reverseArray(subR.leftDivide(denom).getCol(0));
-            Function      fitted = new Function.WrappedFunction(new PolynomialFunction(p));
-            double        norm   = y.subtract(fitted.value(x)).elementMultiply(w).getNorm();
-            RealMatrix    covb   = R.transpose().multiply(R).leftDivide(RealMatrix.identity(R.cols())).multiply(norm * norm / (x.size() - degree));
-            RealMatrix    se     = covb.getDiagonal().map(Math::sqrt);
-            double[]      errors = Util.reverseArray(se.getCol(0));
+        LeastSquares     solver = new LeastSquares(degree + 1);
+        Iterator<Double> x      = xData.iterator();
+        Iterator<Double> y      = yData.iterator();
+        int              count  = 0;
 
-            return new PolyFit(p, errors);
+        while (x.hasNext() && y.hasNext()) {
+            addPoint(solver, x.next(), y.next(), 1.0);
+            count++;
+        }
 
-        } catch (Throwable e) {
-            return null;
+        if (x.hasNext() || y.hasNext()) {
+            throw new DimensionException(count + remaining(y), count + remaining(x));
         }
 
+        return solve(solver);
+
     }
 
     /**
-     * Fit a polynomial of given degree to the data provided as two column matrices x and y.
+     * Fit a polynomial of given degree to the data provided as arrays of x and y values. Points with non-finite values
+     * are ignored.
      *
-     * @param xData  X-Data
-     * @param yData  Y-Data
+     * @param x      X-Data
+     * @param y      Y-Data
      * @param degree Degree of polynomial to fit
      *
-     * @return Polynomial function representing the fit
+     * @return Polynomial function representing the fit, null if there are not enough points to fit to
      */
-    public static PolyFit polyFit(Iterable<Double> xData, Iterable<Double> yData, final int degree) {
+    public static PolyFit polyFit(double[] x, double[] y, final int degree) {
+
+        if (x.length != y.length) {
+            throw new DimensionException(y.length, x.length);
+        }
 
-        RealMatrix x = RealMatrix.iterableToCol(xData);
-        RealMatrix y = RealMatrix.iterableToCol(yData);
+        LeastSquares solver = new LeastSquares(degree + 1);
 
-        try {
+        for (int i = 0; i < x.length; i++) {
+            addPoint(solver, x[i], y[i], 1.0);
+        }
 
-            RealMatrix V = new RealMatrix(x.size(), degree + 1);
+        return solve(solver);
 
-            for (int i = 0; i < x.size(); i++) {
-                V.set(i, degree, 1.0);
-            }
+    }
 
-            for (int j = degree - 1; j >= 0; j--) {
+    private static int remaining(Iterator<Double> iterator) {
 
-                Iterator<Double> ittr = x.iterator();
+        int count = 0;
 
-                for (int i = 0; ittr.hasNext(); i++) {
-                    V.set(i, j, ittr.next() * V.get(i, j + 1));
-                }
+        while (iterator.hasNext()) {
+            iterator.next();
+            count++;
+        }
 
-            }
+        return count;
 
-            RealMatrix.QR decomp = V.getQR();
-            RealMatrix    Q      = decomp.getQ();
-            RealMatrix    R      = decomp.getR();
-            RealMatrix    subR   = R.getSubMatrix(0, R.cols() - 1, 0, R.cols() - 1);
-            RealMatrix    denom  = Q.transpose().multiply(y).getSubMatrix(0, subR.cols() - 1, 0, 0);
-            double[]      p      = Util.reverseArray(subR.leftDivide(denom).getCol(0));
-            Function      fitted = new Function.WrappedFunction(new PolynomialFunction(p));
-            double        norm   = y.subtract(fitted.value(x)).getNorm();
-            RealMatrix    covb   = R.transpose().multiply(R).leftDivide(RealMatrix.identity(R.cols())).multiply(norm * norm / (x.size() - degree));
-            RealMatrix    se     = covb.getDiagonal().map(Math::sqrt);
-            double[]      errors = Util.reverseArray(se.getCol(0));
+    }
 
-            return new PolyFit(p, errors);
+    private static void addPoint(LeastSquares solver, double x, double y, double w) {
 
-        } catch (Throwable e) {
+        if (Double.isFinite(x) && Double.isFinite(y) && Double.isFinite(w)) {
+            solver.addPolynomial(x, y, w);
+        }
+
+    }
+
+    private static PolyFit solve(LeastSquares solver) {
+
+        // Not enough (distinct) points to determine every coefficient
+        if (solver.getCount() < solver.getNumParameters()) {
+            return null;
+        }
+
+        try {
+            return solver.getPolyFit();
+        } catch (SingularException e) {
             return null;
         }
 
@@ -193,7 +218,15 @@ public class Fitting {
     }
 
     public static PolyFit polyFit(ResultTable data, int xCol, int yCol, int degree) {
-        return polyFit(data.getColumns(xCol), data.getColumns(yCol), degree);
+
+        LeastSquares solver = new LeastSquares(degree + 1);
+
+        for (Result row : data) {
+            addPoint(solver, row.get(xCol), row.get(yCol), 1.0);
+        }
+
+        return solve(solver);
+
     }
 
     public static GaussianFit gaussianFit(Iterable<Double> x, Iterable<Double> y) {
@@ -220,85 +253,43 @@ public class Fitting {
         return gaussianFit(data.getColumns(xCol), data.getColumns(yCol));
     }
 
+    /**
+     * Fits the given parametric function to the data using the Levenberg-Marquardt algorithm (see LevenbergMarquardt
+     * for more control, such as analytic gradients and parameter bounds). Points where the data or initial function
+     * value are not finite are ignored.
+     *
+     * @param x       X-Data
+     * @param y       Y-Data
+     * @param toFit   Function to fit
+     * @param initial Initial parameter values
+     *
+     * @return Fit, null if it did not converge or there are not enough points
+     */
     public static Fit fit(Iterable<Double> x, Iterable<Double> y, PFunction toFit, double... initial) {
 
-        ParametricRealFunction func = new ParametricRealFunction() {
-            @Override
-            public double value(double v, double[] doubles) {
-                return toFit.calculate(v, doubles);
-            }
-
-            @Override
-            public double[] gradient(double x, double[] parameters) {
-
-                double[] gradients = new double[parameters.length];
-
-                for (int i = 0; i < parameters.length; i++) {
-
-                    final int finalI = i;
-                    Function toDeriv = p -> {
-                        double[] temp = parameters.clone();
-                        temp[finalI] = p;
-                        return toFit.calculate(x, temp);
-                    };
-
-                    gradients[i] = toDeriv.derivative().value(parameters[i]);
-
-                }
-
-                return gradients;
-
-            }
-        };
-
-        GaussNewtonOptimizer optimiser = new GaussNewtonOptimizer(false);
-        optimiser.setMaxIterations(1000);
-        optimiser.setMaxEvaluations(1000);
-
-        CurveFitter fitter = new CurveFitter(optimiser);
+        List<Double> xValues = new ArrayList<>();
+        List<Double> yValues = new ArrayList<>();
 
         Util.iterateCombined(x, y, (xp, yp) -> {
             if (Double.isFinite(xp) && Double.isFinite(yp) && Double.isFinite(toFit.calculate(xp, initial))) {
-                fitter.addObservedPoint(xp, yp);
+                xValues.add(xp);
+                yValues.add(yp);
             }
         });
 
-        try {
-            double[] params = fitter.fit(func, initial);
-
-            return new Fit() {
-                @Override
-                public double getParameter(int order) {
-                    return params[order];
-                }
-
-                @Override
-                public double[] getParameters() {
-                    return params.clone();
-                }
-
-                @Override
-                public double getError(int order) {
-                    return 0;
-                }
-
-                @Override
-                public double[] getErrors() {
-                    return new double[params.length];
-                }
-
-                @Override
-                public Function getFunction() {
-                    return x1 -> toFit.calculate(x1, params);
-                }
-            };
-
-
-        } catch (Exception e) {
-            e.printStackTrace();
+        if (xValues.size() < initial.length) {
             return null;
         }
 
+        // Nothing says an arbitrary PFunction is thread-safe, so evaluate it on this thread only
+        LMFit fit = new LevenbergMarquardt(toFit).setParallel(false).fit(
+                xValues.stream().mapToDouble(Double::doubleValue).toArray(),
+                yValues.stream().mapToDouble(Double::doubleValue).toArray(),
+                initial
+        );
+
+        return fit.isConverged() ? fit : null;
+
     }
 
     public static Fit fit(List<XYChart.Data<Double, Double>> data, PFunction toFit, double... initial) {
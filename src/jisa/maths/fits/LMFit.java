@@ -0,0 +1,80 @@
+package jisa.maths.fits;
+
+import jisa.maths.functions.Function;
+import jisa.maths.functions.PFunction;
+
+/**
+ * Result of fitting a parametric function with the Levenberg-Marquardt algorithm.
+ */
+public class LMFit implements Fit {
+
+    private final PFunction function;
+    private final double[]  parameters;
+    private final double[]  errors;
+    private final double    chiSquared;
+    private final int       iterations;
+    private final boolean   converged;
+
+    public LMFit(PFunction function, double[] parameters, double[] errors, double chiSquared, int iterations, boolean converged) {
+        this.function   = function;
+        this.parameters = parameters;
+        this.errors     = errors;
+        this.chiSquared = chiSquared;
+        this.iterations = iterations;
+        this.converged  = converged;
+    }
+
+    @Override
+    public double getParameter(int order) {
+        return parameters[order];
+    }
+
+    @Override
+    public double[] getParameters() {
+        return parameters.clone();
+    }
+
+    @Override
+    public double getError(int order) {
+        return errors[order];
+    }
+
+    @Override
+    public double[] getErrors() {
+        return errors.clone();
+    }
+
+    @Override
+    public Function getFunction() {
+        return x -> function.calculate(x, parameters);
+    }
+
+    /**
+     * Returns the (weighted) sum of squared residuals of the fit.
+     *
+     * @return Chi-squared
+     */
+    public double getChiSquared() {
+        return chiSquared;
+    }
+
+    /**
+     * Returns the number of iterations taken to reach the fit.
+     *
+     * @return Number of iterations
+     */
+    public int getIterations() {
+        return iterations;
+    }
+
+    /**
+     * Returns whether the fit converged, rather than running out of iterations or failing to find any step that
+     * improved on the parameters (eg because the function could not be evaluated there).
+     *
+     * @return Converged?
+     */
+    public boolean isConverged() {
+        return converged;
+    }
+
+}
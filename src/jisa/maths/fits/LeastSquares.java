@@ -0,0 +1,308 @@
+package jisa.maths.fits;
+
+import jisa.maths.matrices.exceptions.DimensionException;
+import jisa.maths.matrices.exceptions.SingularException;
+
+import java.util.Arrays;
+
+/**
+ * Linear least-squares solver that takes data points one at a time, keeping only the triangular factor of a QR
+ * decomposition of the design matrix. Each point is folded in with Givens rotations as it is added, so memory use only
+ * depends on the number of parameters (not the number of points) and the design matrix (eg a Vandermonde matrix) is
+ * never built. Since this works on the QR factorisation rather than the normal equations, it is as well-conditioned as
+ * a full QR decomposition.
+ *
+ * <pre>
+ * LeastSquares solver = new LeastSquares(3);
+ *
+ * for (...) {
+ *     solver.addPolynomial(x, y);
+ * }
+ *
+ * double[] coefficients = solver.getParameters();
+ * double[] errors       = solver.getErrors();
+ * </pre>
+ */
+public class LeastSquares {
+
+    private static final double RANK_TOLERANCE = 1e-12;
+
+    private final int      parameters;
+    private final double[] r;
+    private final double[] qty;
+    private final double[] row;
+    private final double[] norms;
+    private       double   rss   = 0.0;
+    private       long     count = 0;
+
+    /**
+     * Creates an empty solver for the given number of parameters.
+     *
+     * @param parameters Number of parameters to fit
+     */
+    public LeastSquares(int parameters) {
+
+        if (parameters < 1) {
+            throw new IllegalArgumentException("At least one parameter is needed.");
+        }
+
+        this.parameters = parameters;
+        this.r          = new double[parameters * parameters];
+        this.qty        = new double[parameters];
+        this.row        = new double[parameters];
+        this.norms      = new double[parameters];
+
+    }
+
+    /**
+     * Returns the number of parameters being fitted.
+     *
+     * @return Number of parameters
+     */
+    public int getNumParameters() {
+        return parameters;
+    }
+
+    /**
+     * Returns the number of points that have been added.
+     *
+     * @return Number of points
+     */
+    public synchronized long getCount() {
+        return count;
+    }
+
+    /**
+     * Adds a point, such that the model being fitted says that y = sum(parameter[i] * basis[i]).
+     *
+     * @param y     Observed value
+     * @param basis Value of each basis function at this point (one per parameter)
+     */
+    public void add(double y, double... basis) {
+        add(y, 1.0, basis);
+    }
+
+    /**
+     * Adds a weighted point, such that the model being fitted says that y = sum(parameter[i] * basis[i]). The weight
+     * multiplies the residual of this point before it is squared.
+     *
+     * @param y      Observed value
+     * @param weight Weight
+     * @param basis  Value of each basis function at this point (one per parameter)
+     */
+    public synchronized void add(double y, double weight, double... basis) {
+
+        if (basis.length != parameters) {
+            throw new DimensionException(basis.length, parameters);
+        }
+
+        for (int i = 0; i < parameters; i++) {
+            row[i] = basis[i] * weight;
+        }
+
+        rotateIn(y * weight);
+
+    }
+
+    /**
+     * Adds a point for fitting a polynomial, y = sum(parameter[i] * x^i), where the degree of the polynomial is one
+     * less than the number of parameters.
+     *
+     * @param x X value
+     * @param y Y value
+     */
+    public void addPolynomial(double x, double y) {
+        addPolynomial(x, y, 1.0);
+    }
+
+    /**
+     * Adds a weighted point for fitting a polynomial, y = sum(parameter[i] * x^i), where the degree of the polynomial
+     * is one less than the number of parameters. The weight multiplies the residual of this point before it is squared.
+     *
+     * @param x      X value
+     * @param y      Y value
+     * @param weight Weight
+     */
+    public synchronized void addPolynomial(double x, double y, double weight) {
+
+        double power = weight;
+
+        for (int i = 0; i < parameters; i++) {
+            row[i] = power;
+            power *= x;
+        }
+
+        rotateIn(y * weight);
+
+    }
+
+    /**
+     * Folds the point currently in row (with value b) into the triangular factor using Givens rotations.
+     */
+    private void rotateIn(double b) {
+
+        for (int i = 0; i < parameters; i++) {
+            norms[i] += row[i] * row[i];
+        }
+
+        for (int i = 0; i < parameters; i++) {
+
+            double a = row[i];
+
+            if (a == 0.0) {
+                continue;
+            }
+
+            int    d = i * parameters + i;
+            double h = Math.sqrt(r[d] * r[d] + a * a);
+            double c = r[d] / h;
+            double s = a / h;
+
+            r[d] = h;
+
+            for (int j = i + 1; j < parameters; j++) {
+                double t = r[d + j - i];
+                r[d + j - i] = c * t + s * row[j];
+                row[j]       = c * row[j] - s * t;
+            }
+
+            double t = qty[i];
+            qty[i] = c * t + s * b;
+            b      = c * b - s * t;
+
+        }
+
+        rss += b * b;
+        count++;
+
+    }
+
+    /**
+     * Returns the sum of squared (weighted) residuals of the best fit to the points added so far.
+     *
+     * @return Residual sum of squares
+     */
+    public synchronized double getResidualSumOfSquares() {
+        return rss;
+    }
+
+    /**
+     * Returns the best-fit parameters for the points added so far.
+     *
+     * @return Parameters
+     *
+     * @throws SingularException If the points added so far do not determine all parameters (eg too few points)
+     */
+    public synchronized double[] getParameters() {
+
+        checkRank();
+
+        double[] p = new double[parameters];
+
+        for (int i = parameters - 1; i >= 0; i--) {
+
+            double sum = qty[i];
+
+            for (int j = i + 1; j < parameters; j++) {
+                sum -= r[i * parameters + j] * p[j];
+            }
+
+            p[i] = sum / r[i * parameters + i];
+
+        }
+
+        return p;
+
+    }
+
+    /**
+     * Returns the standard errors on the best-fit parameters, estimated from the residuals. These are NaN if there are
+     * only as many points as parameters.
+     *
+     * @return Errors
+     *
+     * @throws SingularException If the points added so far do not determine all parameters (eg too few points)
+     */
+    public synchronized double[] getErrors() {
+
+        checkRank();
+
+        // Covariance is s^2 (R^T R)^-1 = s^2 R^-1 R^-T, so the variance of each parameter is s^2 times the sum of the
+        // squares of the corresponding row of R^-1
+        double[] inverse  = new double[parameters * parameters];
+        double   variance = count > parameters ? rss / (count - parameters) : Double.NaN;
+
+        for (int col = 0; col < parameters; col++) {
+
+            for (int i = col; i >= 0; i--) {
+
+                double sum = i == col ? 1.0 : 0.0;
+
+                for (int j = i + 1; j <= col; j++) {
+                    sum -= r[i * parameters + j] * inverse[j * parameters + col];
+                }
+
+                inverse[i * parameters + col] = sum / r[i * parameters + i];
+
+            }
+
+        }
+
+        double[] errors = new double[parameters];
+
+        for (int i = 0; i < parameters; i++) {
+
+            double sum = 0.0;
+
+            for (int j = i; j < parameters; j++) {
+                sum += inverse[i * parameters + j] * inverse[i * parameters + j];
+            }
+
+            errors[i] = Math.sqrt(variance * sum);
+
+        }
+
+        return errors;
+
+    }
+
+    /**
+     * Returns the best-fit polynomial, for when points have been added with addPolynomial().
+     *
+     * @return Polynomial fit
+     *
+     * @throws SingularException If the points added so far do not determine all coefficients (eg too few points)
+     */
+    public synchronized PolyFit getPolyFit() {
+        return new PolyFit(getParameters(), getErrors());
+    }
+
+    /**
+     * Removes all points added so far.
+     */
+    public synchronized void clear() {
+        Arrays.fill(r, 0.0);
+        Arrays.fill(qty, 0.0);
+        Arrays.fill(norms, 0.0);
+        rss   = 0.0;
+        count = 0;
+    }
+
+    /**
+     * Each diagonal element of R is the part of its column of the design matrix that is not a combination of the
+     * columns before it, so comparing it to the norm of that column alone tests for linear dependence regardless of how
+     * differently scaled the columns are (as with powers of x).
+     */
+    private void checkRank() {
+
+        for (int i = 0; i < parameters; i++) {
+
+            if (!(Math.abs(r[i * parameters + i]) > RANK_TOLERANCE * Math.sqrt(norms[i]))) {
+                throw new SingularException();
+            }
+
+        }
+
+    }
+
+}
@@ -0,0 +1,643 @@
+package jisa.maths.fits;
+
+import jisa.maths.functions.PFunction;
+import jisa.maths.matrices.exceptions.DimensionException;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Fits a parametric function to data using the Levenberg-Marquardt algorithm, working directly on arrays of values.
+ * Partial derivatives with respect to each parameter can be given analytically or are otherwise found by finite
+ * differences. Parameters can be constrained to lie within bounds. For large numbers of points, residuals and
+ * derivatives are evaluated in parallel over all processor cores, so the function (and gradient) will be called from
+ * several threads at once: use setParallel(false) if they are not thread-safe.
+ *
+ * <pre>
+ * LevenbergMarquardt fitter = new LevenbergMarquardt((x, p) -&gt; p[0] * Math.exp(-x / p[1]))
+ *     .setGradient((x, p, g) -&gt; {
+ *         g[0] = Math.exp(-x / p[1]);
+ *         g[1] = p[0] * x * Math.exp(-x / p[1]) / (p[1] * p[1]);
+ *     })
+ *     .setBounds(1, 0.0, Double.POSITIVE_INFINITY);
+ *
+ * LMFit fit = fitter.fit(x, y, 1.0, 10.0);
+ * </pre>
+ */
+public class LevenbergMarquardt {
+
+    private static final int    CHUNK      = 2048;
+    private static final double DIFF_STEP  = 1.49e-8;
+    private static final double MAX_LAMBDA = 1e16;
+
+    private final PFunction function;
+    private       Gradient  gradient      = null;
+    private       double[]  lower         = null;
+    private       double[]  upper         = null;
+    private       int       maxIterations = 1000;
+    private       double    tolerance     = 1e-10;
+    private       boolean   parallel      = true;
+
+    /**
+     * Creates a fitter for the given function, y = function(x, parameters).
+     *
+     * @param function Function to fit
+     */
+    public LevenbergMarquardt(PFunction function) {
+        this.function = function;
+    }
+
+    /**
+     * Sets the function to use to calculate the partial derivatives of the fitted function with respect to each
+     * parameter. If not set (or set to null), these are found by finite differences.
+     *
+     * @param gradient Partial derivatives
+     *
+     * @return Self-reference
+     */
+    public LevenbergMarquardt setGradient(Gradient gradient) {
+        this.gradient = gradient;
+        return this;
+    }
+
+    /**
+     * Sets the lower and upper bound of every parameter (use infinities for no bound).
+     *
+     * @param lower Lower bounds
+     * @param upper Upper bounds
+     *
+     * @return Self-reference
+     */
+    public LevenbergMarquardt setBounds(double[] lower, double[] upper) {
+
+        if (lower.length != upper.length) {
+            throw new DimensionException(upper.length, lower.length);
+        }
+
+        this.lower = lower.clone();
+        this.upper = upper.clone();
+        return this;
+
+    }
+
+    /**
+     * Sets the lower and upper bound of a single parameter (use infinities for no bound).
+     *
+     * @param parameter Index of parameter
+     * @param lower     Lower bound
+     * @param upper     Upper bound
+     *
+     * @return Self-reference
+     */
+    public LevenbergMarquardt setBounds(int parameter, double lower, double upper) {
+
+        if (this.lower == null || this.lower.length <= parameter) {
+            this.lower = extend(this.lower, parameter + 1, Double.NEGATIVE_INFINITY);
+            this.upper = extend(this.upper, parameter + 1, Double.POSITIVE_INFINITY);
+        }
+
+        this.lower[parameter] = lower;
+        this.upper[parameter] = upper;
+        return this;
+
+    }
+
+    private static double[] extend(double[] array, int length, double fill) {
+
+        double[] extended = new double[length];
+        Arrays.fill(extended, fill);
+
+        if (array != null) {
+            System.arraycopy(array, 0, extended, 0, array.length);
+        }
+
+        return extended;
+
+    }
+
+    /**
+     * Sets the maximum number of iterations to try before giving up.
+     *
+     * @param maxIterations Maximum number of iterations
+     *
+     * @return Self-reference
+     */
+    public LevenbergMarquardt setMaxIterations(int maxIterations) {
+        this.maxIterations = maxIterations;
+        return this;
+    }
+
+    /**
+     * Sets the relative change in chi-squared, or in every parameter, below which the fit is considered converged.
+     *
+     * @param tolerance Relative tolerance
+     *
+     * @return Self-reference
+     */
+    public LevenbergMarquardt setTolerance(double tolerance) {
+        this.tolerance = tolerance;
+        return this;
+    }
+
+    /**
+     * Sets whether residuals and derivatives for large numbers of points should be evaluated in parallel. If so, the
+     * function and gradient must be safe to call from several threads at once (ie not share any mutable state).
+     *
+     * @param parallel Parallel?
+     *
+     * @return Self-reference
+     */
+    public LevenbergMarquardt setParallel(boolean parallel) {
+        this.parallel = parallel;
+        return this;
+    }
+
+    /**
+     * Fits the function to the given data, starting from the given parameter values.
+     *
+     * @param x       X values
+     * @param y       Y values
+     * @param initial Initial parameter values
+     *
+     * @return Fit
+     */
+    public LMFit fit(double[] x, double[] y, double... initial) {
+        return fit(x, y, null, initial);
+    }
+
+    /**
+     * Fits the function to the given data, with each residual multiplied by the corresponding weight, starting from
+     * the given parameter values.
+     *
+     * @param x       X values
+     * @param y       Y values
+     * @param weights Weights (null for none)
+     * @param initial Initial parameter values
+     *
+     * @return Fit
+     */
+    public LMFit fit(double[] x, double[] y, double[] weights, double... initial) {
+
+        if (x.length != y.length) {
+            throw new DimensionException(y.length, x.length);
+        }
+
+        if (weights != null && weights.length != x.length) {
+            throw new DimensionException(weights.length, x.length);
+        }
+
+        if (lower != null && lower.length > initial.length) {
+            throw new DimensionException(initial.length, lower.length);
+        }
+
+        Problem  problem    = new Problem(x, y, weights, initial.length);
+        double[] parameters = clamp(initial.clone());
+        double[] state      = problem.evaluate(parameters, true);
+        double   chiSquared = state[0];
+        double   lambda     = 1e-3;
+        int      iteration  = 0;
+        boolean  converged  = false;
+
+        // Nothing can be compared against if the starting point can't be evaluated (eg it's outside the function's domain)
+        if (!Double.isFinite(chiSquared)) {
+            return new LMFit(function, parameters, problem.errors(state), chiSquared, iteration, false);
+        }
+
+        boolean stationary = isStationary(parameters, state);
+
+        // Running out of damping to add (lambda > MAX_LAMBDA) means no step could be found that didn't make things
+        // worse, without having reached the minimum, so is a failure to converge
+        while (!converged && iteration < maxIterations && lambda <= MAX_LAMBDA) {
+
+            iteration++;
+
+            double[] step = solve(problem, parameters, state, lambda);
+
+            if (step == null) {
+                lambda *= 10;
+                continue;
+            }
+
+            double[] trial = parameters.clone();
+
+            for (int i = 0; i < trial.length; i++) {
+                trial[i] += step[i];
+            }
+
+            clamp(trial);
+
+            double  trialChi = problem.evaluate(trial, false)[0];
+            boolean small    = true;
+
+            for (int i = 0; i < trial.length; i++) {
+                small &= Math.abs(trial[i] - parameters[i]) <= tolerance * (Math.abs(parameters[i]) + tolerance);
+            }
+
+            if (trialChi < chiSquared) {
+
+                double decrease = chiSquared - trialChi;
+
+                parameters = trial;
+                state      = problem.evaluate(parameters, true);
+                chiSquared = state[0];
+                stationary = isStationary(parameters, state);
+                converged  = stationary && (small || decrease <= tolerance * chiSquared);
+                lambda     = Math.max(lambda / 10, 1e-12);
+
+            } else {
+
+                // If even a negligible step can't make things any better, we must be at the minimum (to within
+                // machine precision), as long as that step could actually be evaluated
+                converged = stationary && small && Double.isFinite(trialChi);
+                lambda   *= 10;
+
+            }
+
+        }
+
+        return new LMFit(function, parameters, problem.errors(state), chiSquared, iteration, converged);
+
+    }
+
+    /**
+     * Returns whether each parameter is held at one of its bounds, ie is sitting on it with chi-squared still
+     * decreasing outwards (a positive component of J^T r means chi-squared decreases as the parameter increases).
+     */
+    private boolean[] active(double[] parameters, double[] state) {
+
+        boolean[] active = new boolean[parameters.length];
+
+        if (lower != null) {
+
+            for (int i = 0; i < lower.length; i++) {
+                double descent = state[1 + i];
+                active[i] = (parameters[i] <= lower[i] && descent < 0) || (parameters[i] >= upper[i] && descent > 0);
+            }
+
+        }
+
+        return active;
+
+    }
+
+    /**
+     * Checks the (projected) gradient condition for a constrained minimum: chi-squared can't be reduced by more than
+     * the tolerance (relative) by moving any parameter that isn't held at one of its bounds.
+     */
+    private boolean isStationary(double[] parameters, double[] state) {
+
+        boolean[] active = active(parameters, state);
+        int       p      = parameters.length;
+
+        for (int i = 0; i < p; i++) {
+
+            double descent   = state[1 + i];
+            double curvature = state[1 + p + i * p + i];
+
+            // descent^2 / curvature is how much chi-squared would drop by moving this parameter to its own minimum
+            if (!active[i] && descent * descent > tolerance * state[0] * curvature) {
+                return false;
+            }
+
+        }
+
+        return true;
+
+    }
+
+    /**
+     * Finds the damped step, moving only the parameters not held at a bound. Any parameter sitting on a bound that
+     * the step would take it through is also held, and the step found again for the rest.
+     */
+    private double[] solve(Problem problem, double[] parameters, double[] state, double lambda) {
+
+        boolean[] held = active(parameters, state);
+
+        while (true) {
+
+            double[] step = problem.solve(state, lambda, held);
+
+            if (step == null || lower == null) {
+                return step;
+            }
+
+            boolean changed = false;
+
+            for (int i = 0; i < lower.length; i++) {
+
+                if (!held[i] && ((parameters[i] <= lower[i] && step[i] < 0) || (parameters[i] >= upper[i] && step[i] > 0))) {
+                    held[i] = true;
+                    changed = true;
+                }
+
+            }
+
+            if (!changed) {
+                return step;
+            }
+
+        }
+
+    }
+
+    private double[] clamp(double[] parameters) {
+
+        if (lower != null) {
+
+            for (int i = 0; i < lower.length; i++) {
+                parameters[i] = Math.max(lower[i], Math.min(upper[i], parameters[i]));
+            }
+
+        }
+
+        return parameters;
+
+    }
+
+    /**
+     * Partial derivatives of a parametric function with respect to each of its parameters.
+     */
+    public interface Gradient {
+
+        /**
+         * Calculates the partial derivative of the function with respect to each parameter at the given point.
+         *
+         * @param x          X value
+         * @param parameters Parameter values
+         * @param gradient   Array to write the partial derivatives into
+         */
+        void calculate(double x, double[] parameters, double[] gradient);
+
+    }
+
+    /**
+     * The data being fitted to, which works out chi-squared and the linearised problem for a set of parameters.
+     */
+    private class Problem {
+
+        private final double[] x;
+        private final double[] y;
+        private final double[] w;
+        private final int      n;
+        private final int      p;
+
+        private Problem(double[] x, double[] y, double[] w, int p) {
+
+            double[] xs    = new double[x.length];
+            double[] ys    = new double[y.length];
+            double[] ws    = new double[x.length];
+            int      count = 0;
+
+            // Leave out any points that can't be fitted to
+            for (int i = 0; i < x.length; i++) {
+
+                double weight = w == null ? 1.0 : w[i];
+
+                if (Double.isFinite(x[i]) && Double.isFinite(y[i]) && Double.isFinite(weight)) {
+                    xs[count] = x[i];
+                    ys[count] = y[i];
+                    ws[count] = weight;
+                    count++;
+                }
+
+            }
+
+            this.x = xs;
+            this.y = ys;
+            this.w = ws;
+            this.n = count;
+            this.p = p;
+
+        }
+
+        /**
+         * Returns chi-squared, followed (if wanted) by J^T r and J^T J (row by row) for the given parameters.
+         */
+        private double[] evaluate(double[] parameters, boolean linearise) {
+
+            int chunks = parallel ? Math.max(1, n / CHUNK) : 1;
+
+            if (chunks == 1) {
+                return evaluate(parameters, linearise, 0, n);
+            }
+
+            return IntStream.range(0, chunks)
+                            .parallel()
+                            .mapToObj(c -> evaluate(parameters, linearise, (int) ((long) n * c / chunks), (int) ((long) n * (c + 1) / chunks)))
+                            .reduce((a, b) -> {
+                                for (int i = 0; i < a.length; i++) {
+                                    a[i] += b[i];
+                                }
+                                return a;
+                            })
+                            .orElseThrow();
+
+        }
+
+        private double[] evaluate(double[] parameters, boolean linearise, int from, int to) {
+
+            double[] result   = new double[linearise ? 1 + p + p * p : 1];
+            double[] partials = new double[p];
+            double[] shifted  = parameters.clone();
+
+            for (int i = from; i < to; i++) {
+
+                double value    = function.calculate(x[i], parameters);
+                double residual = w[i] * (y[i] - value);
+
+                result[0] += residual * residual;
+
+                if (!linearise) {
+                    continue;
+                }
+
+                if (gradient == null) {
+
+                    for (int j = 0; j < p; j++) {
+                        double h = DIFF_STEP * (parameters[j] == 0 ? 1.0 : Math.abs(parameters[j]));
+                        shifted[j]  = parameters[j] + h;
+                        partials[j] = (function.calculate(x[i], shifted) - value) / h;
+                        shifted[j]  = parameters[j];
+                    }
+
+                } else {
+                    gradient.calculate(x[i], parameters, partials);
+                }
+
+                for (int j = 0; j < p; j++) {
+
+                    double gj = w[i] * partials[j];
+
+                    result[1 + j] += gj * residual;
+
+                    for (int k = 0; k <= j; k++) {
+                        result[1 + p + j * p + k] += gj * w[i] * partials[k];
+                    }
+
+                }
+
+            }
+
+            // Only the lower triangle was accumulated, so mirror it
+            if (linearise) {
+
+                for (int j = 0; j < p; j++) {
+                    for (int k = j + 1; k < p; k++) {
+                        result[1 + p + j * p + k] = result[1 + p + k * p + j];
+                    }
+                }
+
+            }
+
+            return result;
+
+        }
+
+        /**
+         * Solves (J^T J + lambda diag(J^T J)) step = J^T r by Cholesky decomposition for the parameters not held
+         * (leaving the step zero for those that are), returning null if this fails.
+         */
+        private double[] solve(double[] state, double lambda, boolean[] held) {
+
+            int[] free = IntStream.range(0, p).filter(j -> !held[j]).toArray();
+            int   m    = free.length;
+
+            double[] step = new double[p];
+
+            if (m == 0) {
+                return step;
+            }
+
+            double[] a       = new double[m * m];
+            double[] b       = new double[m];
+            double   maxDiag = 0.0;
+
+            for (int j = 0; j < m; j++) {
+
+                b[j] = state[1 + free[j]];
+
+                for (int k = 0; k < m; k++) {
+                    a[j * m + k] = state[1 + p + free[j] * p + free[k]];
+                }
+
+                maxDiag = Math.max(maxDiag, a[j * m + j]);
+
+            }
+
+            // Damp each parameter in proportion to its own curvature, with a floor for those that (so far) have none
+            for (int j = 0; j < m; j++) {
+                a[j * m + j] += lambda * Math.max(a[j * m + j], 1e-12 * maxDiag);
+            }
+
+            double[] factor = cholesky(a, m);
+
+            if (factor == null) {
+                return null;
+            }
+
+            double[] solved = choleskySolve(factor, b, m);
+
+            for (int j = 0; j < m; j++) {
+                step[free[j]] = solved[j];
+            }
+
+            return step;
+
+        }
+
+        /**
+         * Returns the standard error on each parameter, from the diagonal of s^2 (J^T J)^-1.
+         */
+        private double[] errors(double[] state) {
+
+            double[] errors = new double[p];
+            double[] factor = cholesky(Arrays.copyOfRange(state, 1 + p, 1 + p + p * p), p);
+
+            if (factor == null || n <= p) {
+                Arrays.fill(errors, Double.NaN);
+                return errors;
+            }
+
+            double variance = state[0] / (n - p);
+
+            for (int j = 0; j < p; j++) {
+                double[] unit = new double[p];
+                unit[j] = 1.0;
+                errors[j] = Math.sqrt(variance * choleskySolve(factor, unit, p)[j]);
+            }
+
+            return errors;
+
+        }
+
+        private double[] cholesky(double[] a, int p) {
+
+            double[] l = new double[p * p];
+
+            for (int j = 0; j < p; j++) {
+
+                double sum = a[j * p + j];
+
+                for (int k = 0; k < j; k++) {
+                    sum -= l[j * p + k] * l[j * p + k];
+                }
+
+                if (!(sum > 0)) {
+                    return null;
+                }
+
+                l[j * p + j] = Math.sqrt(sum);
+
+                for (int i = j + 1; i < p; i++) {
+
+                    double value = a[i * p + j];
+
+                    for (int k = 0; k < j; k++) {
+                        value -= l[i * p + k] * l[j * p + k];
+                    }
+
+                    l[i * p + j] = value / l[j * p + j];
+
+                }
+
+            }
+
+            return l;
+
+        }
+
+        private double[] choleskySolve(double[] l, double[] b, int p) {
+
+            double[] z = new double[p];
+
+            for (int i = 0; i < p; i++) {
+
+                double sum = b[i];
+
+                for (int k = 0; k < i; k++) {
+                    sum -= l[i * p + k] * z[k];
+                }
+
+                z[i] = sum / l[i * p + i];
+
+            }
+
+            for (int i = p - 1; i >= 0; i--) {
+
+                double sum = z[i];
+
+                for (int k = i + 1; k < p; k++) {
+                    sum -= l[k * p + i] * z[k];
+                }
+
+                z[i] = sum / l[i * p + i];
+
+            }
+
+            return z;
+
+        }
+
+    }
+
+}
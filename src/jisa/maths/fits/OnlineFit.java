@@ -0,0 +1,225 @@
+package jisa.maths.fits;
+
+import jisa.experiment.Result;
+import jisa.experiment.ResultTable;
+import jisa.experiment.ResultTable.Evaluable;
+import jisa.gui.Clearable;
+import jisa.maths.matrices.exceptions.SingularException;
+
+/**
+ * Polynomial fit to a ResultTable that is kept up to date as rows are added to it, rather than being done again from
+ * scratch each time. Each new row is folded into a LeastSquares solver at a cost depending only on the degree of the
+ * polynomial, so the current fit (and its errors) can be asked for at any point during a measurement, for instance to
+ * draw a fit on a live plot or to stop a sweep once a gradient is known well enough.
+ *
+ * <pre>
+ * OnlineFit fit = new OnlineFit(results, 0, 1, 1);
+ *
+ * ...
+ *
+ * LinearFit current = fit.getLinearFit();
+ *
+ * if (current != null &amp;&amp; current.getGradientError() &lt; 1e-3) {
+ *     ...
+ * }
+ * </pre>
+ *
+ * <p>Removing individual rows from the table is not picked up automatically, call refit() if this happens.</p>
+ */
+public class OnlineFit implements Clearable {
+
+    private final    ResultTable          table;
+    private final    Evaluable            xValue;
+    private final    Evaluable            yValue;
+    private final    Evaluable            weight;
+    private final    int                  degree;
+    private final    LeastSquares         solver;
+    private final    ResultTable.OnUpdate updater;
+    private volatile PolyFit              fit     = null;
+    private          long                 fitSize = -1;
+    private          boolean              running = true;
+
+    /**
+     * Starts fitting a weighted polynomial of the given degree to the given table, including all rows already in it.
+     *
+     * @param table  Table to fit to
+     * @param xValue X values
+     * @param yValue Y values
+     * @param weight Weight to multiply each residual by (null for none)
+     * @param degree Degree of polynomial
+     */
+    public OnlineFit(ResultTable table, Evaluable xValue, Evaluable yValue, Evaluable weight, int degree) {
+
+        this.table  = table;
+        this.xValue = xValue;
+        this.yValue = yValue;
+        this.weight = weight;
+        this.degree = degree;
+        this.solver = new LeastSquares(degree + 1);
+
+        // Rows are added (and listeners run) while holding the table's lock, so no row can slip between the two
+        synchronized (table) {
+
+            updater = table.addOnUpdate(this::add);
+            table.addClearable(this);
+
+            for (Result row : table) {
+                add(row);
+            }
+
+        }
+
+    }
+
+    /**
+     * Starts fitting a polynomial of the given degree to the given table, including all rows already in it.
+     *
+     * @param table  Table to fit to
+     * @param xValue X values
+     * @param yValue Y values
+     * @param degree Degree of polynomial
+     */
+    public OnlineFit(ResultTable table, Evaluable xValue, Evaluable yValue, int degree) {
+        this(table, xValue, yValue, null, degree);
+    }
+
+    /**
+     * Starts fitting a polynomial of the given degree to two columns of the given table, including all rows already in
+     * it.
+     *
+     * @param table  Table to fit to
+     * @param xCol   X column
+     * @param yCol   Y column
+     * @param degree Degree of polynomial
+     */
+    public OnlineFit(ResultTable table, int xCol, int yCol, int degree) {
+        this(table, r -> r.get(xCol), r -> r.get(yCol), degree);
+    }
+
+    private void add(Result row) {
+
+        double x = xValue.evaluate(row);
+        double y = yValue.evaluate(row);
+        double w = weight == null ? 1.0 : weight.evaluate(row);
+
+        if (Double.isFinite(x) && Double.isFinite(y) && Double.isFinite(w)) {
+            solver.addPolynomial(x, y, w);
+        }
+
+    }
+
+    /**
+     * Returns the degree of polynomial being fitted.
+     *
+     * @return Degree
+     */
+    public int getDegree() {
+        return degree;
+    }
+
+    /**
+     * Returns the number of points included in the fit so far.
+     *
+     * @return Number of points
+     */
+    public long getCount() {
+        return solver.getCount();
+    }
+
+    /**
+     * Returns the fit to all rows added so far.
+     *
+     * @return Current fit, null if there are not yet enough points to fit to
+     */
+    public synchronized PolyFit getFit() {
+
+        long count = solver.getCount();
+
+        // Only solve again if rows have been added since last time
+        if (count != fitSize) {
+
+            fitSize = count;
+
+            try {
+                fit = count < solver.getNumParameters() ? null : solver.getPolyFit();
+            } catch (SingularException e) {
+                fit = null;
+            }
+
+        }
+
+        return fit;
+
+    }
+
+    /**
+     * Returns the fit to all rows added so far as a linear fit (ie its first two co-efficients as intercept and
+     * gradient). Only really makes sense if fitting a first-degree polynomial.
+     *
+     * @return Current fit, null if there are not yet enough points to fit to
+     */
+    public LinearFit getLinearFit() {
+        PolyFit fit = getFit();
+        return fit == null ? null : new LinearFit(fit);
+    }
+
+    /**
+     * Discards the fit so far and fits again to all rows currently in the table.
+     */
+    public void refit() {
+
+        synchronized (table) {
+
+            clear();
+
+            for (Result row : table) {
+                add(row);
+            }
+
+        }
+
+    }
+
+    /**
+     * Discards all points fitted to so far, so that only rows added after this are included.
+     */
+    @Override
+    public synchronized void clear() {
+        solver.clear();
+        fitSize = -1;
+        fit     = null;
+    }
+
+    /**
+     * Stops following the table, leaving the fit as it currently is.
+     */
+    public void stop() {
+
+        // Listeners are run while holding the table's lock, so the list of them must only be changed while holding it
+        // too (and taking it before our own lock, as the table does when adding rows, to avoid deadlock)
+        synchronized (table) {
+
+            synchronized (this) {
+
+                if (running) {
+                    table.removeOnUpdate(updater);
+                    table.removeClearable(this);
+                    running = false;
+                }
+
+            }
+
+        }
+
+    }
+
+    /**
+     * Returns whether this fit is still following its table.
+     *
+     * @return Following?
+     */
+    public synchronized boolean isRunning() {
+        return running;
+    }
+
+}
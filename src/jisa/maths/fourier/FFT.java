@@ -0,0 +1,327 @@
+package jisa.maths.fourier;
+
+import jisa.maths.matrices.DenseComplexMatrix;
+import jisa.maths.matrices.exceptions.DimensionException;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Fast Fourier transform of a fixed length. Power-of-two lengths use an iterative radix-2 transform, and any other
+ * length is handled by Bluestein's algorithm (re-writing the transform as a convolution, which is then done with a
+ * larger power-of-two transform), so every length takes O(n log n) time.
+ *
+ * <p>The tables needed for a given length are worked out once, when the FFT object is made, and never changed
+ * afterwards, so a single FFT object can be used from many threads at once. forLength(...) keeps one for every
+ * power-of-two length, and one for each of the most recently used other lengths.</p>
+ *
+ * <pre>
+ * FFT      fft  = FFT.forLength(samples.length);
+ * double[] real = samples.clone();
+ * double[] imag = new double[samples.length];
+ *
+ * fft.transform(real, imag);
+ * </pre>
+ */
+public class FFT {
+
+    private static final int               RECENT = 16;
+    private static final Map<Integer, FFT> POWERS = new ConcurrentHashMap<>();
+    private static final Map<Integer, FFT> OTHERS = new LinkedHashMap<>(RECENT, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, FFT> eldest) {
+            return size() > RECENT;
+        }
+    };
+
+    private final int length;
+
+    // Radix-2 tables: bit-reversed index order, and cos/sin of 2 pi k / length for k < length / 2
+    private final int[]    reversed;
+    private final double[] cos;
+    private final double[] sin;
+
+    // Bluestein tables: the chirp exp(-i pi k^2 / length) and the transform of its conjugate, padded to inner's length
+    private final FFT      inner;
+    private final double[] chirpReal;
+    private final double[] chirpImag;
+    private final double[] kernelReal;
+    private final double[] kernelImag;
+
+    /**
+     * Returns an FFT of the given length, re-using a previously created one if possible.
+     *
+     * @param length Number of points to transform
+     *
+     * @return FFT of that length
+     */
+    public static FFT forLength(int length) {
+
+        // There are only 31 power-of-two lengths, so these can all be kept
+        if (Integer.bitCount(length) == 1) {
+
+            FFT fft = POWERS.get(length);
+
+            if (fft == null) {
+                FFT created = new FFT(length);
+                fft = POWERS.putIfAbsent(length, created);
+                fft = fft == null ? created : fft;
+            }
+
+            return fft;
+
+        }
+
+        FFT fft;
+
+        synchronized (OTHERS) {
+            fft = OTHERS.get(length);
+        }
+
+        // Made outside the lock, since making a Bluestein FFT takes a while (and needs a power-of-two one too)
+        if (fft == null) {
+
+            FFT created = new FFT(length);
+
+            synchronized (OTHERS) {
+                fft = OTHERS.putIfAbsent(length, created);
+            }
+
+            fft = fft == null ? created : fft;
+
+        }
+
+        return fft;
+
+    }
+
+    /**
+     * Creates an FFT for transforming the given number of points.
+     *
+     * @param length Number of points to transform
+     */
+    public FFT(int length) {
+
+        if (length < 1) {
+            throw new IllegalArgumentException("FFT length must be at least 1.");
+        }
+
+        this.length = length;
+
+        if (Integer.bitCount(length) == 1) {
+
+            int bits = Integer.numberOfTrailingZeros(length);
+
+            reversed = new int[length];
+            cos      = new double[length / 2];
+            sin      = new double[length / 2];
+
+            for (int i = 0; i < length; i++) {
+                reversed[i] = bits == 0 ? 0 : Integer.reverse(i) >>> (32 - bits);
+            }
+
+            for (int k = 0; k < length / 2; k++) {
+                double angle = 2 * Math.PI * k / length;
+                cos[k] = Math.cos(angle);
+                sin[k] = Math.sin(angle);
+            }
+
+            inner      = null;
+            chirpReal  = null;
+            chirpImag  = null;
+            kernelReal = null;
+            kernelImag = null;
+
+        } else {
+
+            int padded = Integer.highestOneBit(2 * length - 1) << 1;
+
+            reversed   = null;
+            cos        = null;
+            sin        = null;
+            inner      = forLength(padded);
+            chirpReal  = new double[length];
+            chirpImag  = new double[length];
+            kernelReal = new double[padded];
+            kernelImag = new double[padded];
+
+            for (int k = 0; k < length; k++) {
+
+                // k^2 mod 2n keeps the angle small, so it loses no precision for large k
+                double angle = Math.PI * ((long) k * k % (2L * length)) / length;
+
+                chirpReal[k] = Math.cos(angle);
+                chirpImag[k] = -Math.sin(angle);
+
+            }
+
+            kernelReal[0] = chirpReal[0];
+            kernelImag[0] = -chirpImag[0];
+
+            for (int k = 1; k < length; k++) {
+                kernelReal[k]          = chirpReal[k];
+                kernelImag[k]          = -chirpImag[k];
+                kernelReal[padded - k] = chirpReal[k];
+                kernelImag[padded - k] = -chirpImag[k];
+            }
+
+            inner.transform(kernelReal, kernelImag);
+
+        }
+
+    }
+
+    /**
+     * Returns the number of points this FFT transforms.
+     *
+     * @return Length
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * Replaces the given complex values with their discrete Fourier transform, X[k] = sum x[j] exp(-2 pi i j k / n),
+     * without any normalisation.
+     *
+     * @param real Real parts (overwritten with real parts of the result)
+     * @param imag Imaginary parts (overwritten with imaginary parts of the result)
+     */
+    public void transform(double[] real, double[] imag) {
+
+        if (real.length != length || imag.length != length) {
+            throw new DimensionException(real.length != length ? real.length : imag.length, length);
+        }
+
+        if (inner == null) {
+            radix2(real, imag);
+        } else {
+            bluestein(real, imag);
+        }
+
+    }
+
+    /**
+     * Replaces the given complex values with their inverse discrete Fourier transform,
+     * x[j] = (1 / n) sum X[k] exp(2 pi i j k / n), so that inverse(transform(x)) = x.
+     *
+     * @param real Real parts (overwritten with real parts of the result)
+     * @param imag Imaginary parts (overwritten with imaginary parts of the result)
+     */
+    public void inverse(double[] real, double[] imag) {
+
+        // The inverse is the conjugate of the forward transform of the conjugate
+        for (int i = 0; i < imag.length; i++) {
+            imag[i] = -imag[i];
+        }
+
+        transform(real, imag);
+
+        double scale = 1.0 / length;
+
+        for (int i = 0; i < length; i++) {
+            real[i] *= scale;
+            imag[i] *= -scale;
+        }
+
+    }
+
+    /**
+     * Returns the discrete Fourier transform of the given real values, as a column of complex values.
+     *
+     * @param samples Values to transform
+     *
+     * @return Transform, as a column matrix
+     */
+    public static DenseComplexMatrix transform(double[] samples) {
+
+        double[] real = samples.clone();
+        double[] imag = new double[samples.length];
+
+        forLength(samples.length).transform(real, imag);
+
+        return new DenseComplexMatrix(real, imag, samples.length, 1);
+
+    }
+
+    private void radix2(double[] real, double[] imag) {
+
+        for (int i = 0; i < length; i++) {
+
+            int j = reversed[i];
+
+            if (j > i) {
+
+                double temp = real[i];
+                real[i] = real[j];
+                real[j] = temp;
+
+                temp    = imag[i];
+                imag[i] = imag[j];
+                imag[j] = temp;
+
+            }
+
+        }
+
+        for (int size = 2; size <= length; size <<= 1) {
+
+            int half   = size >> 1;
+            int stride = length / size;
+
+            for (int start = 0; start < length; start += size) {
+
+                for (int k = 0; k < half; k++) {
+
+                    int    a  = start + k;
+                    int    b  = a + half;
+                    double wr = cos[k * stride];
+                    double wi = -sin[k * stride];
+                    double tr = wr * real[b] - wi * imag[b];
+                    double ti = wr * imag[b] + wi * real[b];
+
+                    real[b] = real[a] - tr;
+                    imag[b] = imag[a] - ti;
+                    real[a] += tr;
+                    imag[a] += ti;
+
+                }
+
+            }
+
+        }
+
+    }
+
+    private void bluestein(double[] real, double[] imag) {
+
+        int      padded = kernelReal.length;
+        double[] aReal  = new double[padded];
+        double[] aImag  = new double[padded];
+
+        for (int k = 0; k < length; k++) {
+            aReal[k] = real[k] * chirpReal[k] - imag[k] * chirpImag[k];
+            aImag[k] = real[k] * chirpImag[k] + imag[k] * chirpReal[k];
+        }
+
+        // Convolve with the conjugate chirp by multiplying transforms
+        inner.transform(aReal, aImag);
+
+        for (int k = 0; k < padded; k++) {
+            double re = aReal[k] * kernelReal[k] - aImag[k] * kernelImag[k];
+            double im = aReal[k] * kernelImag[k] + aImag[k] * kernelReal[k];
+            aReal[k] = re;
+            aImag[k] = im;
+        }
+
+        inner.inverse(aReal, aImag);
+
+        for (int k = 0; k < length; k++) {
+            real[k] = aReal[k] * chirpReal[k] - aImag[k] * chirpImag[k];
+            imag[k] = aReal[k] * chirpImag[k] + aImag[k] * chirpReal[k];
+        }
+
+    }
+
+}
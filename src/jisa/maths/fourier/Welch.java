@@ -0,0 +1,358 @@
+package jisa.maths.fourier;
+
+import jisa.experiment.Result;
+import jisa.experiment.ResultTable;
+import jisa.experiment.ResultTable.Evaluable;
+import jisa.experiment.Spectrum;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Estimates the power spectrum of evenly-sampled real data by Welch's method: the data are split into overlapping
+ * segments, each segment is windowed and Fourier transformed, and the resulting periodograms are averaged. Compared to
+ * transforming the whole trace at once, this trades frequency resolution for a much less noisy estimate, which is
+ * usually what is wanted when looking at noise.
+ *
+ * <pre>
+ * Spectrum psd = new Welch().setSegmentLength(1024).setWindow(Window.HANN).calculate(samples, 1e3);
+ * </pre>
+ *
+ * <p>Spectra are one-sided (frequencies from zero up to half the sample rate). By default, values are a power spectral
+ * density in units^2 / Hz, so that integrating over frequency gives the mean-square value of the (de-trended) data.
+ * Many traces can be done at once, in parallel, on a ForkJoinPool.</p>
+ */
+public class Welch {
+
+    private int          segmentLength = 256;
+    private double       overlap       = 0.5;
+    private Window       window        = Window.HANN;
+    private Scaling      scaling       = Scaling.DENSITY;
+    private boolean      detrend       = true;
+    private ForkJoinPool pool          = ForkJoinPool.commonPool();
+
+    /**
+     * Sets the number of points in each segment. Traces shorter than this are treated as a single segment. Powers of two
+     * are fastest, but any length can be used.
+     *
+     * @param segmentLength Points per segment (0 to always use the whole trace as one segment)
+     *
+     * @return Self-reference
+     */
+    public Welch setSegmentLength(int segmentLength) {
+
+        if (segmentLength < 0) {
+            throw new IllegalArgumentException("Segment length cannot be negative.");
+        }
+
+        this.segmentLength = segmentLength;
+        return this;
+
+    }
+
+    /**
+     * Sets the fraction by which consecutive segments overlap (0.5 is usual for Hann windows).
+     *
+     * @param overlap Overlap fraction, from 0 (inclusive) to 1 (exclusive)
+     *
+     * @return Self-reference
+     */
+    public Welch setOverlap(double overlap) {
+
+        if (!(overlap >= 0 && overlap < 1)) {
+            throw new IllegalArgumentException("Overlap must be at least 0 and less than 1.");
+        }
+
+        this.overlap = overlap;
+        return this;
+
+    }
+
+    /**
+     * Sets the window to apply to each segment.
+     *
+     * @param window Window function
+     *
+     * @return Self-reference
+     */
+    public Welch setWindow(Window window) {
+        this.window = window;
+        return this;
+    }
+
+    /**
+     * Sets whether values are returned as a power spectral density (units^2 / Hz, for broad-band noise) or as a power
+     * spectrum (units^2, for the heights of narrow peaks).
+     *
+     * @param scaling Scaling to use
+     *
+     * @return Self-reference
+     */
+    public Welch setScaling(Scaling scaling) {
+        this.scaling = scaling;
+        return this;
+    }
+
+    /**
+     * Sets whether the mean of each segment should be subtracted from it before it is transformed.
+     *
+     * @param detrend Remove mean?
+     *
+     * @return Self-reference
+     */
+    public Welch setDetrend(boolean detrend) {
+        this.detrend = detrend;
+        return this;
+    }
+
+    /**
+     * Sets the pool to use when calculating many spectra at once.
+     *
+     * @param pool Pool to use
+     *
+     * @return Self-reference
+     */
+    public Welch setPool(ForkJoinPool pool) {
+        this.pool = pool;
+        return this;
+    }
+
+    /**
+     * Calculates the spectrum of the given evenly-sampled values.
+     *
+     * @param samples    Sampled values
+     * @param sampleRate Sample rate, in Hz
+     *
+     * @return Spectrum
+     */
+    public Spectrum calculate(double[] samples, double sampleRate) {
+
+        if (!(sampleRate > 0) || Double.isInfinite(sampleRate)) {
+            throw new IllegalArgumentException("Sample rate must be positive and finite.");
+        }
+
+        int n = samples.length;
+
+        if (n == 0) {
+            return new Spectrum(new ArrayList<>());
+        }
+
+        int      length   = segmentLength > 0 ? Math.min(segmentLength, n) : n;
+        int      step     = Math.max(1, length - (int) Math.round(overlap * length));
+        int      segments = 1 + (n - length) / step;
+        double[] weights  = window.getCoefficients(length);
+        FFT      fft      = FFT.forLength(length);
+        double[] power    = new double[length / 2 + 1];
+        double[] real     = new double[length];
+        double[] imag     = new double[length];
+
+        // Two real segments at a time go through one complex transform (one as the real part, one as the imaginary
+        // part), and are separated again using the symmetry of the transform of real data
+        for (int s = 0; s < segments; s += 2) {
+
+            boolean pair = s + 1 < segments;
+
+            load(samples, s * step, weights, real);
+
+            if (pair) {
+                load(samples, (s + 1) * step, weights, imag);
+            } else {
+                Arrays.fill(imag, 0.0);
+            }
+
+            fft.transform(real, imag);
+
+            for (int k = 0; k < power.length; k++) {
+
+                int j = (length - k) % length;
+
+                if (pair) {
+                    power[k] += (real[k] * real[k] + imag[k] * imag[k] + real[j] * real[j] + imag[j] * imag[j]) / 2;
+                } else {
+                    power[k] += real[k] * real[k] + imag[k] * imag[k];
+                }
+
+            }
+
+        }
+
+        double sum   = 0.0;
+        double sumSq = 0.0;
+
+        for (double weight : weights) {
+            sum   += weight;
+            sumSq += weight * weight;
+        }
+
+        double                   scale  = 1.0 / (segments * (scaling == Scaling.DENSITY ? sampleRate * sumSq : sum * sum));
+        List<Spectrum.DataPoint> points = new ArrayList<>(power.length);
+
+        for (int k = 0; k < power.length; k++) {
+
+            // Fold negative frequencies onto positive ones, except for zero and (for even lengths) the Nyquist frequency
+            boolean doubled = k > 0 && !(length % 2 == 0 && k == length / 2);
+
+            points.add(new Spectrum.DataPoint(k * sampleRate / length, (doubled ? 2 : 1) * power[k] * scale));
+
+        }
+
+        return new Spectrum(points);
+
+    }
+
+    private void load(double[] samples, int start, double[] weights, double[] target) {
+
+        double mean = 0.0;
+
+        if (detrend) {
+
+            for (int i = 0; i < weights.length; i++) {
+                mean += samples[start + i];
+            }
+
+            mean /= weights.length;
+
+        }
+
+        for (int i = 0; i < weights.length; i++) {
+            target[i] = (samples[start + i] - mean) * weights[i];
+        }
+
+    }
+
+    /**
+     * Calculates the spectrum of values in a table, assuming the rows are evenly spaced in time. The sample rate is
+     * taken from the first and last times.
+     *
+     * @param table Table of data
+     * @param time  Time values, in seconds
+     * @param value Values to find spectrum of
+     *
+     * @return Spectrum
+     *
+     * @throws IllegalArgumentException If the first and last times are the same (or not finite)
+     */
+    public Spectrum calculate(ResultTable table, Evaluable time, Evaluable value) {
+
+        double[] times   = new double[table.getNumRows()];
+        double[] samples = new double[times.length];
+        int      count   = 0;
+
+        for (Result row : table) {
+
+            // Rows may have been added since the arrays were made
+            if (count == times.length) {
+                times   = Arrays.copyOf(times, 2 * count + 1);
+                samples = Arrays.copyOf(samples, 2 * count + 1);
+            }
+
+            times[count]   = time.evaluate(row);
+            samples[count] = value.evaluate(row);
+            count++;
+
+        }
+
+        double span = count > 1 ? Math.abs(times[count - 1] - times[0]) : 1.0;
+
+        if (!(span > 0) || Double.isInfinite(span)) {
+            throw new IllegalArgumentException("Cannot find sample rate: first and last times must differ and be finite.");
+        }
+
+        double sampleRate = count > 1 ? (count - 1) / span : 1.0;
+
+        return calculate(Arrays.copyOf(samples, count), sampleRate);
+
+    }
+
+    /**
+     * Calculates the spectrum of values in a table, assuming the rows are evenly spaced in time. The sample rate is
+     * taken from the first and last times.
+     *
+     * @param table Table of data
+     * @param time  Column of time values, in seconds
+     * @param value Column of values to find spectrum of
+     *
+     * @return Spectrum
+     *
+     * @throws IllegalArgumentException If the first and last times are the same (or not finite)
+     */
+    public Spectrum calculate(ResultTable table, int time, int value) {
+        return calculate(table, r -> r.get(time), r -> r.get(value));
+    }
+
+    /**
+     * Calculates the spectra of many traces, in parallel.
+     *
+     * @param traces     Traces of evenly-sampled values
+     * @param sampleRate Sample rate (of all traces), in Hz
+     *
+     * @return Spectra, in the same order as the traces
+     */
+    public List<Spectrum> calculate(List<double[]> traces, double sampleRate) {
+
+        List<ForkJoinTask<Spectrum>> tasks = new ArrayList<>(traces.size());
+
+        for (double[] trace : traces) {
+            tasks.add(pool.submit(() -> calculate(trace, sampleRate)));
+        }
+
+        List<Spectrum> spectra = new ArrayList<>(tasks.size());
+
+        for (ForkJoinTask<Spectrum> task : tasks) {
+            spectra.add(task.join());
+        }
+
+        return spectra;
+
+    }
+
+    /**
+     * Calculates the spectra of many tables (for instance, those returned by ResultTable.split(...)), in parallel.
+     *
+     * @param tables Tables, by key
+     * @param time   Time values, in seconds
+     * @param value  Values to find spectra of
+     *
+     * @return Spectra, by key, in the iteration order of the given map
+     */
+    public Map<Double, Spectrum> calculate(Map<Double, ResultTable> tables, Evaluable time, Evaluable value) {
+
+        Map<Double, ForkJoinTask<Spectrum>> tasks = new LinkedHashMap<>();
+
+        for (Map.Entry<Double, ResultTable> entry : tables.entrySet()) {
+            tasks.put(entry.getKey(), pool.submit(() -> calculate(entry.getValue(), time, value)));
+        }
+
+        Map<Double, Spectrum> spectra = new LinkedHashMap<>();
+
+        for (Map.Entry<Double, ForkJoinTask<Spectrum>> entry : tasks.entrySet()) {
+            spectra.put(entry.getKey(), entry.getValue().join());
+        }
+
+        return spectra;
+
+    }
+
+    /**
+     * Ways of scaling the calculated spectrum.
+     */
+    public enum Scaling {
+
+        /**
+         * Power spectral density (units^2 / Hz), for broad-band signals such as noise.
+         */
+        DENSITY,
+
+        /**
+         * Power spectrum (units^2), where the height of a peak from a pure sine wave is its mean-square value.
+         */
+        SPECTRUM
+
+    }
+
+}
@@ -0,0 +1,81 @@
+package jisa.maths.fourier;
+
+/**
+ * Window functions for tapering a segment of data before taking its Fourier transform, which reduces the leakage of
+ * power from strong peaks into neighbouring frequencies at the cost of some frequency resolution.
+ */
+public enum Window {
+
+    /**
+     * No tapering. Best frequency resolution, but worst leakage.
+     */
+    RECTANGULAR,
+
+    /**
+     * Raised cosine, reaching zero at both ends. A good general-purpose choice.
+     */
+    HANN,
+
+    /**
+     * Raised cosine that does not quite reach zero, giving a lower nearest side-lobe than Hann.
+     */
+    HAMMING,
+
+    /**
+     * Three-term cosine window with lower leakage than Hann, but wider peaks.
+     */
+    BLACKMAN,
+
+    /**
+     * Five-term cosine window with very flat peaks, so that the heights of peaks are accurate even between bins.
+     */
+    FLAT_TOP;
+
+    /**
+     * Returns the coefficients of this window for a segment of the given length. These are "periodic" windows (ie one
+     * period of a cosine series sampled at n points, not including the end point), as is usual for spectral analysis.
+     *
+     * @param length Segment length
+     *
+     * @return Window coefficients
+     */
+    public double[] getCoefficients(int length) {
+
+        double[] coefficients = new double[length];
+
+        for (int i = 0; i < length; i++) {
+
+            double phase = 2 * Math.PI * i / length;
+
+            switch (this) {
+
+                case HANN:
+                    coefficients[i] = 0.5 - 0.5 * Math.cos(phase);
+                    break;
+
+                case HAMMING:
+                    coefficients[i] = 0.54 - 0.46 * Math.cos(phase);
+                    break;
+
+                case BLACKMAN:
+                    coefficients[i] = 0.42 - 0.5 * Math.cos(phase) + 0.08 * Math.cos(2 * phase);
+                    break;
+
+                case FLAT_TOP:
+                    coefficients[i] = 0.21557895 - 0.41663158 * Math.cos(phase) + 0.277263158 * Math.cos(2 * phase)
+                        - 0.083578947 * Math.cos(3 * phase) + 0.006947368 * Math.cos(4 * phase);
+                    break;
+
+                default:
+                    coefficients[i] = 1.0;
+                    break;
+
+            }
+
+        }
+
+        return coefficients;
+
+    }
+
+}
@@ -0,0 +1,979 @@
+package jisa.maths.interpolation;
+
+import jisa.maths.matrices.exceptions.DimensionException;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Delaunay triangulation of a set of points in 2D, built by Bowyer-Watson insertion. Points are inserted in an order
+ * that mostly keeps consecutive points close together, and each is located by walking across the triangulation from
+ * the last one, so building takes roughly O(n log n) time rather than O(n^2). Triangles and their neighbours are kept
+ * in flat int arrays, and a coarse grid of starting triangles means later look-ups only need a short walk.
+ *
+ * <p>Once built, the triangulation can be used to find which triangle a position falls in (and its barycentric
+ * co-ordinates within it) or the natural-neighbour (Sibson) weights of the surrounding points.</p>
+ */
+public class Delaunay {
+
+    private static final double SUPER_SIZE = 1e3;
+
+    private final int      size;
+    private final double[] x;
+    private final double[] y;
+
+    // For each triangle t: vertices[3t..3t+2] (anti-clockwise), neighbours[3t+k] opposite vertices[3t+k]
+    private int[]     vertices;
+    private int[]     neighbours;
+    private double[]  centreX;
+    private double[]  centreY;
+    private double[]  radiusSq;
+    private boolean[] alive;
+    private int       triangles = 0;
+
+    // Coarse grid over the data, holding a triangle in each cell to start walking from when locating a position
+    private final double minX;
+    private final double minY;
+    private final double span;
+    private final int    cells;
+    private final int[]  starts;
+
+    private volatile int last = 0;
+
+    // Scratch space used while inserting points
+    private int[]     stack   = new int[64];
+    private int[]     cavity  = new int[64];
+    private boolean[] inCavity;
+
+    /**
+     * Triangulates the given points. Duplicated points are only included once.
+     *
+     * @param x X co-ordinates
+     * @param y Y co-ordinates
+     */
+    public Delaunay(double[] x, double[] y) {
+
+        if (x.length != y.length) {
+            throw new DimensionException(y.length, x.length);
+        }
+
+        this.size = x.length;
+        this.x    = Arrays.copyOf(x, size + 3);
+        this.y    = Arrays.copyOf(y, size + 3);
+
+        double minX = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+
+        for (int i = 0; i < size; i++) {
+            minX = Math.min(minX, x[i]);
+            maxX = Math.max(maxX, x[i]);
+            minY = Math.min(minY, y[i]);
+            maxY = Math.max(maxY, y[i]);
+        }
+
+        double span = Math.max(Math.max(maxX - minX, maxY - minY), Double.MIN_NORMAL);
+        double cx   = (minX + maxX) / 2;
+        double cy   = (minY + maxY) / 2;
+
+        this.minX  = size > 0 ? minX : 0.0;
+        this.minY  = size > 0 ? minY : 0.0;
+        this.span  = span;
+        this.cells = Math.max(1, (int) Math.sqrt(size / 2.0));
+
+        // Three extra vertices, far outside the data, forming a triangle that contains everything
+        this.x[size]     = cx - SUPER_SIZE * span;
+        this.y[size]     = cy - SUPER_SIZE * span;
+        this.x[size + 1] = cx + 2 * SUPER_SIZE * span;
+        this.y[size + 1] = cy - SUPER_SIZE * span;
+        this.x[size + 2] = cx - SUPER_SIZE * span;
+        this.y[size + 2] = cy + 2 * SUPER_SIZE * span;
+
+        int capacity = 2 * size + 16;
+
+        vertices   = new int[3 * capacity];
+        neighbours = new int[3 * capacity];
+        centreX    = new double[capacity];
+        centreY    = new double[capacity];
+        radiusSq   = new double[capacity];
+        alive      = new boolean[capacity];
+        inCavity   = new boolean[capacity];
+
+        addTriangle(size, size + 1, size + 2, -1, -1, -1);
+
+        for (int i : insertionOrder()) {
+            insert(i);
+        }
+
+        flipAll();
+
+        stack    = null;
+        cavity   = null;
+        inCavity = null;
+        starts   = new int[cells * cells];
+
+        Arrays.fill(starts, -1);
+
+        for (int t = 0; t < triangles; t++) {
+
+            if (!alive[t]) {
+                continue;
+            }
+
+            double mx = (this.x[vertices[3 * t]] + this.x[vertices[3 * t + 1]] + this.x[vertices[3 * t + 2]]) / 3;
+            double my = (this.y[vertices[3 * t]] + this.y[vertices[3 * t + 1]] + this.y[vertices[3 * t + 2]]) / 3;
+            int    c  = cell(mx, my);
+
+            if (c >= 0) {
+                starts[c] = t;
+            }
+
+        }
+
+    }
+
+    /**
+     * Returns the index of the coarse grid cell containing the given position, or -1 if outside the grid.
+     */
+    private int cell(double px, double py) {
+
+        int row = (int) Math.floor((py - minY) / span * cells);
+        int col = (int) Math.floor((px - minX) / span * cells);
+
+        if (row < 0 || col < 0 || row > cells || col > cells) {
+            return -1;
+        }
+
+        return Math.min(row, cells - 1) * cells + Math.min(col, cells - 1);
+
+    }
+
+    /**
+     * Picks a triangle close to the given position to start walking from.
+     */
+    private int start(double px, double py) {
+
+        int c = cell(px, py);
+
+        if (c >= 0 && starts[c] >= 0) {
+            return starts[c];
+        }
+
+        return last;
+
+    }
+
+    /**
+     * Orders points for insertion in rounds of doubling size, picked at random (with a fixed seed), so that the outer
+     * points of the data are found early rather than leaving a long straight edge for every new point to see. Within
+     * each round, points are ordered by the cell of a coarse grid they fall in, going back and forth along each row of
+     * cells in turn, so that each point is usually close to the one inserted before it.
+     */
+    private int[] insertionOrder() {
+
+        int    cells  = Math.max(1, (int) Math.sqrt(size / 4.0));
+        int[]  order  = new int[size];
+        long[] keys   = new long[size];
+        Random random = new Random(size);
+
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+
+        for (int i = size - 1; i > 0; i--) {
+            int j    = random.nextInt(i + 1);
+            int temp = order[i];
+            order[i] = order[j];
+            order[j] = temp;
+        }
+
+        for (int i = 0; i < size; i++) {
+
+            int p   = order[i];
+            int row = Math.min(cells - 1, (int) ((y[p] - minY) / span * cells));
+            int col = Math.min(cells - 1, (int) ((x[p] - minX) / span * cells));
+
+            if (row % 2 == 1) {
+                col = cells - 1 - col;
+            }
+
+            keys[i] = ((long) (row * cells + col) << 32) | p;
+
+        }
+
+        // Round r holds shuffled positions [2^r - 1, 2^(r + 1) - 1)
+        for (int from = 0; from < size; from = 2 * from + 1) {
+            Arrays.sort(keys, from, Math.min(size, 2 * from + 1));
+        }
+
+        for (int i = 0; i < size; i++) {
+            order[i] = (int) keys[i];
+        }
+
+        return order;
+
+    }
+
+    private int addTriangle(int a, int b, int c, int na, int nb, int nc) {
+
+        if (triangles == alive.length) {
+
+            int capacity = 2 * alive.length;
+
+            vertices   = Arrays.copyOf(vertices, 3 * capacity);
+            neighbours = Arrays.copyOf(neighbours, 3 * capacity);
+            centreX    = Arrays.copyOf(centreX, capacity);
+            centreY    = Arrays.copyOf(centreY, capacity);
+            radiusSq   = Arrays.copyOf(radiusSq, capacity);
+            alive      = Arrays.copyOf(alive, capacity);
+            inCavity   = Arrays.copyOf(inCavity, capacity);
+
+        }
+
+        int t = triangles++;
+
+        setTriangle(t, a, b, c, na, nb, nc);
+
+        return t;
+
+    }
+
+    private void setTriangle(int t, int a, int b, int c, int na, int nb, int nc) {
+
+        vertices[3 * t]       = a;
+        vertices[3 * t + 1]   = b;
+        vertices[3 * t + 2]   = c;
+        neighbours[3 * t]     = na;
+        neighbours[3 * t + 1] = nb;
+        neighbours[3 * t + 2] = nc;
+        alive[t]              = true;
+
+        // Circumcentre, relative to a to keep the arithmetic well-conditioned
+        double bx = x[b] - x[a];
+        double by = y[b] - y[a];
+        double cx = x[c] - x[a];
+        double cy = y[c] - y[a];
+        double d  = 2 * (bx * cy - by * cx);
+        double b2 = bx * bx + by * by;
+        double c2 = cx * cx + cy * cy;
+        double ux = (cy * b2 - by * c2) / d;
+        double uy = (bx * c2 - cx * b2) / d;
+
+        centreX[t]  = x[a] + ux;
+        centreY[t]  = y[a] + uy;
+        radiusSq[t] = ux * ux + uy * uy;
+
+    }
+
+    private static double orientation(double ax, double ay, double bx, double by, double px, double py) {
+        return (bx - ax) * (py - ay) - (by - ay) * (px - ax);
+    }
+
+    /**
+     * Returns which side of the k-th edge of triangle t (the edge opposite its k-th vertex) the point (px, py) lies on:
+     * positive for inside (to the left), negative for outside, zero if on the line.
+     */
+    private double edgeSide(int t, int k, double px, double py) {
+        int a = vertices[3 * t + (k + 1) % 3];
+        int b = vertices[3 * t + (k + 2) % 3];
+        return orientation(x[a], y[a], x[b], y[b], px, py);
+    }
+
+    private boolean inCircumcircle(int t, double px, double py) {
+
+        // With one vertex far outside the data, the circumcircle is so large that rounding makes it useless near the
+        // real edge, so treat that vertex as infinitely far away: the circle then becomes the half-plane on its side
+        // of the real edge (plus the edge itself, between its ends)
+        for (int k = 0; k < 3; k++) {
+
+            int a = vertices[3 * t + (k + 1) % 3];
+            int b = vertices[3 * t + (k + 2) % 3];
+
+            if (vertices[3 * t + k] >= size && a < size && b < size) {
+
+                double side  = orientation(x[a], y[a], x[b], y[b], px, py);
+                double scale = Math.hypot(x[b] - x[a], y[b] - y[a]) * Math.hypot(px - x[a], py - y[a]);
+
+                // Points in line with the edge, up to rounding, only count if they are between its ends
+                if (Math.abs(side) > 1e-10 * scale) {
+                    return side > 0;
+                }
+
+                return (px - x[a]) * (px - x[b]) + (py - y[a]) * (py - y[b]) < 0;
+
+            }
+
+        }
+
+        double dx = px - centreX[t];
+        double dy = py - centreY[t];
+
+        return dx * dx + dy * dy < radiusSq[t] * (1 - 1e-12);
+
+    }
+
+    /**
+     * Finds the triangle containing the given position by walking towards it from the given triangle.
+     *
+     * @return Triangle index, or -1 if outside the triangulation
+     */
+    private int walk(int start, double px, double py) {
+
+        int t     = start;
+        int steps = 0;
+
+        while (steps++ < 4 * triangles + 16) {
+
+            int next = -1;
+
+            // Start checking edges from a different one each step, so as not to cycle forever on degenerate input
+            for (int i = 0; i < 3; i++) {
+
+                int k = (i + steps) % 3;
+
+                if (edgeSide(t, k, px, py) < 0) {
+                    next = neighbours[3 * t + k];
+                    break;
+                }
+
+            }
+
+            if (next == -1) {
+
+                // Either inside this triangle, or outside the whole triangulation across a boundary edge
+                for (int k = 0; k < 3; k++) {
+
+                    if (edgeSide(t, k, px, py) < 0) {
+                        return -1;
+                    }
+
+                }
+
+                return t;
+
+            }
+
+            t = next;
+
+        }
+
+        // Walking failed to converge (should not happen), so fall back to checking every triangle
+        for (int i = 0; i < triangles; i++) {
+
+            if (alive[i] && edgeSide(i, 0, px, py) >= 0 && edgeSide(i, 1, px, py) >= 0 && edgeSide(i, 2, px, py) >= 0) {
+                return i;
+            }
+
+        }
+
+        return -1;
+
+    }
+
+    private void insert(int p) {
+
+        double px = x[p];
+        double py = y[p];
+        int    t  = walk(last, px, py);
+
+        if (t < 0) {
+            return;
+        }
+
+        for (int k = 0; k < 3; k++) {
+
+            int v = vertices[3 * t + k];
+
+            if (x[v] == px && y[v] == py) {
+                return;
+            }
+
+        }
+
+        // Gather every triangle whose circumcircle contains the new point, starting from the one it lies in
+        int count = findCavity(t, px, py);
+
+        // The cavity must be star-shaped as seen from p, or the new triangles would overlap. Rounding errors
+        // (eg with co-circular grid points) can break this, in which case the offending neighbour is added too.
+        boolean changed = true;
+
+        while (changed) {
+
+            changed = false;
+
+            for (int i = 0; i < count && !changed; i++) {
+
+                int c = cavity[i];
+
+                for (int k = 0; k < 3; k++) {
+
+                    int n = neighbours[3 * c + k];
+
+                    if (n >= 0 && !inCavity[n] && edgeSide(c, k, px, py) <= 0) {
+                        count   = push(count, n);
+                        changed = true;
+                        break;
+                    }
+
+                }
+
+            }
+
+        }
+
+        // Replace the cavity with a fan of triangles joining each boundary edge to p
+        int   firstNew  = triangles;
+        int[] fromEdge  = new int[count * 3];
+        int   edgeCount = 0;
+
+        for (int i = 0; i < count; i++) {
+
+            int c = cavity[i];
+
+            for (int k = 0; k < 3; k++) {
+
+                int n = neighbours[3 * c + k];
+
+                if (n >= 0 && inCavity[n]) {
+                    continue;
+                }
+
+                int a = vertices[3 * c + (k + 1) % 3];
+                int b = vertices[3 * c + (k + 2) % 3];
+                int f = addTriangle(a, b, p, -1, -1, n);
+
+                if (n >= 0) {
+
+                    for (int j = 0; j < 3; j++) {
+
+                        if (neighbours[3 * n + j] == c) {
+                            neighbours[3 * n + j] = f;
+                        }
+
+                    }
+
+                }
+
+                fromEdge[edgeCount++] = f;
+
+            }
+
+        }
+
+        for (int i = 0; i < count; i++) {
+            alive[cavity[i]]    = false;
+            inCavity[cavity[i]] = false;
+        }
+
+        // Link the new triangles to each other: the one starting at vertex a shares its edge (a, p) with the one
+        // ending at a
+        for (int i = 0; i < edgeCount; i++) {
+
+            int f = fromEdge[i];
+            int a = vertices[3 * f];
+            int b = vertices[3 * f + 1];
+
+            for (int j = 0; j < edgeCount; j++) {
+
+                int g = fromEdge[j];
+
+                if (vertices[3 * g + 1] == a) {
+                    neighbours[3 * f + 1] = g;
+                }
+
+                if (vertices[3 * g] == b) {
+                    neighbours[3 * f] = g;
+                }
+
+            }
+
+        }
+
+        last = firstNew;
+
+    }
+
+    /**
+     * Flips any edge between two real triangles that is not locally Delaunay. Treating the extra vertices as infinitely
+     * far away while inserting can, on rare occasions near the corners of the data (and mostly for gridded points),
+     * leave a few such edges behind.
+     */
+    private void flipAll() {
+
+        int top = 0;
+
+        for (int t = 0; t < triangles; t++) {
+
+            if (alive[t] && isReal(t)) {
+
+                if (top == stack.length) {
+                    stack = Arrays.copyOf(stack, 2 * top);
+                }
+
+                stack[top++] = t;
+
+            }
+
+        }
+
+        while (top > 0) {
+
+            int t = stack[--top];
+
+            for (int k = 0; k < 3; k++) {
+
+                int n = neighbours[3 * t + k];
+
+                if (n >= 0 && isReal(n) && flip(t, k, n)) {
+
+                    if (top + 2 > stack.length) {
+                        stack = Arrays.copyOf(stack, 2 * stack.length);
+                    }
+
+                    stack[top++] = t;
+                    stack[top++] = n;
+                    break;
+
+                }
+
+            }
+
+        }
+
+    }
+
+    /**
+     * Flips the edge of triangle t opposite its k-th vertex (shared with triangle n) if the far vertex of n lies within
+     * the circumcircle of t and the two triangles form a convex quadrilateral.
+     *
+     * @return Whether the edge was flipped
+     */
+    private boolean flip(int t, int k, int n) {
+
+        int j = 0;
+
+        while (neighbours[3 * n + j] != t) {
+            j++;
+        }
+
+        int p = vertices[3 * t + k];
+        int a = vertices[3 * t + (k + 1) % 3];
+        int b = vertices[3 * t + (k + 2) % 3];
+        int q = vertices[3 * n + j];
+
+        if (!inCircumcircle(t, x[q], y[q])) {
+            return false;
+        }
+
+        boolean convex = orientation(x[p], y[p], x[a], y[a], x[q], y[q]) > 0
+            && orientation(x[q], y[q], x[b], y[b], x[p], y[p]) > 0;
+
+        if (!convex) {
+            return false;
+        }
+
+        int nbp = neighbours[3 * t + (k + 1) % 3];
+        int npa = neighbours[3 * t + (k + 2) % 3];
+        int naq = neighbours[3 * n + (j + 1) % 3];
+        int nqb = neighbours[3 * n + (j + 2) % 3];
+
+        // (p, a, b) + (q, b, a) -> (p, a, q) + (q, b, p)
+        setTriangle(t, p, a, q, naq, n, npa);
+        setTriangle(n, q, b, p, nbp, t, nqb);
+
+        relink(naq, n, t);
+        relink(nbp, t, n);
+
+        return true;
+
+    }
+
+    private void relink(int t, int from, int to) {
+
+        if (t < 0) {
+            return;
+        }
+
+        for (int k = 0; k < 3; k++) {
+
+            if (neighbours[3 * t + k] == from) {
+                neighbours[3 * t + k] = to;
+            }
+
+        }
+
+    }
+
+    private int findCavity(int start, double px, double py) {
+
+        int count = push(0, start);
+        int top   = 0;
+
+        stack[top++] = start;
+
+        while (top > 0) {
+
+            int t = stack[--top];
+
+            for (int k = 0; k < 3; k++) {
+
+                int n = neighbours[3 * t + k];
+
+                if (n >= 0 && !inCavity[n] && inCircumcircle(n, px, py)) {
+
+                    count = push(count, n);
+
+                    if (top == stack.length) {
+                        stack = Arrays.copyOf(stack, 2 * top);
+                    }
+
+                    stack[top++] = n;
+
+                }
+
+            }
+
+        }
+
+        return count;
+
+    }
+
+    private int push(int count, int t) {
+
+        if (count == cavity.length) {
+            cavity = Arrays.copyOf(cavity, 2 * count);
+        }
+
+        cavity[count] = t;
+        inCavity[t]   = true;
+
+        return count + 1;
+
+    }
+
+    /**
+     * Returns the number of points that were triangulated.
+     *
+     * @return Number of points
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the triangles making up the triangulation, as a flat array of point indices, three per triangle.
+     * Triangles are listed anti-clockwise.
+     *
+     * @return Triangle vertex indices
+     */
+    public int[] getTriangles() {
+
+        int[] list  = new int[3 * triangles];
+        int   count = 0;
+
+        for (int t = 0; t < triangles; t++) {
+
+            if (alive[t] && isReal(t)) {
+                System.arraycopy(vertices, 3 * t, list, count, 3);
+                count += 3;
+            }
+
+        }
+
+        return Arrays.copyOf(list, count);
+
+    }
+
+    private boolean isReal(int t) {
+        return vertices[3 * t] < size && vertices[3 * t + 1] < size && vertices[3 * t + 2] < size;
+    }
+
+    /**
+     * Finds the triangle containing the given position and returns its vertices along with the barycentric weight of
+     * each.
+     *
+     * @param px      X position
+     * @param py      Y position
+     * @param indices Array (length 3) to write vertex indices into
+     * @param weights Array (length 3) to write weights into
+     *
+     * @return Whether the position lies inside the triangulated area (if not, nothing is written)
+     */
+    public boolean getBarycentric(double px, double py, int[] indices, double[] weights) {
+
+        int t = walk(start(px, py), px, py);
+
+        if (t < 0 || !isReal(t)) {
+            return false;
+        }
+
+        last = t;
+
+        int a = vertices[3 * t];
+        int b = vertices[3 * t + 1];
+        int c = vertices[3 * t + 2];
+
+        double area = orientation(x[a], y[a], x[b], y[b], x[c], y[c]);
+
+        indices[0] = a;
+        indices[1] = b;
+        indices[2] = c;
+        weights[0] = orientation(x[b], y[b], x[c], y[c], px, py) / area;
+        weights[1] = orientation(x[c], y[c], x[a], y[a], px, py) / area;
+        weights[2] = 1.0 - weights[0] - weights[1];
+
+        return true;
+
+    }
+
+    /**
+     * Calculates the natural-neighbour (Sibson) weights of the points surrounding the given position: the fraction of
+     * the area of the Voronoi cell the position would have if it were inserted, that would be taken from each
+     * neighbour's existing cell.
+     *
+     * @param px X position
+     * @param py Y position
+     *
+     * @return Neighbours and weights, or null if the position is on or outside the edge of the triangulated area
+     */
+    public NaturalNeighbours getNaturalNeighbours(double px, double py) {
+
+        int t = walk(start(px, py), px, py);
+
+        if (t < 0 || !isReal(t)) {
+            return null;
+        }
+
+        last = t;
+
+        for (int k = 0; k < 3; k++) {
+
+            int v = vertices[3 * t + k];
+
+            if (x[v] == px && y[v] == py) {
+                return new NaturalNeighbours(new int[]{v}, new double[]{1.0});
+            }
+
+        }
+
+        // Find the cavity of triangles whose circumcircles contain the position (without modifying anything)
+        int[]   cavity = new int[16];
+        int[]   stack  = new int[16];
+        int     count  = 0;
+        int     top    = 0;
+        boolean real   = true;
+
+        cavity[count++] = t;
+        stack[top++]    = t;
+
+        while (top > 0) {
+
+            int c = stack[--top];
+
+            real &= isReal(c);
+
+            for (int k = 0; k < 3; k++) {
+
+                int n = neighbours[3 * c + k];
+
+                if (n < 0 || contains(cavity, count, n) || !inCircumcircle(n, px, py)) {
+                    continue;
+                }
+
+                if (count == cavity.length) {
+                    cavity = Arrays.copyOf(cavity, 2 * count);
+                }
+
+                if (top == stack.length) {
+                    stack = Arrays.copyOf(stack, 2 * top);
+                }
+
+                cavity[count++] = n;
+                stack[top++]    = n;
+
+            }
+
+        }
+
+        // On the edge of the data, the would-be cell is unbounded
+        if (!real) {
+            return null;
+        }
+
+        // Boundary edges (a -> b, anti-clockwise round the cavity): each vertex a is a natural neighbour
+        int[] edgeStart = new int[count * 3];
+        int[] edgeEnd   = new int[count * 3];
+        int   edges     = 0;
+
+        for (int i = 0; i < count; i++) {
+
+            int c = cavity[i];
+
+            for (int k = 0; k < 3; k++) {
+
+                int n = neighbours[3 * c + k];
+
+                if (n >= 0 && contains(cavity, count, n)) {
+                    continue;
+                }
+
+                edgeStart[edges] = vertices[3 * c + (k + 1) % 3];
+                edgeEnd[edges]   = vertices[3 * c + (k + 2) % 3];
+                edges++;
+
+            }
+
+        }
+
+        int[]    points  = Arrays.copyOf(edgeStart, edges);
+        double[] weights = new double[edges];
+        double   total   = 0.0;
+        double[] polyX   = new double[count + 2];
+        double[] polyY   = new double[count + 2];
+
+        for (int i = 0; i < edges; i++) {
+
+            int v    = edgeStart[i];
+            int next = edgeEnd[i];
+            int prev = -1;
+
+            for (int j = 0; j < edges; j++) {
+
+                if (edgeEnd[j] == v) {
+                    prev = edgeStart[j];
+                    break;
+                }
+
+            }
+
+            // The area taken from v's cell is bounded by the new Voronoi edge between p and v (whose ends are the
+            // circumcentres of the new triangles either side of it) and the circumcentres of the removed triangles
+            // around v
+            int n = 0;
+
+            circumcentre(prev, v, px, py, polyX, polyY, n++);
+            circumcentre(v, next, px, py, polyX, polyY, n++);
+
+            for (int j = 0; j < count; j++) {
+
+                int c = cavity[j];
+
+                if (vertices[3 * c] == v || vertices[3 * c + 1] == v || vertices[3 * c + 2] == v) {
+                    polyX[n]   = centreX[c];
+                    polyY[n++] = centreY[c];
+                }
+
+            }
+
+            weights[i] = convexArea(polyX, polyY, n);
+            total     += weights[i];
+
+        }
+
+        if (!(total > 0) || !Double.isFinite(total)) {
+            return null;
+        }
+
+        for (int i = 0; i < edges; i++) {
+            weights[i] /= total;
+        }
+
+        return new NaturalNeighbours(points, weights);
+
+    }
+
+    private static boolean contains(int[] array, int count, int value) {
+
+        for (int i = 0; i < count; i++) {
+
+            if (array[i] == value) {
+                return true;
+            }
+
+        }
+
+        return false;
+
+    }
+
+    private void circumcentre(int a, int b, double px, double py, double[] outX, double[] outY, int index) {
+
+        double bx = x[a] - px;
+        double by = y[a] - py;
+        double cx = x[b] - px;
+        double cy = y[b] - py;
+        double d  = 2 * (bx * cy - by * cx);
+        double b2 = bx * bx + by * by;
+        double c2 = cx * cx + cy * cy;
+
+        outX[index] = px + (cy * b2 - by * c2) / d;
+        outY[index] = py + (bx * c2 - cx * b2) / d;
+
+    }
+
+    /**
+     * Area of the convex polygon with the given (unordered) corners, found by sorting them by angle about their
+     * centroid and using the shoelace formula.
+     */
+    private static double convexArea(double[] px, double[] py, int n) {
+
+        double mx = 0.0;
+        double my = 0.0;
+
+        for (int i = 0; i < n; i++) {
+            mx += px[i] / n;
+            my += py[i] / n;
+        }
+
+        double[]  angles = new double[n];
+        Integer[] order  = new Integer[n];
+
+        for (int i = 0; i < n; i++) {
+            angles[i] = Math.atan2(py[i] - my, px[i] - mx);
+            order[i]  = i;
+        }
+
+        Arrays.sort(order, (a, b) -> Double.compare(angles[a], angles[b]));
+
+        double area = 0.0;
+
+        for (int i = 0; i < n; i++) {
+            int a = order[i];
+            int b = order[(i + 1) % n];
+            area += px[a] * py[b] - px[b] * py[a];
+        }
+
+        return Math.abs(area) / 2;
+
+    }
+
+    /**
+     * Natural neighbours of a position and their Sibson weights (which add up to one).
+     */
+    public static class NaturalNeighbours {
+
+        private final int[]    indices;
+        private final double[] weights;
+
+        private NaturalNeighbours(int[] indices, double[] weights) {
+            this.indices = indices;
+            this.weights = weights;
+        }
+
+        public int size() {
+            return indices.length;
+        }
+
+        public int getIndex(int i) {
+            return indices[i];
+        }
+
+        public double getWeight(int i) {
+            return weights[i];
+        }
+
+    }
+
+}
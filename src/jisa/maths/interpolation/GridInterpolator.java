@@ -0,0 +1,195 @@
+package jisa.maths.interpolation;
+
+import jisa.maths.functions.XYFunction;
+import jisa.maths.matrices.exceptions.DimensionException;
+
+import java.util.Arrays;
+
+/**
+ * Interpolates values given on a rectangular grid (not necessarily evenly spaced), for instance a map of measurements
+ * taken by sweeping one parameter for each value of another. Since the grid cell containing a position can be found
+ * by binary search along each axis, each evaluation only looks at the 4 (bilinear) or 16 (bicubic) surrounding
+ * values. Positions outside the grid are extrapolated linearly from the nearest edge cell.
+ *
+ * <p>Bicubic interpolation uses cubic Hermite splines along each axis in turn, with slopes taken from central
+ * differences, so the result passes through every grid value and has a continuous first derivative.</p>
+ */
+public class GridInterpolator implements XYFunction {
+
+    private final double[] xValues;
+    private final double[] yValues;
+    private final double[] values;
+    private final boolean  cubic;
+
+    /**
+     * Creates an interpolator for values on the grid defined by the given x and y values.
+     *
+     * @param xValues Grid x values, strictly increasing
+     * @param yValues Grid y values, strictly increasing
+     * @param values  Value at each grid point, row-major (ie values[j * xValues.length + i] is at xValues[i], yValues[j])
+     * @param cubic   Whether to use bicubic (true) or bilinear (false) interpolation
+     */
+    public GridInterpolator(double[] xValues, double[] yValues, double[] values, boolean cubic) {
+
+        if (values.length != xValues.length * yValues.length) {
+            throw new DimensionException(values.length, xValues.length * yValues.length);
+        }
+
+        if (xValues.length < 2 || yValues.length < 2) {
+            throw new IllegalArgumentException("A grid needs at least two values along each axis.");
+        }
+
+        this.xValues = xValues.clone();
+        this.yValues = yValues.clone();
+        this.values  = values.clone();
+        this.cubic   = cubic;
+
+    }
+
+    /**
+     * Checks whether the given scattered points lie on a rectangular grid (in any order, with every combination of x
+     * and y value present exactly once), returning a grid interpolator for them if so.
+     *
+     * @param x     X values
+     * @param y     Y values
+     * @param v     Values
+     * @param cubic Whether to use bicubic (true) or bilinear (false) interpolation
+     *
+     * @return Grid interpolator, or null if the points do not form a grid
+     */
+    public static GridInterpolator fromPoints(double[] x, double[] y, double[] v, boolean cubic) {
+
+        double[] xValues = unique(x);
+        double[] yValues = unique(y);
+
+        if (xValues.length < 2 || yValues.length < 2 || (long) xValues.length * yValues.length != x.length) {
+            return null;
+        }
+
+        double[]  values = new double[x.length];
+        boolean[] filled = new boolean[x.length];
+
+        for (int i = 0; i < x.length; i++) {
+
+            int index = Arrays.binarySearch(yValues, y[i]) * xValues.length + Arrays.binarySearch(xValues, x[i]);
+
+            if (filled[index]) {
+                return null;
+            }
+
+            filled[index] = true;
+            values[index] = v[i];
+
+        }
+
+        return new GridInterpolator(xValues, yValues, values, cubic);
+
+    }
+
+    private static double[] unique(double[] values) {
+
+        double[] sorted = values.clone();
+        int      count  = 0;
+
+        Arrays.sort(sorted);
+
+        for (int i = 0; i < sorted.length; i++) {
+
+            if (i == 0 || sorted[i] != sorted[count - 1]) {
+                sorted[count++] = sorted[i];
+            }
+
+        }
+
+        return Arrays.copyOf(sorted, count);
+
+    }
+
+    /**
+     * Returns the index, i, of the grid cell [values[i], values[i + 1]] containing the given value, clamped to the
+     * first or last cell if outside.
+     */
+    private static int cell(double[] values, double value) {
+
+        int index = Arrays.binarySearch(values, value);
+
+        if (index < 0) {
+            index = -index - 2;
+        }
+
+        return Math.max(0, Math.min(values.length - 2, index));
+
+    }
+
+    private double value(int i, int j) {
+        return values[j * xValues.length + i];
+    }
+
+    @Override
+    public double value(double x, double y) {
+
+        int i = cell(xValues, x);
+        int j = cell(yValues, y);
+
+        boolean inside = x >= xValues[0] && x <= xValues[xValues.length - 1] && y >= yValues[0] && y <= yValues[yValues.length - 1];
+
+        if (cubic && inside) {
+
+            double[] column = new double[4];
+
+            for (int k = 0; k < 4; k++) {
+                int row = Math.max(0, Math.min(yValues.length - 1, j - 1 + k));
+                column[k] = hermite(xValues, i, x, row);
+            }
+
+            return hermite(yValues, j, y, column);
+
+        }
+
+        double tx = (x - xValues[i]) / (xValues[i + 1] - xValues[i]);
+        double ty = (y - yValues[j]) / (yValues[j + 1] - yValues[j]);
+
+        double bottom = value(i, j) + tx * (value(i + 1, j) - value(i, j));
+        double top    = value(i, j + 1) + tx * (value(i + 1, j + 1) - value(i, j + 1));
+
+        return bottom + ty * (top - bottom);
+
+    }
+
+    /**
+     * Cubic Hermite interpolation along row "row" of the grid, within cell i of the x axis.
+     */
+    private double hermite(double[] axis, int i, double position, int row) {
+
+        double[] local = new double[4];
+
+        for (int k = 0; k < 4; k++) {
+            local[k] = value(Math.max(0, Math.min(axis.length - 1, i - 1 + k)), row);
+        }
+
+        return hermite(axis, i, position, local);
+
+    }
+
+    /**
+     * Cubic Hermite interpolation within cell i of the given axis, where local holds the values at axis points i - 1,
+     * i, i + 1 and i + 2 (repeated at the ends of the axis).
+     */
+    private static double hermite(double[] axis, int i, double position, double[] local) {
+
+        double x0 = axis[i];
+        double x1 = axis[i + 1];
+        double h  = x1 - x0;
+
+        double m0 = i > 0 ? (local[2] - local[0]) / (x1 - axis[i - 1]) : (local[2] - local[1]) / h;
+        double m1 = i + 2 < axis.length ? (local[3] - local[1]) / (axis[i + 2] - x0) : (local[2] - local[1]) / h;
+
+        double t  = (position - x0) / h;
+        double t2 = t * t;
+        double t3 = t2 * t;
+
+        return (2 * t3 - 3 * t2 + 1) * local[1] + (t3 - 2 * t2 + t) * h * m0 + (-2 * t3 + 3 * t2) * local[2] + (t3 - t2) * h * m1;
+
+    }
+
+}
@@ -7,13 +7,10 @@ import jisa.maths.functions.XYZFunction;
 import jisa.maths.matrices.Matrix;
 import jisa.maths.matrices.RealMatrix;
 import jisa.maths.matrices.exceptions.DimensionException;
-import org.apache.commons.math.FunctionEvaluationException;
-import org.apache.commons.math.MathException;
-import org.apache.commons.math.analysis.MultivariateRealFunction;
 import org.apache.commons.math.analysis.interpolation.LinearInterpolator;
-import org.apache.commons.math.analysis.interpolation.MicrosphereInterpolator;
-import org.apache.commons.math.analysis.interpolation.MultivariateRealInterpolator;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
@@ -22,52 +19,29 @@ import java.util.Map;
 public class Interpolation {
 
     /**
-     * Returns a function representing the interpolation between the given set of points.
+     * Returns a function representing the interpolation between the given set of points. Each evaluation uses
+     * inverse-distance weighting of the nearest few points, found using a k-d tree (see ShepardInterpolator).
      *
      * @param v         Values of the function to interpolate
      * @param arguments The arguments of the function to interpolate.
      *
      * @return Multivariate function the returns a value for a given set of arguments by interpolating between the supplied points.
      */
+    @SafeVarargs
     public static MultiFunction interpolateND(Iterable<Double> v, Iterable<Double>... arguments) {
 
-        MultivariateRealInterpolator interpolator = new MicrosphereInterpolator();
-        List<double[]>               paramList    = new LinkedList<>();
-        List<Double>                 valueList    = new LinkedList<>();
-
-        Iterator<double[]> pi = new MultiIterable(arguments).iterator();
-        Iterator<Double>   vi = v.iterator();
-
-        while (pi.hasNext() && vi.hasNext()) {
-
-            paramList.add(pi.next());
-            valueList.add(vi.next());
-
-        }
-
-        double[][] params = new double[paramList.size()][3];
-        double[]   values = new double[paramList.size()];
+        List<Iterable<Double>> columns = new ArrayList<>(arguments.length + 1);
 
-        for (int i = 0; i < values.length; i++) {
-            params[i] = paramList.get(i);
-            values[i] = valueList.get(i);
+        for (Iterable<Double> argument : arguments) {
+            columns.add(argument);
         }
 
-        try {
-
-            MultivariateRealFunction interpolated = interpolator.interpolate(params, values);
+        columns.add(v);
 
-            return (p) -> {
-                try {
-                    return interpolated.value(p);
-                } catch (FunctionEvaluationException e) {
-                    return Double.NaN;
-                }
-            };
+        double[][]          data         = collect(columns);
+        ShepardInterpolator interpolator = new ShepardInterpolator(data[arguments.length], Arrays.copyOf(data, arguments.length));
 
-        } catch (MathException e) {
-            return null;
-        }
+        return interpolator::value;
 
     }
 
@@ -93,7 +67,8 @@ public class Interpolation {
     }
 
     /**
-     * Returns a function representing the 3-dimensional interpolation of the supplied data-points.
+     * Returns a function representing the 3-dimensional interpolation of the supplied data-points. Each evaluation uses
+     * inverse-distance weighting of the nearest few points, found using a k-d tree (see ShepardInterpolator).
      *
      * @param x X-Values
      * @param y Y-Values
@@ -104,45 +79,10 @@ public class Interpolation {
      */
     public static XYZFunction interpolate3D(Iterable<Double> x, Iterable<Double> y, Iterable<Double> z, Iterable<Double> v) {
 
-        MultivariateRealInterpolator interpolator = new MicrosphereInterpolator();
-        List<double[]>               paramList    = new LinkedList<>();
-        List<Double>                 valueList    = new LinkedList<>();
-
-        Iterator<Double> xi = x.iterator();
-        Iterator<Double> yi = y.iterator();
-        Iterator<Double> zi = z.iterator();
-        Iterator<Double> vi = v.iterator();
-
-        while (xi.hasNext() && yi.hasNext() && zi.hasNext() && vi.hasNext()) {
-
-            paramList.add(new double[]{xi.next(), yi.next(), zi.next()});
-            valueList.add(vi.next());
-
-        }
-
-        double[][] params = new double[paramList.size()][3];
-        double[]   values = new double[paramList.size()];
-
-        for (int i = 0; i < values.length; i++) {
-            params[i] = paramList.get(i);
-            values[i] = valueList.get(i);
-        }
-
-        try {
-
-            MultivariateRealFunction interpolated = interpolator.interpolate(params, values);
-
-            return (xv, yv, zv) -> {
-                try {
-                    return interpolated.value(new double[]{xv, yv, zv});
-                } catch (FunctionEvaluationException e) {
-                    return Double.NaN;
-                }
-            };
+        double[][]          data         = collect(List.of(x, y, z, v));
+        ShepardInterpolator interpolator = new ShepardInterpolator(data[3], data[0], data[1], data[2]);
 
-        } catch (MathException e) {
-            return null;
-        }
+        return (xv, yv, zv) -> interpolator.value(xv, yv, zv);
 
     }
 
@@ -168,50 +108,50 @@ public class Interpolation {
 
     }
 
+    /**
+     * Returns a function representing the 2-dimensional linear interpolation of the supplied data-points. If the points
+     * form a rectangular grid, this is bilinear interpolation between grid points, otherwise it is linear interpolation
+     * across a Delaunay triangulation of the points.
+     *
+     * @param x X-Values
+     * @param y Y-Values
+     * @param v Value to interpolate
+     *
+     * @return Interpolated 2D function (XYFunction)
+     */
     public static XYFunction interpolate2D(Iterable<Double> x, Iterable<Double> y, Iterable<Double> v) {
+        return interpolate2D(x, y, v, Method.LINEAR);
+    }
 
-        MultivariateRealInterpolator interpolator = new MicrosphereInterpolator();
-        List<double[]>               paramList    = new LinkedList<>();
-        List<Double>                 valueList    = new LinkedList<>();
-
-        Iterator<Double> xi = x.iterator();
-        Iterator<Double> yi = y.iterator();
-        Iterator<Double> vi = v.iterator();
-
-        while (xi.hasNext() && yi.hasNext() && vi.hasNext()) {
-
-            paramList.add(new double[]{xi.next(), yi.next()});
-            valueList.add(vi.next());
-
-        }
+    /**
+     * Returns a function representing the 2-dimensional interpolation of the supplied data-points, using the given
+     * method.
+     *
+     * @param x      X-Values
+     * @param y      Y-Values
+     * @param v      Value to interpolate
+     * @param method Interpolation method
+     *
+     * @return Interpolated 2D function (XYFunction)
+     */
+    public static XYFunction interpolate2D(Iterable<Double> x, Iterable<Double> y, Iterable<Double> v, Method method) {
 
-        double[][] params = new double[paramList.size()][2];
-        double[]   values = new double[paramList.size()];
+        double[][]       data = collect(List.of(x, y, v));
+        GridInterpolator grid = GridInterpolator.fromPoints(data[0], data[1], data[2], method == Method.CUBIC);
 
-        for (int i = 0; i < values.length; i++) {
-            params[i] = paramList.get(i);
-            values[i] = valueList.get(i);
+        if (grid != null && method != Method.NATURAL_NEIGHBOUR) {
+            return grid;
         }
 
-        try {
-
-            MultivariateRealFunction interpolated = interpolator.interpolate(params, values);
-
-            return (xv, yv) -> {
-                try {
-                    return interpolated.value(new double[]{xv, yv});
-                } catch (FunctionEvaluationException e) {
-                    return Double.NaN;
-                }
-            };
-
-        } catch (MathException e) {
-            return null;
-        }
+        return new ScatteredInterpolator(data[0], data[1], data[2], method != Method.LINEAR);
 
     }
 
     public static XYFunction interpolate2D(Matrix<Double> colData) {
+        return interpolate2D(colData, Method.LINEAR);
+    }
+
+    public static XYFunction interpolate2D(Matrix<Double> colData, Method method) {
 
         if (colData.cols() < 3) {
             throw new DimensionException(colData, -1, 3);
@@ -220,7 +160,8 @@ public class Interpolation {
         return interpolate2D(
             colData.getColMatrix(0),
             colData.getColMatrix(1),
-            colData.getColMatrix(2)
+            colData.getColMatrix(2),
+            method
         );
 
     }
@@ -264,11 +205,87 @@ public class Interpolation {
 
     }
 
+    /**
+     * Reads the given iterables in step into primitive arrays (one per iterable), stopping when any runs out and
+     * skipping any point with a NaN or infinite component.
+     */
+    private static double[][] collect(List<Iterable<Double>> iterables) {
+
+        double[][] columns = new double[iterables.size()][16];
+        int        count   = 0;
+
+        for (double[] point : new MultiIterable(iterables)) {
+
+            boolean finite = true;
+
+            for (double value : point) {
+                finite &= Double.isFinite(value);
+            }
+
+            if (!finite) {
+                continue;
+            }
+
+            if (count == columns[0].length) {
+                for (int i = 0; i < columns.length; i++) {
+                    columns[i] = Arrays.copyOf(columns[i], 2 * count);
+                }
+            }
+
+            for (int i = 0; i < columns.length; i++) {
+                columns[i][count] = point[i];
+            }
+
+            count++;
+
+        }
+
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = Arrays.copyOf(columns[i], count);
+        }
+
+        return columns;
+
+    }
+
+    /**
+     * Methods of interpolating scattered 2D data.
+     */
+    public enum Method {
+
+        /**
+         * Linear across a Delaunay triangulation, or bilinear if the points form a grid.
+         */
+        LINEAR,
+
+        /**
+         * Natural-neighbour (Sibson) interpolation across a Delaunay triangulation, which is smoother than linear.
+         */
+        NATURAL_NEIGHBOUR,
+
+        /**
+         * Bicubic if the points form a grid, otherwise natural-neighbour.
+         */
+        CUBIC
+
+    }
+
     public static class MultiIterable implements Iterable<double[]> {
 
-        private final Iterable<Double>[] iterables;
+        private final List<Iterable<Double>> iterables;
 
+        @SafeVarargs
         public MultiIterable(Iterable<Double>... iterables) {
+
+            this.iterables = new ArrayList<>(iterables.length);
+
+            for (Iterable<Double> iterable : iterables) {
+                this.iterables.add(iterable);
+            }
+
+        }
+
+        public MultiIterable(List<Iterable<Double>> iterables) {
             this.iterables = iterables;
         }
 
@@ -277,11 +294,11 @@ public class Interpolation {
 
             return new Iterator<>() {
 
-                private final Iterator<Double>[] iterators = new Iterator[iterables.length];
+                private final List<Iterator<Double>> iterators = new ArrayList<>(iterables.size());
 
                 {
-                    for (int i = 0; i < iterables.length; i++) {
-                        iterators[i] = iterables[i].iterator();
+                    for (Iterable<Double> iterable : iterables) {
+                        iterators.add(iterable.iterator());
                     }
                 }
 
@@ -299,10 +316,10 @@ public class Interpolation {
                 @Override
                 public double[] next() {
 
-                    double[] values = new double[iterators.length];
+                    double[] values = new double[iterators.size()];
 
-                    for (int i = 0; i < iterators.length; i++) {
-                        values[i] = iterators[i].next();
+                    for (int i = 0; i < values.length; i++) {
+                        values[i] = iterators.get(i).next();
                     }
 
                     return values;
@@ -0,0 +1,348 @@
+package jisa.maths.interpolation;
+
+import jisa.maths.matrices.exceptions.DimensionException;
+
+/**
+ * K-dimensional tree over a fixed set of points, for finding the nearest points to a given position without having to
+ * look at every point. The tree is stored implicitly: points are re-ordered so that each sub-tree occupies a
+ * contiguous range of an index array with its splitting point in the middle, so no node objects are created.
+ *
+ * <pre>
+ * KDTree tree = new KDTree(2, x, y);
+ *
+ * int[] nearest = tree.nearest(new double[]{1.5, 2.0}, 4);
+ * </pre>
+ */
+public class KDTree {
+
+    private final int      dimensions;
+    private final int      size;
+    private final double[] coordinates;
+    private final int[]    order;
+    private final int[]    splits;
+
+    /**
+     * Builds a tree from the given points, supplied as one array of coordinates per dimension.
+     *
+     * @param dimensions  Number of dimensions
+     * @param coordinates Coordinates of each point, one array per dimension
+     */
+    public KDTree(int dimensions, double[]... coordinates) {
+
+        if (coordinates.length != dimensions) {
+            throw new DimensionException(coordinates.length, dimensions);
+        }
+
+        this.dimensions  = dimensions;
+        this.size        = dimensions > 0 ? coordinates[0].length : 0;
+        this.coordinates = new double[size * dimensions];
+        this.order       = new int[size];
+        this.splits      = new int[size];
+
+        for (int d = 0; d < dimensions; d++) {
+
+            if (coordinates[d].length != size) {
+                throw new DimensionException(coordinates[d].length, size);
+            }
+
+            for (int i = 0; i < size; i++) {
+                this.coordinates[i * dimensions + d] = coordinates[d][i];
+            }
+
+        }
+
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+
+        build(0, size);
+
+    }
+
+    /**
+     * Returns the number of points in the tree.
+     *
+     * @return Number of points
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the given coordinate of the point with the given index.
+     *
+     * @param index     Point index
+     * @param dimension Dimension
+     *
+     * @return Coordinate
+     */
+    public double getCoordinate(int index, int dimension) {
+        return coordinates[index * dimensions + dimension];
+    }
+
+    /**
+     * Arranges order[start, end) into a sub-tree, splitting at the median along whichever dimension the points are
+     * most spread out in.
+     */
+    private void build(int start, int end) {
+
+        if (end - start <= 1) {
+            return;
+        }
+
+        int    dimension = 0;
+        double widest    = -1.0;
+
+        for (int d = 0; d < dimensions; d++) {
+
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+
+            for (int i = start; i < end; i++) {
+                double value = coordinates[order[i] * dimensions + d];
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+            }
+
+            if (max - min > widest) {
+                widest    = max - min;
+                dimension = d;
+            }
+
+        }
+
+        int middle = (start + end) >>> 1;
+
+        select(start, end - 1, middle, dimension);
+
+        splits[middle] = dimension;
+
+        build(start, middle);
+        build(middle + 1, end);
+
+    }
+
+    /**
+     * Partially sorts order[left, right] (quick-select) so that the point at position k is the one that would be there
+     * if sorted by the given dimension, with no larger points before it and no smaller after it.
+     */
+    private void select(int left, int right, int k, int dimension) {
+
+        while (right > left) {
+
+            double pivot = coordinates[order[(left + right) >>> 1] * dimensions + dimension];
+            int    i     = left;
+            int    j     = right;
+
+            while (i <= j) {
+
+                while (coordinates[order[i] * dimensions + dimension] < pivot) {
+                    i++;
+                }
+
+                while (coordinates[order[j] * dimensions + dimension] > pivot) {
+                    j--;
+                }
+
+                if (i <= j) {
+                    int temp = order[i];
+                    order[i] = order[j];
+                    order[j] = temp;
+                    i++;
+                    j--;
+                }
+
+            }
+
+            if (k <= j) {
+                right = j;
+            } else if (k >= i) {
+                left = i;
+            } else {
+                return;
+            }
+
+        }
+
+    }
+
+    /**
+     * Returns the index of the point closest to the given position.
+     *
+     * @param position Position
+     *
+     * @return Index of nearest point, -1 if the tree is empty
+     */
+    public int nearest(double[] position) {
+        int[] nearest = nearest(position, 1);
+        return nearest.length > 0 ? nearest[0] : -1;
+    }
+
+    /**
+     * Returns the indices of the k points closest to the given position, nearest first.
+     *
+     * @param position Position
+     * @param k        Number of points to find
+     *
+     * @return Indices of nearest points (fewer than k if there are not that many points)
+     */
+    public int[] nearest(double[] position, int k) {
+
+        if (position.length != dimensions) {
+            throw new DimensionException(position.length, dimensions);
+        }
+
+        Neighbours neighbours = new Neighbours(Math.min(k, size));
+
+        if (neighbours.capacity > 0) {
+            search(0, size, position, neighbours);
+        }
+
+        return neighbours.sorted();
+
+    }
+
+    private void search(int start, int end, double[] position, Neighbours neighbours) {
+
+        if (start >= end) {
+            return;
+        }
+
+        int middle = (start + end) >>> 1;
+        int point  = order[middle];
+
+        neighbours.offer(point, distanceSquared(point, position));
+
+        if (end - start == 1) {
+            return;
+        }
+
+        int    dimension = splits[middle];
+        double offset    = position[dimension] - coordinates[point * dimensions + dimension];
+
+        // Search the side the position is on first, then only look at the other if it could hold anything closer
+        if (offset < 0) {
+            search(start, middle, position, neighbours);
+            if (offset * offset < neighbours.worst()) {
+                search(middle + 1, end, position, neighbours);
+            }
+        } else {
+            search(middle + 1, end, position, neighbours);
+            if (offset * offset < neighbours.worst()) {
+                search(start, middle, position, neighbours);
+            }
+        }
+
+    }
+
+    private double distanceSquared(int point, double[] position) {
+
+        double sum = 0.0;
+
+        for (int d = 0; d < dimensions; d++) {
+            double diff = coordinates[point * dimensions + d] - position[d];
+            sum += diff * diff;
+        }
+
+        return sum;
+
+    }
+
+    /**
+     * Bounded max-heap of the closest points found so far, keyed by squared distance.
+     */
+    private static class Neighbours {
+
+        private final int      capacity;
+        private final int[]    points;
+        private final double[] distances;
+        private       int      count = 0;
+
+        private Neighbours(int capacity) {
+            this.capacity  = capacity;
+            this.points    = new int[capacity];
+            this.distances = new double[capacity];
+        }
+
+        private double worst() {
+            return count < capacity ? Double.POSITIVE_INFINITY : distances[0];
+        }
+
+        private void offer(int point, double distance) {
+
+            if (count < capacity) {
+
+                int i = count++;
+
+                while (i > 0 && distances[(i - 1) / 2] < distance) {
+                    points[i]    = points[(i - 1) / 2];
+                    distances[i] = distances[(i - 1) / 2];
+                    i            = (i - 1) / 2;
+                }
+
+                points[i]    = point;
+                distances[i] = distance;
+
+            } else if (distance < distances[0]) {
+                replaceTop(point, distance);
+            }
+
+        }
+
+        /**
+         * Replaces the furthest point (top of the heap) with the given one, moving it down to where it belongs.
+         */
+        private void replaceTop(int point, double distance) {
+
+            int i = 0;
+
+            while (true) {
+
+                int child = 2 * i + 1;
+
+                if (child >= count) {
+                    break;
+                }
+
+                if (child + 1 < count && distances[child + 1] > distances[child]) {
+                    child++;
+                }
+
+                if (distances[child] <= distance) {
+                    break;
+                }
+
+                points[i]    = points[child];
+                distances[i] = distances[child];
+                i            = child;
+
+            }
+
+            points[i]    = point;
+            distances[i] = distance;
+
+        }
+
+        private int[] sorted() {
+
+            int[] result = new int[count];
+
+            // Repeatedly take the furthest point off the top of the heap, filling the result from the back
+            while (count > 0) {
+
+                result[count - 1] = points[0];
+                count--;
+
+                if (count > 0) {
+                    replaceTop(points[count], distances[count]);
+                }
+
+            }
+
+            return result;
+
+        }
+
+    }
+
+}
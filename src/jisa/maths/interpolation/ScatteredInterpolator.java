@@ -0,0 +1,123 @@
+package jisa.maths.interpolation;
+
+import jisa.maths.functions.XYFunction;
+import jisa.maths.matrices.exceptions.DimensionException;
+
+/**
+ * Interpolates values at scattered points in 2D using a Delaunay triangulation of the points. Each evaluation only
+ * locates the triangle containing the requested position (by walking across the triangulation from the last one
+ * found, which is quick when evaluating along a grid or line) and combines the values of nearby points, either:
+ *
+ * <ul>
+ *     <li>linearly across the containing triangle (barycentric weights), or</li>
+ *     <li>by natural-neighbour (Sibson) weights, which gives a smoother result that is continuous in slope away from
+ *     the data points themselves.</li>
+ * </ul>
+ *
+ * <p>Both axes are scaled to a range of 1 before triangulating, so that x and y values in very different units (eg
+ * temperature and field) are treated equally. Positions outside the convex hull of the points (or too close to its
+ * edge for natural-neighbour weights to be defined) fall back to linear interpolation where possible, then to
+ * inverse-distance weighting of the nearest points.</p>
+ */
+public class ScatteredInterpolator implements XYFunction {
+
+    private final double[]            values;
+    private final boolean             natural;
+    private final double              minX;
+    private final double              minY;
+    private final double              scaleX;
+    private final double              scaleY;
+    private final Delaunay            delaunay;
+    private final ShepardInterpolator fallback;
+
+    /**
+     * Creates an interpolator for the given points.
+     *
+     * @param x       X values
+     * @param y       Y values
+     * @param v       Value at each point
+     * @param natural Whether to use natural-neighbour (true) or linear (false) interpolation
+     */
+    public ScatteredInterpolator(double[] x, double[] y, double[] v, boolean natural) {
+
+        if (x.length != y.length || x.length != v.length) {
+            throw new DimensionException(Math.min(y.length, v.length), x.length);
+        }
+
+        double minX = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+
+        for (int i = 0; i < x.length; i++) {
+            minX = Math.min(minX, x[i]);
+            maxX = Math.max(maxX, x[i]);
+            minY = Math.min(minY, y[i]);
+            maxY = Math.max(maxY, y[i]);
+        }
+
+        this.values  = v.clone();
+        this.natural = natural;
+        this.minX    = minX;
+        this.minY    = minY;
+        this.scaleX  = maxX > minX ? 1.0 / (maxX - minX) : 1.0;
+        this.scaleY  = maxY > minY ? 1.0 / (maxY - minY) : 1.0;
+
+        double[] sx = new double[x.length];
+        double[] sy = new double[y.length];
+
+        for (int i = 0; i < x.length; i++) {
+            sx[i] = (x[i] - minX) * scaleX;
+            sy[i] = (y[i] - minY) * scaleY;
+        }
+
+        this.delaunay = new Delaunay(sx, sy);
+        this.fallback = new ShepardInterpolator(v, sx, sy);
+
+    }
+
+    /**
+     * Returns the triangulation being interpolated across (in scaled co-ordinates).
+     *
+     * @return Triangulation
+     */
+    public Delaunay getTriangulation() {
+        return delaunay;
+    }
+
+    @Override
+    public double value(double x, double y) {
+
+        double sx = (x - minX) * scaleX;
+        double sy = (y - minY) * scaleY;
+
+        if (natural) {
+
+            Delaunay.NaturalNeighbours neighbours = delaunay.getNaturalNeighbours(sx, sy);
+
+            if (neighbours != null) {
+
+                double sum = 0.0;
+
+                for (int i = 0; i < neighbours.size(); i++) {
+                    sum += neighbours.getWeight(i) * values[neighbours.getIndex(i)];
+                }
+
+                return sum;
+
+            }
+
+        }
+
+        int[]    indices = new int[3];
+        double[] weights = new double[3];
+
+        if (delaunay.getBarycentric(sx, sy, indices, weights)) {
+            return weights[0] * values[indices[0]] + weights[1] * values[indices[1]] + weights[2] * values[indices[2]];
+        }
+
+        return fallback.value(sx, sy);
+
+    }
+
+}
@@ -0,0 +1,136 @@
+package jisa.maths.interpolation;
+
+import jisa.maths.matrices.exceptions.DimensionException;
+
+/**
+ * Interpolates values at scattered points in any number of dimensions by inverse-distance (Shepard) weighting of the
+ * nearest few points, found using a KDTree. Unlike the microsphere method, which looks at every point for each
+ * evaluation, this only looks at a handful, so evaluation time grows only logarithmically with the number of points.
+ * The result passes through every data point and stays within the range of the nearby values.
+ *
+ * <p>Each dimension is scaled to a range of 1 before measuring distances, so that arguments in very different units
+ * are treated equally.</p>
+ *
+ * <p>This does not implement MultiFunction itself, since implementing its varargs value(...) method in a class always
+ * draws a compiler warning (it overrides the non-varargs method of MultivariateRealFunction). Use interpolator::value
+ * where a MultiFunction is needed.</p>
+ */
+public class ShepardInterpolator {
+
+    private final KDTree   tree;
+    private final double[] values;
+    private final double[] offsets;
+    private final double[] scales;
+    private final int      neighbours;
+    private final double   power;
+
+    /**
+     * Creates an interpolator for the given points, using the nearest 2^d + 1 points (for d dimensions) and weights
+     * of 1 / distance^2.
+     *
+     * @param values      Value at each point
+     * @param coordinates Coordinates of the points, one array per dimension
+     */
+    public ShepardInterpolator(double[] values, double[]... coordinates) {
+        this(values, (1 << Math.min(coordinates.length, 10)) + 1, 2.0, coordinates);
+    }
+
+    /**
+     * Creates an interpolator for the given points.
+     *
+     * @param values      Value at each point
+     * @param neighbours  Number of nearest points to use for each evaluation
+     * @param power       Power of distance to weight by (weights are 1 / distance^power)
+     * @param coordinates Coordinates of the points, one array per dimension
+     */
+    public ShepardInterpolator(double[] values, int neighbours, double power, double[]... coordinates) {
+
+        if (coordinates.length > 0 && coordinates[0].length != values.length) {
+            throw new DimensionException(values.length, coordinates[0].length);
+        }
+
+        double[][] scaled = new double[coordinates.length][];
+
+        this.offsets = new double[coordinates.length];
+        this.scales  = new double[coordinates.length];
+
+        for (int d = 0; d < coordinates.length; d++) {
+
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+
+            for (double value : coordinates[d]) {
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+            }
+
+            offsets[d] = max >= min ? min : 0.0;
+            scales[d]  = max > min ? 1.0 / (max - min) : 1.0;
+            scaled[d]  = new double[coordinates[d].length];
+
+            for (int i = 0; i < scaled[d].length; i++) {
+                scaled[d][i] = (coordinates[d][i] - offsets[d]) * scales[d];
+            }
+
+        }
+
+        this.tree       = new KDTree(coordinates.length, scaled);
+        this.values     = values.clone();
+        this.neighbours = neighbours;
+        this.power      = power;
+
+    }
+
+    /**
+     * Returns the interpolated value at the given position.
+     *
+     * @param arguments Coordinates of the position, one per dimension
+     *
+     * @return Interpolated value
+     */
+    public double value(double... arguments) {
+
+        if (arguments.length != scales.length) {
+            throw new DimensionException(arguments.length, scales.length);
+        }
+
+        double[] position = new double[arguments.length];
+
+        for (int d = 0; d < arguments.length; d++) {
+            position[d] = (arguments[d] - offsets[d]) * scales[d];
+        }
+
+        int[] nearest = tree.nearest(position, neighbours);
+
+        if (nearest.length == 0) {
+            return Double.NaN;
+        }
+
+        double weightSum = 0.0;
+        double valueSum  = 0.0;
+
+        for (int index : nearest) {
+
+            double distanceSq = 0.0;
+
+            for (int d = 0; d < position.length; d++) {
+                double diff = tree.getCoordinate(index, d) - position[d];
+                distanceSq += diff * diff;
+            }
+
+            if (distanceSq == 0.0) {
+                return values[index];
+            }
+
+            double weight = power == 2.0 ? 1.0 / distanceSq : Math.pow(distanceSq, -power / 2);
+
+            weightSum += weight;
+            valueSum  += weight * values[index];
+
+        }
+
+        return valueSum / weightSum;
+
+    }
+
+}
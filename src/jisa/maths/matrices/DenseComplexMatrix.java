@@ -0,0 +1,1839 @@
+package jisa.maths.matrices;
+
+import jisa.maths.functions.GFunction;
+import jisa.maths.matrices.exceptions.*;
+import org.apache.commons.math.complex.Complex;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Complex matrix stored as two flat, row-major arrays of primitive doubles: one for the real parts and one for the
+ * imaginary parts. ComplexMatrix creates a new Complex object for every element of every intermediate result, whereas
+ * this does all of its arithmetic on the two arrays directly, only creating Complex objects when elements are
+ * individually asked for through get(). This makes it much better suited to large amounts of data, such as impedance
+ * or lock-in measurements over long frequency sweeps.
+ *
+ * <p>As well as the usual matrix operations, this provides conjugate transposition, element-wise magnitudes and
+ * phases (returned as DenseMatrix objects) and in-place versions of arithmetic operations (ending in "Self"). It can
+ * be converted to and from ComplexMatrix with toComplexMatrix() and asDenseComplexMatrix().</p>
+ *
+ * <pre>
+ * DenseComplexMatrix v = new DenseComplexMatrix(voltageX, voltageY, n, 1);
+ * DenseComplexMatrix i = new DenseComplexMatrix(currentX, currentY, n, 1);
+ *
+ * v.elementDivideSelf(i);
+ *
+ * DenseMatrix magnitudes = v.getMagnitudes();
+ * DenseMatrix phases     = v.getPhases();
+ * </pre>
+ */
+public class DenseComplexMatrix implements Matrix<Complex> {
+
+    private static final int  BLOCK         = 64;
+    private static final long PARALLEL_WORK = 1L << 19;
+
+    private final int      rows;
+    private final int      cols;
+    private final double[] real;
+    private final double[] imag;
+
+    public static DenseComplexMatrix asDenseComplexMatrix(Matrix<Complex> matrix) {
+
+        if (matrix instanceof DenseComplexMatrix) {
+            return (DenseComplexMatrix) matrix;
+        } else {
+            return new DenseComplexMatrix(matrix);
+        }
+
+    }
+
+    public static DenseComplexMatrix identity(int size) {
+
+        DenseComplexMatrix identity = new DenseComplexMatrix(size, size);
+
+        for (int i = 0; i < size; i++) {
+            identity.real[i * size + i] = 1.0;
+        }
+
+        return identity;
+
+    }
+
+    /**
+     * Creates a matrix of zeros with the given dimensions.
+     *
+     * @param rows Number of rows
+     * @param cols Number of columns
+     */
+    public DenseComplexMatrix(int rows, int cols) {
+
+        if (rows < 0 || cols < 0) {
+            throw new MatrixException("Matrix dimensions cannot be negative.");
+        }
+
+        this.rows = rows;
+        this.cols = cols;
+        this.real = new double[rows * cols];
+        this.imag = new double[rows * cols];
+
+    }
+
+    /**
+     * Creates a matrix from flat, row-major arrays of real and imaginary parts. The arrays are copied.
+     *
+     * @param real Real parts
+     * @param imag Imaginary parts
+     * @param rows Number of rows
+     * @param cols Number of columns
+     */
+    public DenseComplexMatrix(double[] real, double[] imag, int rows, int cols) {
+
+        this(rows, cols);
+
+        if (real.length != this.real.length) {
+            throw new DimensionException(real.length, this.real.length);
+        }
+
+        if (imag.length != this.imag.length) {
+            throw new DimensionException(imag.length, this.imag.length);
+        }
+
+        System.arraycopy(real, 0, this.real, 0, real.length);
+        System.arraycopy(imag, 0, this.imag, 0, imag.length);
+
+    }
+
+    /**
+     * Creates a matrix from separate real and imaginary matrices, which must have the same dimensions.
+     *
+     * @param real Real parts
+     * @param imag Imaginary parts (null for all zero)
+     */
+    public DenseComplexMatrix(Matrix<Double> real, Matrix<Double> imag) {
+
+        this(real.rows(), real.cols());
+
+        if (imag != null && !Matrix.dimensionsMatch(real, imag)) {
+            throw new DimensionException(imag, real);
+        }
+
+        System.arraycopy(DenseMatrix.asDenseMatrix(real).getArray(), 0, this.real, 0, this.real.length);
+
+        if (imag != null) {
+            System.arraycopy(DenseMatrix.asDenseMatrix(imag).getArray(), 0, this.imag, 0, this.imag.length);
+        }
+
+    }
+
+    public DenseComplexMatrix(int rows, int cols, Complex... values) {
+        this(rows, cols);
+        setAll(values);
+    }
+
+    /**
+     * Creates a copy of the given matrix.
+     *
+     * @param matrix Matrix to copy
+     */
+    public DenseComplexMatrix(Matrix<Complex> matrix) {
+
+        this(matrix.rows(), matrix.cols());
+
+        if (matrix instanceof DenseComplexMatrix) {
+
+            DenseComplexMatrix source = (DenseComplexMatrix) matrix;
+            System.arraycopy(source.real, 0, real, 0, real.length);
+            System.arraycopy(source.imag, 0, imag, 0, imag.length);
+
+        } else {
+
+            Complex[][] values = matrix instanceof ComplexMatrix ? ((ComplexMatrix) matrix).fieldMatrix().getData() : matrix.getData();
+
+            for (int r = 0; r < rows; r++) {
+
+                for (int c = 0; c < cols; c++) {
+                    real[r * cols + c] = values[r][c].getReal();
+                    imag[r * cols + c] = values[r][c].getImaginary();
+                }
+
+            }
+
+        }
+
+    }
+
+    /**
+     * Returns a copy of this matrix as a (commons-math backed) ComplexMatrix.
+     *
+     * @return ComplexMatrix copy
+     */
+    public ComplexMatrix toComplexMatrix() {
+        return new ComplexMatrix(getData());
+    }
+
+    @Override
+    public int rows() {
+        return rows;
+    }
+
+    @Override
+    public int cols() {
+        return cols;
+    }
+
+    @Override
+    public void checkIndices(int row, int col) throws IndexException {
+
+        if (row < 0 || col < 0 || row >= rows || col >= cols) {
+            throw new IndexException(row, col, this);
+        }
+
+    }
+
+    @Override
+    public Complex get(int row, int col) {
+        checkIndices(row, col);
+        return new Complex(real[row * cols + col], imag[row * cols + col]);
+    }
+
+    public double getReal(int row, int col) {
+        checkIndices(row, col);
+        return real[row * cols + col];
+    }
+
+    public double getImaginary(int row, int col) {
+        checkIndices(row, col);
+        return imag[row * cols + col];
+    }
+
+    @Override
+    public void set(int row, int col, Complex value) {
+        set(row, col, value.getReal(), value.getImaginary());
+    }
+
+    public void set(int row, int col, double real, double imag) {
+        checkIndices(row, col);
+        this.real[row * cols + col] = real;
+        this.imag[row * cols + col] = imag;
+    }
+
+    @Override
+    public Complex[][] getData() {
+
+        Complex[][] values = new Complex[rows][cols];
+
+        for (int r = 0; r < rows; r++) {
+
+            for (int c = 0; c < cols; c++) {
+                values[r][c] = new Complex(real[r * cols + c], imag[r * cols + c]);
+            }
+
+        }
+
+        return values;
+
+    }
+
+    @Override
+    public Complex[] getFlatData() {
+
+        Complex[] values = new Complex[real.length];
+
+        for (int i = 0; i < real.length; i++) {
+            values[i] = new Complex(real[i], imag[i]);
+        }
+
+        return values;
+
+    }
+
+    /**
+     * Returns a copy of the real parts of all elements as a flat array, going along each row in turn.
+     *
+     * @return Real parts
+     */
+    public double[] getRealArray() {
+        return real.clone();
+    }
+
+    /**
+     * Returns a copy of the imaginary parts of all elements as a flat array, going along each row in turn.
+     *
+     * @return Imaginary parts
+     */
+    public double[] getImaginaryArray() {
+        return imag.clone();
+    }
+
+    /**
+     * Returns the real parts of all elements as a matrix.
+     *
+     * @return Real parts
+     */
+    public DenseMatrix getReal() {
+        return new DenseMatrix(rows, cols, real);
+    }
+
+    /**
+     * Returns the imaginary parts of all elements as a matrix.
+     *
+     * @return Imaginary parts
+     */
+    public DenseMatrix getImaginary() {
+        return new DenseMatrix(rows, cols, imag);
+    }
+
+    /**
+     * Returns the magnitude (modulus) of each element as a matrix. This is computed so as to not overflow or underflow
+     * when squaring very large or small parts.
+     *
+     * @return Magnitudes
+     */
+    public DenseMatrix getMagnitudes() {
+
+        double[] magnitudes = new double[real.length];
+
+        for (int i = 0; i < real.length; i++) {
+            magnitudes[i] = magnitude(real[i], imag[i]);
+        }
+
+        return new DenseMatrix(rows, cols, magnitudes);
+
+    }
+
+    /**
+     * Returns the phase (argument) of each element, in radians between -pi and pi, as a matrix.
+     *
+     * @return Phases
+     */
+    public DenseMatrix getPhases() {
+
+        double[] phases = new double[real.length];
+
+        for (int i = 0; i < real.length; i++) {
+            phases[i] = Math.atan2(imag[i], real[i]);
+        }
+
+        return new DenseMatrix(rows, cols, phases);
+
+    }
+
+    private static double magnitude(double re, double im) {
+
+        double a = Math.abs(re);
+        double b = Math.abs(im);
+
+        if (a < b) {
+            double q = a / b;
+            return b * Math.sqrt(1.0 + q * q);
+        } else if (a == 0.0) {
+            return 0.0;
+        } else {
+            double q = b / a;
+            return a * Math.sqrt(1.0 + q * q);
+        }
+
+    }
+
+    @Override
+    public DenseComplexMatrix getDiagonal() {
+
+        if (!isSquare()) {
+            throw new NonSquareException();
+        }
+
+        DenseComplexMatrix diagonal = new DenseComplexMatrix(rows, 1);
+
+        for (int i = 0; i < rows; i++) {
+            diagonal.real[i] = real[i * cols + i];
+            diagonal.imag[i] = imag[i * cols + i];
+        }
+
+        return diagonal;
+
+    }
+
+    @Override
+    public void setDiagonal(Complex... values) {
+
+        if (!isSquare()) {
+            throw new NonSquareException();
+        }
+
+        if (values.length != rows) {
+            throw new DimensionException(values.length, rows);
+        }
+
+        for (int i = 0; i < rows; i++) {
+            real[i * cols + i] = values[i].getReal();
+            imag[i * cols + i] = values[i].getImaginary();
+        }
+
+    }
+
+    @Override
+    public void setDiagonal(Complex value) {
+
+        if (!isSquare()) {
+            throw new NonSquareException();
+        }
+
+        for (int i = 0; i < rows; i++) {
+            real[i * cols + i] = value.getReal();
+            imag[i * cols + i] = value.getImaginary();
+        }
+
+    }
+
+    @Override
+    public void setAll(Complex... values) {
+
+        if (values.length != real.length) {
+            throw new DimensionException(values.length, real.length);
+        }
+
+        for (int i = 0; i < real.length; i++) {
+            real[i] = values[i].getReal();
+            imag[i] = values[i].getImaginary();
+        }
+
+    }
+
+    @Override
+    public void setAll(Complex value) {
+        Arrays.fill(real, value.getReal());
+        Arrays.fill(imag, value.getImaginary());
+    }
+
+    @Override
+    public void setCol(int col, Complex... values) {
+
+        checkIndices(0, col);
+
+        if (values.length != rows) {
+            throw new DimensionException(values.length, 1, rows, 1);
+        }
+
+        for (int r = 0; r < rows; r++) {
+            real[r * cols + col] = values[r].getReal();
+            imag[r * cols + col] = values[r].getImaginary();
+        }
+
+    }
+
+    @Override
+    public void setCol(int col, Matrix<Complex> values) {
+
+        if (values.rows() != rows) {
+            throw new DimensionException(values, rows, -1);
+        }
+
+        if (values.cols() != 1) {
+            throw new NonColException();
+        }
+
+        setCol(col, values.getColArray(0));
+
+    }
+
+    @Override
+    public void mapElement(int row, int col, GFunction<Complex, Complex> mapper) {
+        set(row, col, mapper.value(get(row, col)));
+    }
+
+    @Override
+    public void multiplyElement(int row, int col, Complex value) {
+
+        checkIndices(row, col);
+
+        int    i  = row * cols + col;
+        double re = real[i];
+        double im = imag[i];
+
+        real[i] = re * value.getReal() - im * value.getImaginary();
+        imag[i] = re * value.getImaginary() + im * value.getReal();
+
+    }
+
+    @Override
+    public void divideElement(int row, int col, Complex value) {
+        checkIndices(row, col);
+        divide(real, imag, row * cols + col, value.getReal(), value.getImaginary());
+    }
+
+    @Override
+    public void addToElement(int row, int col, Complex value) {
+        checkIndices(row, col);
+        real[row * cols + col] += value.getReal();
+        imag[row * cols + col] += value.getImaginary();
+    }
+
+    @Override
+    public void subtractFromElement(int row, int col, Complex value) {
+        checkIndices(row, col);
+        real[row * cols + col] -= value.getReal();
+        imag[row * cols + col] -= value.getImaginary();
+    }
+
+    /**
+     * Divides element i of the given arrays by (c + id) in-place, scaling by the larger part of the divisor first so as
+     * not to overflow (Smith's algorithm, as used by Complex.divide()).
+     */
+    private static void divide(double[] real, double[] imag, int i, double c, double d) {
+
+        double a = real[i];
+        double b = imag[i];
+
+        if (Math.abs(c) < Math.abs(d)) {
+            double q = c / d;
+            double s = c * q + d;
+            real[i] = (a * q + b) / s;
+            imag[i] = (b * q - a) / s;
+        } else {
+            double q = d / c;
+            double s = d * q + c;
+            real[i] = (b * q + a) / s;
+            imag[i] = (b - a * q) / s;
+        }
+
+    }
+
+    @Override
+    public DenseComplexMatrix map(EntryMapper<Complex, Complex> mapper) {
+
+        DenseComplexMatrix result = new DenseComplexMatrix(rows, cols);
+
+        for (int r = 0; r < rows; r++) {
+
+            for (int c = 0; c < cols; c++) {
+
+                int     i     = r * cols + c;
+                Complex value = mapper.map(r, c, new Complex(real[i], imag[i]));
+
+                result.real[i] = value.getReal();
+                result.imag[i] = value.getImaginary();
+
+            }
+
+        }
+
+        return result;
+
+    }
+
+    @Override
+    public DenseComplexMatrix map(GFunction<Complex, Complex> mapper) {
+        return map((r, c, v) -> mapper.value(v));
+    }
+
+    @Override
+    public void mapRow(int row, LinearMapper<Complex> mapper) {
+
+        checkIndices(row, 0);
+
+        for (int c = 0; c < cols; c++) {
+            set(row, c, mapper.map(c, get(row, c)));
+        }
+
+    }
+
+    @Override
+    public void mapCol(int col, LinearMapper<Complex> mapper) {
+
+        checkIndices(0, col);
+
+        for (int r = 0; r < rows; r++) {
+            set(r, col, mapper.map(r, get(r, col)));
+        }
+
+    }
+
+    @Override
+    public void mapRowToRow(int source, int dest, LinearMapper<Complex> mapper) {
+
+        checkIndices(source, 0);
+        checkIndices(dest, 0);
+
+        for (int c = 0; c < cols; c++) {
+            set(dest, c, mapper.map(c, get(source, c)));
+        }
+
+    }
+
+    @Override
+    public void mapColToCol(int source, int dest, LinearMapper<Complex> mapper) {
+
+        checkIndices(0, source);
+        checkIndices(0, dest);
+
+        for (int r = 0; r < rows; r++) {
+            set(r, dest, mapper.map(r, get(r, source)));
+        }
+
+    }
+
+    @Override
+    public Complex[] getRowArray(int row) {
+
+        checkIndices(row, 0);
+
+        Complex[] values = new Complex[cols];
+
+        for (int c = 0; c < cols; c++) {
+            values[c] = new Complex(real[row * cols + c], imag[row * cols + c]);
+        }
+
+        return values;
+
+    }
+
+    @Override
+    public Complex[] getColArray(int col) {
+
+        checkIndices(0, col);
+
+        Complex[] values = new Complex[rows];
+
+        for (int r = 0; r < rows; r++) {
+            values[r] = new Complex(real[r * cols + col], imag[r * cols + col]);
+        }
+
+        return values;
+
+    }
+
+    @Override
+    public DenseComplexMatrix getRowMatrix(int row) {
+        return getSubMatrix(row, row, 0, cols - 1);
+    }
+
+    @Override
+    public DenseComplexMatrix getColMatrix(int col) {
+        return getSubMatrix(0, rows - 1, col, col);
+    }
+
+    @Override
+    public DenseComplexMatrix multiply(Matrix<Complex> rhs) {
+
+        if (!Matrix.canMultiply(this, rhs)) {
+            throw new DimensionException(rhs, cols, -1);
+        }
+
+        DenseComplexMatrix result = new DenseComplexMatrix(rows, rhs.cols());
+        multiply(this, asDenseComplexMatrix(rhs), result);
+        return result;
+
+    }
+
+    /**
+     * Multiplies this matrix by a real matrix (this * rhs), without first converting it into a complex one.
+     *
+     * @param rhs Right-hand side of multiplication
+     *
+     * @return Result of multiplication
+     */
+    public DenseComplexMatrix multiplyReal(Matrix<Double> rhs) {
+
+        if (!Matrix.canMultiply(this, rhs)) {
+            throw new DimensionException(rhs, cols, -1);
+        }
+
+        DenseMatrix right = DenseMatrix.asDenseMatrix(rhs);
+        DenseMatrix re    = getReal().multiply(right);
+        DenseMatrix im    = getImaginary().multiply(right);
+
+        return new DenseComplexMatrix(re, im);
+
+    }
+
+    /**
+     * Multiplies this matrix by another (this * rhs), writing the result into an existing matrix instead of creating a
+     * new one. The result matrix may be this matrix or rhs, in which case a temporary copy is made.
+     *
+     * @param rhs    Right-hand side of multiplication
+     * @param result Matrix to write the result into (must be this.rows() x rhs.cols())
+     */
+    public void multiplyInto(Matrix<Complex> rhs, DenseComplexMatrix result) {
+
+        if (!Matrix.canMultiply(this, rhs)) {
+            throw new DimensionException(rhs, cols, -1);
+        }
+
+        if (result.rows != rows || result.cols != rhs.cols()) {
+            throw new DimensionException(result, rows, rhs.cols());
+        }
+
+        DenseComplexMatrix right = asDenseComplexMatrix(rhs);
+
+        if (result == this || result == right) {
+            DenseComplexMatrix temp = new DenseComplexMatrix(rows, right.cols);
+            multiply(this, right, temp);
+            System.arraycopy(temp.real, 0, result.real, 0, result.real.length);
+            System.arraycopy(temp.imag, 0, result.imag, 0, result.imag.length);
+        } else {
+            multiply(this, right, result);
+        }
+
+    }
+
+    private static void multiply(DenseComplexMatrix lhs, DenseComplexMatrix rhs, DenseComplexMatrix result) {
+
+        Arrays.fill(result.real, 0.0);
+        Arrays.fill(result.imag, 0.0);
+
+        long work = (long) lhs.rows * lhs.cols * rhs.cols;
+
+        if (work < PARALLEL_WORK || lhs.rows <= BLOCK) {
+            multiplyRows(lhs, rhs, result, 0, lhs.rows);
+        } else {
+            ForkJoinPool.commonPool().invoke(new MultiplyTask(lhs, rhs, result, 0, lhs.rows));
+        }
+
+    }
+
+    /**
+     * Accumulates rows [start, end) of lhs * rhs into result in cache-sized blocks. The real and imaginary parts of
+     * each product are built up together in the same pass, rather than as four separate real multiplications.
+     */
+    private static void multiplyRows(DenseComplexMatrix lhs, DenseComplexMatrix rhs, DenseComplexMatrix result, int start, int end) {
+
+        double[] aRe   = lhs.real;
+        double[] aIm   = lhs.imag;
+        double[] bRe   = rhs.real;
+        double[] bIm   = rhs.imag;
+        double[] cRe   = result.real;
+        double[] cIm   = result.imag;
+        int      inner = lhs.cols;
+        int      width = rhs.cols;
+
+        for (int i0 = start; i0 < end; i0 += BLOCK) {
+
+            int iMax = Math.min(i0 + BLOCK, end);
+
+            for (int k0 = 0; k0 < inner; k0 += BLOCK) {
+
+                int kMax = Math.min(k0 + BLOCK, inner);
+
+                for (int j0 = 0; j0 < width; j0 += BLOCK) {
+
+                    int jMax = Math.min(j0 + BLOCK, width);
+
+                    for (int i = i0; i < iMax; i++) {
+
+                        int aRow = i * inner;
+                        int cRow = i * width;
+
+                        for (int k = k0; k < kMax; k++) {
+
+                            double re = aRe[aRow + k];
+                            double im = aIm[aRow + k];
+
+                            if (re == 0.0 && im == 0.0) {
+                                continue;
+                            }
+
+                            int bRow = k * width;
+
+                            for (int j = j0; j < jMax; j++) {
+                                cRe[cRow + j] += re * bRe[bRow + j] - im * bIm[bRow + j];
+                                cIm[cRow + j] += re * bIm[bRow + j] + im * bRe[bRow + j];
+                            }
+
+                        }
+
+                    }
+
+                }
+
+            }
+
+        }
+
+    }
+
+    @Override
+    public DenseComplexMatrix leftMultiply(Matrix<Complex> lhs) {
+        return asDenseComplexMatrix(lhs).multiply(this);
+    }
+
+    @Override
+    public DenseComplexMatrix multiply(Complex rhs) {
+        DenseComplexMatrix result = copy();
+        result.multiplySelf(rhs.getReal(), rhs.getImaginary());
+        return result;
+    }
+
+    @Override
+    public DenseComplexMatrix leftMultiply(Complex lhs) {
+        return multiply(lhs);
+    }
+
+    @Override
+    public DenseComplexMatrix elementMultiply(Matrix<Complex> rhs) {
+        DenseComplexMatrix result = copy();
+        result.elementMultiplySelf(rhs);
+        return result;
+    }
+
+    @Override
+    public DenseComplexMatrix leftElementMultiply(Matrix<Complex> lhs) {
+        return elementMultiply(lhs);
+    }
+
+    @Override
+    public DenseComplexMatrix elementDivide(Matrix<Complex> rhs) {
+        DenseComplexMatrix result = copy();
+        result.elementDivideSelf(rhs);
+        return result;
+    }
+
+    @Override
+    public DenseComplexMatrix leftElementDivide(Matrix<Complex> lhs) {
+        return asDenseComplexMatrix(lhs).elementDivide(this);
+    }
+
+    @Override
+    public DenseComplexMatrix divide(Complex rhs) {
+
+        DenseComplexMatrix result = copy();
+
+        for (int i = 0; i < real.length; i++) {
+            divide(result.real, result.imag, i, rhs.getReal(), rhs.getImaginary());
+        }
+
+        return result;
+
+    }
+
+    @Override
+    public DenseComplexMatrix leftDivide(Complex lhs) {
+
+        DenseComplexMatrix result = new DenseComplexMatrix(rows, cols);
+
+        Arrays.fill(result.real, lhs.getReal());
+        Arrays.fill(result.imag, lhs.getImaginary());
+
+        for (int i = 0; i < real.length; i++) {
+            divide(result.real, result.imag, i, real[i], imag[i]);
+        }
+
+        return result;
+
+    }
+
+    @Override
+    public DenseComplexMatrix add(Matrix<Complex> rhs) {
+        DenseComplexMatrix result = copy();
+        result.addSelf(rhs);
+        return result;
+    }
+
+    @Override
+    public DenseComplexMatrix add(Complex rhs) {
+
+        DenseComplexMatrix result = copy();
+
+        for (int i = 0; i < real.length; i++) {
+            result.real[i] += rhs.getReal();
+            result.imag[i] += rhs.getImaginary();
+        }
+
+        return result;
+
+    }
+
+    @Override
+    public DenseComplexMatrix subtract(Matrix<Complex> rhs) {
+        DenseComplexMatrix result = copy();
+        result.subtractSelf(rhs);
+        return result;
+    }
+
+    @Override
+    public DenseComplexMatrix subtract(Complex rhs) {
+        return add(rhs.negate());
+    }
+
+    /**
+     * Adds the given matrix to this one, in-place.
+     *
+     * @param rhs Matrix to add (same dimensions as this)
+     */
+    public void addSelf(Matrix<Complex> rhs) {
+
+        DenseComplexMatrix other = matching(rhs);
+
+        for (int i = 0; i < real.length; i++) {
+            real[i] += other.real[i];
+            imag[i] += other.imag[i];
+        }
+
+    }
+
+    /**
+     * Subtracts the given matrix from this one, in-place.
+     *
+     * @param rhs Matrix to subtract (same dimensions as this)
+     */
+    public void subtractSelf(Matrix<Complex> rhs) {
+
+        DenseComplexMatrix other = matching(rhs);
+
+        for (int i = 0; i < real.length; i++) {
+            real[i] -= other.real[i];
+            imag[i] -= other.imag[i];
+        }
+
+    }
+
+    /**
+     * Multiplies every element of this matrix by the given complex value (re + i im), in-place.
+     *
+     * @param re Real part
+     * @param im Imaginary part
+     */
+    public void multiplySelf(double re, double im) {
+
+        for (int i = 0; i < real.length; i++) {
+            double a = real[i];
+            double b = imag[i];
+            real[i] = a * re - b * im;
+            imag[i] = a * im + b * re;
+        }
+
+    }
+
+    /**
+     * Multiplies each element of this matrix by its corresponding element in the given matrix, in-place.
+     *
+     * @param rhs Matrix to multiply by (same dimensions as this)
+     */
+    public void elementMultiplySelf(Matrix<Complex> rhs) {
+
+        DenseComplexMatrix other = matching(rhs);
+
+        for (int i = 0; i < real.length; i++) {
+            double a = real[i];
+            double b = imag[i];
+            real[i] = a * other.real[i] - b * other.imag[i];
+            imag[i] = a * other.imag[i] + b * other.real[i];
+        }
+
+    }
+
+    /**
+     * Divides each element of this matrix by its corresponding element in the given matrix, in-place.
+     *
+     * @param rhs Matrix to divide by (same dimensions as this)
+     */
+    public void elementDivideSelf(Matrix<Complex> rhs) {
+
+        DenseComplexMatrix other = matching(rhs);
+
+        for (int i = 0; i < real.length; i++) {
+            divide(real, imag, i, other.real[i], other.imag[i]);
+        }
+
+    }
+
+    /**
+     * Replaces every element of this matrix with its complex conjugate, in-place.
+     */
+    public void conjugateSelf() {
+
+        for (int i = 0; i < imag.length; i++) {
+            imag[i] = -imag[i];
+        }
+
+    }
+
+    private DenseComplexMatrix matching(Matrix<Complex> rhs) {
+
+        if (!Matrix.dimensionsMatch(this, rhs)) {
+            throw new DimensionException(rhs, this);
+        }
+
+        return asDenseComplexMatrix(rhs);
+
+    }
+
+    @Override
+    public DenseComplexMatrix times(Matrix<Complex> rhs) {
+        return multiply(rhs);
+    }
+
+    @Override
+    public DenseComplexMatrix times(Complex rhs) {
+        return multiply(rhs);
+    }
+
+    @Override
+    public DenseComplexMatrix divide(Matrix<Complex> rhs) {
+        return multiply(rhs.invert());
+    }
+
+    @Override
+    public DenseComplexMatrix div(Matrix<Complex> rhs) {
+        return divide(rhs);
+    }
+
+    @Override
+    public DenseComplexMatrix div(Complex rhs) {
+        return divide(rhs);
+    }
+
+    @Override
+    public DenseComplexMatrix plus(Matrix<Complex> rhs) {
+        return add(rhs);
+    }
+
+    @Override
+    public DenseComplexMatrix plus(Complex rhs) {
+        return add(rhs);
+    }
+
+    @Override
+    public DenseComplexMatrix minus(Matrix<Complex> rhs) {
+        return subtract(rhs);
+    }
+
+    @Override
+    public DenseComplexMatrix minus(Complex rhs) {
+        return subtract(rhs);
+    }
+
+    @Override
+    public DenseComplexMatrix copy() {
+        return new DenseComplexMatrix(real, imag, rows, cols);
+    }
+
+    @Override
+    public DenseComplexMatrix getSubMatrix(int[] rows, int[] cols) {
+
+        DenseComplexMatrix subMatrix = new DenseComplexMatrix(rows.length, cols.length);
+
+        for (int r = 0; r < rows.length; r++) {
+
+            if (rows[r] < 0 || rows[r] >= this.rows) {
+                throw new SubMatrixException(this, rows, cols);
+            }
+
+            for (int c = 0; c < cols.length; c++) {
+
+                if (cols[c] < 0 || cols[c] >= this.cols) {
+                    throw new SubMatrixException(this, rows, cols);
+                }
+
+                subMatrix.real[r * cols.length + c] = real[rows[r] * this.cols + cols[c]];
+                subMatrix.imag[r * cols.length + c] = imag[rows[r] * this.cols + cols[c]];
+
+            }
+
+        }
+
+        return subMatrix;
+
+    }
+
+    @Override
+    public DenseComplexMatrix getSubMatrix(int startRow, int endRow, int startCol, int endCol) {
+
+        if (startRow < 0 || startCol < 0 || endRow >= rows || endCol >= cols || endRow < startRow || endCol < startCol) {
+            throw new SubMatrixException(this, new int[]{startRow, endRow}, new int[]{startCol, endCol});
+        }
+
+        int                width     = endCol - startCol + 1;
+        DenseComplexMatrix subMatrix = new DenseComplexMatrix(endRow - startRow + 1, width);
+
+        for (int r = startRow; r <= endRow; r++) {
+            System.arraycopy(real, r * cols + startCol, subMatrix.real, (r - startRow) * width, width);
+            System.arraycopy(imag, r * cols + startCol, subMatrix.imag, (r - startRow) * width, width);
+        }
+
+        return subMatrix;
+
+    }
+
+    @Override
+    public void setSubMatrix(int startRow, int startCol, Matrix<Complex> subMatrix) {
+
+        if (startRow < 0 || startCol < 0 || startRow + subMatrix.rows() > rows || startCol + subMatrix.cols() > cols) {
+            throw new SubMatrixException(this, subMatrix, startRow, startCol);
+        }
+
+        DenseComplexMatrix source = asDenseComplexMatrix(subMatrix);
+
+        for (int r = 0; r < source.rows; r++) {
+            System.arraycopy(source.real, r * source.cols, real, (startRow + r) * cols + startCol, source.cols);
+            System.arraycopy(source.imag, r * source.cols, imag, (startRow + r) * cols + startCol, source.cols);
+        }
+
+    }
+
+    @Override
+    public DenseComplexMatrix appendRows(Matrix<Complex> rows) {
+
+        if (rows.cols() != cols) {
+            throw new DimensionException(rows, -1, cols);
+        }
+
+        DenseComplexMatrix newMatrix = new DenseComplexMatrix(this.rows + rows.rows(), cols);
+
+        newMatrix.setSubMatrix(0, 0, this);
+        newMatrix.setSubMatrix(this.rows, 0, rows);
+
+        return newMatrix;
+
+    }
+
+    @Override
+    public DenseComplexMatrix appendCols(Matrix<Complex> cols) {
+
+        if (cols.rows() != rows) {
+            throw new DimensionException(cols, this.cols, -1);
+        }
+
+        DenseComplexMatrix newMatrix = new DenseComplexMatrix(rows, this.cols + cols.cols());
+
+        newMatrix.setSubMatrix(0, 0, this);
+        newMatrix.setSubMatrix(0, this.cols, cols);
+
+        return newMatrix;
+
+    }
+
+    @Override
+    public boolean isSingular() {
+        return !isSquare() || getLU().isSingular();
+    }
+
+    @Override
+    public Complex getDeterminant() {
+        return getLU().getDeterminant();
+    }
+
+    @Override
+    public Complex getTrace() {
+
+        if (!isSquare()) {
+            throw new NonSquareException();
+        }
+
+        double re = 0.0;
+        double im = 0.0;
+
+        for (int i = 0; i < rows; i++) {
+            re += real[i * cols + i];
+            im += imag[i * cols + i];
+        }
+
+        return new Complex(re, im);
+
+    }
+
+    @Override
+    public DenseComplexMatrix invert() {
+        return getLU().solve(identity(rows));
+    }
+
+    @Override
+    public DenseComplexMatrix transpose() {
+        return transpose(false);
+    }
+
+    /**
+     * Returns the conjugate (Hermitian) transpose of this matrix, transposing and conjugating in a single pass.
+     *
+     * @return Conjugate transpose
+     */
+    public DenseComplexMatrix conjugateTranspose() {
+        return transpose(true);
+    }
+
+    /**
+     * Returns the complex conjugate of this matrix.
+     *
+     * @return Conjugate
+     */
+    public DenseComplexMatrix conjugate() {
+        DenseComplexMatrix result = copy();
+        result.conjugateSelf();
+        return result;
+    }
+
+    private DenseComplexMatrix transpose(boolean conjugate) {
+
+        DenseComplexMatrix result = new DenseComplexMatrix(cols, rows);
+        double             sign   = conjugate ? -1.0 : 1.0;
+
+        for (int r0 = 0; r0 < rows; r0 += BLOCK) {
+
+            int rMax = Math.min(r0 + BLOCK, rows);
+
+            for (int c0 = 0; c0 < cols; c0 += BLOCK) {
+
+                int cMax = Math.min(c0 + BLOCK, cols);
+
+                for (int r = r0; r < rMax; r++) {
+
+                    for (int c = c0; c < cMax; c++) {
+                        result.real[c * rows + r] = real[r * cols + c];
+                        result.imag[c * rows + r] = sign * imag[r * cols + c];
+                    }
+
+                }
+
+            }
+
+        }
+
+        return result;
+
+    }
+
+    @Override
+    public DenseComplexMatrix reshape(int rows, int cols) {
+
+        if (rows * cols != size()) {
+            throw new DimensionException(rows * cols, size());
+        }
+
+        return new DenseComplexMatrix(real, imag, rows, cols);
+
+    }
+
+    /**
+     * Solves this * x = rhs for x. If this matrix is square, this is done by LU decomposition. Otherwise (if there are
+     * more rows than columns) the least-squares solution is found by QR decomposition.
+     *
+     * @param rhs Right-hand side of equation
+     *
+     * @return Solution, x
+     */
+    @Override
+    public DenseComplexMatrix leftDivide(Matrix<Complex> rhs) {
+
+        if (rows != rhs.rows()) {
+            throw new DimensionException(rhs, rows, -1);
+        }
+
+        if (isSquare()) {
+            return getLU().solve(rhs);
+        } else {
+            return getQR().solve(rhs);
+        }
+
+    }
+
+    @Override
+    public QR getQR() {
+        return new QR(this);
+    }
+
+    @Override
+    public LU getLU() {
+
+        if (!isSquare()) {
+            throw new NonSquareException();
+        }
+
+        return new LU(this);
+
+    }
+
+    @Override
+    public DenseComplexMatrix getRowSums() {
+
+        DenseComplexMatrix sums = new DenseComplexMatrix(rows, 1);
+
+        for (int r = 0; r < rows; r++) {
+
+            for (int c = 0; c < cols; c++) {
+                sums.real[r] += real[r * cols + c];
+                sums.imag[r] += imag[r * cols + c];
+            }
+
+        }
+
+        return sums;
+
+    }
+
+    @Override
+    public DenseComplexMatrix getColSums() {
+
+        DenseComplexMatrix sums = new DenseComplexMatrix(1, cols);
+
+        for (int r = 0; r < rows; r++) {
+
+            for (int c = 0; c < cols; c++) {
+                sums.real[c] += real[r * cols + c];
+                sums.imag[c] += imag[r * cols + c];
+            }
+
+        }
+
+        return sums;
+
+    }
+
+    public String toString() {
+
+        String[] rowStrings = new String[rows];
+
+        for (int r = 0; r < rows; r++) {
+
+            String[] colStrings = new String[cols];
+
+            for (int c = 0; c < cols; c++) {
+                colStrings[c] = String.format("%s + i%s", real[r * cols + c], imag[r * cols + c]);
+            }
+
+            rowStrings[r] = String.join(", ", colStrings);
+
+        }
+
+        return "[ " + String.join("; ", rowStrings) + " ]";
+
+    }
+
+    /**
+     * Splits the multiplication of a large matrix into bands of rows, each of which is done on its own thread.
+     */
+    private static class MultiplyTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final DenseComplexMatrix lhs;
+        private final DenseComplexMatrix rhs;
+        private final DenseComplexMatrix result;
+        private final int                start;
+        private final int                end;
+
+        private MultiplyTask(DenseComplexMatrix lhs, DenseComplexMatrix rhs, DenseComplexMatrix result, int start, int end) {
+            this.lhs    = lhs;
+            this.rhs    = rhs;
+            this.result = result;
+            this.start  = start;
+            this.end    = end;
+        }
+
+        @Override
+        protected void compute() {
+
+            long work = (long) (end - start) * lhs.cols * rhs.cols;
+
+            if (end - start <= BLOCK || work < PARALLEL_WORK) {
+                multiplyRows(lhs, rhs, result, start, end);
+                return;
+            }
+
+            int middle = start + Math.max(1, (end - start) / (2 * BLOCK)) * BLOCK;
+
+            invokeAll(
+                new MultiplyTask(lhs, rhs, result, start, middle),
+                new MultiplyTask(lhs, rhs, result, middle, end)
+            );
+
+        }
+
+    }
+
+    /**
+     * LU decomposition (with partial pivoting) of a square DenseComplexMatrix, such that P * A = L * U. The matrix is
+     * taken to be singular if a pivot is smaller (in magnitude) than SINGULARITY_THRESHOLD times its largest element.
+     */
+    public static class LU implements jisa.maths.matrices.LU<Complex> {
+
+        private static final double SINGULARITY_THRESHOLD = 1e-11;
+
+        private final int      size;
+        private final double[] re;
+        private final double[] im;
+        private final int[]    pivot;
+        private final boolean  singular;
+        private final int      sign;
+
+        public LU(DenseComplexMatrix matrix) {
+
+            if (!matrix.isSquare()) {
+                throw new NonSquareException();
+            }
+
+            size  = matrix.rows;
+            re    = matrix.real.clone();
+            im    = matrix.imag.clone();
+            pivot = new int[size];
+
+            boolean singular  = false;
+            int     sign      = 1;
+            double  tolerance = 0.0;
+
+            for (int i = 0; i < size; i++) {
+                pivot[i] = i;
+            }
+
+            for (int i = 0; i < re.length; i++) {
+                tolerance = Math.max(tolerance, magnitude(re[i], im[i]));
+            }
+
+            tolerance *= SINGULARITY_THRESHOLD;
+
+            for (int k = 0; k < size; k++) {
+
+                int    best = k;
+                double max  = magnitude(re[k * size + k], im[k * size + k]);
+
+                for (int i = k + 1; i < size; i++) {
+
+                    double value = magnitude(re[i * size + k], im[i * size + k]);
+
+                    if (value > max) {
+                        max  = value;
+                        best = i;
+                    }
+
+                }
+
+                if (max <= tolerance) {
+                    singular = true;
+                    continue;
+                }
+
+                if (best != k) {
+
+                    swapRows(re, k, best);
+                    swapRows(im, k, best);
+
+                    int temp = pivot[k];
+                    pivot[k]    = pivot[best];
+                    pivot[best] = temp;
+                    sign        = -sign;
+
+                }
+
+                int    d    = k * size + k;
+                double dRe  = re[d];
+                double dIm  = im[d];
+
+                for (int i = k + 1; i < size; i++) {
+
+                    // factor = a[i][k] / a[k][k], stored in place as the L element
+                    divide(re, im, i * size + k, dRe, dIm);
+
+                    double fRe = re[i * size + k];
+                    double fIm = im[i * size + k];
+
+                    if (fRe == 0.0 && fIm == 0.0) {
+                        continue;
+                    }
+
+                    for (int j = k + 1; j < size; j++) {
+                        double uRe = re[k * size + j];
+                        double uIm = im[k * size + j];
+                        re[i * size + j] -= fRe * uRe - fIm * uIm;
+                        im[i * size + j] -= fRe * uIm + fIm * uRe;
+                    }
+
+                }
+
+            }
+
+            this.singular = singular;
+            this.sign     = sign;
+
+        }
+
+        private void swapRows(double[] values, int a, int b) {
+
+            for (int j = 0; j < size; j++) {
+                double temp = values[a * size + j];
+                values[a * size + j] = values[b * size + j];
+                values[b * size + j] = temp;
+            }
+
+        }
+
+        @Override
+        public DenseComplexMatrix getL() {
+
+            DenseComplexMatrix l = new DenseComplexMatrix(size, size);
+
+            for (int r = 0; r < size; r++) {
+                System.arraycopy(re, r * size, l.real, r * size, r);
+                System.arraycopy(im, r * size, l.imag, r * size, r);
+                l.real[r * size + r] = 1.0;
+            }
+
+            return l;
+
+        }
+
+        @Override
+        public DenseComplexMatrix getU() {
+
+            DenseComplexMatrix u = new DenseComplexMatrix(size, size);
+
+            for (int r = 0; r < size; r++) {
+                System.arraycopy(re, r * size + r, u.real, r * size + r, size - r);
+                System.arraycopy(im, r * size + r, u.imag, r * size + r, size - r);
+            }
+
+            return u;
+
+        }
+
+        @Override
+        public DenseComplexMatrix getP() {
+
+            DenseComplexMatrix p = new DenseComplexMatrix(size, size);
+
+            for (int r = 0; r < size; r++) {
+                p.real[r * size + pivot[r]] = 1.0;
+            }
+
+            return p;
+
+        }
+
+        public boolean isSingular() {
+            return singular;
+        }
+
+        public Complex getDeterminant() {
+
+            if (singular) {
+                return Complex.ZERO;
+            }
+
+            double dRe = sign;
+            double dIm = 0.0;
+
+            for (int i = 0; i < size; i++) {
+                double a = re[i * size + i];
+                double b = im[i * size + i];
+                double t = dRe * a - dIm * b;
+                dIm = dRe * b + dIm * a;
+                dRe = t;
+            }
+
+            return new Complex(dRe, dIm);
+
+        }
+
+        /**
+         * Solves A * x = rhs for x, where A is the decomposed matrix.
+         *
+         * @param rhs Right-hand side
+         *
+         * @return Solution, x
+         */
+        public DenseComplexMatrix solve(Matrix<Complex> rhs) {
+
+            if (rhs.rows() != size) {
+                throw new DimensionException(rhs, size, -1);
+            }
+
+            if (singular) {
+                throw new SingularException();
+            }
+
+            DenseComplexMatrix b     = asDenseComplexMatrix(rhs);
+            int                width = b.cols;
+            DenseComplexMatrix x     = new DenseComplexMatrix(size, width);
+            double[]           xRe   = x.real;
+            double[]           xIm   = x.imag;
+
+            for (int r = 0; r < size; r++) {
+                System.arraycopy(b.real, pivot[r] * width, xRe, r * width, width);
+                System.arraycopy(b.imag, pivot[r] * width, xIm, r * width, width);
+            }
+
+            // Forward substitution with L (unit diagonal)
+            for (int i = 0; i < size; i++) {
+
+                for (int k = 0; k < i; k++) {
+                    subtractRow(xRe, xIm, width, i, k, re[i * size + k], im[i * size + k]);
+                }
+
+            }
+
+            // Back substitution with U
+            for (int i = size - 1; i >= 0; i--) {
+
+                for (int k = i + 1; k < size; k++) {
+                    subtractRow(xRe, xIm, width, i, k, re[i * size + k], im[i * size + k]);
+                }
+
+                for (int j = 0; j < width; j++) {
+                    divide(xRe, xIm, i * width + j, re[i * size + i], im[i * size + i]);
+                }
+
+            }
+
+            return x;
+
+        }
+
+        /**
+         * Subtracts (fRe + i fIm) times row k from row i of the given row-major arrays.
+         */
+        private static void subtractRow(double[] xRe, double[] xIm, int width, int i, int k, double fRe, double fIm) {
+
+            if (fRe == 0.0 && fIm == 0.0) {
+                return;
+            }
+
+            for (int j = 0; j < width; j++) {
+                double vRe = xRe[k * width + j];
+                double vIm = xIm[k * width + j];
+                xRe[i * width + j] -= fRe * vRe - fIm * vIm;
+                xIm[i * width + j] -= fRe * vIm + fIm * vRe;
+            }
+
+        }
+
+    }
+
+    /**
+     * QR decomposition of a DenseComplexMatrix by Householder reflections, such that A = Q * R, where Q is unitary.
+     * Since Q is complex, getQT() returns its conjugate transpose (its inverse) rather than its plain transpose. A
+     * diagonal element of R is taken to be zero if it is smaller than SINGULARITY_THRESHOLD times the norm of its
+     * column of A.
+     */
+    public static class QR implements jisa.maths.matrices.QR<Complex> {
+
+        private static final double SINGULARITY_THRESHOLD = 1e-11;
+
+        private final int      rows;
+        private final int      cols;
+        private final int      steps;
+        private final double[] re;
+        private final double[] im;
+        private final double[] rDiagRe;
+        private final double[] rDiagIm;
+        private final double[] beta;
+        private final double[] norms;
+
+        public QR(DenseComplexMatrix matrix) {
+
+            rows    = matrix.rows;
+            cols    = matrix.cols;
+            steps   = Math.min(rows, cols);
+            re      = matrix.real.clone();
+            im      = matrix.imag.clone();
+            rDiagRe = new double[steps];
+            rDiagIm = new double[steps];
+            beta    = new double[steps];
+            norms   = new double[steps];
+
+            double[] sumRe = new double[cols];
+            double[] sumIm = new double[cols];
+
+            for (int i = 0; i < rows; i++) {
+
+                for (int j = 0; j < steps; j++) {
+                    norms[j] += re[i * cols + j] * re[i * cols + j] + im[i * cols + j] * im[i * cols + j];
+                }
+
+            }
+
+            for (int k = 0; k < steps; k++) {
+
+                double norm = 0.0;
+
+                for (int i = k; i < rows; i++) {
+                    norm += re[i * cols + k] * re[i * cols + k] + im[i * cols + k] * im[i * cols + k];
+                }
+
+                norm = Math.sqrt(norm);
+
+                if (norm == 0.0) {
+                    continue;
+                }
+
+                // v = x + e^(i arg(x0)) |x| e0, so that (I - beta v v^H) x = -e^(i arg(x0)) |x| e0
+                int    d     = k * cols + k;
+                double x0    = magnitude(re[d], im[d]);
+                double phRe  = x0 == 0.0 ? 1.0 : re[d] / x0;
+                double phIm  = x0 == 0.0 ? 0.0 : im[d] / x0;
+
+                rDiagRe[k] = -phRe * norm;
+                rDiagIm[k] = -phIm * norm;
+                re[d]     += phRe * norm;
+                im[d]     += phIm * norm;
+                beta[k]    = 1.0 / (norm * (norm + x0));
+
+                reflect(k, re, im, cols, k + 1, sumRe, sumIm);
+
+            }
+
+        }
+
+        /**
+         * Applies the k-th reflection, I - beta v v^H, to columns [from, width) of the given row-major arrays.
+         */
+        private void reflect(int k, double[] tRe, double[] tIm, int width, int from, double[] sumRe, double[] sumIm) {
+
+            if (beta[k] == 0.0) {
+                return;
+            }
+
+            Arrays.fill(sumRe, from, width, 0.0);
+            Arrays.fill(sumIm, from, width, 0.0);
+
+            // sum = v^H * target
+            for (int i = k; i < rows; i++) {
+
+                double vRe = re[i * cols + k];
+                double vIm = -im[i * cols + k];
+
+                for (int j = from; j < width; j++) {
+                    double a = tRe[i * width + j];
+                    double b = tIm[i * width + j];
+                    sumRe[j] += vRe * a - vIm * b;
+                    sumIm[j] += vRe * b + vIm * a;
+                }
+
+            }
+
+            // target -= beta * v * sum
+            for (int i = k; i < rows; i++) {
+
+                double vRe = beta[k] * re[i * cols + k];
+                double vIm = beta[k] * im[i * cols + k];
+
+                for (int j = from; j < width; j++) {
+                    tRe[i * width + j] -= vRe * sumRe[j] - vIm * sumIm[j];
+                    tIm[i * width + j] -= vRe * sumIm[j] + vIm * sumRe[j];
+                }
+
+            }
+
+        }
+
+        @Override
+        public DenseComplexMatrix getQ() {
+
+            DenseComplexMatrix q     = identity(rows);
+            double[]           sumRe = new double[rows];
+            double[]           sumIm = new double[rows];
+
+            for (int k = steps - 1; k >= 0; k--) {
+                reflect(k, q.real, q.imag, rows, k, sumRe, sumIm);
+            }
+
+            return q;
+
+        }
+
+        @Override
+        public DenseComplexMatrix getR() {
+
+            DenseComplexMatrix r = new DenseComplexMatrix(rows, cols);
+
+            for (int i = 0; i < steps; i++) {
+
+                r.real[i * cols + i] = rDiagRe[i];
+                r.imag[i * cols + i] = rDiagIm[i];
+
+                if (i + 1 < cols) {
+                    System.arraycopy(re, i * cols + i + 1, r.real, i * cols + i + 1, cols - i - 1);
+                    System.arraycopy(im, i * cols + i + 1, r.imag, i * cols + i + 1, cols - i - 1);
+                }
+
+            }
+
+            return r;
+
+        }
+
+        @Override
+        public DenseComplexMatrix getQT() {
+            return getQ().conjugateTranspose();
+        }
+
+        /**
+         * Returns the Householder vectors as the columns of a lower-trapezoidal matrix, each scaled so that the
+         * corresponding reflection is I - h h^H.
+         *
+         * @return Householder vectors
+         */
+        @Override
+        public DenseComplexMatrix getH() {
+
+            DenseComplexMatrix h = new DenseComplexMatrix(rows, cols);
+
+            for (int j = 0; j < steps; j++) {
+
+                double scale = Math.sqrt(beta[j]);
+
+                for (int i = j; i < rows; i++) {
+                    h.real[i * cols + j] = scale * re[i * cols + j];
+                    h.imag[i * cols + j] = scale * im[i * cols + j];
+                }
+
+            }
+
+            return h;
+
+        }
+
+        /**
+         * Finds the least-squares solution, x, to A * x = rhs, where A is the decomposed matrix (which must have at
+         * least as many rows as columns).
+         *
+         * @param rhs Right-hand side
+         *
+         * @return Solution, x
+         */
+        public DenseComplexMatrix solve(Matrix<Complex> rhs) {
+
+            if (rhs.rows() != rows) {
+                throw new DimensionException(rhs, rows, -1);
+            }
+
+            if (rows < cols) {
+                throw new MatrixException("Least-squares solution needs at least as many rows as columns.");
+            }
+
+            for (int i = 0; i < steps; i++) {
+
+                if (magnitude(rDiagRe[i], rDiagIm[i]) <= SINGULARITY_THRESHOLD * Math.sqrt(norms[i])) {
+                    throw new SingularException();
+                }
+
+            }
+
+            int                width = rhs.cols();
+            DenseComplexMatrix y     = new DenseComplexMatrix(rhs);
+            double[]           sumRe = new double[width];
+            double[]           sumIm = new double[width];
+
+            // y = Q^H * rhs
+            for (int k = 0; k < steps; k++) {
+                reflect(k, y.real, y.imag, width, 0, sumRe, sumIm);
+            }
+
+            // Back substitution with the top (square) part of R
+            for (int i = cols - 1; i >= 0; i--) {
+
+                for (int k = i + 1; k < cols; k++) {
+                    LU.subtractRow(y.real, y.imag, width, i, k, re[i * cols + k], im[i * cols + k]);
+                }
+
+                for (int j = 0; j < width; j++) {
+                    divide(y.real, y.imag, i * width + j, rDiagRe[i], rDiagIm[i]);
+                }
+
+            }
+
+            return y.getSubMatrix(0, cols - 1, 0, width - 1);
+
+        }
+
+    }
+
+}
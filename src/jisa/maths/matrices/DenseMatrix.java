@@ -0,0 +1,1791 @@
+package jisa.maths.matrices;
+
+import jisa.maths.functions.GFunction;
+import jisa.maths.matrices.exceptions.*;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.DoubleBinaryOperator;
+
+/**
+ * Real matrix stored as a single flat, row-major array of primitive doubles. Unlike RealMatrix (or AbstractMatrix),
+ * arithmetic is done directly on the array rather than element-by-element through get() and set(), so no values are
+ * boxed along the way. Multiplication is done in cache-sized blocks and is split over the common fork-join pool when
+ * the matrices involved are large enough for it to be worth it. Operations ending in "Self" (and multiplyInto()) work
+ * in-place, without allocating a new matrix for their result.
+ *
+ * <pre>
+ * DenseMatrix a = new DenseMatrix(3, 3, 1, 2, 3, 4, 5, 6, 7, 8, 10);
+ * DenseMatrix b = a.multiply(a.transpose());
+ *
+ * b.addSelf(DenseMatrix.identity(3));
+ *
+ * DenseMatrix x = b.leftDivide(DenseMatrix.asColumn(1, 2, 3));
+ * </pre>
+ */
+public class DenseMatrix implements Matrix<Double> {
+
+    /**
+     * Size of square blocks to multiply at a time, chosen so that three blocks (64 * 64 * 8 bytes each) fit in a
+     * typical L2 cache.
+     */
+    private static final int  BLOCK         = 64;
+    private static final long PARALLEL_WORK = 1L << 21;
+
+    private final int      rows;
+    private final int      cols;
+    private final double[] data;
+
+    public static DenseMatrix asDenseMatrix(Matrix<Double> matrix) {
+
+        if (matrix instanceof DenseMatrix) {
+            return (DenseMatrix) matrix;
+        } else {
+            return new DenseMatrix(matrix);
+        }
+
+    }
+
+    public static DenseMatrix asRow(double... values) {
+        return new DenseMatrix(1, values.length, values);
+    }
+
+    public static DenseMatrix asColumn(double... values) {
+        return new DenseMatrix(values.length, 1, values);
+    }
+
+    public static DenseMatrix identity(int size) {
+
+        DenseMatrix identity = new DenseMatrix(size, size);
+
+        for (int i = 0; i < size; i++) {
+            identity.data[i * size + i] = 1.0;
+        }
+
+        return identity;
+
+    }
+
+    /**
+     * Creates a matrix of zeros with the given dimensions.
+     *
+     * @param rows Number of rows
+     * @param cols Number of columns
+     */
+    public DenseMatrix(int rows, int cols) {
+
+        if (rows < 0 || cols < 0) {
+            throw new MatrixException("Matrix dimensions cannot be negative.");
+        }
+
+        this.rows = rows;
+        this.cols = cols;
+        this.data = new double[rows * cols];
+
+    }
+
+    /**
+     * Creates a matrix with the given dimensions, filled with the given values going along each row in turn.
+     *
+     * @param rows   Number of rows
+     * @param cols   Number of columns
+     * @param values Values
+     */
+    public DenseMatrix(int rows, int cols, double... values) {
+
+        this(rows, cols);
+
+        if (values.length != data.length) {
+            throw new DimensionException(values.length, data.length);
+        }
+
+        System.arraycopy(values, 0, data, 0, data.length);
+
+    }
+
+    /**
+     * Creates a matrix from the given 2D array of values, indexed as [row][column].
+     *
+     * @param values Values
+     */
+    public DenseMatrix(double[][] values) {
+
+        this(values.length, values.length > 0 ? values[0].length : 0);
+
+        for (int r = 0; r < rows; r++) {
+
+            if (values[r].length != cols) {
+                throw new DimensionException(values[r].length, cols);
+            }
+
+            System.arraycopy(values[r], 0, data, r * cols, cols);
+
+        }
+
+    }
+
+    /**
+     * Creates a copy of the given matrix.
+     *
+     * @param matrix Matrix to copy
+     */
+    public DenseMatrix(Matrix<Double> matrix) {
+
+        this(matrix.rows(), matrix.cols());
+
+        if (matrix instanceof DenseMatrix) {
+
+            System.arraycopy(((DenseMatrix) matrix).data, 0, data, 0, data.length);
+
+        } else if (matrix instanceof RealMatrix) {
+
+            double[][] values = ((RealMatrix) matrix).realMatrix().getData();
+
+            for (int r = 0; r < rows; r++) {
+                System.arraycopy(values[r], 0, data, r * cols, cols);
+            }
+
+        } else {
+
+            int i = 0;
+            for (double v : matrix.getFlatData()) {
+                data[i++] = v;
+            }
+
+        }
+
+    }
+
+    @Override
+    public int rows() {
+        return rows;
+    }
+
+    @Override
+    public int cols() {
+        return cols;
+    }
+
+    @Override
+    public void checkIndices(int row, int col) throws IndexException {
+
+        if (row < 0 || col < 0 || row >= rows || col >= cols) {
+            throw new IndexException(row, col, this);
+        }
+
+    }
+
+    /**
+     * Returns the element at the given indices as a primitive double.
+     *
+     * @param row Row index
+     * @param col Column index
+     *
+     * @return Element at (row,col)
+     */
+    public double getEntry(int row, int col) {
+        checkIndices(row, col);
+        return data[row * cols + col];
+    }
+
+    /**
+     * Sets the element at the given indices.
+     *
+     * @param row   Row index
+     * @param col   Column index
+     * @param value Value to set
+     */
+    public void setEntry(int row, int col, double value) {
+        checkIndices(row, col);
+        data[row * cols + col] = value;
+    }
+
+    @Override
+    public Double get(int row, int col) {
+        return getEntry(row, col);
+    }
+
+    @Override
+    public void set(int row, int col, Double value) {
+        setEntry(row, col, value);
+    }
+
+    @Override
+    public Double[][] getData() {
+
+        Double[][] values = new Double[rows][cols];
+
+        for (int r = 0; r < rows; r++) {
+
+            for (int c = 0; c < cols; c++) {
+                values[r][c] = data[r * cols + c];
+            }
+
+        }
+
+        return values;
+
+    }
+
+    @Override
+    public Double[] getFlatData() {
+
+        Double[] values = new Double[data.length];
+
+        for (int i = 0; i < data.length; i++) {
+            values[i] = data[i];
+        }
+
+        return values;
+
+    }
+
+    /**
+     * Returns a copy of all elements as a flat array of primitive doubles, going along each row in turn.
+     *
+     * @return All elements
+     */
+    public double[] getArray() {
+        return data.clone();
+    }
+
+    /**
+     * Returns a copy of all elements as a 2D array of primitive doubles, indexed as [row][column].
+     *
+     * @return All elements
+     */
+    public double[][] getArray2D() {
+
+        double[][] values = new double[rows][];
+
+        for (int r = 0; r < rows; r++) {
+            values[r] = Arrays.copyOfRange(data, r * cols, (r + 1) * cols);
+        }
+
+        return values;
+
+    }
+
+    /**
+     * Returns a copy of this matrix as a (commons-math backed) RealMatrix.
+     *
+     * @return RealMatrix copy
+     */
+    public RealMatrix toRealMatrix() {
+        return new RealMatrix(getArray2D());
+    }
+
+    public double[] getRow(int row) {
+        checkIndices(row, 0);
+        return Arrays.copyOfRange(data, row * cols, (row + 1) * cols);
+    }
+
+    public double[] getCol(int col) {
+
+        checkIndices(0, col);
+
+        double[] values = new double[rows];
+
+        for (int r = 0; r < rows; r++) {
+            values[r] = data[r * cols + col];
+        }
+
+        return values;
+
+    }
+
+    public void setRow(int row, double... values) {
+
+        checkIndices(row, 0);
+
+        if (values.length != cols) {
+            throw new DimensionException(values.length, cols);
+        }
+
+        System.arraycopy(values, 0, data, row * cols, cols);
+
+    }
+
+    public void setCol(int col, double... values) {
+
+        checkIndices(0, col);
+
+        if (values.length != rows) {
+            throw new DimensionException(values.length, rows);
+        }
+
+        for (int r = 0; r < rows; r++) {
+            data[r * cols + col] = values[r];
+        }
+
+    }
+
+    @Override
+    public void setCol(int col, Double... values) {
+
+        checkIndices(0, col);
+
+        if (values.length != rows) {
+            throw new DimensionException(values.length, 1, rows, 1);
+        }
+
+        for (int r = 0; r < rows; r++) {
+            data[r * cols + col] = values[r];
+        }
+
+    }
+
+    @Override
+    public void setCol(int col, Matrix<Double> values) {
+
+        if (values.rows() != rows) {
+            throw new DimensionException(values, rows, -1);
+        }
+
+        if (values.cols() != 1) {
+            throw new NonColException();
+        }
+
+        checkIndices(0, col);
+
+        for (int r = 0; r < rows; r++) {
+            data[r * cols + col] = values.get(r, 0);
+        }
+
+    }
+
+    @Override
+    public DenseMatrix getDiagonal() {
+
+        if (!isSquare()) {
+            throw new NonSquareException();
+        }
+
+        DenseMatrix diagonal = new DenseMatrix(rows, 1);
+
+        for (int i = 0; i < rows; i++) {
+            diagonal.data[i] = data[i * cols + i];
+        }
+
+        return diagonal;
+
+    }
+
+    @Override
+    public void setDiagonal(Double... values) {
+
+        if (!isSquare()) {
+            throw new NonSquareException();
+        }
+
+        if (values.length != rows) {
+            throw new DimensionException(values.length, rows);
+        }
+
+        for (int i = 0; i < rows; i++) {
+            data[i * cols + i] = values[i];
+        }
+
+    }
+
+    @Override
+    public void setDiagonal(Double value) {
+
+        if (!isSquare()) {
+            throw new NonSquareException();
+        }
+
+        for (int i = 0; i < rows; i++) {
+            data[i * cols + i] = value;
+        }
+
+    }
+
+    @Override
+    public void setAll(Double... values) {
+
+        if (values.length != data.length) {
+            throw new DimensionException(values.length, data.length);
+        }
+
+        for (int i = 0; i < data.length; i++) {
+            data[i] = values[i];
+        }
+
+    }
+
+    public void setAll(double[] values) {
+
+        if (values.length != data.length) {
+            throw new DimensionException(values.length, data.length);
+        }
+
+        System.arraycopy(values, 0, data, 0, data.length);
+
+    }
+
+    @Override
+    public void setAll(Double value) {
+        Arrays.fill(data, value);
+    }
+
+    @Override
+    public void mapElement(int row, int col, GFunction<Double, Double> mapper) {
+        checkIndices(row, col);
+        data[row * cols + col] = mapper.value(data[row * cols + col]);
+    }
+
+    @Override
+    public void multiplyElement(int row, int col, Double value) {
+        checkIndices(row, col);
+        data[row * cols + col] *= value;
+    }
+
+    @Override
+    public void divideElement(int row, int col, Double value) {
+        checkIndices(row, col);
+        data[row * cols + col] /= value;
+    }
+
+    @Override
+    public void addToElement(int row, int col, Double value) {
+        checkIndices(row, col);
+        data[row * cols + col] += value;
+    }
+
+    @Override
+    public void subtractFromElement(int row, int col, Double value) {
+        checkIndices(row, col);
+        data[row * cols + col] -= value;
+    }
+
+    @Override
+    public DenseMatrix map(EntryMapper<Double, Double> mapper) {
+
+        DenseMatrix result = new DenseMatrix(rows, cols);
+
+        for (int r = 0; r < rows; r++) {
+
+            for (int c = 0; c < cols; c++) {
+                result.data[r * cols + c] = mapper.map(r, c, data[r * cols + c]);
+            }
+
+        }
+
+        return result;
+
+    }
+
+    @Override
+    public DenseMatrix map(GFunction<Double, Double> mapper) {
+
+        DenseMatrix result = new DenseMatrix(rows, cols);
+
+        for (int i = 0; i < data.length; i++) {
+            result.data[i] = mapper.value(data[i]);
+        }
+
+        return result;
+
+    }
+
+    @Override
+    public void mapSelf(EntryMapper<Double, Double> mapper) {
+
+        for (int r = 0; r < rows; r++) {
+
+            for (int c = 0; c < cols; c++) {
+                data[r * cols + c] = mapper.map(r, c, data[r * cols + c]);
+            }
+
+        }
+
+    }
+
+    @Override
+    public void mapSelf(GFunction<Double, Double> mapper) {
+
+        for (int i = 0; i < data.length; i++) {
+            data[i] = mapper.value(data[i]);
+        }
+
+    }
+
+    @Override
+    public void mapRow(int row, LinearMapper<Double> mapper) {
+
+        checkIndices(row, 0);
+
+        for (int c = 0; c < cols; c++) {
+            data[row * cols + c] = mapper.map(c, data[row * cols + c]);
+        }
+
+    }
+
+    @Override
+    public void mapCol(int col, LinearMapper<Double> mapper) {
+
+        checkIndices(0, col);
+
+        for (int r = 0; r < rows; r++) {
+            data[r * cols + col] = mapper.map(r, data[r * cols + col]);
+        }
+
+    }
+
+    @Override
+    public void mapRowToRow(int source, int dest, LinearMapper<Double> mapper) {
+
+        checkIndices(source, 0);
+        checkIndices(dest, 0);
+
+        for (int c = 0; c < cols; c++) {
+            data[dest * cols + c] = mapper.map(c, data[source * cols + c]);
+        }
+
+    }
+
+    @Override
+    public void mapColToCol(int source, int dest, LinearMapper<Double> mapper) {
+
+        checkIndices(0, source);
+        checkIndices(0, dest);
+
+        for (int r = 0; r < rows; r++) {
+            data[r * cols + dest] = mapper.map(r, data[r * cols + source]);
+        }
+
+    }
+
+    @Override
+    public Double[] getRowArray(int row) {
+
+        checkIndices(row, 0);
+
+        Double[] values = new Double[cols];
+
+        for (int c = 0; c < cols; c++) {
+            values[c] = data[row * cols + c];
+        }
+
+        return values;
+
+    }
+
+    @Override
+    public Double[] getColArray(int col) {
+
+        checkIndices(0, col);
+
+        Double[] values = new Double[rows];
+
+        for (int r = 0; r < rows; r++) {
+            values[r] = data[r * cols + col];
+        }
+
+        return values;
+
+    }
+
+    @Override
+    public DenseMatrix getRowMatrix(int row) {
+        return asRow(getRow(row));
+    }
+
+    @Override
+    public DenseMatrix getColMatrix(int col) {
+        return asColumn(getCol(col));
+    }
+
+    @Override
+    public DenseMatrix multiply(Matrix<Double> rhs) {
+
+        if (!Matrix.canMultiply(this, rhs)) {
+            throw new DimensionException(rhs, cols, -1);
+        }
+
+        DenseMatrix result = new DenseMatrix(rows, rhs.cols());
+        multiply(this, asDenseMatrix(rhs), result);
+        return result;
+
+    }
+
+    /**
+     * Multiplies this matrix by another (this * rhs), writing the result into an existing matrix instead of creating a
+     * new one. The result matrix may be this matrix or rhs, in which case a temporary copy is made.
+     *
+     * @param rhs    Right-hand side of multiplication
+     * @param result Matrix to write the result into (must be this.rows() x rhs.cols())
+     */
+    public void multiplyInto(Matrix<Double> rhs, DenseMatrix result) {
+
+        if (!Matrix.canMultiply(this, rhs)) {
+            throw new DimensionException(rhs, cols, -1);
+        }
+
+        if (result.rows != rows || result.cols != rhs.cols()) {
+            throw new DimensionException(result, rows, rhs.cols());
+        }
+
+        DenseMatrix right = asDenseMatrix(rhs);
+
+        if (result == this || result == right) {
+            DenseMatrix temp = new DenseMatrix(rows, right.cols);
+            multiply(this, right, temp);
+            System.arraycopy(temp.data, 0, result.data, 0, result.data.length);
+        } else {
+            multiply(this, right, result);
+        }
+
+    }
+
+    private static void multiply(DenseMatrix lhs, DenseMatrix rhs, DenseMatrix result) {
+
+        Arrays.fill(result.data, 0.0);
+
+        long work = (long) lhs.rows * lhs.cols * rhs.cols;
+
+        if (work < PARALLEL_WORK || lhs.rows <= BLOCK) {
+            multiplyRows(lhs, rhs, result, 0, lhs.rows);
+        } else {
+            ForkJoinPool.commonPool().invoke(new MultiplyTask(lhs, rhs, result, 0, lhs.rows));
+        }
+
+    }
+
+    /**
+     * Accumulates rows [start, end) of lhs * rhs into result, going through the matrices in square blocks so that
+     * the parts of each being used stay in cache. The innermost loop runs along a row of both rhs and result, so
+     * memory is always read contiguously.
+     */
+    private static void multiplyRows(DenseMatrix lhs, DenseMatrix rhs, DenseMatrix result, int start, int end) {
+
+        double[] a     = lhs.data;
+        double[] b     = rhs.data;
+        double[] c     = result.data;
+        int      inner = lhs.cols;
+        int      width = rhs.cols;
+
+        for (int i0 = start; i0 < end; i0 += BLOCK) {
+
+            int iMax = Math.min(i0 + BLOCK, end);
+
+            for (int k0 = 0; k0 < inner; k0 += BLOCK) {
+
+                int kMax = Math.min(k0 + BLOCK, inner);
+
+                for (int j0 = 0; j0 < width; j0 += BLOCK) {
+
+                    int jMax = Math.min(j0 + BLOCK, width);
+
+                    for (int i = i0; i < iMax; i++) {
+
+                        int aRow = i * inner;
+                        int cRow = i * width;
+
+                        for (int k = k0; k < kMax; k++) {
+
+                            double aik = a[aRow + k];
+
+                            if (aik == 0.0) {
+                                continue;
+                            }
+
+                            int bRow = k * width;
+
+                            for (int j = j0; j < jMax; j++) {
+                                c[cRow + j] += aik * b[bRow + j];
+                            }
+
+                        }
+
+                    }
+
+                }
+
+            }
+
+        }
+
+    }
+
+    @Override
+    public DenseMatrix leftMultiply(Matrix<Double> lhs) {
+        return asDenseMatrix(lhs).multiply(this);
+    }
+
+    @Override
+    public DenseMatrix multiply(Double rhs) {
+
+        DenseMatrix result = copy();
+        result.multiplySelf(rhs);
+        return result;
+
+    }
+
+    @Override
+    public DenseMatrix leftMultiply(Double lhs) {
+        return multiply(lhs);
+    }
+
+    @Override
+    public DenseMatrix elementMultiply(Matrix<Double> rhs) {
+        return combine(rhs, (a, b) -> a * b);
+    }
+
+    @Override
+    public DenseMatrix leftElementMultiply(Matrix<Double> lhs) {
+        return elementMultiply(lhs);
+    }
+
+    @Override
+    public DenseMatrix elementDivide(Matrix<Double> rhs) {
+        return combine(rhs, (a, b) -> a / b);
+    }
+
+    @Override
+    public DenseMatrix leftElementDivide(Matrix<Double> lhs) {
+
+        if (!Matrix.dimensionsMatch(this, lhs)) {
+            throw new DimensionException(lhs, this);
+        }
+
+        return combine(lhs, (a, b) -> b / a);
+
+    }
+
+    @Override
+    public DenseMatrix divide(Double rhs) {
+
+        DenseMatrix result = copy();
+        result.divideSelf(rhs);
+        return result;
+
+    }
+
+    @Override
+    public DenseMatrix leftDivide(Double lhs) {
+
+        DenseMatrix result = new DenseMatrix(rows, cols);
+
+        for (int i = 0; i < data.length; i++) {
+            result.data[i] = lhs / data[i];
+        }
+
+        return result;
+
+    }
+
+    @Override
+    public DenseMatrix add(Matrix<Double> rhs) {
+        return combine(rhs, Double::sum);
+    }
+
+    @Override
+    public DenseMatrix add(Double rhs) {
+
+        DenseMatrix result = copy();
+        result.addSelf(rhs);
+        return result;
+
+    }
+
+    @Override
+    public DenseMatrix subtract(Matrix<Double> rhs) {
+        return combine(rhs, (a, b) -> a - b);
+    }
+
+    @Override
+    public DenseMatrix subtract(Double rhs) {
+        return add(-rhs);
+    }
+
+    /**
+     * Adds the given matrix to this one, in-place. As with add(), the given matrix may instead be a single row, single
+     * column or scalar matrix, which is then added to every row, column or element respectively.
+     *
+     * @param rhs Matrix to add
+     */
+    public void addSelf(Matrix<Double> rhs) {
+        combine(rhs, data, Double::sum);
+    }
+
+    /**
+     * Adds the given value to every element of this matrix, in-place.
+     *
+     * @param rhs Value to add
+     */
+    public void addSelf(double rhs) {
+
+        for (int i = 0; i < data.length; i++) {
+            data[i] += rhs;
+        }
+
+    }
+
+    /**
+     * Subtracts the given matrix from this one, in-place.
+     *
+     * @param rhs Matrix to subtract
+     */
+    public void subtractSelf(Matrix<Double> rhs) {
+        combine(rhs, data, (a, b) -> a - b);
+    }
+
+    /**
+     * Multiplies every element of this matrix by the given value, in-place.
+     *
+     * @param rhs Value to multiply by
+     */
+    public void multiplySelf(double rhs) {
+
+        for (int i = 0; i < data.length; i++) {
+            data[i] *= rhs;
+        }
+
+    }
+
+    /**
+     * Divides every element of this matrix by the given value, in-place.
+     *
+     * @param rhs Value to divide by
+     */
+    public void divideSelf(double rhs) {
+
+        for (int i = 0; i < data.length; i++) {
+            data[i] /= rhs;
+        }
+
+    }
+
+    /**
+     * Multiplies each element of this matrix by its corresponding element in the given matrix, in-place.
+     *
+     * @param rhs Matrix to multiply by
+     */
+    public void elementMultiplySelf(Matrix<Double> rhs) {
+        combine(rhs, data, (a, b) -> a * b);
+    }
+
+    /**
+     * Divides each element of this matrix by its corresponding element in the given matrix, in-place.
+     *
+     * @param rhs Matrix to divide by
+     */
+    public void elementDivideSelf(Matrix<Double> rhs) {
+        combine(rhs, data, (a, b) -> a / b);
+    }
+
+    /**
+     * Adds a multiple of the given matrix to this one, in-place (this += factor * rhs).
+     *
+     * @param factor Factor to multiply rhs by
+     * @param rhs    Matrix to add (same dimensions as this)
+     */
+    public void addMultipleSelf(double factor, Matrix<Double> rhs) {
+
+        if (!Matrix.dimensionsMatch(this, rhs)) {
+            throw new DimensionException(rhs, this);
+        }
+
+        double[] other = asDenseMatrix(rhs).data;
+
+        for (int i = 0; i < data.length; i++) {
+            data[i] += factor * other[i];
+        }
+
+    }
+
+    private DenseMatrix combine(Matrix<Double> rhs, DoubleBinaryOperator operation) {
+        DenseMatrix result = new DenseMatrix(rows, cols);
+        combine(rhs, result.data, operation);
+        return result;
+    }
+
+    /**
+     * Applies the given operation to each element of this matrix along with its corresponding element in rhs, writing
+     * the results into the given array. If rhs is a single row, column or element, it is repeated to match this matrix.
+     */
+    private void combine(Matrix<Double> rhs, double[] result, DoubleBinaryOperator operation) {
+
+        double[] other = asDenseMatrix(rhs).data;
+
+        if (Matrix.dimensionsMatch(this, rhs)) {
+
+            for (int i = 0; i < data.length; i++) {
+                result[i] = operation.applyAsDouble(data[i], other[i]);
+            }
+
+        } else if (Matrix.rowMatrixMatch(this, rhs)) {
+
+            for (int r = 0; r < rows; r++) {
+
+                for (int c = 0; c < cols; c++) {
+                    result[r * cols + c] = operation.applyAsDouble(data[r * cols + c], other[c]);
+                }
+
+            }
+
+        } else if (Matrix.colMatrixMatch(this, rhs)) {
+
+            for (int r = 0; r < rows; r++) {
+
+                for (int c = 0; c < cols; c++) {
+                    result[r * cols + c] = operation.applyAsDouble(data[r * cols + c], other[r]);
+                }
+
+            }
+
+        } else if (Matrix.isScalar(rhs)) {
+
+            for (int i = 0; i < data.length; i++) {
+                result[i] = operation.applyAsDouble(data[i], other[0]);
+            }
+
+        } else {
+            throw new DimensionException(rhs, this);
+        }
+
+    }
+
+    @Override
+    public DenseMatrix times(Matrix<Double> rhs) {
+        return multiply(rhs);
+    }
+
+    @Override
+    public DenseMatrix times(Double rhs) {
+        return multiply(rhs);
+    }
+
+    @Override
+    public DenseMatrix divide(Matrix<Double> rhs) {
+        return multiply(rhs.invert());
+    }
+
+    @Override
+    public DenseMatrix div(Matrix<Double> rhs) {
+        return divide(rhs);
+    }
+
+    @Override
+    public DenseMatrix div(Double rhs) {
+        return divide(rhs);
+    }
+
+    @Override
+    public DenseMatrix plus(Matrix<Double> rhs) {
+        return add(rhs);
+    }
+
+    @Override
+    public DenseMatrix plus(Double rhs) {
+        return add(rhs);
+    }
+
+    @Override
+    public DenseMatrix minus(Matrix<Double> rhs) {
+        return subtract(rhs);
+    }
+
+    @Override
+    public DenseMatrix minus(Double rhs) {
+        return subtract(rhs);
+    }
+
+    @Override
+    public DenseMatrix copy() {
+        return new DenseMatrix(rows, cols, data);
+    }
+
+    @Override
+    public DenseMatrix getSubMatrix(int[] rows, int[] cols) {
+
+        DenseMatrix subMatrix = new DenseMatrix(rows.length, cols.length);
+
+        for (int r = 0; r < rows.length; r++) {
+
+            if (rows[r] < 0 || rows[r] >= this.rows) {
+                throw new SubMatrixException(this, rows, cols);
+            }
+
+            for (int c = 0; c < cols.length; c++) {
+
+                if (cols[c] < 0 || cols[c] >= this.cols) {
+                    throw new SubMatrixException(this, rows, cols);
+                }
+
+                subMatrix.data[r * cols.length + c] = data[rows[r] * this.cols + cols[c]];
+
+            }
+
+        }
+
+        return subMatrix;
+
+    }
+
+    @Override
+    public DenseMatrix getSubMatrix(int startRow, int endRow, int startCol, int endCol) {
+
+        if (startRow < 0 || startCol < 0 || endRow >= rows || endCol >= cols || endRow < startRow || endCol < startCol) {
+            throw new SubMatrixException(this, new int[]{startRow, endRow}, new int[]{startCol, endCol});
+        }
+
+        int         width     = endCol - startCol + 1;
+        DenseMatrix subMatrix = new DenseMatrix(endRow - startRow + 1, width);
+
+        for (int r = startRow; r <= endRow; r++) {
+            System.arraycopy(data, r * cols + startCol, subMatrix.data, (r - startRow) * width, width);
+        }
+
+        return subMatrix;
+
+    }
+
+    @Override
+    public void setSubMatrix(int startRow, int startCol, Matrix<Double> subMatrix) {
+
+        if (startRow < 0 || startCol < 0 || startRow + subMatrix.rows() > rows || startCol + subMatrix.cols() > cols) {
+            throw new SubMatrixException(this, subMatrix, startRow, startCol);
+        }
+
+        DenseMatrix source = asDenseMatrix(subMatrix);
+
+        for (int r = 0; r < source.rows; r++) {
+            System.arraycopy(source.data, r * source.cols, data, (startRow + r) * cols + startCol, source.cols);
+        }
+
+    }
+
+    @Override
+    public DenseMatrix appendRows(Matrix<Double> rows) {
+
+        if (rows.cols() != cols) {
+            throw new DimensionException(rows, -1, cols);
+        }
+
+        DenseMatrix newMatrix = new DenseMatrix(this.rows + rows.rows(), cols);
+
+        newMatrix.setSubMatrix(0, 0, this);
+        newMatrix.setSubMatrix(this.rows, 0, rows);
+
+        return newMatrix;
+
+    }
+
+    @Override
+    public DenseMatrix appendCols(Matrix<Double> cols) {
+
+        if (cols.rows() != rows) {
+            throw new DimensionException(cols, this.cols, -1);
+        }
+
+        DenseMatrix newMatrix = new DenseMatrix(rows, this.cols + cols.cols());
+
+        newMatrix.setSubMatrix(0, 0, this);
+        newMatrix.setSubMatrix(0, this.cols, cols);
+
+        return newMatrix;
+
+    }
+
+    @Override
+    public boolean isSingular() {
+        return !isSquare() || getLU().isSingular();
+    }
+
+    @Override
+    public Double getDeterminant() {
+        return getLU().getDeterminant();
+    }
+
+    @Override
+    public Double getTrace() {
+
+        if (!isSquare()) {
+            throw new NonSquareException();
+        }
+
+        double value = 0;
+
+        for (int i = 0; i < rows; i++) {
+            value += data[i * cols + i];
+        }
+
+        return value;
+
+    }
+
+    @Override
+    public DenseMatrix invert() {
+        return getLU().solve(identity(rows));
+    }
+
+    @Override
+    public DenseMatrix transpose() {
+
+        DenseMatrix result = new DenseMatrix(cols, rows);
+
+        // Done in blocks so that neither the reads nor the writes jump about in memory too much
+        for (int r0 = 0; r0 < rows; r0 += BLOCK) {
+
+            int rMax = Math.min(r0 + BLOCK, rows);
+
+            for (int c0 = 0; c0 < cols; c0 += BLOCK) {
+
+                int cMax = Math.min(c0 + BLOCK, cols);
+
+                for (int r = r0; r < rMax; r++) {
+
+                    for (int c = c0; c < cMax; c++) {
+                        result.data[c * rows + r] = data[r * cols + c];
+                    }
+
+                }
+
+            }
+
+        }
+
+        return result;
+
+    }
+
+    @Override
+    public DenseMatrix reshape(int rows, int cols) {
+
+        if (rows * cols != size()) {
+            throw new DimensionException(rows * cols, size());
+        }
+
+        return new DenseMatrix(rows, cols, data);
+
+    }
+
+    /**
+     * Solves this * x = rhs for x. If this matrix is square, this is done by LU decomposition. Otherwise (if there are
+     * more rows than columns) the least-squares solution is found by QR decomposition.
+     *
+     * @param rhs Right-hand side of equation
+     *
+     * @return Solution, x
+     */
+    @Override
+    public DenseMatrix leftDivide(Matrix<Double> rhs) {
+
+        if (rows != rhs.rows()) {
+            throw new DimensionException(rhs, rows, -1);
+        }
+
+        if (isSquare()) {
+            return getLU().solve(rhs);
+        } else {
+            return getQR().solve(rhs);
+        }
+
+    }
+
+    @Override
+    public QR getQR() {
+        return new QR(this);
+    }
+
+    @Override
+    public LU getLU() {
+
+        if (!isSquare()) {
+            throw new NonSquareException();
+        }
+
+        return new LU(this);
+
+    }
+
+    @Override
+    public DenseMatrix getRowSums() {
+
+        DenseMatrix sums = new DenseMatrix(rows, 1);
+
+        for (int r = 0; r < rows; r++) {
+
+            double sum = 0.0;
+
+            for (int c = 0; c < cols; c++) {
+                sum += data[r * cols + c];
+            }
+
+            sums.data[r] = sum;
+
+        }
+
+        return sums;
+
+    }
+
+    @Override
+    public DenseMatrix getColSums() {
+
+        DenseMatrix sums = new DenseMatrix(1, cols);
+
+        for (int r = 0; r < rows; r++) {
+
+            for (int c = 0; c < cols; c++) {
+                sums.data[c] += data[r * cols + c];
+            }
+
+        }
+
+        return sums;
+
+    }
+
+    public double getMaxElement() {
+
+        double max = Double.NEGATIVE_INFINITY;
+
+        for (double v : data) {
+            max = Math.max(max, v);
+        }
+
+        return max;
+
+    }
+
+    public double getMinElement() {
+
+        double min = Double.POSITIVE_INFINITY;
+
+        for (double v : data) {
+            min = Math.min(min, v);
+        }
+
+        return min;
+
+    }
+
+    public String toString() {
+
+        String[] rowStrings = new String[rows];
+
+        for (int r = 0; r < rows; r++) {
+
+            String[] colStrings = new String[cols];
+
+            for (int c = 0; c < cols; c++) {
+                colStrings[c] = Double.toString(data[r * cols + c]);
+            }
+
+            rowStrings[r] = String.join(", ", colStrings);
+
+        }
+
+        return "[ " + String.join("; ", rowStrings) + " ]";
+
+    }
+
+    /**
+     * Splits the multiplication of a large matrix into bands of rows, each of which is done on its own thread.
+     */
+    private static class MultiplyTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final DenseMatrix lhs;
+        private final DenseMatrix rhs;
+        private final DenseMatrix result;
+        private final int         start;
+        private final int         end;
+
+        private MultiplyTask(DenseMatrix lhs, DenseMatrix rhs, DenseMatrix result, int start, int end) {
+            this.lhs    = lhs;
+            this.rhs    = rhs;
+            this.result = result;
+            this.start  = start;
+            this.end    = end;
+        }
+
+        @Override
+        protected void compute() {
+
+            long work = (long) (end - start) * lhs.cols * rhs.cols;
+
+            if (end - start <= BLOCK || work < PARALLEL_WORK) {
+                multiplyRows(lhs, rhs, result, start, end);
+                return;
+            }
+
+            // Split on a block boundary so that both halves still work in whole blocks
+            int middle = start + Math.max(1, (end - start) / (2 * BLOCK)) * BLOCK;
+
+            invokeAll(
+                new MultiplyTask(lhs, rhs, result, start, middle),
+                new MultiplyTask(lhs, rhs, result, middle, end)
+            );
+
+        }
+
+    }
+
+    /**
+     * LU decomposition (with partial pivoting) of a square DenseMatrix, such that P * A = L * U. L and U are stored
+     * together in a single flat array, with the unit diagonal of L left implicit. The matrix is taken to be singular
+     * if a pivot is smaller than SINGULARITY_THRESHOLD times its largest element, so that the result does not depend
+     * on the units the values are in.
+     */
+    public static class LU implements jisa.maths.matrices.LU<Double> {
+
+        private static final double SINGULARITY_THRESHOLD = 1e-11;
+
+        private final int      size;
+        private final double[] lu;
+        private final int[]    pivot;
+        private final boolean  singular;
+        private final int      sign;
+
+        public LU(DenseMatrix matrix) {
+
+            if (!matrix.isSquare()) {
+                throw new NonSquareException();
+            }
+
+            size  = matrix.rows;
+            lu    = matrix.data.clone();
+            pivot = new int[size];
+
+            boolean singular  = false;
+            int     sign      = 1;
+            double  tolerance = 0.0;
+
+            for (int i = 0; i < size; i++) {
+                pivot[i] = i;
+            }
+
+            for (double value : lu) {
+                tolerance = Math.max(tolerance, Math.abs(value));
+            }
+
+            tolerance *= SINGULARITY_THRESHOLD;
+
+            for (int k = 0; k < size; k++) {
+
+                int    best = k;
+                double max  = Math.abs(lu[k * size + k]);
+
+                for (int i = k + 1; i < size; i++) {
+
+                    double value = Math.abs(lu[i * size + k]);
+
+                    if (value > max) {
+                        max  = value;
+                        best = i;
+                    }
+
+                }
+
+                if (max <= tolerance) {
+                    singular = true;
+                    continue;
+                }
+
+                if (best != k) {
+
+                    for (int j = 0; j < size; j++) {
+                        double temp = lu[k * size + j];
+                        lu[k * size + j]    = lu[best * size + j];
+                        lu[best * size + j] = temp;
+                    }
+
+                    int temp = pivot[k];
+                    pivot[k]    = pivot[best];
+                    pivot[best] = temp;
+                    sign        = -sign;
+
+                }
+
+                double diagonal = lu[k * size + k];
+
+                // Eliminate below the pivot, going along rows so that the inner loop is contiguous
+                for (int i = k + 1; i < size; i++) {
+
+                    double factor = lu[i * size + k] / diagonal;
+
+                    lu[i * size + k] = factor;
+
+                    if (factor == 0.0) {
+                        continue;
+                    }
+
+                    for (int j = k + 1; j < size; j++) {
+                        lu[i * size + j] -= factor * lu[k * size + j];
+                    }
+
+                }
+
+            }
+
+            this.singular = singular;
+            this.sign     = sign;
+
+        }
+
+        @Override
+        public DenseMatrix getL() {
+
+            DenseMatrix l = new DenseMatrix(size, size);
+
+            for (int r = 0; r < size; r++) {
+                System.arraycopy(lu, r * size, l.data, r * size, r);
+                l.data[r * size + r] = 1.0;
+            }
+
+            return l;
+
+        }
+
+        @Override
+        public DenseMatrix getU() {
+
+            DenseMatrix u = new DenseMatrix(size, size);
+
+            for (int r = 0; r < size; r++) {
+                System.arraycopy(lu, r * size + r, u.data, r * size + r, size - r);
+            }
+
+            return u;
+
+        }
+
+        @Override
+        public DenseMatrix getP() {
+
+            DenseMatrix p = new DenseMatrix(size, size);
+
+            for (int r = 0; r < size; r++) {
+                p.data[r * size + pivot[r]] = 1.0;
+            }
+
+            return p;
+
+        }
+
+        public boolean isSingular() {
+            return singular;
+        }
+
+        public double getDeterminant() {
+
+            if (singular) {
+                return 0.0;
+            }
+
+            double determinant = sign;
+
+            for (int i = 0; i < size; i++) {
+                determinant *= lu[i * size + i];
+            }
+
+            return determinant;
+
+        }
+
+        /**
+         * Solves A * x = rhs for x, where A is the decomposed matrix.
+         *
+         * @param rhs Right-hand side
+         *
+         * @return Solution, x
+         */
+        public DenseMatrix solve(Matrix<Double> rhs) {
+
+            if (rhs.rows() != size) {
+                throw new DimensionException(rhs, size, -1);
+            }
+
+            if (singular) {
+                throw new SingularException();
+            }
+
+            DenseMatrix b     = asDenseMatrix(rhs);
+            int         width = b.cols;
+            DenseMatrix x     = new DenseMatrix(size, width);
+
+            for (int r = 0; r < size; r++) {
+                System.arraycopy(b.data, pivot[r] * width, x.data, r * width, width);
+            }
+
+            // Forward substitution with L (unit diagonal)
+            for (int i = 0; i < size; i++) {
+
+                for (int k = 0; k < i; k++) {
+
+                    double factor = lu[i * size + k];
+
+                    if (factor == 0.0) {
+                        continue;
+                    }
+
+                    for (int j = 0; j < width; j++) {
+                        x.data[i * width + j] -= factor * x.data[k * width + j];
+                    }
+
+                }
+
+            }
+
+            // Back substitution with U
+            for (int i = size - 1; i >= 0; i--) {
+
+                for (int k = i + 1; k < size; k++) {
+
+                    double factor = lu[i * size + k];
+
+                    if (factor == 0.0) {
+                        continue;
+                    }
+
+                    for (int j = 0; j < width; j++) {
+                        x.data[i * width + j] -= factor * x.data[k * width + j];
+                    }
+
+                }
+
+                double diagonal = lu[i * size + i];
+
+                for (int j = 0; j < width; j++) {
+                    x.data[i * width + j] /= diagonal;
+                }
+
+            }
+
+            return x;
+
+        }
+
+    }
+
+    /**
+     * QR decomposition of a DenseMatrix by Householder reflections, such that A = Q * R. The Householder vectors are
+     * kept below the diagonal of a single flat array, with R above it. A diagonal element of R is taken to be zero if
+     * it is smaller than SINGULARITY_THRESHOLD times the norm of its column of A, so that scaling a column does not
+     * change the result.
+     */
+    public static class QR implements jisa.maths.matrices.QR<Double> {
+
+        private static final double SINGULARITY_THRESHOLD = 1e-11;
+
+        private final int      rows;
+        private final int      cols;
+        private final int      steps;
+        private final double[] qr;
+        private final double[] rDiag;
+        private final double[] norms;
+
+        public QR(DenseMatrix matrix) {
+
+            rows  = matrix.rows;
+            cols  = matrix.cols;
+            steps = Math.min(rows, cols);
+            qr    = matrix.data.clone();
+            rDiag = new double[steps];
+            norms = new double[steps];
+
+            double[] sums = new double[cols];
+
+            for (int i = 0; i < rows; i++) {
+
+                for (int j = 0; j < steps; j++) {
+                    norms[j] += qr[i * cols + j] * qr[i * cols + j];
+                }
+
+            }
+
+            for (int k = 0; k < steps; k++) {
+
+                double norm = 0.0;
+
+                for (int i = k; i < rows; i++) {
+                    norm += qr[i * cols + k] * qr[i * cols + k];
+                }
+
+                norm = Math.sqrt(norm);
+
+                if (norm == 0.0) {
+                    rDiag[k] = 0.0;
+                    continue;
+                }
+
+                double diagonal = qr[k * cols + k];
+                double alpha    = diagonal > 0 ? -norm : norm;
+
+                rDiag[k]         = alpha;
+                qr[k * cols + k] = diagonal - alpha;
+
+                reflect(k, qr, cols, k + 1, sums);
+
+            }
+
+        }
+
+        /**
+         * Applies the k-th Householder reflection to columns [from, width) of the given row-major array (which has
+         * the same number of rows as the decomposed matrix). Dot products for every column are built up a row at a
+         * time, so that the array is only ever read along its rows.
+         */
+        private void reflect(int k, double[] target, int width, int from, double[] sums) {
+
+            double scale = rDiag[k] * qr[k * cols + k];
+
+            if (scale == 0.0) {
+                return;
+            }
+
+            Arrays.fill(sums, from, width, 0.0);
+
+            for (int i = k; i < rows; i++) {
+
+                double v = qr[i * cols + k];
+
+                for (int j = from; j < width; j++) {
+                    sums[j] += v * target[i * width + j];
+                }
+
+            }
+
+            for (int j = from; j < width; j++) {
+                sums[j] /= scale;
+            }
+
+            for (int i = k; i < rows; i++) {
+
+                double v = qr[i * cols + k];
+
+                for (int j = from; j < width; j++) {
+                    target[i * width + j] += sums[j] * v;
+                }
+
+            }
+
+        }
+
+        @Override
+        public DenseMatrix getQ() {
+
+            DenseMatrix q    = identity(rows);
+            double[]    sums = new double[rows];
+
+            for (int k = steps - 1; k >= 0; k--) {
+                reflect(k, q.data, rows, k, sums);
+            }
+
+            return q;
+
+        }
+
+        @Override
+        public DenseMatrix getR() {
+
+            DenseMatrix r = new DenseMatrix(rows, cols);
+
+            for (int i = 0; i < steps; i++) {
+
+                r.data[i * cols + i] = rDiag[i];
+
+                if (i + 1 < cols) {
+                    System.arraycopy(qr, i * cols + i + 1, r.data, i * cols + i + 1, cols - i - 1);
+                }
+
+            }
+
+            return r;
+
+        }
+
+        @Override
+        public DenseMatrix getQT() {
+            return getQ().transpose();
+        }
+
+        @Override
+        public DenseMatrix getH() {
+
+            DenseMatrix h = new DenseMatrix(rows, cols);
+
+            for (int j = 0; j < steps; j++) {
+
+                if (rDiag[j] == 0.0) {
+                    continue;
+                }
+
+                for (int i = j; i < rows; i++) {
+                    h.data[i * cols + j] = qr[i * cols + j] / -rDiag[j];
+                }
+
+            }
+
+            return h;
+
+        }
+
+        /**
+         * Finds the least-squares solution, x, to A * x = rhs, where A is the decomposed matrix (which must have at
+         * least as many rows as columns).
+         *
+         * @param rhs Right-hand side
+         *
+         * @return Solution, x
+         */
+        public DenseMatrix solve(Matrix<Double> rhs) {
+
+            if (rhs.rows() != rows) {
+                throw new DimensionException(rhs, rows, -1);
+            }
+
+            if (rows < cols) {
+                throw new MatrixException("Least-squares solution needs at least as many rows as columns.");
+            }
+
+            for (int i = 0; i < steps; i++) {
+
+                if (Math.abs(rDiag[i]) <= SINGULARITY_THRESHOLD * Math.sqrt(norms[i])) {
+                    throw new SingularException();
+                }
+
+            }
+
+            int         width = rhs.cols();
+            DenseMatrix y     = new DenseMatrix(asDenseMatrix(rhs));
+            double[]    sums  = new double[width];
+
+            // y = Q^T * rhs
+            for (int k = 0; k < steps; k++) {
+                reflect(k, y.data, width, 0, sums);
+            }
+
+            // Back substitution with the top (square) part of R
+            DenseMatrix x = new DenseMatrix(cols, width);
+
+            for (int i = cols - 1; i >= 0; i--) {
+
+                for (int j = 0; j < width; j++) {
+
+                    double sum = y.data[i * width + j];
+
+                    for (int k = i + 1; k < cols; k++) {
+                        sum -= qr[i * cols + k] * x.data[k * width + j];
+                    }
+
+                    x.data[i * width + j] = sum / rDiag[i];
+
+                }
+
+            }
+
+            return x;
+
+        }
+
+    }
+
+}
@@ -89,6 +89,21 @@ public class VISADevice implements Instrument {
 
     }
 
+    /**
+     * Wraps an already-opened connection, bypassing the driver look-up performed by VISA.openInstrument(...).
+     *
+     * @param connection Open connection to use
+     * @param address    Address the connection is to (can be null)
+     */
+    public VISADevice(Connection connection, Address address) {
+
+        this.connection = connection;
+        this.address    = address;
+
+        opened.add(new WeakReference<>(this));
+
+    }
+
     public synchronized void clearBuffers() throws IOException {
 
         try {